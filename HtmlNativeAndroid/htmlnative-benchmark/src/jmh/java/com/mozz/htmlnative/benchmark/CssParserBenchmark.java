@@ -0,0 +1,84 @@
+package com.mozz.htmlnative.benchmark;
+
+import com.mozz.htmlnative.HNSegment;
+import com.mozz.htmlnative.exception.HNSyntaxError;
+import com.mozz.htmlnative.parser.CssParser;
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.reader.StringTextReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Css only: a page which is nothing but a stylesheet of the given count of rules, and inline
+ * styles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+public class CssParserBenchmark {
+
+    private static final String INLINE_STYLE = "width: 100%; height: 120px; margin: 4px 8px; " +
+            "padding: 2px; color: #ff0000; font-size: 14px; background: url(http://example" +
+            ".com/bg.png) #fff; text-align: center; display: flex";
+
+    @Param({"100", "1000"})
+    public int rules;
+
+    private String mStyleSheet;
+    private int mStyleSheetBytes;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("<html><head><style>");
+        for (int i = 0; i < rules; i++) {
+            switch (i % 4) {
+                case 0:
+                    sb.append(".c").append(i);
+                    break;
+                case 1:
+                    sb.append("#i").append(i);
+                    break;
+                case 2:
+                    sb.append("div .c").append(i).append(" > p");
+                    break;
+                default:
+                    sb.append("p, .c").append(i);
+                    break;
+            }
+            sb.append(" { color: #").append(100 + i % 900).append("; width: ").append(i % 300)
+                    .append("px; margin: ").append(i % 10).append("px ").append(i % 7).append
+                    ("px; background: url(http://example.com/").append(i).append(".png) #fff; }\n");
+        }
+        sb.append("</style></head><body></body></html>");
+
+        mStyleSheet = sb.toString();
+        mStyleSheetBytes = Documents.utf8Length(mStyleSheet);
+    }
+
+    @Benchmark
+    public HNSegment styleSheet(ByteCounter counter) throws HNSyntaxError {
+        counter.bytes += mStyleSheetBytes;
+        return new Parser(new StringTextReader(mStyleSheet)).process();
+    }
+
+    @State(Scope.Thread)
+    public static class InlineState {
+        final StringBuilder buffer = new StringBuilder();
+        final Map<String, Object> out = new HashMap<>();
+    }
+
+    @Benchmark
+    public Map<String, Object> inlineStyle(InlineState state, ByteCounter counter) {
+        counter.bytes += INLINE_STYLE.length();
+        CssParser.parseInlineStyle(INLINE_STYLE, state.buffer, state.out);
+        return state.out;
+    }
+}
@@ -0,0 +1,93 @@
+package com.mozz.htmlnative.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Sources for the benchmarks: the pages of htmlnative-demo, and synthetic documents of a given
+ * count of nodes.
+ */
+public final class Documents {
+
+    public static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String[] CLASSES = {"heading", "summary", "card", "avatar", "info",
+            "footer", "highlight", "muted"};
+
+    private static final String[] COLORS = {"#333", "#ff0000", "#00ff00", "blue", "#a0a0a0",
+            "gray"};
+
+    private Documents() {
+    }
+
+    /**
+     * @param name file name in the assets of htmlnative-demo, such as article.html
+     */
+    public static String asset(String name) throws IOException {
+        InputStream in = Documents.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IOException("can't find asset " + name);
+        }
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), UTF_8);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * A page with a stylesheet and about nodeCount elements, made of cards like
+     * <pre>
+     * &lt;div class="card" id="c1" style="..."&gt;
+     *     &lt;p class="heading"&gt;..&lt;/p&gt;&lt;img src=".."/&gt;&lt;span&gt;..&lt;/span&gt;
+     * &lt;/div&gt;
+     * </pre>
+     * Content only depends on nodeCount, so runs are comparable.
+     */
+    public static String synthetic(int nodeCount) {
+        StringBuilder sb = new StringBuilder(nodeCount * 80);
+        sb.append("<html><head><title>synthetic ").append(nodeCount).append("</title>");
+        sb.append("<meta name=\"version\" content=\"1\"/>");
+        sb.append("<style>");
+        for (int i = 0; i < CLASSES.length; i++) {
+            sb.append('.').append(CLASSES[i]).append(" { color: ").append(COLORS[i % COLORS
+                    .length]).append("; font-size: ").append(12 + i).append("px; padding: ")
+                    .append(i).append("px ").append(i * 2).append("px; }\n");
+            sb.append("div .").append(CLASSES[i]).append(" > p { margin: ").append(i).append
+                    ("px; }\n");
+        }
+        sb.append("#c0, #c1 { background: url(http://example.com/bg.png) #fff; }\n");
+        sb.append("p { line-height: 1.5; } img { width: 100%; height: 120px; }");
+        sb.append("</style></head><body>");
+
+        // each card is 4 nodes
+        int cards = Math.max(1, nodeCount / 4);
+        for (int i = 0; i < cards; i++) {
+            String clazz = CLASSES[i % CLASSES.length];
+            sb.append("<div class=\"card ").append(clazz).append("\" id=\"c").append(i)
+                    .append("\" style=\"width: 100%; margin: ").append(i % 8).append
+                    ("px; background: ").append(COLORS[i % COLORS.length]).append("\">");
+            sb.append("<p class=\"heading\">Card number ").append(i).append(" of ").append(cards)
+                    .append("</p>");
+            sb.append("<img src=\"http://example.com/").append(i).append(".jpg\"/>");
+            sb.append("<span style=\"color: ").append(COLORS[(i + 1) % COLORS.length]).append
+                    ("\">").append("tag").append(i % 16).append("</span>");
+            sb.append("</div>");
+        }
+        sb.append("</body></html>");
+        return sb.toString();
+    }
+
+    public static int utf8Length(String s) {
+        return s.getBytes(UTF_8).length;
+    }
+}
@@ -0,0 +1,43 @@
+package com.mozz.htmlnative.benchmark;
+
+import com.mozz.htmlnative.HNSegment;
+import com.mozz.htmlnative.exception.HNSyntaxError;
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.reader.StringTextReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+/**
+ * Whole parse (lexer, parser and css parser) of the demo pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+public class ParserBenchmark {
+
+    @Param({"article.html", "background.html", "flex.html", "img.html", "inlinestyle.html",
+            "luatest.html", "selector.html", "text.html"})
+    public String asset;
+
+    private String mSource;
+    private int mBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        mSource = Documents.asset(asset);
+        mBytes = Documents.utf8Length(mSource);
+    }
+
+    @Benchmark
+    public HNSegment parse(ByteCounter counter) throws HNSyntaxError {
+        counter.bytes += mBytes;
+        return new Parser(new StringTextReader(mSource)).process();
+    }
+}
@@ -0,0 +1,44 @@
+package com.mozz.htmlnative.benchmark;
+
+import com.mozz.htmlnative.HNSegment;
+import com.mozz.htmlnative.exception.HNSyntaxError;
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.reader.StringTextReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole parse of synthetic pages with 10k to 100k nodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SyntheticParserBenchmark {
+
+    @Param({"10000", "50000", "100000"})
+    public int nodes;
+
+    private String mSource;
+    private int mBytes;
+
+    @Setup
+    public void setUp() {
+        mSource = Documents.synthetic(nodes);
+        mBytes = Documents.utf8Length(mSource);
+    }
+
+    @Benchmark
+    public HNSegment parse(ByteCounter counter) throws HNSyntaxError {
+        counter.bytes += mBytes;
+        return new Parser(new StringTextReader(mSource)).process();
+    }
+}
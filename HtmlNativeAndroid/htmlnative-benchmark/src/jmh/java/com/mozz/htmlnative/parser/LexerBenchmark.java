@@ -0,0 +1,56 @@
+package com.mozz.htmlnative.parser;
+
+import com.mozz.htmlnative.benchmark.ByteCounter;
+import com.mozz.htmlnative.benchmark.Documents;
+import com.mozz.htmlnative.exception.HNSyntaxError;
+import com.mozz.htmlnative.parser.token.Token;
+import com.mozz.htmlnative.reader.StringTextReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.EOFException;
+
+/**
+ * Tokenizing only. In package parser since {@link Lexer} is package private. Body of the
+ * synthetic page is used, since style and script are scanned by their own parsers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+public class LexerBenchmark {
+
+    @Param({"10000", "100000"})
+    public int nodes;
+
+    private String mSource;
+    private int mBytes;
+
+    @Setup
+    public void setUp() {
+        String page = Documents.synthetic(nodes);
+        mSource = page.substring(page.indexOf("<body>"));
+        mBytes = Documents.utf8Length(mSource);
+    }
+
+    @Benchmark
+    public int scan(ByteCounter counter) throws HNSyntaxError {
+        counter.bytes += mBytes;
+
+        Lexer lexer = new Lexer(new StringTextReader(mSource));
+        int count = 0;
+        try {
+            while (true) {
+                Token token = lexer.scan();
+                token.recycle();
+                count++;
+            }
+        } catch (EOFException e) {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package android.os;
+
+/**
+ * JVM replacement of android's SystemClock, used by the Tracker of Parser.
+ */
+public final class SystemClock {
+
+    private SystemClock() {
+    }
+
+    public static long uptimeMillis() {
+        return System.nanoTime() / 1000000;
+    }
+
+    public static long currentThreadTimeMillis() {
+        return System.nanoTime() / 1000000;
+    }
+}
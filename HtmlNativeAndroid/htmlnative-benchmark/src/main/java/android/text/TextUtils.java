@@ -0,0 +1,14 @@
+package android.text;
+
+/**
+ * JVM replacement of android's TextUtils.
+ */
+public class TextUtils {
+
+    private TextUtils() {
+    }
+
+    public static boolean isEmpty(CharSequence str) {
+        return str == null || str.length() == 0;
+    }
+}
@@ -0,0 +1,17 @@
+package android.util;
+
+import java.util.HashMap;
+
+/**
+ * JVM replacement of android's ArrayMap, only the {@link java.util.Map} api is used by the
+ * parser.
+ */
+public final class ArrayMap<K, V> extends HashMap<K, V> {
+
+    public ArrayMap() {
+    }
+
+    public ArrayMap(int capacity) {
+        super(capacity);
+    }
+}
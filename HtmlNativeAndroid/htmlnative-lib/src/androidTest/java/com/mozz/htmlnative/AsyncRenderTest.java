@@ -0,0 +1,118 @@
+package com.mozz.htmlnative;
+
+import android.content.Context;
+import android.os.Looper;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.widget.TextView;
+
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.reader.StringTextReader;
+import com.mozz.htmlnative.utils.ParametersUtils;
+import com.mozz.htmlnative.view.BackgroundViewDelegate;
+import com.mozz.htmlnative.view.HNRootView;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class AsyncRenderTest {
+
+    private ImageViewAdapter mImageViewAdapter;
+
+    /**
+     * srcs set to the image adapter and the threads setting them, guarded by itself
+     */
+    private final List<String> mSrcs = new ArrayList<>();
+    private final List<Thread> mSrcThreads = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        // registers the WebView factory
+        HNativeEngine.version();
+        ParametersUtils.init(InstrumentationRegistry.getTargetContext());
+
+        mImageViewAdapter = HNativeEngine.getImageViewAdapter();
+        HNativeEngine.getInstance().setImageViewAdapter(new ImageViewAdapter() {
+            @Override
+            public void setImage(String src, BackgroundViewDelegate imageView) {
+                synchronized (mSrcs) {
+                    mSrcs.add(src);
+                    mSrcThreads.add(Thread.currentThread());
+                }
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        HNativeEngine.getInstance().setImageViewAdapter(mImageViewAdapter);
+    }
+
+    @Test
+    public void buildOffMainThread() throws Exception {
+        HNSegment segment = new Parser(new StringTextReader("<body><div><p>text</p><img " +
+                "src=\"a.png\"/></div></body>")).process();
+        Assert.assertTrue(HNRenderer.canBuildOffMainThread(segment));
+    }
+
+    @Test
+    public void webViewNeedsMainThread() throws Exception {
+        HNSegment segment = new Parser(new StringTextReader("<body><div><p>text</p><iframe " +
+                "src=\"http://a.com\"/></div></body>")).process();
+        Assert.assertFalse(HNRenderer.canBuildOffMainThread(segment));
+    }
+
+    @Test
+    public void buildOnWorkerThenFinish() throws Exception {
+        final Context context = InstrumentationRegistry.getTargetContext();
+        final HNSegment segment = new Parser(new StringTextReader("<body><div><p id=\"p\">" +
+                "text</p><img src=\"a.png\"/></div></body>")).process();
+        final HNRenderer renderer = HNRenderer.get();
+
+        final boolean[] built = new boolean[1];
+        Thread worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    built[0] = renderer.build(context, segment, true);
+                } catch (HNRenderer.HNRenderException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        worker.start();
+        worker.join();
+
+        Assert.assertTrue(built[0]);
+        // queued until the views are delivered
+        synchronized (mSrcs) {
+            Assert.assertTrue(mSrcs.isEmpty());
+        }
+
+        final View[] root = new View[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                root[0] = renderer.finishBuild();
+            }
+        });
+
+        synchronized (mSrcs) {
+            Assert.assertEquals(Collections.singletonList("a.png"), mSrcs);
+            Assert.assertSame(Looper.getMainLooper().getThread(), mSrcThreads.get(0));
+        }
+
+        // styles not needing main thread are applied by the worker
+        View p = ((HNRootView) root[0]).findViewById("p");
+        Assert.assertEquals("text", ((TextView) p).getText().toString());
+    }
+}
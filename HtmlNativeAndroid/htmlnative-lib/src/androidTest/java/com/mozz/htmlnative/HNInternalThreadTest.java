@@ -0,0 +1,102 @@
+package com.mozz.htmlnative;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import com.mozz.htmlnative.common.WefRunnable;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+public class HNInternalThreadTest {
+
+    private final List<String> mOrder = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() {
+        HNInternalThread.quit();
+        HNInternalThread.setWorkerCount(1);
+    }
+
+    @After
+    public void tearDown() {
+        HNInternalThread.quit();
+    }
+
+    private Runnable record(final String name, final CountDownLatch done) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                mOrder.add(name);
+                done.countDown();
+            }
+        };
+    }
+
+    /**
+     * @return latch to release the only worker
+     */
+    private static CountDownLatch blockWorker() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        HNInternalThread.run(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        started.await();
+        return release;
+    }
+
+    @Test
+    public void priority() throws Exception {
+        CountDownLatch release = blockWorker();
+        CountDownLatch done = new CountDownLatch(4);
+
+        HNInternalThread.run(record("prefetch1", done), HNInternalThread.PRIORITY_PREFETCH);
+        HNInternalThread.run(record("foreground1", done));
+        HNInternalThread.run(record("prefetch2", done), HNInternalThread.PRIORITY_PREFETCH);
+        HNInternalThread.run(record("foreground2", done));
+
+        release.countDown();
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList("foreground1", "foreground2", "prefetch1",
+                "prefetch2"), new ArrayList<>(mOrder));
+    }
+
+    @Test
+    public void cancelByContext() throws Exception {
+        CountDownLatch release = blockWorker();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Object screen = new Object();
+        HNInternalThread.run(new WefRunnable<Object>(screen) {
+            @Override
+            protected void run(Object o) {
+                mOrder.add("cancelled");
+            }
+        });
+        HNInternalThread.run(record("kept", done));
+
+        Assert.assertEquals(1, HNInternalThread.cancel(screen));
+
+        release.countDown();
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Collections.singletonList("kept"), new ArrayList<>(mOrder));
+    }
+}
@@ -0,0 +1,89 @@
+package com.mozz.htmlnative;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.reader.StringTextReader;
+import com.mozz.htmlnative.utils.ParametersUtils;
+import com.mozz.htmlnative.view.HNListView;
+import com.mozz.htmlnative.view.HNRootView;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class HNListViewTest {
+
+    private static final int ITEM_COUNT = 1000;
+
+    @Rule
+    public ActivityTestRule<TestActivity> mActivityRule = new ActivityTestRule<>(TestActivity
+            .class);
+
+    /**
+     * The list has no fixed height and HNRootView is a scroll view, still only the rows
+     * scrolled into the list are created.
+     */
+    @Test
+    public void createVisibleRowsOnly() throws Exception {
+        final TestActivity activity = mActivityRule.getActivity();
+        ParametersUtils.init(activity);
+        final HNSegment segment = new Parser(new StringTextReader("<html><body><p>head</p><list " +
+                "id=\"list\"><div><p>{{title}}</p></div></list></body></html>")).process();
+
+        final List<Object> items = new ArrayList<>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items.add(Collections.singletonMap("title", "row " + i));
+        }
+
+        final HNRootView[] root = new HNRootView[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    root[0] = (HNRootView) HNRenderer.get().render(activity, segment, new
+                            FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                            ViewGroup.LayoutParams.MATCH_PARENT));
+                } catch (HNRenderer.HNRenderException e) {
+                    e.printStackTrace();
+                }
+                ((HNListView) root[0].findViewById("list")).setData(items);
+                activity.setContentView(root[0]);
+            }
+        });
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+
+        final int[] counts = new int[4];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                HNListView list = (HNListView) root[0].findViewById("list");
+                counts[0] = ((HNListAdapter) list.getAdapter()).createCount();
+                counts[1] = list.getHeight();
+                counts[2] = list.getChildAt(0).getHeight();
+                counts[3] = root[0].getHeight();
+            }
+        });
+
+        int created = counts[0];
+        int listHeight = counts[1];
+        int rowHeight = counts[2];
+        Assert.assertTrue(rowHeight > 0);
+        Assert.assertTrue(listHeight <= counts[3]);
+
+        int visibleRows = (listHeight + rowHeight - 1) / rowHeight;
+        Assert.assertTrue("created " + created + " rows for " + visibleRows + " visible", created
+                <= visibleRows + 2);
+        Assert.assertTrue(created < ITEM_COUNT);
+    }
+}
@@ -0,0 +1,90 @@
+package com.mozz.htmlnative;
+
+import android.content.ComponentCallbacks2;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+
+@RunWith(AndroidJUnit4.class)
+public class HNSegmentCacheTest {
+
+    private static InputStream source(String text) {
+        return new ByteArrayInputStream(("<body><p>" + text + "</p></body>").getBytes());
+    }
+
+    @Test
+    public void hitByContent() throws Exception {
+        HNSegmentCache cache = new HNSegmentCache(4, 1024 * 1024);
+
+        HNSegment first = cache.load(source("a"));
+        Assert.assertSame(first, cache.load(source("a")));
+        Assert.assertNotSame(first, cache.load(source("b")));
+
+        Assert.assertEquals(1, cache.hitCount());
+        Assert.assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    public void hitByVersion() throws Exception {
+        HNSegmentCache cache = new HNSegmentCache(4, 1024 * 1024);
+
+        HNSegment first = cache.load(source("a"), "v1");
+        Assert.assertSame(first, cache.load(source("changed"), "v1"));
+        Assert.assertNotSame(first, cache.load(source("a"), "v2"));
+    }
+
+    @Test
+    public void evictLru() throws Exception {
+        HNSegmentCache cache = new HNSegmentCache(2, 1024 * 1024);
+
+        HNSegment a = cache.load(source("a"));
+        cache.load(source("b"));
+        cache.load(source("a"));
+        cache.load(source("c"));
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertSame(a, cache.load(source("a")));
+
+        cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    public void evictByBytes() throws Exception {
+        HNSegmentCache cache = new HNSegmentCache(16, 40);
+
+        cache.load(source("a"));
+        cache.load(source("b"));
+
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void diskTier() throws Exception {
+        File dir = new File(InstrumentationRegistry.getTargetContext().getCacheDir(),
+                "segment-test");
+
+        HNSegmentCache cache = new HNSegmentCache(4, 1024 * 1024);
+        cache.setDiskDir(dir);
+        cache.clearAll();
+
+        HNSegment first = cache.load(source("a"));
+        cache.clear();
+
+        HNSegment second = cache.load(source("a"));
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(first.getDom().wholeTreeToString(), second.getDom()
+                .wholeTreeToString());
+        Assert.assertEquals(1, cache.diskHitCount());
+
+        cache.clearAll();
+    }
+}
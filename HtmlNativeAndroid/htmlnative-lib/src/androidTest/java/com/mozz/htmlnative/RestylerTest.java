@@ -0,0 +1,182 @@
+package com.mozz.htmlnative;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import com.mozz.htmlnative.dom.AttachedElement;
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.reader.StringTextReader;
+import com.mozz.htmlnative.utils.ParametersUtils;
+import com.mozz.htmlnative.view.BackgroundViewDelegate;
+import com.mozz.htmlnative.view.HNRootView;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class RestylerTest {
+
+    private static final String DOCUMENT = "<html><head><style>.big { padding: 10px; alpha: " +
+            "0.5; color: #ff0000; text-align: center; }</style></head><body><div><p id=\"p\">" +
+            "text</p></div></body></html>";
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getTargetContext();
+        // built-in handlers read the screen density
+        ParametersUtils.init(mContext);
+    }
+
+    /**
+     * Views are not attached to a window, so they can be rendered and restyled here.
+     */
+    @Test
+    public void removeClassRestoresView() throws Exception {
+        HNSegment segment = new Parser(new StringTextReader(DOCUMENT)).process();
+        HNRootView root = (HNRootView) HNRenderer.get().render(mContext, segment, new
+                FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup
+                .LayoutParams.MATCH_PARENT));
+        Restyler restyler = new Restyler(HNSandBoxContextImpl.createContext(root, segment,
+                mContext), root);
+
+        TextView p = (TextView) root.findViewById("p");
+        int paddingLeft = p.getPaddingLeft();
+        int paddingTop = p.getPaddingTop();
+        int color = p.getCurrentTextColor();
+        int gravity = p.getGravity();
+        AttachedElement element = (AttachedElement) p.getTag();
+
+        setClass(restyler, p, element, new String[]{"big"});
+        Assert.assertEquals(0.5f, p.getAlpha(), 0f);
+        Assert.assertNotEquals(paddingLeft, p.getPaddingLeft());
+        Assert.assertNotEquals(color, p.getCurrentTextColor());
+
+        setClass(restyler, p, element, null);
+        Assert.assertEquals(1f, p.getAlpha(), 0f);
+        Assert.assertEquals(paddingLeft, p.getPaddingLeft());
+        Assert.assertEquals(paddingTop, p.getPaddingTop());
+        Assert.assertEquals(color, p.getCurrentTextColor());
+        Assert.assertEquals(gravity, p.getGravity());
+        Assert.assertEquals("text", p.getText().toString());
+        Assert.assertSame(element, p.getTag());
+        Assert.assertEquals(2, restyler.restyleCount());
+    }
+
+    @Test
+    public void restyleKeepsImage() throws Exception {
+        final List<String> srcs = new ArrayList<>();
+        ImageViewAdapter adapter = HNativeEngine.getImageViewAdapter();
+        HNativeEngine.getInstance().setImageViewAdapter(new ImageViewAdapter() {
+            @Override
+            public void setImage(String src, BackgroundViewDelegate imageView) {
+                srcs.add(src);
+                imageView.setBitmap(Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888));
+            }
+        });
+
+        try {
+            HNSegment segment = new Parser(new StringTextReader("<html><head><style>.faded { " +
+                    "alpha: 0.5; }</style></head><body><div><img id=\"img\" src=\"a.png\"/>" +
+                    "</div></body></html>")).process();
+            HNRootView root = (HNRootView) HNRenderer.get().render(mContext, segment, new
+                    FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup
+                    .LayoutParams.MATCH_PARENT));
+            Restyler restyler = new Restyler(HNSandBoxContextImpl.createContext(root, segment,
+                    mContext), root);
+
+            ImageView img = (ImageView) root.findViewById("img");
+            Drawable drawable = img.getDrawable();
+            Assert.assertNotNull(drawable);
+            Assert.assertEquals(1, srcs.size());
+            AttachedElement element = (AttachedElement) img.getTag();
+
+            setClass(restyler, img, element, new String[]{"faded"});
+            Assert.assertEquals(0.5f, img.getAlpha(), 0f);
+            Assert.assertSame(drawable, img.getDrawable());
+
+            setClass(restyler, img, element, null);
+            Assert.assertEquals(1f, img.getAlpha(), 0f);
+            Assert.assertSame(drawable, img.getDrawable());
+            // not loaded again
+            Assert.assertEquals(1, srcs.size());
+        } finally {
+            HNativeEngine.getInstance().setImageViewAdapter(adapter);
+        }
+    }
+
+    /**
+     * Text styles of a button can't be cleared, the common ones still are.
+     */
+    @Test
+    public void removeClassRestoresButton() throws Exception {
+        HNSegment segment = new Parser(new StringTextReader("<html><head><style>.hidden { alpha: " +
+                "0.5; visibility: invisible; padding: 10px; }</style></head><body><div><button " +
+                "id=\"b\">ok</button></div></body></html>")).process();
+        HNRootView root = (HNRootView) HNRenderer.get().render(mContext, segment, new
+                FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup
+                .LayoutParams.MATCH_PARENT));
+        Restyler restyler = new Restyler(HNSandBoxContextImpl.createContext(root, segment,
+                mContext), root);
+
+        Button button = (Button) root.findViewById("b");
+        int paddingLeft = button.getPaddingLeft();
+        Drawable background = button.getBackground();
+        AttachedElement element = (AttachedElement) button.getTag();
+
+        setClass(restyler, button, element, new String[]{"hidden"});
+        Assert.assertEquals(0.5f, button.getAlpha(), 0f);
+        Assert.assertEquals(View.INVISIBLE, button.getVisibility());
+
+        setClass(restyler, button, element, null);
+        Assert.assertEquals(1f, button.getAlpha(), 0f);
+        Assert.assertEquals(View.VISIBLE, button.getVisibility());
+        Assert.assertEquals(paddingLeft, button.getPaddingLeft());
+        Assert.assertSame(background, button.getBackground());
+    }
+
+    @Test
+    public void unregisterOldId() throws Exception {
+        HNSegment segment = new Parser(new StringTextReader(DOCUMENT)).process();
+        HNRootView root = (HNRootView) HNRenderer.get().render(mContext, segment, new
+                FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup
+                .LayoutParams.MATCH_PARENT));
+        HNSandBoxContext sandBoxContext = HNSandBoxContextImpl.createContext(root, segment,
+                mContext);
+
+        View p = root.findViewById("p");
+        sandBoxContext.unregisterId("p", p);
+        sandBoxContext.registerId("q", p);
+        Assert.assertNull(root.findViewById("p"));
+        Assert.assertSame(p, root.findViewById("q"));
+
+        // taken by another view, kept
+        View other = new View(mContext);
+        sandBoxContext.registerId("p", other);
+        sandBoxContext.unregisterId("p", p);
+        Assert.assertSame(other, root.findViewById("p"));
+    }
+
+    private static void setClass(Restyler restyler, View v, AttachedElement element, String[]
+            clazz) {
+        String[] oldClazz = element.getClazz();
+        element.setClazz(clazz);
+        restyler.classChanged(v, oldClazz, clazz);
+        restyler.flush();
+    }
+}
@@ -0,0 +1,258 @@
+package com.mozz.htmlnative;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import com.mozz.htmlnative.dom.DomElement;
+import com.mozz.htmlnative.dom.HNHead;
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.reader.StringTextReader;
+import com.mozz.htmlnative.utils.ParametersUtils;
+import com.mozz.htmlnative.view.HNRootView;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+public class SlicedRenderTest {
+
+    @Rule
+    public ActivityTestRule<TestActivity> mActivityRule = new ActivityTestRule<>(TestActivity
+            .class);
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getTargetContext();
+        // built-in handlers read the screen density
+        ParametersUtils.init(mContext);
+    }
+
+    private static HNSegment longDocument() throws Exception {
+        return longDocument("");
+    }
+
+    private static HNSegment longDocument(String script) throws Exception {
+        StringBuilder sb = new StringBuilder("<html><head><style>.a { padding: 2px; } div > .b " +
+                "{ alpha: 0.5; }</style></head><body>");
+        for (int i = 0; i < 200; i++) {
+            sb.append("<div class=\"a\"><p class=\"b\" id=\"p").append(i).append("\">text ")
+                    .append(i).append("</p><linearbox><p>inner</p></linearbox></div>");
+        }
+        sb.append("</body>").append(script).append("</html>");
+        return new Parser(new StringTextReader(sb.toString())).process();
+    }
+
+    @Test
+    public void sameAsOnePass() throws Exception {
+        final HNSegment segment = longDocument();
+        final Callback callback = new Callback();
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                HNRenderer.get().renderSliced(mContext, segment, 1, callback);
+            }
+        });
+        Assert.assertTrue(callback.mFinished.await(10, TimeUnit.SECONDS));
+        // rendered in more than one frame
+        Assert.assertTrue(callback.mProgressCount > 1);
+        Assert.assertSame(callback.mLoaded, callback.mFinishedRoot);
+
+        final View[] onePass = new View[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    onePass[0] = HNRenderer.get().render(mContext, segment, new FrameLayout
+                            .LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup
+                            .LayoutParams.MATCH_PARENT));
+                } catch (HNRenderer.HNRenderException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+
+        assertSameTree(onePass[0], callback.mFinishedRoot);
+    }
+
+    @Test
+    public void pauseWhenDetached() throws Exception {
+        final TestActivity activity = mActivityRule.getActivity();
+        final HNSegment segment = longDocument();
+        final Callback callback = new DetachOnceCallback(activity);
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                HNRenderer.get().renderSliced(activity, segment, 1, callback);
+            }
+        });
+        Assert.assertFalse(callback.mFinished.await(500, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, callback.mProgressCount);
+    }
+
+    @Test
+    public void resumeWhenAttached() throws Exception {
+        final TestActivity activity = mActivityRule.getActivity();
+        final HNSegment segment = longDocument("<script type=\"lua\">getElementById(\"p0\")" +
+                ".setId(\"done\")</script>");
+        final Callback callback = new DetachOnceCallback(activity);
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                HNRenderer.get().renderSliced(activity, segment, 1, callback);
+            }
+        });
+        Assert.assertFalse(callback.mFinished.await(300, TimeUnit.MILLISECONDS));
+
+        // the page is shown again, e.g. popped from the back stack
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                activity.setContentView(callback.mLoaded);
+            }
+        });
+        Assert.assertTrue(callback.mFinished.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(callback.mProgressCount > 1);
+        Assert.assertSame(callback.mLoaded, callback.mFinishedRoot);
+
+        // the script posts setId to main thread
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        HNRootView root = (HNRootView) callback.mFinishedRoot;
+        Assert.assertNotNull(root.findViewById("done"));
+        Assert.assertNull(root.findViewById("p0"));
+    }
+
+    @Test
+    public void cancelWhenReleased() throws Exception {
+        final TestActivity activity = mActivityRule.getActivity();
+        final HNSegment segment = longDocument();
+        final Callback callback = new Callback() {
+            @Override
+            public void onProgress(View v, int rendered, int total) {
+                super.onProgress(v, rendered, total);
+                // the page is closed for good after the first frame
+                ((HNRootView) v).release();
+            }
+        };
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                HNRenderer.get().renderSliced(activity, segment, 1, callback);
+            }
+        });
+        Assert.assertFalse(callback.mFinished.await(500, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, callback.mProgressCount);
+    }
+
+    private static void assertSameTree(View expected, View actual) {
+        Assert.assertEquals(expected.getClass(), actual.getClass());
+        Assert.assertEquals(expected.getPaddingLeft(), actual.getPaddingLeft());
+        Assert.assertEquals(expected.getPaddingTop(), actual.getPaddingTop());
+        Assert.assertEquals(expected.getAlpha(), actual.getAlpha(), 0f);
+
+        if (expected.getTag() instanceof DomElement) {
+            DomElement expectedElement = (DomElement) expected.getTag();
+            DomElement actualElement = (DomElement) actual.getTag();
+            Assert.assertEquals(expectedElement.getType(), actualElement.getType());
+            Assert.assertEquals(expectedElement.getId(), actualElement.getId());
+        }
+
+        ViewGroup.LayoutParams expectedParams = expected.getLayoutParams();
+        if (expectedParams != null) {
+            Assert.assertEquals(expectedParams.width, actual.getLayoutParams().width);
+            Assert.assertEquals(expectedParams.height, actual.getLayoutParams().height);
+        }
+
+        if (expected instanceof TextView) {
+            Assert.assertEquals(((TextView) expected).getText().toString(), ((TextView) actual)
+                    .getText().toString());
+        }
+
+        if (expected instanceof ViewGroup) {
+            ViewGroup expectedGroup = (ViewGroup) expected;
+            ViewGroup actualGroup = (ViewGroup) actual;
+            Assert.assertEquals(expectedGroup.getChildCount(), actualGroup.getChildCount());
+            for (int i = 0; i < expectedGroup.getChildCount(); i++) {
+                assertSameTree(expectedGroup.getChildAt(i), actualGroup.getChildAt(i));
+            }
+        }
+    }
+
+    /**
+     * called on main thread only
+     */
+    private static class Callback implements HNativeEngine.OnHNViewProgress {
+
+        View mLoaded;
+        View mFinishedRoot;
+        volatile int mProgressCount;
+        final CountDownLatch mFinished = new CountDownLatch(1);
+
+        @Override
+        public void onViewLoaded(View v) {
+            mLoaded = v;
+        }
+
+        @Override
+        public void onProgress(View v, int rendered, int total) {
+            mProgressCount++;
+        }
+
+        @Override
+        public void onRenderFinished(View v) {
+            mFinishedRoot = v;
+            mFinished.countDown();
+        }
+
+        @Override
+        public void onError(Exception e) {
+        }
+
+        @Override
+        public void onHead(HNHead head) {
+        }
+    }
+
+    /**
+     * Shows the root in activity, and detaches it after the first frame.
+     */
+    private static class DetachOnceCallback extends Callback {
+
+        private final TestActivity mActivity;
+
+        DetachOnceCallback(TestActivity activity) {
+            mActivity = activity;
+        }
+
+        @Override
+        public void onViewLoaded(View v) {
+            super.onViewLoaded(v);
+            mActivity.setContentView(v);
+        }
+
+        @Override
+        public void onProgress(View v, int rendered, int total) {
+            super.onProgress(v, rendered, total);
+            if (mProgressCount == 1) {
+                mActivity.setContentView(new View(mActivity));
+            }
+        }
+    }
+}
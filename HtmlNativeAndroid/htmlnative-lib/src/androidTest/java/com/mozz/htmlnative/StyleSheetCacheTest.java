@@ -0,0 +1,147 @@
+package com.mozz.htmlnative;
+
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.TypedValue;
+
+import com.mozz.htmlnative.common.PixelValue;
+import com.mozz.htmlnative.css.Cascade;
+import com.mozz.htmlnative.css.StyleResolver;
+import com.mozz.htmlnative.css.StyleSheet;
+import com.mozz.htmlnative.css.selector.TypeSelector;
+import com.mozz.htmlnative.dom.HNDomTree;
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.parser.binary.SegmentReader;
+import com.mozz.htmlnative.parser.binary.SegmentWriter;
+import com.mozz.htmlnative.reader.StringTextReader;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(AndroidJUnit4.class)
+public class StyleSheetCacheTest {
+
+    private static final String BASE = ".a { width: 1px; height: 1px; } div > .a { alpha: 0.5 }";
+
+    private static final String DOCUMENT = "<html><head><link rel=\"stylesheet\" " +
+            "href=\"base.css\"/><style>.a { height: 2px; }</style></head><body><div " +
+            "class=\"a\"></div></body></html>";
+
+    private int mLoadCount;
+
+    @Before
+    public void setUp() {
+        StyleSheetCache.get().clear();
+        StyleSheetCache.get().setLoader(new StyleSheetLoader() {
+            @Override
+            public String loadStyleSheet(@NonNull String href) {
+                mLoadCount++;
+                return "base.css".equals(href) || "copy.css".equals(href) ? BASE : null;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        StyleSheetCache.get().setLoader(null);
+        StyleSheetCache.get().clear();
+    }
+
+    @Test
+    public void shareAcrossSegments() throws Exception {
+        HNSegment first = new Parser(new StringTextReader(DOCUMENT)).process();
+        HNSegment second = new Parser(new StringTextReader(DOCUMENT)).process();
+
+        StyleSheet[] linked = first.getStyleSheet().linked();
+        Assert.assertEquals(1, linked.length);
+        Assert.assertSame(linked[0], second.getStyleSheet().linked()[0]);
+        Assert.assertTrue(linked[0].isShared());
+        Assert.assertEquals(1, mLoadCount);
+
+        // same content, parsed once
+        Assert.assertSame(linked[0], StyleSheetCache.get().load("copy.css"));
+        Assert.assertNull(StyleSheetCache.get().load("missing.css"));
+    }
+
+    @Test
+    public void pageWinsLinked() throws Exception {
+        HNSegment segment = new Parser(new StringTextReader(DOCUMENT)).process();
+
+        HNDomTree div = segment.getDom().children().get(0);
+        Cascade cascade = new StyleResolver(false).resolve(div, div, segment.getInlineStyles(),
+                segment.getStyleSheet(), null);
+
+        Assert.assertEquals(new PixelValue(1, TypedValue.COMPLEX_UNIT_PX), cascade.get("width"));
+        Assert.assertEquals(new PixelValue(2, TypedValue.COMPLEX_UNIT_PX), cascade.get("height"));
+    }
+
+    @Test
+    public void sharedIsReadOnly() throws Exception {
+        StyleSheet shared = StyleSheetCache.get().load("base.css");
+        Assert.assertNotNull(shared);
+        try {
+            shared.putSelector(new TypeSelector("p"));
+            Assert.fail("shared StyleSheet is changed");
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    public void keepLinksInBinary() throws Exception {
+        HNSegment origin = new Parser(new StringTextReader(DOCUMENT)).process();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SegmentWriter().write(origin, out);
+        HNSegment loaded = new SegmentReader(new ByteArrayInputStream(out.toByteArray())).read();
+
+        Assert.assertSame(origin.getStyleSheet().linked()[0], loaded.getStyleSheet().linked()
+                [0]);
+    }
+
+    @Test
+    public void loadOnceConcurrently() throws Exception {
+        final AtomicInteger loadCount = new AtomicInteger();
+        StyleSheetCache.get().setLoader(new StyleSheetLoader() {
+            @Override
+            public String loadStyleSheet(@NonNull String href) throws IOException {
+                loadCount.incrementAndGet();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return BASE;
+            }
+        });
+
+        final StyleSheet[] loaded = new StyleSheet[4];
+        Thread[] threads = new Thread[loaded.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    loaded[index] = StyleSheetCache.get().load("base.css");
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertNotNull(loaded[0]);
+        for (StyleSheet styleSheet : loaded) {
+            Assert.assertSame(loaded[0], styleSheet);
+        }
+    }
+}
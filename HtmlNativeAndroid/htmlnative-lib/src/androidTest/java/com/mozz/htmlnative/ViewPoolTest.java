@@ -0,0 +1,119 @@
+package com.mozz.htmlnative;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import com.mozz.htmlnative.utils.ParametersUtils;
+import com.mozz.htmlnative.view.BackgroundViewDelegate;
+import com.mozz.htmlnative.view.HNDiv;
+import com.mozz.htmlnative.view.HNRootView;
+import com.mozz.htmlnative.view.HNText;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public class ViewPoolTest {
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getTargetContext();
+        // built-in handlers read the screen density
+        ParametersUtils.init(mContext);
+        ViewPool.get().clear();
+        ViewPool.get().resize(2);
+    }
+
+    @After
+    public void tearDown() {
+        ViewPool.get().resize(0);
+        ViewPool.get().clear();
+    }
+
+    @Test
+    public void reuse() {
+        HNDiv root = new HNDiv(mContext);
+        HNDiv div = new HNDiv(ViewPool.get().wrap(mContext));
+        HNText text = new HNText(ViewPool.get().wrap(mContext));
+        text.setText("text");
+        text.setTag("tag");
+        div.addView(text);
+        root.addView(div);
+
+        ViewPool.get().recycleChildren(root);
+        Assert.assertEquals(0, root.getChildCount());
+        Assert.assertEquals(0, div.getChildCount());
+        Assert.assertEquals(2, ViewPool.get().size());
+
+        View reused = ViewPool.get().acquire(HNText.class.getName(), mContext);
+        Assert.assertSame(text, reused);
+        Assert.assertEquals(0, text.getText().length());
+        Assert.assertNull(text.getTag());
+        Assert.assertEquals(1, ViewPool.get().hitCount());
+
+        Assert.assertNull(ViewPool.get().acquire(HNText.class.getName(), mContext));
+        Assert.assertEquals(1, ViewPool.get().missCount());
+    }
+
+    @Test
+    public void bounded() {
+        HNDiv root = new HNDiv(mContext);
+        for (int i = 0; i < 3; i++) {
+            root.addView(new HNText(ViewPool.get().wrap(mContext)));
+        }
+        // not created for the pool, or its handler can't reset it
+        root.addView(new HNText(mContext));
+        root.addView(new Button(ViewPool.get().wrap(mContext)));
+
+        ViewPool.get().recycleChildren(root);
+        Assert.assertEquals(2, ViewPool.get().size());
+
+        ViewPool.get().onTrimMemory(Context.TRIM_MEMORY_MODERATE);
+        Assert.assertEquals(0, ViewPool.get().size());
+    }
+
+    @Test
+    public void dropLateImage() {
+        HNDiv root = new HNDiv(mContext);
+        ImageView image = new ImageView(ViewPool.get().wrap(mContext));
+        root.addView(image);
+        BackgroundViewDelegate loading = new BackgroundViewDelegate(image, null, 0, null,
+                "a.png");
+
+        ViewPool.get().recycleChildren(root);
+        Assert.assertSame(image, ViewPool.get().acquire(ImageView.class.getName(), mContext));
+
+        // delivered after the view is rendered for another element
+        loading.setBitmap(Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888));
+        Assert.assertNull(image.getDrawable());
+
+        new BackgroundViewDelegate(image, null, 0, null, "b.png").setBitmap(Bitmap.createBitmap
+                (1, 1, Bitmap.Config.ARGB_8888));
+        Assert.assertNotNull(image.getDrawable());
+    }
+
+    @Test
+    public void recycleOnRelease() {
+        HNRootView root = new HNRootView(mContext);
+        HNText text = new HNText(ViewPool.get().wrap(mContext));
+        root.addContent(text, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        root.putViewWithId("text", text);
+
+        root.release();
+        Assert.assertEquals(1, ViewPool.get().size());
+        Assert.assertNull(root.findViewById("text"));
+    }
+}
@@ -0,0 +1,40 @@
+package com.mozz.htmlnative;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import com.mozz.htmlnative.common.SymbolTable;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public class ViewTypeRelationsTest {
+
+    @Test
+    public void reservedFactoryMatchesClass() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        int created = 0;
+        for (int id = 0; id < SymbolTable.size(); id++) {
+            ViewFactory factory = ViewTypeRelations.findReservedFactory(id);
+            if (factory == null) {
+                continue;
+            }
+            View v = factory.create(context);
+            Assert.assertEquals(SymbolTable.nameOf(id), ViewTypeRelations.findClassByType
+                    (SymbolTable.nameOf(id)), v.getClass().getName());
+            created++;
+        }
+        Assert.assertTrue(created > 0);
+    }
+
+    @Test
+    public void webViewHasNoReservedFactory() {
+        Assert.assertNull(ViewTypeRelations.findReservedFactory(SymbolTable.idOf(HtmlTag
+                .IFRAME)));
+        Assert.assertNull(ViewTypeRelations.findReservedFactory(SymbolTable.idOf("unknown")));
+    }
+}
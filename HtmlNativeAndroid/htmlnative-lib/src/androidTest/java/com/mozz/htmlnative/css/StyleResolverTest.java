@@ -0,0 +1,112 @@
+package com.mozz.htmlnative.css;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.TypedValue;
+
+import com.mozz.htmlnative.HNSegment;
+import com.mozz.htmlnative.common.PixelValue;
+import com.mozz.htmlnative.dom.HNDomTree;
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.reader.StringTextReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public class StyleResolverTest {
+
+    private static final int ITEMS = 20;
+
+    private static String document() {
+        StringBuilder sb = new StringBuilder("<html><head><style>" +
+                ".list .item span { color: #fff; } .item > p { width: 1px; } " +
+                ".odd p { height: 2px; } div { alpha: 1 }</style></head><body>");
+        for (int i = 0; i < ITEMS; i++) {
+            sb.append("<div class=\"item").append(i % 2 == 1 ? " odd" : "").append("\" " +
+                    "style=\"height: 10px\"><span>a</span><p>b</p></div>");
+        }
+        sb.append("<div id=\"x\" class=\"item\"><span>c</span></div>");
+        sb.append("<div class=\"item\" style=\"height: 11px\"><p>d</p></div>");
+        return sb.append("</body></html>").toString();
+    }
+
+    @Test
+    public void shareSameAsResolved() throws Exception {
+        HNSegment segment = new Parser(new StringTextReader(document())).process();
+
+        StyleResolver sharing = new StyleResolver(true);
+        StyleResolver plain = new StyleResolver(false);
+        check(segment, segment.getDom(), sharing, plain);
+
+        Assert.assertEquals(plain.resolveCount(), sharing.resolveCount());
+        Assert.assertEquals(0, plain.shareLookupCount());
+        Assert.assertTrue(sharing.shareHitCount() > ITEMS);
+    }
+
+    private static void check(HNSegment segment, HNDomTree tree, StyleResolver sharing,
+                              StyleResolver plain) {
+        Cascade expected = plain.resolve(tree, tree, segment.getInlineStyles(), segment
+                .getStyleSheet(), null);
+        Cascade actual = sharing.resolve(tree, tree, segment.getInlineStyles(), segment
+                .getStyleSheet(), null);
+        Assert.assertEquals(tree.getType(), expected.toString(), actual.toString());
+
+        sharing.push(tree);
+        for (HNDomTree child : tree.children()) {
+            check(segment, child, sharing, plain);
+        }
+        sharing.pop();
+    }
+
+    @Test
+    public void computeOncePerStyle() throws Exception {
+        HNSegment segment = new Parser(new StringTextReader("<html><head><style>.a { width: " +
+                "1px; margin: 1px; } div { width: 2px; height: 3px; } .a { margin-left: 5px; }" +
+                "</style></head><body><div class=\"a\" style=\"height: 4px\"></div></body>" +
+                "</html>")).process();
+
+        HNDomTree div = segment.getDom().children().get(0);
+        Cascade cascade = new StyleResolver(false).resolve(div, div, segment.getInlineStyles(),
+                segment.getStyleSheet(), null);
+
+        // class selector wins the type selector after it, inline wins all
+        Assert.assertEquals(4, cascade.size());
+        Assert.assertEquals(new PixelValue(1, TypedValue.COMPLEX_UNIT_PX), cascade.get("width"));
+        Assert.assertEquals(new PixelValue(4, TypedValue.COMPLEX_UNIT_PX), cascade.get("height"));
+        Assert.assertEquals(new PixelValue(5, TypedValue.COMPLEX_UNIT_PX), cascade.get
+                ("margin-left"));
+
+        // longhand declared later is applied after the shorthand
+        int margin = -1;
+        int marginLeft = -1;
+        for (int i = 0; i < cascade.size(); i++) {
+            if (cascade.styleName(i).equals("margin")) {
+                margin = i;
+            } else if (cascade.styleName(i).equals("margin-left")) {
+                marginLeft = i;
+            }
+        }
+        Assert.assertTrue(margin >= 0 && margin < marginLeft);
+    }
+
+    @Test
+    public void notShareWithId() throws Exception {
+        HNSegment segment = new Parser(new StringTextReader("<html><head><style>#a { width: " +
+                "1px; }</style></head><body><div id=\"a\"></div><div id=\"a\"></div></body>" +
+                "</html>")).process();
+
+        StyleResolver resolver = new StyleResolver(true);
+        HNDomTree body = segment.getDom();
+        resolver.resolve(body, body, segment.getInlineStyles(), segment.getStyleSheet(), null);
+        resolver.push(body);
+        for (HNDomTree child : body.children()) {
+            resolver.resolve(child, child, segment.getInlineStyles(), segment.getStyleSheet(),
+                    null);
+        }
+        resolver.pop();
+
+        Assert.assertEquals(0, resolver.shareLookupCount());
+        Assert.assertEquals(0, resolver.shareHitCount());
+    }
+}
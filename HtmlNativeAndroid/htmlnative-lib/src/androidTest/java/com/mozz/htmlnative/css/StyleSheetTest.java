@@ -0,0 +1,74 @@
+package com.mozz.htmlnative.css;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import com.mozz.htmlnative.css.selector.CssSelector;
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.reader.StringTextReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public class StyleSheetTest {
+
+    private static final String DOCUMENT = "<html><head><style>" +
+            ".a { width: 1px; } div { color: #fff; } #x { height: 1px; } * { alpha: 1 } " +
+            ".b { width: 2px; } .a p { width: 3px; } div .a { width: 4px; } p { width: 5px; }" +
+            "</style></head><body><div>x</div></body></html>";
+
+    private static StyleSheet parse() throws Exception {
+        return new Parser(new StringTextReader(DOCUMENT)).process().getStyleSheet();
+    }
+
+    private static String orders(MatchedSelectors matched) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < matched.size(); i++) {
+            sb.append(matched.get(i).order()).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    @Test
+    public void mergeInOrder() throws Exception {
+        StyleSheet styleSheet = parse();
+        MatchedSelectors matched = new MatchedSelectors();
+
+        styleSheet.matchedSelector("div", "x", new String[]{"b", "a", "a"}, matched);
+        Assert.assertEquals("0 1 2 3 4 6", orders(matched));
+
+        styleSheet.matchedSelector("span", null, null, matched);
+        Assert.assertEquals("3", orders(matched));
+
+        styleSheet.matchedSelector("p", null, new String[]{"c"}, matched);
+        Assert.assertEquals("3 5 7", orders(matched));
+    }
+
+    @Test
+    public void orderIsIndex() throws Exception {
+        StyleSheet styleSheet = parse();
+        CssSelector[] selectors = styleSheet.selectorsInOrder();
+        for (int i = 0; i < selectors.length; i++) {
+            Assert.assertEquals(i, selectors[i].order());
+        }
+    }
+
+    @Test
+    public void restyleLevel() throws Exception {
+        StyleSheet styleSheet = parse();
+
+        // .a is used by an ancestor part of ".a p"
+        Assert.assertEquals(StyleSheet.RESTYLE_SUBTREE, styleSheet.restyleOfClass("a"));
+        Assert.assertEquals(StyleSheet.RESTYLE_SELF, styleSheet.restyleOfClass("b"));
+        Assert.assertEquals(StyleSheet.RESTYLE_NONE, styleSheet.restyleOfClass("c"));
+        Assert.assertEquals(StyleSheet.RESTYLE_SELF, styleSheet.restyleOfId("x"));
+        Assert.assertEquals(StyleSheet.RESTYLE_NONE, styleSheet.restyleOfId("y"));
+
+        // descendants inherit color
+        InheritStylesRegistry.register("color");
+        StyleSheet inherit = Parser.parseStyleSheet(".c { color: #fff; } .d { width: 1px; }");
+        Assert.assertEquals(StyleSheet.RESTYLE_SUBTREE, inherit.restyleOfClass("c"));
+        Assert.assertEquals(StyleSheet.RESTYLE_SELF, inherit.restyleOfClass("d"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.mozz.htmlnative.css.selector;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import com.mozz.htmlnative.HNSegment;
+import com.mozz.htmlnative.css.AttrsSet;
+import com.mozz.htmlnative.dom.HNDomTree;
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.reader.StringTextReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public class AncestorFilterTest {
+
+    private static final String DOCUMENT = "<html><head><style>" +
+            ".list .item span { color: #fff; } div > p { width: 1px; } #top p { height: 2px; } " +
+            ".item { width: 3px; } * { alpha: 1 } .nope span { color: #000; }" +
+            "</style></head><body>" +
+            "<div class=\"list\" id=\"top\"><div class=\"item\">" +
+            "<span>a</span><p>b</p></div></div>" +
+            "<div><span>c</span><p>d</p></div></body></html>";
+
+    private int mRejected;
+
+    @Test
+    public void pushAndPop() {
+        HNDomTree tree = new HNDomTree(new AttrsSet("test"), null, 0, 0);
+        tree.setType("div");
+        tree.setId("top");
+        tree.setClazz(new String[]{"list"});
+
+        AncestorFilter filter = new AncestorFilter();
+        filter.push(tree);
+        Assert.assertEquals(1, filter.depth());
+        Assert.assertTrue(filter.mayContain(AncestorFilter.typeHash("div")));
+        Assert.assertTrue(filter.mayContain(AncestorFilter.idHash("top")));
+        Assert.assertTrue(filter.mayContain(AncestorFilter.classHash("list")));
+
+        filter.pop();
+        Assert.assertEquals(0, filter.depth());
+        Assert.assertFalse(filter.mayContain(AncestorFilter.typeHash("div")));
+        Assert.assertFalse(filter.mayContain(AncestorFilter.classHash("list")));
+    }
+
+    @Test
+    public void neverRejectMatched() throws Exception {
+        HNSegment segment = new Parser(new StringTextReader(DOCUMENT)).process();
+        CssSelector[] selectors = segment.getStyleSheet().selectorsInOrder();
+
+        AncestorFilter filter = new AncestorFilter();
+        check(segment.getDom(), filter, selectors);
+
+        Assert.assertEquals(0, filter.depth());
+        Assert.assertTrue(mRejected > 0);
+    }
+
+    private void check(HNDomTree tree, AncestorFilter filter, CssSelector[] selectors) {
+        for (CssSelector selector : selectors) {
+            boolean rejected = selector.rejectedBy(filter);
+            if (rejected) {
+                mRejected++;
+                Assert.assertFalse(selector + " on " + tree.getType(), selector.matchWhole(tree));
+            }
+        }
+
+        filter.push(tree);
+        for (HNDomTree child : tree.children()) {
+            check(child, filter, selectors);
+        }
+        filter.pop();
+    }
+}
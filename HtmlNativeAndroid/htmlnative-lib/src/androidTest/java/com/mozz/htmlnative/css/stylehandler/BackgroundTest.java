@@ -42,4 +42,20 @@ public class BackgroundTest {
         Background r6 = Background.createOrChange("background", s6, null);
     }
 
+    @Test
+    public void share() throws Exception {
+        Background r1 = Background.createOrChange("background-color", "red", null);
+        Background r2 = Background.createOrChange("background-color", "red", null);
+        Assert.assertSame(r1, r2);
+        Assert.assertTrue(r1.isShared());
+
+        // a later declaration changes a copy
+        Background r3 = Background.createOrChange("background-repeat", "repeat-x", r1);
+        Assert.assertNotSame(r1, r3);
+        Assert.assertFalse(r3.isShared());
+        Assert.assertTrue(r3.getColor() == Color.RED);
+        Assert.assertTrue(r3.getRepeat() == Background.REPEAT_X);
+        Assert.assertTrue(r1.getRepeat() == Background.REPEAT);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.mozz.htmlnative.css.stylehandler;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.webkit.WebView;
+import android.widget.Button;
+import android.widget.TextView;
+
+import com.mozz.htmlnative.utils.ParametersUtils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public class StyleHandlerFactoryTest {
+
+    public static class CustomView extends View {
+        public CustomView(Context context) {
+            super(context);
+        }
+    }
+
+    public static class SubCustomView extends CustomView {
+        public SubCustomView(Context context) {
+            super(context);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        // built-in handlers read the screen density
+        ParametersUtils.init(InstrumentationRegistry.getTargetContext());
+    }
+
+    @After
+    public void tearDown() {
+        StyleHandlerFactory.clear();
+    }
+
+    @Test
+    public void resolveOncePerClass() {
+        StyleHandlerChain chain = StyleHandlerFactory.chainOf(Button.class);
+        Assert.assertSame(chain, StyleHandlerFactory.chainOf(Button.class));
+        Assert.assertSame(StyleHandlerFactory.chainOf(TextView.class).viewHandler(), chain
+                .viewHandler());
+        Assert.assertNull(chain.extraHandler());
+        Assert.assertNull(chain.layoutHandler());
+    }
+
+    @Test
+    public void webViewIsNotAbsolute() {
+        Assert.assertTrue(StyleHandlerFactory.chainOf(WebView.class).viewHandler() instanceof
+                WebViewStyleHandler);
+    }
+
+    @Test
+    public void extraBySuperclass() {
+        StyleHandlerChain before = StyleHandlerFactory.chainOf(SubCustomView.class);
+        Assert.assertNull(before.extraHandler());
+
+        StyleHandler extra = new StyleHandler() {
+        };
+        StyleHandlerFactory.registerExtraStyleHandler(CustomView.class, extra);
+
+        // resolved again after registering
+        Assert.assertSame(extra, StyleHandlerFactory.chainOf(SubCustomView.class).extraHandler());
+        Assert.assertSame(extra, StyleHandlerFactory.chainOf(CustomView.class).extraHandler());
+        Assert.assertNull(StyleHandlerFactory.chainOf(SubCustomView.class).viewHandler());
+    }
+}
@@ -0,0 +1,95 @@
+package com.mozz.htmlnative.parser;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import com.mozz.htmlnative.HNSegment;
+import com.mozz.htmlnative.css.selector.CssSelector;
+import com.mozz.htmlnative.reader.StringTextReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parse the same documents on several threads at once, results must be the same as parsing
+ * them one by one.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ConcurrentParseTest {
+
+    private static final int DOCUMENTS = 64;
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 4;
+
+    private static String document(int i) {
+        return "<html><head><title>doc" + i + "</title>" +
+                "<style>.c" + i + " > p { color: #" + (100 + i) + "; width: " + i + "px; } " +
+                "#d" + i + ", div .e { background: url(http://a.com/" + i + ".png) #fff; " +
+                "padding: " + i + "px; }</style></head><body>" +
+                "<div class=\"c" + i + " e\" id=\"d" + i + "\" style=\"height:" + i + "%; " +
+                "margin:" + i + "px\">" +
+                "<p style=\"font-size:" + (i + 10) + "px\">text " + i + "</p>" +
+                "<img src=\"http://a.com/" + i + ".jpg\"/></div>" +
+                "</body><script type=\"lua\">print(" + i + ")</script></html>";
+    }
+
+    private static String fingerprint(HNSegment segment) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(segment.getDom().wholeTreeToString());
+        sb.append(segment.getInlineStyles());
+        sb.append(segment.getStyleSheet());
+        for (CssSelector selector : segment.getStyleSheet().selectorsInOrder()) {
+            sb.append(selector).append(selector.attrIndex());
+        }
+        sb.append(segment.getHead().getTitle());
+        sb.append(segment.getScriptInfo().code());
+        return sb.toString();
+    }
+
+    private static String parse(int i) throws Exception {
+        return fingerprint(new Parser(new StringTextReader(document(i))).process());
+    }
+
+    @Test
+    public void sameAsSequential() throws Exception {
+        final String[] expected = new String[DOCUMENTS];
+        for (int i = 0; i < DOCUMENTS; i++) {
+            expected[i] = parse(i);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> results = new ArrayList<>();
+
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < DOCUMENTS; i++) {
+                    final int index = i;
+                    results.add(executor.submit(new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            start.await();
+                            return parse(index);
+                        }
+                    }));
+                }
+            }
+
+            start.countDown();
+
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(expected[i % DOCUMENTS], results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
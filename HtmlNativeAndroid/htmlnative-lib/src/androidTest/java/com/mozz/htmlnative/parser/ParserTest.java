@@ -6,6 +6,7 @@ import android.support.test.runner.AndroidJUnit4;
 import com.mozz.htmlnative.HNSegment;
 import com.mozz.htmlnative.TestGlobal;
 import com.mozz.htmlnative.css.Background;
+import com.mozz.htmlnative.dom.HNDomTree;
 import com.mozz.htmlnative.exception.HNSyntaxError;
 import com.mozz.htmlnative.reader.StringTextReader;
 
@@ -13,6 +14,9 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
+
 
 @RunWith(AndroidJUnit4.class)
 public class ParserTest {
@@ -82,6 +86,27 @@ public class ParserTest {
 
     }
 
+    @Test
+    public void processStreaming() throws Exception {
+        String streamCode = "<body><div><p>first</p></div><img src=\"a\"/><p>last</p></body>";
+
+        final List<HNDomTree> published = new ArrayList<>();
+        HNSegment segment = new Parser(new StringTextReader(streamCode), new
+                OnSubtreeParsedListener() {
+            @Override
+            public void onSubtreeParsed(HNSegment segment, HNDomTree subtree) {
+                Assert.assertSame(segment.getDom(), subtree.getParent());
+                published.add(subtree);
+            }
+        }).process();
+
+        Assert.assertEquals(segment.getDom().children(), published);
+
+        HNSegment normal = new Parser(new StringTextReader(streamCode)).process();
+        Assert.assertEquals(normal.getDom().wholeTreeToString(), segment.getDom()
+                .wholeTreeToString());
+    }
+
     private void debug(String msg) {
         System.out.println(msg);
     }
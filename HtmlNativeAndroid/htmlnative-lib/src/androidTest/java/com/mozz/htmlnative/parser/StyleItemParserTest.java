@@ -0,0 +1,58 @@
+package com.mozz.htmlnative.parser;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.TypedValue;
+
+import com.mozz.htmlnative.common.PixelValue;
+import com.mozz.htmlnative.common.SymbolTable;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+public class StyleItemParserTest {
+
+    @Test
+    public void resolveLength() {
+        Assert.assertEquals(new PixelValue(12, TypedValue.COMPLEX_UNIT_PX), StyleItemParser
+                .resolve("width", "12px"));
+        Assert.assertEquals(new PixelValue(100, PixelValue.PERCENT), StyleItemParser.resolve
+                ("height", "100%"));
+        Assert.assertEquals(new PixelValue(3, TypedValue.COMPLEX_UNIT_DIP), StyleItemParser
+                .resolve("padding-left", "3dp"));
+
+        Object margin = StyleItemParser.resolve("margin", "1px 2px");
+        Assert.assertTrue(margin instanceof PixelValue[]);
+        Assert.assertEquals(2, ((PixelValue[]) margin).length);
+    }
+
+    @Test
+    public void resolveColorAndKeyword() {
+        Assert.assertEquals(0xffff0000, StyleItemParser.resolve("color", "#ff0000"));
+        Assert.assertEquals(0.5f, StyleItemParser.resolve("alpha", "50%"));
+
+        Object bold = StyleItemParser.resolve("font-weight", new String("bold"));
+        Assert.assertSame(SymbolTable.intern("bold"), bold);
+    }
+
+    @Test
+    public void keepUnresolved() {
+        Assert.assertEquals("abc", StyleItemParser.resolve("width", "abc"));
+        Assert.assertEquals("1px", StyleItemParser.resolve("unknown-style", "1px"));
+    }
+
+    @Test
+    public void inlineStyle() {
+        Map<String, Object> out = new HashMap<>();
+        CssParser.parseInlineStyle("width: 10px; color: #fff; display: flex", new StringBuilder
+                (), out);
+
+        Assert.assertEquals(new PixelValue(10, TypedValue.COMPLEX_UNIT_PX), out.get("width"));
+        Assert.assertEquals(0xffffffff, out.get("color"));
+        Assert.assertSame(SymbolTable.intern("flex"), out.get("display"));
+    }
+}
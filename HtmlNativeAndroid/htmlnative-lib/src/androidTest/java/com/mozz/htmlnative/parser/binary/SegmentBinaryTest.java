@@ -0,0 +1,61 @@
+package com.mozz.htmlnative.parser.binary;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import com.mozz.htmlnative.HNSegment;
+import com.mozz.htmlnative.css.selector.CssSelector;
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.reader.StringTextReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+@RunWith(AndroidJUnit4.class)
+public class SegmentBinaryTest {
+
+    private static final String CODE = "<html><head><title>hello</title>" +
+            "<meta name=\"version\" content=\"1.0\"/>" +
+            "<style>.a > p { color: red; width: 10px; } #b, div .c { background: #fff; }</style>" +
+            "</head><body>" +
+            "<div class=\"a c\" id=\"b\" style=\"height:20%; padding:5px\">" +
+            "<p>hello world</p><img src=\"http://www.baidu.com\"/></div>" +
+            "</body><script type=\"lua\">print(\"hello\")</script></html>";
+
+    @Test
+    public void writeAndRead() throws Exception {
+        HNSegment origin = new Parser(new StringTextReader(CODE)).process();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SegmentWriter().write(origin, out);
+
+        HNSegment loaded = HNSegment.load(new ByteArrayInputStream(out.toByteArray()));
+
+        Assert.assertEquals(origin.getDom().wholeTreeToString(), loaded.getDom()
+                .wholeTreeToString());
+        Assert.assertEquals(origin.getHead().getTitle(), loaded.getHead().getTitle());
+        Assert.assertEquals(origin.getHead().metas().size(), loaded.getHead().metas().size());
+        Assert.assertEquals(origin.getScriptInfo().code(), loaded.getScriptInfo().code());
+        Assert.assertEquals(origin.getScriptInfo().type(), loaded.getScriptInfo().type());
+
+        CssSelector[] expected = origin.getStyleSheet().selectorsInOrder();
+        CssSelector[] actual = loaded.getStyleSheet().selectorsInOrder();
+        Assert.assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i].toString(), actual[i].toString());
+            Assert.assertEquals(expected[i].attrIndex(), actual[i].attrIndex());
+        }
+    }
+
+    @Test
+    public void detectCompiled() throws Exception {
+        Assert.assertFalse(SegmentFormat.isCompiled(new ByteArrayInputStream(CODE.getBytes())));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SegmentCompiler.compile(new ByteArrayInputStream(CODE.getBytes()), out);
+        Assert.assertTrue(SegmentFormat.isCompiled(new ByteArrayInputStream(out.toByteArray())));
+    }
+}
@@ -1,30 +1,233 @@
 package com.mozz.htmlnative;
 
-import android.os.Handler;
-import android.os.HandlerThread;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mozz.htmlnative.common.WefRunnable;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Runs parse and render work off the main thread. By default it is a bounded pool whose queue
+ * is ordered by priority, then by submission order. A custom {@link Executor} can be plugged in
+ * with {@link #setExecutor(Executor)}; the runnables it receives implement {@link Comparable},
+ * so an executor backed by a {@link PriorityBlockingQueue} keeps the priorities.
+ * <p>
+ * Queued {@link WefRunnable}s whose context has been collected are dropped instead of run.
+ *
  * @author Yang Tao, 17/5/3.
  */
 
 public final class HNInternalThread {
 
-    // for running render task
-    @NonNull
-    private static HandlerThread mRenderThread = new HandlerThread("HNProcessThread");
-    private static Handler mRenderHandler;
+    /**
+     * For the screen user is waiting for.
+     */
+    public static final int PRIORITY_FOREGROUND = 0;
+
+    /**
+     * For work nobody is waiting for yet, such as prefetching segments.
+     */
+    public static final int PRIORITY_PREFETCH = 10;
+
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    private static final Object sLock = new Object();
+
+    @Nullable
+    private static Executor sExecutor;
+
+    /**
+     * whether sExecutor is created by us, so that we can shut it down and purge its queue.
+     */
+    private static boolean sOwnExecutor;
+
+    private static int sWorkerCount = defaultWorkerCount();
+
+    private static final AtomicLong sSequence = new AtomicLong();
+
+    private HNInternalThread() {
+    }
 
     static void init() {
-        mRenderThread.start();
-        mRenderHandler = new Handler(mRenderThread.getLooper());
+        executor();
+    }
+
+    public static void run(@NonNull Runnable r) {
+        run(r, PRIORITY_FOREGROUND);
+    }
+
+    /**
+     * @param priority smaller runs first, see {@link #PRIORITY_FOREGROUND} and
+     *                 {@link #PRIORITY_PREFETCH}.
+     */
+    public static void run(@NonNull Runnable r, int priority) {
+        executor().execute(new Task(r, priority, sSequence.getAndIncrement()));
+    }
+
+    /**
+     * Remove the queued tasks whose context is collected, or is target.
+     *
+     * @param target context to cancel tasks of, or null to only purge collected ones.
+     * @return count of removed tasks, always 0 for a custom executor.
+     */
+    public static int cancel(@Nullable Object target) {
+        ThreadPoolExecutor pool;
+        synchronized (sLock) {
+            if (!sOwnExecutor || sExecutor == null) {
+                return 0;
+            }
+            pool = (ThreadPoolExecutor) sExecutor;
+        }
+
+        int count = 0;
+        Iterator<Runnable> itr = pool.getQueue().iterator();
+        while (itr.hasNext()) {
+            Runnable r = itr.next();
+            if (r instanceof Task && ((Task) r).isCancelledBy(target)) {
+                itr.remove();
+                count++;
+            }
+        }
+
+        if (count > 0) {
+            HNLog.d(HNLog.PROCESS_THREAD, "cancel " + count + " queued tasks");
+        }
+        return count;
     }
 
-    public static void run(Runnable r) {
-        mRenderHandler.post(r);
+    /**
+     * Use executor to run the tasks, the default pool is shut down after the queued tasks.
+     */
+    static void setExecutor(@NonNull Executor executor) {
+        Executor old;
+        boolean ownOld;
+        synchronized (sLock) {
+            old = sExecutor;
+            ownOld = sOwnExecutor;
+            sExecutor = executor;
+            sOwnExecutor = false;
+        }
+        if (ownOld && old != null) {
+            ((ThreadPoolExecutor) old).shutdown();
+        }
+    }
+
+    /**
+     * Size of the default pool, takes effect when the pool is created next time.
+     */
+    static void setWorkerCount(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("worker count must be positive");
+        }
+        synchronized (sLock) {
+            sWorkerCount = count;
+            if (sOwnExecutor && sExecutor != null) {
+                ThreadPoolExecutor pool = (ThreadPoolExecutor) sExecutor;
+                if (count > pool.getMaximumPoolSize()) {
+                    pool.setMaximumPoolSize(count);
+                    pool.setCorePoolSize(count);
+                } else {
+                    pool.setCorePoolSize(count);
+                    pool.setMaximumPoolSize(count);
+                }
+            }
+        }
     }
 
     static void quit() {
-        mRenderThread.quit();
+        Executor old;
+        boolean ownOld;
+        synchronized (sLock) {
+            old = sExecutor;
+            ownOld = sOwnExecutor;
+            sExecutor = null;
+            sOwnExecutor = false;
+        }
+        if (ownOld && old != null) {
+            ((ThreadPoolExecutor) old).shutdownNow();
+        }
+    }
+
+    @NonNull
+    private static Executor executor() {
+        synchronized (sLock) {
+            if (sExecutor == null) {
+                sExecutor = createPool(sWorkerCount);
+                sOwnExecutor = true;
+            }
+            return sExecutor;
+        }
+    }
+
+    @NonNull
+    private static ThreadPoolExecutor createPool(int workerCount) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workerCount, workerCount,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(),
+                new WorkerFactory());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static int defaultWorkerCount() {
+        // leave one core to main thread
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(2, Math.min(cores - 1, 4));
+    }
+
+    private static final class Task implements Runnable, Comparable<Task> {
+
+        private final Runnable mRunnable;
+        private final int mPriority;
+        private final long mSequence;
+
+        Task(Runnable runnable, int priority, long sequence) {
+            mRunnable = runnable;
+            mPriority = priority;
+            mSequence = sequence;
+        }
+
+        boolean isCancelledBy(@Nullable Object target) {
+            if (mRunnable instanceof WefRunnable) {
+                WefRunnable<?> r = (WefRunnable<?>) mRunnable;
+                return r.isReleased() || (target != null && r.isBoundTo(target));
+            }
+            return false;
+        }
+
+        @Override
+        public void run() {
+            if (isCancelledBy(null)) {
+                HNLog.d(HNLog.PROCESS_THREAD, "skip task whose context is collected");
+                return;
+            }
+            mRunnable.run();
+        }
+
+        @Override
+        public int compareTo(@NonNull Task o) {
+            if (mPriority != o.mPriority) {
+                return mPriority < o.mPriority ? -1 : 1;
+            }
+            return mSequence < o.mSequence ? -1 : (mSequence == o.mSequence ? 0 : 1);
+        }
+    }
+
+    private static final class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NonNull Runnable r) {
+            Thread t = new Thread(r, "HNProcessThread-" + mCount.incrementAndGet());
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        }
     }
 }
@@ -0,0 +1,319 @@
+package com.mozz.htmlnative;
+
+import android.content.Context;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.mozz.htmlnative.css.AttrsSet;
+import com.mozz.htmlnative.css.Cascade;
+import com.mozz.htmlnative.css.InheritStylesRegistry;
+import com.mozz.htmlnative.css.StyleResolver;
+import com.mozz.htmlnative.css.StyleSheet;
+import com.mozz.htmlnative.css.Styles;
+import com.mozz.htmlnative.css.stylehandler.LayoutStyleHandler;
+import com.mozz.htmlnative.css.stylehandler.StyleHandlerChain;
+import com.mozz.htmlnative.css.stylehandler.StyleHandlerFactory;
+import com.mozz.htmlnative.dom.AttachedElement;
+import com.mozz.htmlnative.dom.DomElement;
+import com.mozz.htmlnative.dom.HNDomTree;
+import com.mozz.htmlnative.exception.AttrApplyException;
+import com.mozz.htmlnative.view.HNListView;
+import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rows of a {@link HNListView}, inflated from the template of the list.
+ * <p>
+ * The cascade of each element in template is resolved once when the list is rendered, in the
+ * same way as its siblings, rows only apply the styles kept. String styles with {{key}}, such as
+ * the text of &lt;p&gt;{{title}}&lt;/p&gt; or src of &lt;img&gt;, are applied again to bind the
+ * item of each row, see {@link TextBinding}. They are applied as strings and the layout params
+ * of a row are set when it is created, so styles changing layout can't be bound.
+ * <p>
+ * Rows are not restyled by {@link Restyler}, and their ids are not registered.
+ * <p>
+ * MAIN THREAD ONLY, except being created.
+ */
+final class HNListAdapter extends RecyclerView.Adapter<HNListAdapter.RowHolder> implements
+        HNListView.DataAdapter {
+
+    @NonNull
+    private final HNSandBoxContext mSandBoxContext;
+    private final AttrsSet mInlineStyles;
+
+    private final Node mTemplate;
+
+    /**
+     * elements having bound styles, in the order of {@link Node#mIndex}
+     */
+    private final Node[] mBoundNodes;
+    private int mNodeCount;
+
+    private List<?> mData = Collections.emptyList();
+
+    private final StringBuilder mBuffer = new StringBuilder();
+
+    /**
+     * layout params are not bound, see {@link #onBindViewHolder(RowHolder, int)}
+     */
+    private final LayoutParamsLazyCreator mBindCreator = new LayoutParamsLazyCreator();
+
+    private int mCreateCount;
+
+    /**
+     * @param stack    inherit styles of the list, as left by render
+     * @param resolver resolver of the render, with the list pushed as parent of template
+     */
+    HNListAdapter(@NonNull HNSandBoxContext sandBoxContext, @NonNull HNDomTree template,
+                  @NonNull HNSegment segment, @NonNull InheritStyleStack stack, @NonNull
+                          StyleResolver resolver) {
+        mSandBoxContext = sandBoxContext;
+        mInlineStyles = segment.getInlineStyles();
+
+        List<Node> boundNodes = new ArrayList<>();
+        mTemplate = compile(template, segment.getStyleSheet(), stack, resolver, boundNodes);
+        mBoundNodes = boundNodes.toArray(new Node[boundNodes.size()]);
+    }
+
+    private Node compile(HNDomTree tree, StyleSheet styleSheet, InheritStyleStack stack,
+                         StyleResolver resolver, List<Node> boundNodes) {
+        stack.push();
+        Cascade cascade = resolver.resolve(tree, tree, mInlineStyles, styleSheet, stack);
+
+        int size = cascade.size();
+        Node node = new Node(tree, mNodeCount++, size);
+        for (int i = 0; i < size; i++) {
+            int propertyId = cascade.propertyId(i);
+            Object style = cascade.style(i);
+            node.mPropertyIds[i] = propertyId;
+            node.mStyleNames[i] = cascade.styleName(i);
+            node.mStyles[i] = style;
+
+            if (style instanceof String) {
+                TextBinding binding = TextBinding.compile((String) style);
+                if (binding != null) {
+                    if (node.mBindings == null) {
+                        node.mBindings = new TextBinding[size];
+                    }
+                    node.mBindings[i] = binding;
+                }
+            }
+
+            if (!cascade.isInherited(i) && InheritStylesRegistry.isInherit(propertyId)) {
+                stack.newStyle(propertyId, cascade.styleName(i), style);
+            }
+        }
+        if (node.mBindings != null) {
+            boundNodes.add(node);
+        }
+
+        List<HNDomTree> children = tree.children();
+        node.mChildren = new Node[children.size()];
+        if (!children.isEmpty()) {
+            resolver.push(tree);
+            for (int i = 0; i < node.mChildren.length; i++) {
+                node.mChildren[i] = compile(children.get(i), styleSheet, stack, resolver,
+                        boundNodes);
+            }
+            resolver.pop();
+        }
+
+        stack.pop();
+        return node;
+    }
+
+    @MainThread
+    @Override
+    public void setData(@Nullable List<?> data) {
+        mData = data != null ? data : Collections.emptyList();
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public int getItemCount() {
+        return mData.size();
+    }
+
+    @Override
+    public RowHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        mCreateCount++;
+        HNLog.d(HNLog.RENDER, "create row " + mCreateCount + " of list " + parent.getTag());
+
+        View[] views = new View[mNodeCount];
+        ViewGroup[] parents = new ViewGroup[mNodeCount];
+        LayoutParamsLazyCreator creator = new LayoutParamsLazyCreator();
+        View row = inflate(mTemplate, parent, creator, views, parents);
+        row.setLayoutParams(LayoutParamsLazyCreator.createLayoutParams(parent, creator));
+        return new RowHolder(row, views, parents);
+    }
+
+    private View inflate(Node node, ViewGroup parent, LayoutParamsLazyCreator creator, View[]
+            views, ViewGroup[] parents) {
+        Context context = parent.getContext();
+        View v = createView(node, context, creator);
+        if (v == null) {
+            HNLog.e(HNLog.RENDER, "error when inflating " + node.mTree.getType() + " of list");
+            return new View(context);
+        }
+
+        DomElement element = AttachedElement.cloneIfNecessary(node.mTree);
+        element.setParent((DomElement) parent.getTag());
+        v.setTag(element);
+        views[node.mIndex] = v;
+        parents[node.mIndex] = parent;
+
+        StyleHandlerChain chain = StyleHandlerFactory.chainOf(v);
+        LayoutStyleHandler parentLayoutAttr = StyleHandlerFactory.chainOf(parent).layoutHandler();
+        try {
+            Styles.setDefaultStyle(context, mSandBoxContext, v, node.mTree, parent, chain
+                    .viewHandler(), chain.extraHandler(), parentLayoutAttr, creator);
+        } catch (AttrApplyException e) {
+            e.printStackTrace();
+        }
+
+        for (int i = 0; i < node.mStyles.length; i++) {
+            if (node.mBindings != null && node.mBindings[i] != null) {
+                continue;
+            }
+            try {
+                Styles.applyStyle(context, mSandBoxContext, v, node.mTree, creator, parent,
+                        chain.viewHandler(), chain.extraHandler(), parentLayoutAttr, node
+                                .mPropertyIds[i], node.mStyleNames[i], node.mStyles[i], false,
+                        null);
+            } catch (AttrApplyException e) {
+                e.printStackTrace();
+                HNLog.e(HNLog.RENDER, "wrong when apply " + node.mStyleNames[i] + " to " + node
+                        .mTree.getType());
+            }
+        }
+
+        if (node.mChildren.length > 0) {
+            if (v instanceof ViewGroup) {
+                ViewGroup group = (ViewGroup) v;
+                for (Node child : node.mChildren) {
+                    LayoutParamsLazyCreator childCreator = new LayoutParamsLazyCreator();
+                    View childView = inflate(child, group, childCreator, views,
+                            parents);
+                    group.addView(childView, LayoutParamsLazyCreator.createLayoutParams(group,
+                            childCreator));
+                }
+            } else {
+                HNLog.e(HNLog.RENDER, "View of list template is not an viewGroup " + v
+                        .getClass().getSimpleName() + ", will ignore its children!");
+            }
+        }
+        return v;
+    }
+
+    @Nullable
+    private View createView(Node node, Context context, LayoutParamsLazyCreator creator) {
+        String type = node.mTree.getType();
+        try {
+            if (HtmlTag.isGroupingElement(type)) {
+                return HNRenderer.createAndroidViewGroup(context, type, node.mTree,
+                        mInlineStyles, creator);
+            } else {
+                return HNRenderer.createAndroidView(context, type);
+            }
+        } catch (ReflectiveOperationException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(RowHolder holder, int position) {
+        Object item = mData.get(position);
+
+        for (Node node : mBoundNodes) {
+            View v = holder.mViews[node.mIndex];
+            if (v == null) {
+                continue;
+            }
+            ViewGroup parent = holder.mParents[node.mIndex];
+            StyleHandlerChain chain = StyleHandlerFactory.chainOf(v);
+            LayoutStyleHandler parentLayoutAttr = StyleHandlerFactory.chainOf(parent)
+                    .layoutHandler();
+
+            for (int i = 0; i < node.mBindings.length; i++) {
+                TextBinding binding = node.mBindings[i];
+                if (binding == null) {
+                    continue;
+                }
+                try {
+                    Styles.applyStyle(v.getContext(), mSandBoxContext, v, node.mTree,
+                            mBindCreator, parent, chain.viewHandler(), chain.extraHandler(),
+                            parentLayoutAttr, node.mPropertyIds[i], node.mStyleNames[i],
+                            binding.bind(item, mBuffer), false, null);
+                } catch (AttrApplyException e) {
+                    e.printStackTrace();
+                    HNLog.e(HNLog.RENDER, "wrong when bind " + node.mStyleNames[i] + " to " +
+                            node.mTree.getType());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return count of rows created, which depends on the height of list instead of the count
+     * of items.
+     */
+    int createCount() {
+        return mCreateCount;
+    }
+
+    /**
+     * An element of template with the styles resolved.
+     */
+    private static final class Node {
+        final HNDomTree mTree;
+
+        /**
+         * index in the elements of template, in document order
+         */
+        final int mIndex;
+
+        final int[] mPropertyIds;
+        final String[] mStyleNames;
+        final Object[] mStyles;
+
+        /**
+         * binding of the style at the same index, or null if it is not bound. Null if no style
+         * is bound.
+         */
+        TextBinding[] mBindings;
+
+        Node[] mChildren;
+
+        Node(HNDomTree tree, int index, int styleCount) {
+            mTree = tree;
+            mIndex = index;
+            mPropertyIds = new int[styleCount];
+            mStyleNames = new String[styleCount];
+            mStyles = new Object[styleCount];
+        }
+    }
+
+    static final class RowHolder extends RecyclerView.ViewHolder {
+
+        /**
+         * views of the elements of template and their parents, indexed by {@link Node#mIndex},
+         * null for the ones failed to inflate
+         */
+        final View[] mViews;
+        final ViewGroup[] mParents;
+
+        RowHolder(View row, View[] views, ViewGroup[] parents) {
+            super(row);
+            mViews = views;
+            mParents = parents;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.mozz.htmlnative;
 
 import android.content.Context;
+import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.view.View;
@@ -8,9 +9,16 @@ import android.view.ViewGroup;
 import android.widget.FrameLayout;
 
 import com.mozz.htmlnative.common.WefRunnable;
+import com.mozz.htmlnative.dom.HNDomTree;
 import com.mozz.htmlnative.exception.HNSyntaxError;
+import com.mozz.htmlnative.parser.OnSubtreeParsedListener;
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.parser.binary.SegmentFormat;
+import com.mozz.htmlnative.utils.IOUtils;
 import com.mozz.htmlnative.utils.MainHandlerUtils;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 
 /**
@@ -21,22 +29,93 @@ final class HNProcessThread {
 
     private static final String TAG = HNProcessThread.class.getSimpleName();
 
+    /**
+     * whether {@link RenderTask} builds views on the worker, see
+     * {@link HNativeEngine#setAsyncRender(boolean)}
+     */
+    private static volatile boolean sAsyncRender;
+
+    /**
+     * millis of each frame spent by {@link RenderTask} on main thread, 0 to render in one pass,
+     * see {@link HNativeEngine#setRenderFrameBudget(long)}
+     */
+    private static volatile long sFrameBudget;
+
     private HNProcessThread() {
 
     }
 
+    static void setAsyncRender(boolean async) {
+        sAsyncRender = async;
+    }
+
+    static void setFrameBudget(long millis) {
+        sFrameBudget = Math.max(millis, 0);
+    }
+
     static void runRenderTask(@NonNull RenderTask r) {
         HNInternalThread.run(r);
     }
 
+    static void runRenderTask(@NonNull StreamRenderTask r) {
+        HNInternalThread.run(r);
+    }
+
+    static void runPrefetchTask(@NonNull PrefetchTask r) {
+        HNInternalThread.run(r, HNInternalThread.PRIORITY_PREFETCH);
+    }
+
+    /**
+     * Parse a segment into {@link HNSegmentCache} without rendering it, so that a later
+     * {@link RenderTask} of the same source hits the cache.
+     */
+    static final class PrefetchTask implements Runnable {
+
+        private final InputStream mFileSource;
+        @Nullable
+        private final String mVersion;
+
+        PrefetchTask(InputStream fileSource, @Nullable String version) {
+            mFileSource = fileSource;
+            mVersion = version;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (mVersion == null) {
+                    HNSegmentCache.get().load(mFileSource);
+                } else {
+                    HNSegmentCache.get().load(mFileSource, mVersion);
+                }
+            } catch (HNSyntaxError e) {
+                HNLog.e(HNLog.PROCESS_THREAD, "prefetch failed, " + e.getMessage());
+            } finally {
+                IOUtils.closeQuietly(mFileSource);
+            }
+        }
+    }
+
     static final class RenderTask extends WefRunnable<Context> {
 
         private InputStream mFileSource;
+        @Nullable
+        private final String mVersion;
         private final HNativeEngine.OnHNViewLoaded mCallback;
 
         RenderTask(Context context, InputStream fileSource, HNativeEngine.OnHNViewLoaded callback) {
+            this(context, fileSource, null, callback);
+        }
+
+        /**
+         * @param version if not null, used as the key of {@link HNSegmentCache} instead of the
+         *                hash of the content.
+         */
+        RenderTask(Context context, InputStream fileSource, @Nullable String version, HNativeEngine
+                .OnHNViewLoaded callback) {
             super(context);
             mFileSource = fileSource;
+            mVersion = version;
             mCallback = callback;
         }
 
@@ -47,7 +126,8 @@ final class HNProcessThread {
                     return;
                 }
 
-                final HNSegment segment = HNSegment.load(mFileSource);
+                final HNSegment segment = mVersion == null ? HNSegmentCache.get().load
+                        (mFileSource) : HNSegmentCache.get().load(mFileSource, mVersion);
 
                 HNLog.d(HNLog.PROCESS_THREAD, "DOM: \n" + segment.getDom().wholeTreeToString());
                 HNLog.d(HNLog.PROCESS_THREAD, "HEAD: \n" + segment.getHead().toString());
@@ -63,6 +143,23 @@ final class HNProcessThread {
                     }
                 });
 
+                if (sAsyncRender && HNRenderer.canBuildOffMainThread(segment)) {
+                    renderAsync(context, segment);
+                    return;
+                }
+
+                final long frameBudget = sFrameBudget;
+                if (frameBudget > 0) {
+                    MainHandlerUtils.instance().post(new Runnable() {
+                        @Override
+                        public void run() {
+                            HNRenderer.get().renderSliced(context, segment, frameBudget,
+                                    mCallback);
+                        }
+                    });
+                    return;
+                }
+
                 final ViewGroup.LayoutParams layoutParams = new FrameLayout.LayoutParams
                         (ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
                 MainHandlerUtils.instance().post(new Runnable() {
@@ -90,7 +187,155 @@ final class HNProcessThread {
                         }
                     });
                 }
+            } finally {
+                IOUtils.closeQuietly(mFileSource);
             }
         }
+
+        /**
+         * Build the views here, only the styles needing main thread and script are left to
+         * main thread.
+         */
+        private void renderAsync(@NonNull Context context, @NonNull HNSegment segment) {
+            final HNRenderer renderer = HNRenderer.get();
+            boolean built = false;
+            try {
+                built = renderer.build(context, segment, true);
+            } catch (HNRenderer.HNRenderException e) {
+                e.printStackTrace();
+            }
+
+            final boolean finish = built;
+            MainHandlerUtils.instance().post(new Runnable() {
+                @Override
+                public void run() {
+                    mCallback.onViewLoaded(finish ? renderer.finishBuild() : null);
+                }
+            });
+        }
+    }
+
+    /**
+     * Render each direct child of the root tree as soon as it is parsed, instead of waiting for
+     * the whole document. The root view is delivered with the first subtree, and script runs
+     * after the document is finished. Compiled segments are already cheap to load, so they are
+     * rendered in one pass.
+     */
+    static final class StreamRenderTask extends WefRunnable<Context> implements
+            OnSubtreeParsedListener {
+
+        private InputStream mFileSource;
+        private final HNativeEngine.OnHNViewLoaded mCallback;
+
+        /**
+         * only accessed on main thread
+         */
+        private final HNRenderer mRenderer = HNRenderer.get();
+        private boolean mStarted;
+
+        /**
+         * held strongly only while parsing
+         */
+        private Context mContext;
+
+        StreamRenderTask(Context context, InputStream fileSource, HNativeEngine.OnHNViewLoaded
+                callback) {
+            super(context);
+            mFileSource = fileSource;
+            mCallback = callback;
+        }
+
+        @Override
+        protected void run(@Nullable final Context context) {
+            try {
+                if (context == null || mCallback == null) {
+                    return;
+                }
+
+                long position = HNSegment.filePosition(mFileSource);
+                InputStream in = new BufferedInputStream(mFileSource);
+                boolean compiled;
+                try {
+                    compiled = SegmentFormat.isCompiled(in);
+                } catch (IOException e) {
+                    throw new HNSyntaxError("can't read source, " + e.getMessage(), 0, 0);
+                }
+
+                if (compiled) {
+                    new RenderTask(context, in, mCallback).run();
+                    return;
+                }
+
+                mContext = context;
+                final HNSegment segment;
+                try {
+                    segment = new Parser(HNSegment.textReader(mFileSource, in, position), this)
+                            .process();
+                } finally {
+                    mContext = null;
+                }
+
+                MainHandlerUtils.instance().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        startIfNecessary(context, segment);
+                        mRenderer.finishStream();
+                    }
+                });
+            } catch (@NonNull final HNSyntaxError e) {
+                e.printStackTrace();
+                MainHandlerUtils.instance().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mCallback.onError(e);
+                    }
+                });
+            } finally {
+                IOUtils.closeQuietly(mFileSource);
+            }
+        }
+
+        @Override
+        public void onSubtreeParsed(final HNSegment segment, final HNDomTree subtree) {
+            final Context context = mContext;
+
+            MainHandlerUtils.instance().post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!startIfNecessary(context, segment)) {
+                        return;
+                    }
+
+                    try {
+                        mRenderer.appendStream(subtree);
+                    } catch (HNRenderer.HNRenderException e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+        }
+
+        /**
+         * @return whether the root view has been created.
+         */
+        @MainThread
+        private boolean startIfNecessary(Context context, HNSegment segment) {
+            if (mStarted) {
+                return true;
+            }
+            mStarted = true;
+
+            mCallback.onHead(segment.getHead());
+
+            View v = null;
+            try {
+                v = mRenderer.startStream(context, segment);
+            } catch (HNRenderer.HNRenderException e) {
+                e.printStackTrace();
+            }
+
+            mCallback.onViewLoaded(v);
+            return v != null;
+        }
     }
 }
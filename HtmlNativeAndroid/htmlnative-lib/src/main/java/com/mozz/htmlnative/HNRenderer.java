@@ -1,35 +1,48 @@
 package com.mozz.htmlnative;
 
+import android.app.Activity;
 import android.content.Context;
+import android.content.ContextWrapper;
 import android.os.SystemClock;
+import android.support.annotation.AnyThread;
 import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.mozz.htmlnative.common.SymbolTable;
 import com.mozz.htmlnative.css.AttrsSet;
+import com.mozz.htmlnative.css.Background;
+import com.mozz.htmlnative.css.Cascade;
 import com.mozz.htmlnative.css.InheritStylesRegistry;
+import com.mozz.htmlnative.css.PropertyRegistry;
+import com.mozz.htmlnative.css.StyleResolver;
 import com.mozz.htmlnative.css.StyleSheet;
 import com.mozz.htmlnative.css.Styles;
-import com.mozz.htmlnative.css.selector.CssSelector;
 import com.mozz.htmlnative.css.stylehandler.LayoutStyleHandler;
 import com.mozz.htmlnative.css.stylehandler.StyleHandler;
+import com.mozz.htmlnative.css.stylehandler.StyleHandlerChain;
 import com.mozz.htmlnative.css.stylehandler.StyleHandlerFactory;
 import com.mozz.htmlnative.dom.AttachedElement;
 import com.mozz.htmlnative.dom.DomElement;
 import com.mozz.htmlnative.dom.HNDomTree;
 import com.mozz.htmlnative.exception.AttrApplyException;
+import com.mozz.htmlnative.utils.ParametersUtils;
+import com.mozz.htmlnative.view.HNListView;
 import com.mozz.htmlnative.view.HNRootView;
 import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.mozz.htmlnative.HNEnvironment.PERFORMANCE_TAG;
 
@@ -41,21 +54,38 @@ public final class HNRenderer {
     /**
      * cache the constructor for later use
      */
-    private static final HashMap<String, Constructor<? extends View>> sConstructorMap = new
-            HashMap<>();
+    private static final Map<String, Constructor<? extends View>> sConstructorMap = new
+            ConcurrentHashMap<>();
 
-    private static final Map<String, ViewFactory> sViewFactory = new HashMap<>();
-
-    private static final Object[] sConstructorArgs = new Object[1];
+    private static final Map<String, ViewFactory> sViewFactory = new ConcurrentHashMap<>();
 
     private static final Class<?>[] sConstructorSignature = new Class[]{Context.class};
 
     private InheritStyleStack mInheritStyleStack;
 
+    private StyleResolver mStyleResolver;
+
     private Tracker mTracker;
 
+    /**
+     * state of streaming render, see {@link #startStream(Context, HNSegment)}
+     */
+    private Context mStreamContext;
+    private HNSegment mStreamSegment;
+    private HNSandBoxContext mStreamSandBox;
+    private HNRootView mStreamRoot;
+    private ViewGroup mStreamBody;
+
+    /**
+     * views built by {@link #build(Context, HNSegment, boolean)}, waiting for
+     * {@link #finishBuild()}
+     */
+    private HNRootView mBuiltRoot;
+    private HNSandBoxContextImpl mBuiltSandBox;
+
     private HNRenderer() {
         mInheritStyleStack = new InheritStyleStack();
+        mStyleResolver = new StyleResolver(true);
         mTracker = new Tracker();
     }
 
@@ -66,14 +96,11 @@ public final class HNRenderer {
 
     public static InheritStyleStack computeInheritStyle(View view) {
 
-        StyleHandler viewStyleHandler = StyleHandlerFactory.get(view);
-        StyleHandler extraStyleHandler = StyleHandlerFactory.extraGet(view);
-        StyleHandler parentStyleHandler = StyleHandlerFactory.get(view);
+        StyleHandlerChain chain = StyleHandlerFactory.chainOf(view);
+        StyleHandler viewStyleHandler = chain.viewHandler();
+        StyleHandler extraStyleHandler = chain.extraHandler();
+        LayoutStyleHandler parentLayoutAttr = StyleHandlerFactory.parentGet(view);
 
-        LayoutStyleHandler parentLayoutAttr = null;
-        if (parentStyleHandler instanceof LayoutStyleHandler) {
-            parentLayoutAttr = (LayoutStyleHandler) parentStyleHandler;
-        }
         InheritStyleStack inheritStyleStack = new InheritStyleStack();
         inheritStyleStack.push();
 
@@ -95,17 +122,40 @@ public final class HNRenderer {
     @MainThread
     final View render(@NonNull Context context, @NonNull HNSegment segment, @NonNull ViewGroup
             .LayoutParams params) throws HNRenderException {
+        if (!build(context, segment, false)) {
+            return null;
+        }
+        return finishBuild();
+    }
+
+    /**
+     * Build the views of segment without running script, finish it by {@link #finishBuild()}
+     * on main thread. Views not attached to a window yet can be created and styled on any
+     * thread, so with async it runs on a worker, only for segments passing
+     * {@link #canBuildOffMainThread(HNSegment)}. Styles needing main thread are queued until
+     * {@link #finishBuild()} then, see {@link HNSandBoxContext#runOnMainThread(Runnable)}.
+     *
+     * @return whether the views are built.
+     */
+    @AnyThread
+    final boolean build(@NonNull Context context, @NonNull HNSegment segment, boolean async)
+            throws HNRenderException {
 
         mTracker.reset();
 
-        HNLog.d(HNLog.RENDER, "start to render " + segment.toString());
+        HNLog.d(HNLog.RENDER, "start to render " + segment.toString() + (async ? " async" :
+                ""));
         HNRootView rootViewGroup = new HNRootView(context);
 
-        HNSandBoxContext sandBoxContext = HNSandBoxContextImpl.createContext(rootViewGroup,
+        HNSandBoxContextImpl sandBoxContext = HNSandBoxContextImpl.createContext(rootViewGroup,
                 segment, context);
-
+        if (async) {
+            sandBoxContext.queueMainThreadWork();
+        }
 
         mInheritStyleStack.reset();
+        mStyleResolver.reset();
+        mStyleResolver.pushChain(segment.getDom().getParent());
 
         LayoutParamsLazyCreator rootCreator = new LayoutParamsLazyCreator();
 
@@ -113,28 +163,211 @@ public final class HNRenderer {
         View v = renderInternal(context, sandBoxContext, segment.getDom(), segment,
                 rootViewGroup, rootCreator, rootViewGroup, segment.getStyleSheet());
 
+        if (v == null) {
+            return false;
+        }
 
-        if (v != null) {
-            rootViewGroup.addContent(v, LayoutParamsLazyCreator.createLayoutParams(rootViewGroup,
-                    rootCreator));
-            mTracker.record("Render View", SystemClock.currentThreadTimeMillis() - renderStartTime);
+        rootViewGroup.addContent(v, LayoutParamsLazyCreator.createLayoutParams(rootViewGroup,
+                rootCreator));
+        mTracker.record("Render View", SystemClock.currentThreadTimeMillis() - renderStartTime);
 
-            long createTime = SystemClock.currentThreadTimeMillis();
-            this.performCreate(sandBoxContext);
-            mTracker.record("Create View", SystemClock.currentThreadTimeMillis() - createTime);
+        mBuiltRoot = rootViewGroup;
+        mBuiltSandBox = sandBoxContext;
+        return true;
+    }
 
-            long afterCreate = SystemClock.currentThreadTimeMillis();
-            this.performCreated(sandBoxContext);
-            mTracker.record("After View Created", SystemClock.currentThreadTimeMillis() -
-                    afterCreate);
+    /**
+     * Run the styles queued by an async {@link #build(Context, HNSegment, boolean)}, then the
+     * script.
+     *
+     * @return root of the views built.
+     */
+    @MainThread
+    final View finishBuild() {
+        HNRootView rootViewGroup = mBuiltRoot;
+        HNSandBoxContextImpl sandBoxContext = mBuiltSandBox;
+        mBuiltRoot = null;
+        mBuiltSandBox = null;
+
+        long queueTime = SystemClock.currentThreadTimeMillis();
+        int queued = sandBoxContext.runMainThreadQueue();
+        if (queued > 0) {
+            mTracker.record("Main Thread Styles " + queued, SystemClock
+                    .currentThreadTimeMillis() - queueTime);
+        }
+
+        long createTime = SystemClock.currentThreadTimeMillis();
+        this.performCreate(sandBoxContext);
+        mTracker.record("Create View", SystemClock.currentThreadTimeMillis() - createTime);
 
-            Log.i(PERFORMANCE_TAG, mTracker.dump());
+        long afterCreate = SystemClock.currentThreadTimeMillis();
+        this.performCreated(sandBoxContext);
+        mTracker.record("After View Created", SystemClock.currentThreadTimeMillis() -
+                afterCreate);
 
-            HNLog.d(HNLog.RENDER, sandBoxContext.allIdTag());
-            return rootViewGroup;
+        Log.i(PERFORMANCE_TAG, mTracker.dump());
+        Log.i(PERFORMANCE_TAG, mStyleResolver.dumpStats());
+        Log.i(PERFORMANCE_TAG, ParametersUtils.dumpCacheStats());
+        Log.i(PERFORMANCE_TAG, Background.dumpCacheStats());
+        Log.i(PERFORMANCE_TAG, ViewPool.get().toString());
+
+        HNLog.d(HNLog.RENDER, sandBoxContext.allIdTag());
+        return rootViewGroup;
+    }
+
+    /**
+     * Render segment on main thread a slice per frame, each slice spends about frameBudget
+     * millis, so that a long page doesn't drop frames. The root view is delivered to callback
+     * before the first slice with only the root element rendered, the other views are attached
+     * as soon as they are created, and script runs after the last slice. A {@link HNativeEngine.OnHNViewProgress} callback is
+     * told the progress after each slice. Rendering pauses while the root is detached and stops
+     * if the page is closed meanwhile, see {@link SlicedRender}.
+     */
+    @MainThread
+    final void renderSliced(@NonNull Context context, @NonNull HNSegment segment, long
+            frameBudget, @NonNull HNativeEngine.OnHNViewLoaded callback) {
+        new SlicedRender(context, segment, frameBudget, callback).start();
+    }
+
+    /**
+     * @return whether no view of segment must be created on main thread, see
+     * {@link MainThreadViewFactory}.
+     */
+    static boolean canBuildOffMainThread(@NonNull HNSegment segment) {
+        return !hasMainThreadView(segment.getDom());
+    }
+
+    private static boolean hasMainThreadView(HNDomTree tree) {
+        // grouping elements are always layouts, see createAndroidViewGroup
+        if (!HtmlTag.isGroupingElement(tree.getType())) {
+            String viewClassName = ViewTypeRelations.findClassByType(tree.getType());
+            if (viewClassName != null && sViewFactory.get(viewClassName) instanceof
+                    MainThreadViewFactory) {
+                return true;
+            }
         }
 
-        return null;
+        for (HNDomTree child : tree.children()) {
+            if (hasMainThreadView(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Start a streaming render. Only the root tree is rendered here, its children are appended
+     * later by {@link #appendStream(HNDomTree)} as soon as they are parsed, and scripts run in
+     * {@link #finishStream()} after the whole document is parsed.
+     * <p>
+     * Head, css and the attrs of root tree must be ready when this is called.
+     */
+    @MainThread
+    @Nullable
+    final View startStream(@NonNull Context context, @NonNull HNSegment segment) throws
+            HNRenderException {
+
+        mTracker.reset();
+
+        HNLog.d(HNLog.RENDER, "start to stream render " + segment.toString());
+        HNRootView rootViewGroup = new HNRootView(context);
+
+        HNSandBoxContext sandBoxContext = HNSandBoxContextImpl.createContext(rootViewGroup,
+                segment, context);
+
+        mInheritStyleStack.reset();
+        mStyleResolver.reset();
+
+        LayoutParamsLazyCreator rootCreator = new LayoutParamsLazyCreator();
+
+        HNDomTree tree = segment.getDom();
+        mStyleResolver.pushChain(tree.getParent());
+        View v = createView(tree, tree, sandBoxContext, rootViewGroup, context, segment
+                .getInlineStyles(), rootCreator, segment.getStyleSheet(), mInheritStyleStack,
+                mStyleResolver);
+
+        if (v == null) {
+            mInheritStyleStack.pop();
+            return null;
+        }
+
+        rootViewGroup.addContent(v, LayoutParamsLazyCreator.createLayoutParams(rootViewGroup,
+                rootCreator));
+
+        if (v instanceof ViewGroup) {
+            mStreamBody = (ViewGroup) v;
+            // streamed children are all below root tree
+            mStyleResolver.push(tree);
+        } else {
+            HNLog.e(HNLog.RENDER, "View render from HNRenderer is not an viewGroup" + v
+                    .getClass().getSimpleName() + ", will ignore all streamed children!");
+        }
+
+        mStreamContext = context;
+        mStreamSegment = segment;
+        mStreamSandBox = sandBoxContext;
+        mStreamRoot = rootViewGroup;
+        return rootViewGroup;
+    }
+
+    /**
+     * Render a direct child of root tree and attach it to the view of root tree.
+     */
+    @MainThread
+    final void appendStream(@NonNull HNDomTree subtree) throws HNRenderException {
+        if (mStreamBody == null) {
+            return;
+        }
+
+        long renderStartTime = SystemClock.currentThreadTimeMillis();
+
+        LayoutParamsLazyCreator childCreator = new LayoutParamsLazyCreator();
+        View v = renderInternal(mStreamContext, mStreamSandBox, subtree, mStreamSegment,
+                mStreamBody, childCreator, mStreamRoot, mStreamSegment.getStyleSheet());
+
+        if (v != null) {
+            mStreamBody.addView(v, LayoutParamsLazyCreator.createLayoutParams(mStreamRoot,
+                    childCreator));
+        } else {
+            HNLog.e(HNLog.RENDER, "error when inflating " + subtree.getType());
+        }
+
+        mTracker.record("Render Subtree " + subtree.getType(), SystemClock
+                .currentThreadTimeMillis() - renderStartTime);
+    }
+
+    /**
+     * Called once the whole document is parsed, runs the script.
+     */
+    @MainThread
+    final void finishStream() {
+        if (mStreamRoot == null) {
+            return;
+        }
+
+        mInheritStyleStack.pop();
+
+        long createTime = SystemClock.currentThreadTimeMillis();
+        this.performCreate(mStreamSandBox);
+        mTracker.record("Create View", SystemClock.currentThreadTimeMillis() - createTime);
+
+        long afterCreate = SystemClock.currentThreadTimeMillis();
+        this.performCreated(mStreamSandBox);
+        mTracker.record("After View Created", SystemClock.currentThreadTimeMillis() -
+                afterCreate);
+
+        Log.i(PERFORMANCE_TAG, mTracker.dump());
+        Log.i(PERFORMANCE_TAG, mStyleResolver.dumpStats());
+        Log.i(PERFORMANCE_TAG, ParametersUtils.dumpCacheStats());
+        Log.i(PERFORMANCE_TAG, Background.dumpCacheStats());
+
+        HNLog.d(HNLog.RENDER, mStreamSandBox.allIdTag());
+
+        mStreamContext = null;
+        mStreamSegment = null;
+        mStreamSandBox = null;
+        mStreamRoot = null;
+        mStreamBody = null;
     }
 
     private View renderInternal(@NonNull Context context, @NonNull HNSandBoxContext
@@ -147,22 +380,26 @@ public final class HNRenderer {
 
         if (tree.isLeaf()) {
             View v = createView(tree, tree, sandBoxContext, parent, context, attrsSet,
-                    paramsCreator, styleSheet, mInheritStyleStack);
+                    paramsCreator, styleSheet, mInheritStyleStack, mStyleResolver);
             mInheritStyleStack.pop();
             return v;
         } else {
             View view = createView(tree, tree, sandBoxContext, parent, context, attrsSet,
-                    paramsCreator, styleSheet, mInheritStyleStack);
+                    paramsCreator, styleSheet, mInheritStyleStack, mStyleResolver);
 
             if (view == null) {
                 return null;
             }
 
 
-            if (view instanceof ViewGroup) {
+            if (view instanceof HNListView) {
+                setUpList((HNListView) view, tree, sandBoxContext, segment);
+            } else if (view instanceof ViewGroup) {
 
                 final ViewGroup viewGroup = (ViewGroup) view;
 
+                mStyleResolver.push(tree);
+
                 List<HNDomTree> children = tree.children();
                 for (HNDomTree child : children) {
 
@@ -180,6 +417,8 @@ public final class HNRenderer {
                         HNLog.e(HNLog.RENDER, "error when inflating " + child.getType());
                     }
                 }
+
+                mStyleResolver.pop();
             } else {
                 HNLog.e(HNLog.RENDER, "View render from HNRenderer is not " +
                         "an " +
@@ -193,11 +432,48 @@ public final class HNRenderer {
         }
     }
 
+    /**
+     * Compile the template of list, which is the first child element of tree, the rest are
+     * ignored. Rows are inflated by the list itself, see {@link HNListAdapter}.
+     */
+    private void setUpList(@NonNull HNListView list, @NonNull HNDomTree tree, @NonNull
+            HNSandBoxContext sandBoxContext, @NonNull HNSegment segment) {
+        HNDomTree template = null;
+        for (HNDomTree child : tree.children()) {
+            if (!HtmlTag.INNER_TREE_TAG.equalsIgnoreCase(child.getType())) {
+                template = child;
+                break;
+            }
+        }
+
+        if (template == null) {
+            HNLog.e(HNLog.RENDER, "list has no template element, will be empty");
+            return;
+        }
+
+        mStyleResolver.push(tree);
+        list.setAdapter(new HNListAdapter(sandBoxContext, template, segment,
+                mInheritStyleStack, mStyleResolver));
+        mStyleResolver.pop();
+    }
 
     public static View createView(AttrsSet.AttrsOwner owner, @NonNull DomElement tree, @NonNull
             HNSandBoxContext sandBoxContext, ViewGroup parent, @NonNull Context context, AttrsSet
             attrsSet, @NonNull LayoutParamsLazyCreator layoutCreator, StyleSheet styleSheet,
                                   InheritStyleStack stack) throws HNRenderException {
+        return createView(owner, tree, sandBoxContext, parent, context, attrsSet, layoutCreator,
+                styleSheet, stack, null);
+    }
+
+    /**
+     * @param resolver resolves the styles of tree, null to use a new one which knows nothing
+     *                 about the elements rendered before.
+     */
+    public static View createView(AttrsSet.AttrsOwner owner, @NonNull DomElement tree, @NonNull
+            HNSandBoxContext sandBoxContext, ViewGroup parent, @NonNull Context context, AttrsSet
+            attrsSet, @NonNull LayoutParamsLazyCreator layoutCreator, StyleSheet styleSheet,
+                                  InheritStyleStack stack, @Nullable StyleResolver resolver)
+            throws HNRenderException {
 
         String type = tree.getType();
 
@@ -221,7 +497,7 @@ public final class HNRenderer {
             //attach the dom element to view
             DomElement domElement = AttachedElement.cloneIfNecessary(tree);
             domElement.setParent((DomElement) parent.getTag());
-            v.setTag(AttachedElement.cloneIfNecessary(tree));
+            v.setTag(domElement);
 
 
             // save the id if element has one
@@ -232,81 +508,11 @@ public final class HNRenderer {
 
             // ------- below starts the styleSheet process part -------
 
-            // 1 - find the related StyleHandler
-
-            StyleHandler viewStyleHandler = StyleHandlerFactory.get(v);
-            StyleHandler extraStyleHandler = StyleHandlerFactory.extraGet(v);
-            StyleHandler parentStyleHandler = StyleHandlerFactory.get(v);
-
-            LayoutStyleHandler parentLayoutAttr = null;
-            if (parentStyleHandler instanceof LayoutStyleHandler) {
-                parentLayoutAttr = (LayoutStyleHandler) parentStyleHandler;
-            }
-
-            // 2 - set initial style to an view
-            try {
-                Styles.setDefaultStyle(context, sandBoxContext, v, tree, parent,
-                        viewStyleHandler, extraStyleHandler, parentLayoutAttr, layoutCreator);
-            } catch (AttrApplyException e) {
-                e.printStackTrace();
-            }
-
-            // 3 - use parent inherit style
-            try {
-                /**
-                 * First apply the parent styleSheet style to it.
-                 */
-                if (stack != null) {
-                    for (Styles.StyleEntry entry : stack) {
-
-                        // here pass InheritStyleStack null to Styles, is to prevent Style being
-                        // stored in InheritStyleStack twice
-                        Styles.applyStyle(context, sandBoxContext, v, tree, layoutCreator,
-                                parent, viewStyleHandler, extraStyleHandler, parentLayoutAttr,
-                                entry, false, null);
-
-                    }
-                }
-            } catch (AttrApplyException e) {
-                e.printStackTrace();
-                HNLog.e(HNLog.RENDER, "wrong when apply inherit attr to " + type);
-            }
-
-            // 4 - use CSS to render
-            if (styleSheet != null) {
-                CssSelector[] matchedSelectors = styleSheet.matchedSelector(type, tree.getId(),
-                        tree.getClazz());
-
-                for (CssSelector selector : matchedSelectors) {
-                    if (selector != null) {
-                        if (selector.matchWhole(tree)) {
-
-                            try {
-                                Styles.apply(context, sandBoxContext, styleSheet, v, selector,
-                                        tree, parent, layoutCreator, false, false,
-                                        viewStyleHandler, extraStyleHandler, parentLayoutAttr,
-                                        stack);
-
-                            } catch (AttrApplyException e) {
-                                e.printStackTrace();
-                                HNLog.e(HNLog.RENDER, "Wrong when apply css style to " + type);
-                            }
-                        }
-                    }
-                }
-            }
-
-            // 5 - use inline-style to render
-            try {
-                if (attrsSet != null) {
-                    Styles.apply(context, sandBoxContext, attrsSet, v, owner, tree, parent,
-                            layoutCreator, true, false, viewStyleHandler, extraStyleHandler,
-                            parentLayoutAttr, stack);
-                }
-            } catch (AttrApplyException e) {
-                e.printStackTrace();
-                HNLog.e(HNLog.RENDER, "wrong when apply inline attr to " + type);
+            if (resolver == null) {
+                resolver = new StyleResolver(false);
             }
+            applyStyles(context, sandBoxContext, v, tree, owner, parent, attrsSet,
+                    layoutCreator, styleSheet, stack, resolver);
             return v;
 
         } catch (ClassNotFoundException e) {
@@ -327,6 +533,52 @@ public final class HNRenderer {
         }
     }
 
+    /**
+     * Set the default styles of v, then apply the inherit styles of parent, css and inline
+     * styles of tree. Used by both render and restyle, see {@link Restyler}.
+     *
+     * @return the styles resolved for tree.
+     */
+    static Cascade applyStyles(@NonNull Context context, @NonNull HNSandBoxContext sandBoxContext,
+                            @NonNull View v, @NonNull DomElement tree, @Nullable AttrsSet
+                                    .AttrsOwner owner, ViewGroup parent, @Nullable AttrsSet
+                                    attrsSet, @NonNull LayoutParamsLazyCreator layoutCreator,
+                            @Nullable StyleSheet styleSheet, @Nullable InheritStyleStack stack,
+                            @NonNull StyleResolver resolver) {
+        // 1 - find the related StyleHandler, v may not be added to parent yet
+        StyleHandlerChain chain = StyleHandlerFactory.chainOf(v);
+        StyleHandler viewStyleHandler = chain.viewHandler();
+        StyleHandler extraStyleHandler = chain.extraHandler();
+        LayoutStyleHandler parentLayoutAttr = parent != null ? StyleHandlerFactory.chainOf
+                (parent).layoutHandler() : null;
+
+        // 2 - set initial style to an view
+        try {
+            Styles.setDefaultStyle(context, sandBoxContext, v, tree, parent,
+                    viewStyleHandler, extraStyleHandler, parentLayoutAttr, layoutCreator);
+        } catch (AttrApplyException e) {
+            e.printStackTrace();
+        }
+
+        // 3 - apply the inherit style of parent, then css, then inline-style
+        Cascade cascade = resolver.resolve(tree, owner, attrsSet, styleSheet, stack);
+
+        for (int i = 0, size = cascade.size(); i < size; i++) {
+            try {
+                // inherit styles are not stored in InheritStyleStack twice
+                Styles.applyStyle(context, sandBoxContext, v, tree, layoutCreator, parent,
+                        viewStyleHandler, extraStyleHandler, parentLayoutAttr, cascade
+                                .propertyId(i), cascade.styleName(i), cascade.style(i),
+                        false, cascade.isInherited(i) ? null : stack);
+            } catch (AttrApplyException e) {
+                e.printStackTrace();
+                HNLog.e(HNLog.RENDER, "wrong when apply " + cascade.styleName(i) + " to " +
+                        tree.getType());
+            }
+        }
+        return cascade;
+    }
+
     @Nullable
     static View createAndroidView(@NonNull Context context, @Nullable String typeName) throws
             ClassNotFoundException, NoSuchMethodException, IllegalAccessException,
@@ -346,21 +598,33 @@ public final class HNRenderer {
             return view;
         }
 
+        // then a view of the pages closed
+        view = ViewPool.get().acquire(viewClassName, context);
+        if (view != null) {
+            return view;
+        }
+
+        Context viewContext = ViewPool.get().wrap(context);
+
+        // views of reserved tags are created directly
+        ViewFactory factory = ViewTypeRelations.findReservedFactory(SymbolTable.idOf(typeName));
+        if (factory != null) {
+            return factory.create(viewContext);
+        }
+
+        // extra views registered by HNViewItem, racing renders may both look up the
+        // constructor, they get the same one
         Constructor<? extends View> constructor = sConstructorMap.get(viewClassName);
-        Class<? extends View> clazz;
         if (constructor == null) {
             // Class not found in the cache, see if it's real, and try to add it
-            clazz = context.getClassLoader().loadClass(viewClassName).asSubclass(View.class);
+            Class<? extends View> clazz = context.getClassLoader().loadClass(viewClassName)
+                    .asSubclass(View.class);
             constructor = clazz.getConstructor(sConstructorSignature);
             constructor.setAccessible(true);
             sConstructorMap.put(viewClassName, constructor);
         }
 
-        sConstructorArgs[0] = context;
-        view = constructor.newInstance(sConstructorArgs);
-        // release the context
-        sConstructorArgs[0] = null;
-        return view;
+        return constructor.newInstance(viewContext);
     }
 
     static View createAndroidViewGroup(@NonNull Context context, @Nullable String typeName,
@@ -369,7 +633,7 @@ public final class HNRenderer {
             ClassNotFoundException, NoSuchMethodException, InvocationTargetException,
             InstantiationException, IllegalAccessException {
         View v;
-        Object displayObj = attrsSet.getStyle(owner, "display");
+        Object displayObj = attrsSet.getStyle(owner, PropertyRegistry.DISPLAY);
         if (displayObj != null && displayObj instanceof String) {
             String display = (String) displayObj;
             switch (display) {
@@ -401,17 +665,12 @@ public final class HNRenderer {
             ViewGroup parent, String styleName, Object style, boolean isParent, InheritStyleStack
             stack) throws AttrApplyException {
 
-        StyleHandler viewStyleHandler = StyleHandlerFactory.get(v);
-        StyleHandler extraStyleHandler = StyleHandlerFactory.extraGet(v);
-        StyleHandler parentStyleHandler = StyleHandlerFactory.get(v);
-
-        LayoutStyleHandler parentLayoutAttr = null;
-        if (parentStyleHandler instanceof LayoutStyleHandler) {
-            parentLayoutAttr = (LayoutStyleHandler) parentStyleHandler;
-        }
+        StyleHandlerChain chain = StyleHandlerFactory.chainOf(v);
+        LayoutStyleHandler parentLayoutAttr = parent != null ? StyleHandlerFactory.chainOf
+                (parent).layoutHandler() : null;
 
         Styles.applyStyle(context, sandBoxContext, v, domElement, layoutCreator, parent,
-                viewStyleHandler, extraStyleHandler, parentLayoutAttr, styleName, style,
+                chain.viewHandler(), chain.extraHandler(), parentLayoutAttr, styleName, style,
                 isParent, stack);
     }
 
@@ -419,9 +678,11 @@ public final class HNRenderer {
             v, DomElement domElement, @NonNull LayoutParamsLazyCreator layoutCreator, @NonNull
             ViewGroup parent, Map<String, Object> styles, boolean isParent, InheritStyleStack
             stack) throws AttrApplyException {
-        final StyleHandler viewStyleHandler = StyleHandlerFactory.get(v);
-        final StyleHandler extraStyleHandler = StyleHandlerFactory.extraGet(v);
-        final LayoutStyleHandler parentAttr = StyleHandlerFactory.parentGet(v);
+        final StyleHandlerChain chain = StyleHandlerFactory.chainOf(v);
+        final StyleHandler viewStyleHandler = chain.viewHandler();
+        final StyleHandler extraStyleHandler = chain.extraHandler();
+        final LayoutStyleHandler parentAttr = parent != null ? StyleHandlerFactory.chainOf
+                (parent).layoutHandler() : null;
 
         for (Map.Entry<String, Object> entry : styles.entrySet()) {
 
@@ -468,6 +729,273 @@ public final class HNRenderer {
     }
 
 
+    private static int countTrees(HNDomTree tree) {
+        int count = 1;
+        for (HNDomTree child : tree.children()) {
+            count += countTrees(child);
+        }
+        return count;
+    }
+
+    /**
+     * Children of a tree waiting to be rendered into its view, the frame of
+     * {@link HNRenderer#renderInternal} made explicit.
+     */
+    private static final class PendingChildren {
+        final List<HNDomTree> mChildren;
+        final ViewGroup mView;
+
+        /**
+         * parent of mView, see {@link HNRenderer#renderInternal}
+         */
+        final ViewGroup mParent;
+        int mNext;
+
+        PendingChildren(List<HNDomTree> children, ViewGroup view, ViewGroup parent) {
+            mChildren = children;
+            mView = view;
+            mParent = parent;
+        }
+    }
+
+    /**
+     * State of {@link #renderSliced(Context, HNSegment, long, HNativeEngine.OnHNViewLoaded)}.
+     * <p>
+     * Paused while the root is detached from window and resumed once it is attached again, as
+     * a page in a ViewPager or on the back stack is. Cancelled when the root is released, see
+     * {@link HNRootView#release()}, or the activity of context is finishing while the root is
+     * not attached, so that a closed page is not rendered on. The views rendered by then are
+     * kept, script doesn't run.
+     */
+    private final class SlicedRender implements Choreographer.FrameCallback, View
+            .OnAttachStateChangeListener {
+
+        private final Context mContext;
+        private final HNSegment mSegment;
+        private final long mFrameBudget;
+        private final HNativeEngine.OnHNViewLoaded mCallback;
+
+        private final Deque<PendingChildren> mPending = new ArrayDeque<>();
+
+        private HNRootView mRoot;
+        private HNSandBoxContextImpl mSandBox;
+
+        private int mRendered;
+        private int mTotal;
+        private int mFrames;
+        private long mRenderTime;
+
+        private boolean mPaused;
+        private boolean mCancelled;
+
+        SlicedRender(Context context, HNSegment segment, long frameBudget, HNativeEngine
+                .OnHNViewLoaded callback) {
+            mContext = context;
+            mSegment = segment;
+            mFrameBudget = frameBudget;
+            mCallback = callback;
+        }
+
+        void start() {
+            long sliceStart = SystemClock.uptimeMillis();
+            mTracker.reset();
+
+            HNLog.d(HNLog.RENDER, "start to render " + mSegment.toString() + " in slices of " +
+                    mFrameBudget + "ms");
+            mRoot = new HNRootView(mContext);
+            mSandBox = HNSandBoxContextImpl.createContext(mRoot, mSegment, mContext);
+
+            mInheritStyleStack.reset();
+            mStyleResolver.reset();
+
+            HNDomTree tree = mSegment.getDom();
+            mStyleResolver.pushChain(tree.getParent());
+            mTotal = countTrees(tree);
+
+            LayoutParamsLazyCreator rootCreator = new LayoutParamsLazyCreator();
+            View v = null;
+            try {
+                v = createView(tree, tree, mSandBox, mRoot, mContext, mSegment
+                        .getInlineStyles(), rootCreator, mSegment.getStyleSheet(),
+                        mInheritStyleStack, mStyleResolver);
+            } catch (HNRenderException e) {
+                e.printStackTrace();
+            }
+
+            if (v == null) {
+                mCallback.onViewLoaded(null);
+                return;
+            }
+
+            mRoot.addContent(v, LayoutParamsLazyCreator.createLayoutParams(mRoot, rootCreator));
+            mRendered++;
+            descend(tree, v, mRoot);
+
+            mRoot.addOnAttachStateChangeListener(this);
+            mCallback.onViewLoaded(mRoot);
+            if (!shouldCancel() && !mPaused) {
+                slice(sliceStart);
+            }
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!shouldCancel()) {
+                slice(SystemClock.uptimeMillis());
+            }
+        }
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            if (mPaused && !shouldCancel()) {
+                mPaused = false;
+                HNLog.d(HNLog.RENDER, "resume render of " + mSegment.toString());
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            if (!mCancelled && !mPaused) {
+                mPaused = true;
+                Choreographer.getInstance().removeFrameCallback(this);
+                HNLog.d(HNLog.RENDER, "pause render of " + mSegment.toString() + ", " +
+                        mRendered + "/" + mTotal + " rendered");
+            }
+        }
+
+        /**
+         * Cancel if the page is closed.
+         */
+        private boolean shouldCancel() {
+            if (mCancelled) {
+                return true;
+            }
+            if (mRoot.isReleased()) {
+                cancel("root is released");
+            } else if (!mRoot.isAttachedToWindow() && isActivityFinishing(mContext)) {
+                cancel("activity is finishing");
+            }
+            return mCancelled;
+        }
+
+        private void cancel(String reason) {
+            mCancelled = true;
+            Choreographer.getInstance().removeFrameCallback(this);
+            mRoot.removeOnAttachStateChangeListener(this);
+            mPending.clear();
+            HNLog.d(HNLog.RENDER, "cancel render of " + mSegment.toString() + ", " + reason +
+                    ", " + mRendered + "/" + mTotal + " rendered");
+        }
+
+        private void slice(long sliceStart) {
+            mFrames++;
+            long deadline = sliceStart + mFrameBudget;
+            while (!mPending.isEmpty()) {
+                if (SystemClock.uptimeMillis() >= deadline) {
+                    mRenderTime += SystemClock.uptimeMillis() - sliceStart;
+                    notifyProgress();
+                    // the callback may have detached or closed the page
+                    if (!mPaused && !shouldCancel()) {
+                        Choreographer.getInstance().postFrameCallback(this);
+                    }
+                    return;
+                }
+                step();
+            }
+            mRenderTime += SystemClock.uptimeMillis() - sliceStart;
+            mTracker.record("Render View in " + mFrames + " frames", mRenderTime);
+            notifyProgress();
+            if (shouldCancel()) {
+                return;
+            }
+            mRoot.removeOnAttachStateChangeListener(this);
+
+            mBuiltRoot = mRoot;
+            mBuiltSandBox = mSandBox;
+            View root = finishBuild();
+            if (mCallback instanceof HNativeEngine.OnHNViewProgress) {
+                ((HNativeEngine.OnHNViewProgress) mCallback).onRenderFinished(root);
+            }
+        }
+
+        /**
+         * Render the next child of the deepest pending tree, or finish that tree.
+         */
+        private void step() {
+            PendingChildren pending = mPending.peek();
+            if (pending.mNext == pending.mChildren.size()) {
+                mPending.pop();
+                mStyleResolver.pop();
+                mInheritStyleStack.pop();
+                return;
+            }
+
+            HNDomTree child = pending.mChildren.get(pending.mNext++);
+            LayoutParamsLazyCreator childCreator = new LayoutParamsLazyCreator();
+            View v = null;
+            try {
+                v = createView(child, child, mSandBox, pending.mView, mContext, mSegment
+                        .getInlineStyles(), childCreator, mSegment.getStyleSheet(),
+                        mInheritStyleStack, mStyleResolver);
+            } catch (HNRenderException e) {
+                e.printStackTrace();
+            }
+
+            if (v == null) {
+                HNLog.e(HNLog.RENDER, "error when inflating " + child.getType());
+                mInheritStyleStack.pop();
+                mRendered += countTrees(child);
+                return;
+            }
+
+            pending.mView.addView(v, LayoutParamsLazyCreator.createLayoutParams(pending
+                    .mParent, childCreator));
+            mRendered++;
+            descend(child, v, pending.mView);
+        }
+
+        /**
+         * Queue the children of tree to be rendered into v, or finish tree if there is none.
+         */
+        private void descend(HNDomTree tree, View v, ViewGroup parent) {
+            if (v instanceof HNListView) {
+                setUpList((HNListView) v, tree, mSandBox, mSegment);
+                mRendered += countTrees(tree) - 1;
+            } else if (!tree.isLeaf()) {
+                if (v instanceof ViewGroup) {
+                    mStyleResolver.push(tree);
+                    mPending.push(new PendingChildren(tree.children(), (ViewGroup) v, parent));
+                    return;
+                }
+
+                HNLog.e(HNLog.RENDER, "View render from HNRenderer is not an viewGroup" + v
+                        .getClass().getSimpleName() + ", but related HNDomTree has children. " +
+                        "Will ignore its children!");
+                mRendered += countTrees(tree) - 1;
+            }
+            mInheritStyleStack.pop();
+        }
+
+        private void notifyProgress() {
+            if (mCallback instanceof HNativeEngine.OnHNViewProgress) {
+                ((HNativeEngine.OnHNViewProgress) mCallback).onProgress(mRoot, mRendered,
+                        mTotal);
+            }
+        }
+    }
+
+    private static boolean isActivityFinishing(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                Activity activity = (Activity) context;
+                return activity.isFinishing() || activity.isDestroyed();
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return false;
+    }
+
     public static class HNRenderException extends Exception {
         public HNRenderException() {
             super();
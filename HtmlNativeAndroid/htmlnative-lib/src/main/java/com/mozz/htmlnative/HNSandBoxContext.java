@@ -43,9 +43,27 @@ public interface HNSandBoxContext extends VariablePool {
     @Nullable
     View registerId(String id, View value);
 
+    /**
+     * Remove id registered by {@link #registerId(String, View)}, if it is still of value.
+     */
+    void unregisterId(String id, View value);
+
     String allIdTag();
 
     HNSegment getSegment();
 
+    /**
+     * @return restyler of the views rendered in this context, see {@link Restyler}.
+     */
+    @NonNull
+    Restyler getRestyler();
+
+    /**
+     * Run r on main thread. While the views are built on a worker by async render, r is queued
+     * and run on main thread before the views are delivered; otherwise it runs at once, the
+     * caller is on main thread already.
+     */
+    void runOnMainThread(@NonNull Runnable r);
+
 }
 
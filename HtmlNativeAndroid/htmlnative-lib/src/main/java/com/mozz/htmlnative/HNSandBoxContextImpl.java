@@ -1,6 +1,7 @@
 package com.mozz.htmlnative;
 
 import android.content.Context;
+import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
@@ -10,6 +11,9 @@ import com.mozz.htmlnative.script.ScriptRunner;
 import com.mozz.htmlnative.script.ScriptRunnerFactory;
 import com.mozz.htmlnative.view.HNRootView;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Yang Tao, 17/3/6.
  */
@@ -27,6 +31,15 @@ final class HNSandBoxContextImpl implements HNSandBoxContext {
 
     private final Context mContext;
 
+    private Restyler mRestyler;
+
+    /**
+     * work queued by {@link #runOnMainThread(Runnable)}, not null only while building on a
+     * worker
+     */
+    @Nullable
+    private List<Runnable> mMainThreadQueue;
+
     private HNSandBoxContextImpl(HNSegment segment, Context context, HNRootView rootView) {
         mRootView = rootView;
         mSegment = segment;
@@ -58,6 +71,11 @@ final class HNSandBoxContextImpl implements HNSandBoxContext {
         return mRootView.putViewWithId(id, view);
     }
 
+    @Override
+    public void unregisterId(String id, View view) {
+        mRootView.removeViewWithId(id, view);
+    }
+
     @Nullable
     @Override
     public View findViewById(@NonNull String id) {
@@ -108,6 +126,51 @@ final class HNSandBoxContextImpl implements HNSandBoxContext {
         return mSegment;
     }
 
+    @NonNull
+    @Override
+    public Restyler getRestyler() {
+        // only used in main thread
+        if (mRestyler == null) {
+            mRestyler = new Restyler(this, mRootView);
+        }
+        return mRestyler;
+    }
+
+    @Override
+    public void runOnMainThread(@NonNull Runnable r) {
+        if (mMainThreadQueue != null) {
+            mMainThreadQueue.add(r);
+        } else {
+            r.run();
+        }
+    }
+
+    /**
+     * Queue the work of {@link #runOnMainThread(Runnable)} from now on, until
+     * {@link #runMainThreadQueue()}.
+     */
+    void queueMainThreadWork() {
+        mMainThreadQueue = new ArrayList<>();
+    }
+
+    /**
+     * Run the queued work and stop queueing. Main thread only.
+     *
+     * @return count of work run.
+     */
+    @MainThread
+    int runMainThreadQueue() {
+        List<Runnable> queue = mMainThreadQueue;
+        mMainThreadQueue = null;
+        if (queue == null) {
+            return 0;
+        }
+        for (Runnable r : queue) {
+            r.run();
+        }
+        return queue.size();
+    }
+
     @Override
     public void execute(final String script) {
         if (mRunner == null) {
@@ -125,7 +188,7 @@ final class HNSandBoxContextImpl implements HNSandBoxContext {
     }
 
     @NonNull
-    static HNSandBoxContext createContext(@NonNull HNRootView layout, HNSegment module, Context
+    static HNSandBoxContextImpl createContext(@NonNull HNRootView layout, HNSegment module, Context
             context) {
         return new HNSandBoxContextImpl(module, context, layout);
     }
@@ -1,7 +1,6 @@
 package com.mozz.htmlnative;
 
 import android.support.annotation.NonNull;
-import android.util.ArrayMap;
 
 import com.mozz.htmlnative.css.AttrsSet;
 import com.mozz.htmlnative.css.StyleSheet;
@@ -9,11 +8,20 @@ import com.mozz.htmlnative.dom.HNDomTree;
 import com.mozz.htmlnative.dom.HNHead;
 import com.mozz.htmlnative.exception.HNSyntaxError;
 import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.parser.binary.SegmentCompiler;
+import com.mozz.htmlnative.parser.binary.SegmentFormat;
+import com.mozz.htmlnative.parser.binary.SegmentReader;
 import com.mozz.htmlnative.reader.FileTextReader;
+import com.mozz.htmlnative.reader.MappedTextReader;
+import com.mozz.htmlnative.reader.TextReader;
 import com.mozz.htmlnative.script.ScriptInfo;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.Map;
+import java.nio.ByteBuffer;
 
 public final class HNSegment {
 
@@ -25,10 +33,6 @@ public final class HNSegment {
     private AttrsSet mInlineStyles;
     private StyleSheet mStyleSheet;
 
-    @NonNull
-    private static Map<String, HNSegment> sCache = new ArrayMap<>();
-    private static final Object sCacheLock = new Object();
-
     public HNSegment() {
         mInlineStyles = new AttrsSet("Inline-Style");
         mHead = new HNHead();
@@ -36,30 +40,87 @@ public final class HNSegment {
         mStyleSheet = new StyleSheet();
     }
 
+    /**
+     * Load segment from stream, which could be either the source file or the precompiled
+     * format written by {@link SegmentCompiler}.
+     */
     @NonNull
     public static HNSegment load(@NonNull InputStream stream) throws HNSyntaxError {
-        Parser parser = new Parser(new FileTextReader(stream));
+        long position = filePosition(stream);
+        InputStream in = stream.markSupported() ? stream : new BufferedInputStream(stream);
+
+        try {
+            if (SegmentFormat.isCompiled(in)) {
+                return new SegmentReader(in).read();
+            }
+        } catch (IOException e) {
+            throw new HNSyntaxError("can't read compiled segment, " + e.getMessage(), 0, 0);
+        }
+
+        Parser parser = new Parser(textReader(stream, in, position));
         return parser.process();
     }
 
-    //TODO finish the cache of HNSegment
-    public static HNSegment load(@NonNull InputStream stream, String type) throws HNSyntaxError {
-        synchronized (sCacheLock) {
-            HNSegment module = sCache.get(type);
-            if (module != null) {
-                return module;
-            } else {
-                module = load(stream);
-                sCache.put(type, module);
-                return module;
+    /**
+     * Same as {@link #load(InputStream)}, with the whole source already read.
+     */
+    @NonNull
+    static HNSegment load(@NonNull byte[] source) throws HNSyntaxError {
+        if (SegmentFormat.isCompiled(source)) {
+            try {
+                return new SegmentReader(new ByteArrayInputStream(source)).read();
+            } catch (IOException e) {
+                throw new HNSyntaxError("can't read compiled segment, " + e.getMessage(), 0, 0);
             }
         }
+
+        Parser parser = new Parser(new MappedTextReader(ByteBuffer.wrap(source)));
+        return parser.process();
     }
 
-    public static void clearCache() {
-        synchronized (sCacheLock) {
-            sCache.clear();
+    /**
+     * @return position of stream in its file, or -1 if stream is not a file. Taken before
+     * stream is read, see {@link #textReader(InputStream, InputStream, long)}.
+     */
+    static long filePosition(@NonNull InputStream stream) {
+        if (stream instanceof FileInputStream) {
+            try {
+                return ((FileInputStream) stream).getChannel().position();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
         }
+        return -1;
+    }
+
+    /**
+     * @param buffered stream wrapped, read if stream can't be mapped
+     * @param position see {@link #filePosition(InputStream)}
+     * @return reader of the text of stream, which is memory-mapped if it is a file, see
+     * {@link MappedTextReader}.
+     */
+    @NonNull
+    static TextReader textReader(@NonNull InputStream stream, @NonNull InputStream buffered,
+                                 long position) {
+        if (position >= 0) {
+            try {
+                return MappedTextReader.fromFile((FileInputStream) stream, position);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return new FileTextReader(buffered);
+    }
+
+    /**
+     * Load segment through {@link HNSegmentCache}, using type as the version of the source.
+     */
+    public static HNSegment load(@NonNull InputStream stream, String type) throws HNSyntaxError {
+        return HNSegmentCache.get().load(stream, type);
+    }
+
+    public static void clearCache() {
+        HNSegmentCache.get().clear();
     }
 
 
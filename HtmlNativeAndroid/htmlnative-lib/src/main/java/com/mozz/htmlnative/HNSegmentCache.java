@@ -0,0 +1,374 @@
+package com.mozz.htmlnative;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mozz.htmlnative.exception.HNSyntaxError;
+import com.mozz.htmlnative.parser.binary.SegmentReader;
+import com.mozz.htmlnative.parser.binary.SegmentWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of parsed {@link HNSegment}, keyed either by the hash of the source content or by
+ * an explicit version given by caller. Memory tier is bounded by both entry count and
+ * estimated bytes (size of the source), and is trimmed in {@link #onTrimMemory(int)}. If a
+ * disk directory is set, parsed segments are also persisted in the precompiled format so that
+ * they survive process restart.
+ * <p>
+ * Parsed segments are only read by {@link HNRenderer}, so one instance can be shared by
+ * several renders.
+ */
+public final class HNSegmentCache implements ComponentCallbacks2 {
+
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+    public static final int DEFAULT_MAX_BYTES = 1024 * 1024;
+
+    private static final String DISK_SUFFIX = ".hnb";
+
+    private static final HNSegmentCache sInstance = new HNSegmentCache(DEFAULT_MAX_ENTRIES,
+            DEFAULT_MAX_BYTES);
+
+    private final Map<String, Entry> mMemory = new LinkedHashMap<>(16, 0.75f, true);
+    private final Object mLock = new Object();
+
+    private int mMaxEntries;
+    private int mMaxBytes;
+    private int mBytes;
+
+    @Nullable
+    private File mDiskDir;
+
+    private int mHitCount;
+    private int mDiskHitCount;
+    private int mMissCount;
+
+    public HNSegmentCache(int maxEntries, int maxBytes) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("maxEntries and maxBytes must be positive");
+        }
+        mMaxEntries = maxEntries;
+        mMaxBytes = maxBytes;
+    }
+
+    @NonNull
+    public static HNSegmentCache get() {
+        return sInstance;
+    }
+
+    public void resize(int maxEntries, int maxBytes) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("maxEntries and maxBytes must be positive");
+        }
+        synchronized (mLock) {
+            mMaxEntries = maxEntries;
+            mMaxBytes = maxBytes;
+            trimTo(mMaxEntries, mMaxBytes);
+        }
+    }
+
+    /**
+     * @param dir directory for the disk tier, null to disable it.
+     */
+    public void setDiskDir(@Nullable File dir) {
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            HNLog.e(HNLog.PROCESS_THREAD, "can't create segment cache dir " + dir);
+            dir = null;
+        }
+        synchronized (mLock) {
+            mDiskDir = dir;
+        }
+    }
+
+    /**
+     * Load segment keyed by the hash of the whole content of stream.
+     */
+    @NonNull
+    public HNSegment load(@NonNull InputStream stream) throws HNSyntaxError {
+        byte[] source = readAll(stream);
+        return load(source, "c" + hex(digest(source)));
+    }
+
+    /**
+     * Load segment keyed by an explicit version. When it hits, stream will not be read.
+     */
+    @NonNull
+    public HNSegment load(@NonNull InputStream stream, @NonNull String version) throws
+            HNSyntaxError {
+        String key = "v" + hex(digest(version.getBytes()));
+
+        HNSegment segment = fromMemory(key);
+        if (segment != null) {
+            return segment;
+        }
+
+        return load(readAll(stream), key);
+    }
+
+    private HNSegment load(byte[] source, String key) throws HNSyntaxError {
+        HNSegment segment = fromMemory(key);
+        if (segment != null) {
+            return segment;
+        }
+
+        File diskFile = diskFile(key);
+        if (diskFile != null && diskFile.exists()) {
+            segment = fromDisk(diskFile);
+            if (segment != null) {
+                synchronized (mLock) {
+                    mDiskHitCount++;
+                }
+                putMemory(key, segment, source.length);
+                return segment;
+            }
+        }
+
+        synchronized (mLock) {
+            mMissCount++;
+        }
+
+        segment = HNSegment.load(source);
+        putMemory(key, segment, source.length);
+
+        if (diskFile != null) {
+            toDisk(diskFile, segment);
+        }
+        return segment;
+    }
+
+    @Nullable
+    private HNSegment fromMemory(String key) {
+        synchronized (mLock) {
+            Entry entry = mMemory.get(key);
+            if (entry != null) {
+                mHitCount++;
+                return entry.segment;
+            }
+            return null;
+        }
+    }
+
+    private void putMemory(String key, HNSegment segment, int size) {
+        synchronized (mLock) {
+            Entry old = mMemory.put(key, new Entry(segment, size));
+            if (old != null) {
+                mBytes -= old.size;
+            }
+            mBytes += size;
+            trimTo(mMaxEntries, mMaxBytes);
+        }
+    }
+
+    /**
+     * Must be called with mLock held.
+     */
+    private void trimTo(int maxEntries, int maxBytes) {
+        Iterator<Entry> itr = mMemory.values().iterator();
+        while (itr.hasNext() && (mMemory.size() > maxEntries || mBytes > maxBytes)) {
+            Entry eldest = itr.next();
+            mBytes -= eldest.size;
+            itr.remove();
+        }
+    }
+
+    @Nullable
+    private File diskFile(String key) {
+        synchronized (mLock) {
+            return mDiskDir == null ? null : new File(mDiskDir, key + DISK_SUFFIX);
+        }
+    }
+
+    @Nullable
+    private static HNSegment fromDisk(File file) {
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(file));
+            return new SegmentReader(in).read();
+        } catch (IOException e) {
+            HNLog.e(HNLog.PROCESS_THREAD, "broken segment cache " + file + ", " + e.getMessage());
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    private static void toDisk(File file, HNSegment segment) {
+        File tmp = new File(file.getPath() + ".tmp");
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(tmp));
+            new SegmentWriter().write(segment, out);
+            out.close();
+            out = null;
+            if (!tmp.renameTo(file)) {
+                throw new IOException("can't rename " + tmp);
+            }
+        } catch (IOException e) {
+            HNLog.e(HNLog.PROCESS_THREAD, "can't write segment cache " + file + ", " + e
+                    .getMessage());
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    public void clear() {
+        synchronized (mLock) {
+            mMemory.clear();
+            mBytes = 0;
+        }
+    }
+
+    /**
+     * Clear both memory and disk tier.
+     */
+    public void clearAll() {
+        clear();
+        File dir;
+        synchronized (mLock) {
+            dir = mDiskDir;
+        }
+        if (dir == null) {
+            return;
+        }
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                if (f.getName().endsWith(DISK_SUFFIX)) {
+                    //noinspection ResultOfMethodCallIgnored
+                    f.delete();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        synchronized (mLock) {
+            if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+                trimTo(0, 0);
+            } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+                trimTo(mMemory.size() / 2, mBytes / 2);
+            }
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        // do nothing
+    }
+
+    public int size() {
+        synchronized (mLock) {
+            return mMemory.size();
+        }
+    }
+
+    public int bytes() {
+        synchronized (mLock) {
+            return mBytes;
+        }
+    }
+
+    public int hitCount() {
+        synchronized (mLock) {
+            return mHitCount;
+        }
+    }
+
+    public int diskHitCount() {
+        synchronized (mLock) {
+            return mDiskHitCount;
+        }
+    }
+
+    public int missCount() {
+        synchronized (mLock) {
+            return mMissCount;
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (mLock) {
+            return "HNSegmentCache[size=" + mMemory.size() + "/" + mMaxEntries + ", bytes=" +
+                    mBytes + "/" + mMaxBytes + ", hit=" + mHitCount + ", diskHit=" +
+                    mDiskHitCount + ", miss=" + mMissCount + "]";
+        }
+    }
+
+    private static byte[] readAll(InputStream stream) throws HNSyntaxError {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        try {
+            int count;
+            while ((count = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+        } catch (IOException e) {
+            throw new HNSyntaxError("can't read source, " + e.getMessage(), 0, 0);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] digest(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 is always available on Android
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static final class Entry {
+        final HNSegment segment;
+        final int size;
+
+        Entry(HNSegment segment, int size) {
+            this.segment = segment;
+            this.size = size;
+        }
+    }
+}
@@ -17,6 +17,14 @@ public abstract class HNViewItem {
         return null;
     }
 
+    /**
+     * @return names of the styles only the handler of this view knows, they are registered to
+     * {@link com.mozz.htmlnative.css.PropertyRegistry} so that the css parser keeps them.
+     */
+    public String[] getStyleNames() {
+        return null;
+    }
+
     public Class<? extends View> getViewClass(){
         return null;
     }
@@ -15,9 +15,12 @@ import com.mozz.htmlnative.script.ScriptRunner;
 import com.mozz.htmlnative.css.stylehandler.StyleHandlerFactory;
 import com.mozz.htmlnative.utils.ParametersUtils;
 import com.mozz.htmlnative.view.BackgroundViewDelegate;
+import com.mozz.htmlnative.view.HNRootView;
 
+import java.io.File;
 import java.io.InputStream;
 import java.lang.ref.WeakReference;
+import java.util.concurrent.Executor;
 
 import static com.mozz.htmlnative.HNLog.STYLE;
 
@@ -34,6 +37,9 @@ public final class HNativeEngine {
     private static ImageViewAdapter sImageViewAdapter = DefaultImageAdapter.sInstance;
     private static HrefLinkHandler sHrefLinkHandler = DefaultHrefLinkHandler.sInstance;
 
+    @Nullable
+    private Context mAppContext;
+
     private HNativeEngine() {
         HNInternalThread.init();
         HNScriptRunnerThread.init();
@@ -57,6 +63,92 @@ public final class HNativeEngine {
 
     public void init(@NonNull Context context) {
         initScreenMetrics(context);
+        mAppContext = context.getApplicationContext();
+        mAppContext.registerComponentCallbacks(HNSegmentCache.get());
+        mAppContext.registerComponentCallbacks(ViewPool.get());
+    }
+
+    /**
+     * Bound the in-memory cache of parsed segments.
+     */
+    public void setSegmentCacheSize(int maxEntries, int maxBytes) {
+        HNSegmentCache.get().resize(maxEntries, maxBytes);
+    }
+
+    /**
+     * Reuse the views of closed pages, at most maxPerClass views of each class are kept. The
+     * views of a page are pooled when its root view is released, see
+     * {@link HNRootView#release()}. 0 disables the pool, which is the default. See
+     * {@link ViewPool}.
+     */
+    public void setViewPoolSize(int maxPerClass) {
+        ViewPool.get().resize(maxPerClass);
+    }
+
+    /**
+     * Persist parsed segments in dir, so that they survive process restart. Pass null to
+     * disable the disk cache.
+     */
+    public void setSegmentDiskCache(@Nullable File dir) {
+        HNSegmentCache.get().setDiskDir(dir);
+    }
+
+    /**
+     * Run parse work on executor instead of the default pool. Runnables handed to it implement
+     * {@link Comparable}, an executor backed by a priority queue keeps the order of
+     * {@link HNInternalThread#PRIORITY_FOREGROUND} and {@link HNInternalThread#PRIORITY_PREFETCH}.
+     */
+    public void setExecutor(@NonNull Executor executor) {
+        HNInternalThread.setExecutor(executor);
+    }
+
+    /**
+     * Size of the default parse pool, 2 to 4 threads depending on the count of cores.
+     */
+    public void setParseWorkerCount(int count) {
+        HNInternalThread.setWorkerCount(count);
+    }
+
+    /**
+     * Build views on the parse worker instead of main thread, only styles needing main thread,
+     * such as images, and script run on main thread before the view is delivered. Segments
+     * having views created by a {@link MainThreadViewFactory}, such as &lt;iframe&gt;, are
+     * still rendered on main thread. Streaming loads are not affected. Off by default.
+     */
+    public void setAsyncRender(boolean async) {
+        HNProcessThread.setAsyncRender(async);
+    }
+
+    /**
+     * Render on main thread a slice per frame, each slice spends about millis, instead of the
+     * whole document at once, so that long pages don't drop frames. The root view is delivered
+     * before the first slice and the rest is attached to it progressively, callbacks
+     * implementing {@link OnHNViewProgress} are told the progress. Rendering pauses while the
+     * root is detached from window. 8 suits 60 fps, 0 renders
+     * in one pass, which is the default. Views built by async render are not affected, see
+     * {@link #setAsyncRender(boolean)}.
+     */
+    public void setRenderFrameBudget(long millis) {
+        HNProcessThread.setFrameBudget(millis);
+    }
+
+    /**
+     * Parse the source into the segment cache with a low priority, so that a later
+     * {@link #loadView(Context, InputStream, String, OnHNViewLoaded)} with the same version
+     * doesn't need to parse.
+     */
+    public final void prefetch(final InputStream inputStream, @Nullable final String version) {
+        HNProcessThread.runPrefetchTask(new HNProcessThread.PrefetchTask(inputStream, version));
+    }
+
+    /**
+     * Drop the queued loads of context, e.g. when the activity is destroyed. Loads whose
+     * context has been collected are dropped as well. Loads already running are not affected.
+     *
+     * @return count of dropped loads.
+     */
+    public int cancel(@Nullable Context context) {
+        return HNInternalThread.cancel(context);
     }
 
     public void debugAll() {
@@ -75,6 +167,29 @@ public final class HNativeEngine {
                 onHNViewLoaded));
     }
 
+    /**
+     * Same as {@link #loadView(Context, InputStream, OnHNViewLoaded)}, but the parsed segment is
+     * cached by version instead of by the hash of the content, so that stream will not be read
+     * when cache hits.
+     */
+    public final void loadView(final Context context, final InputStream inputStream, final
+    String version, final OnHNViewLoaded onHNViewLoaded) {
+        HNProcessThread.runRenderTask(new HNProcessThread.RenderTask(context, inputStream,
+                version, onHNViewLoaded));
+    }
+
+    /**
+     * Render the direct children of &lt;body&gt; as soon as each of them is parsed, which
+     * shortens the time to first content of long pages. {@link OnHNViewLoaded#onViewLoaded(View)}
+     * is called with the first subtree, the rest is appended to it later, and script runs after
+     * the whole document is parsed. Segments loaded this way are not cached.
+     */
+    public final void loadViewStreaming(final Context context, final InputStream inputStream,
+                                        final OnHNViewLoaded onHNViewLoaded) {
+        HNProcessThread.runRenderTask(new HNProcessThread.StreamRenderTask(context, inputStream,
+                onHNViewLoaded));
+    }
+
     public void loadView(Context context, InputStream inputStream, final Activity activity) {
         loadView(context, inputStream, new OnHNViewLoadedWeak<Activity>(activity) {
             @Override
@@ -133,7 +248,14 @@ public final class HNativeEngine {
     }
 
     public void destroy() {
+        if (mAppContext != null) {
+            mAppContext.unregisterComponentCallbacks(HNSegmentCache.get());
+            mAppContext.unregisterComponentCallbacks(ViewPool.get());
+            mAppContext = null;
+        }
         HNSegment.clearCache();
+        StyleSheetCache.get().clear();
+        ViewPool.get().clear();
         HNInternalThread.quit();
         HNScriptRunnerThread.quit();
         StyleHandlerFactory.clear();
@@ -160,6 +282,14 @@ public final class HNativeEngine {
         return sHrefLinkHandler;
     }
 
+    /**
+     * Load the css of &lt;link rel="stylesheet"&gt;, which is parsed once and shared by all
+     * segments linking it. Without a loader, such links are ignored.
+     */
+    public void setStyleSheetLoader(@Nullable StyleSheetLoader loader) {
+        StyleSheetCache.get().setLoader(loader);
+    }
+
     public static void registerScriptCallback(ScriptRunner.OnScriptCallback callback) {
         ScriptRunner.registerUniversalCallback(callback);
     }
@@ -172,6 +302,26 @@ public final class HNativeEngine {
         void onHead(HNHead head);
     }
 
+    /**
+     * {@link OnHNViewLoaded} told the progress of a render sliced into frames, see
+     * {@link #setRenderFrameBudget(long)}. The view passed to {@link #onViewLoaded(View)} is
+     * filled in the following frames.
+     */
+    public interface OnHNViewProgress extends OnHNViewLoaded {
+        /**
+         * Called after each frame of render, the views rendered by now are attached already.
+         *
+         * @param rendered count of elements rendered, including the ones failed
+         * @param total    count of elements in the document
+         */
+        void onProgress(View v, int rendered, int total);
+
+        /**
+         * Called after all the views are rendered and script has run.
+         */
+        void onRenderFinished(View v);
+    }
+
     private abstract class OnHNViewLoadedWeak<T> implements OnHNViewLoaded {
         protected WeakReference<T> mWeakRef;
 
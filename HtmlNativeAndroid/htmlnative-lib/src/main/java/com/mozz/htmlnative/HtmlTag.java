@@ -2,6 +2,7 @@ package com.mozz.htmlnative;
 
 import android.support.annotation.NonNull;
 
+import com.mozz.htmlnative.common.SymbolTable;
 import com.mozz.htmlnative.parser.token.TokenType;
 
 import java.util.HashSet;
@@ -47,6 +48,12 @@ public final class HtmlTag {
     static final String TEMPLATE = TokenType.Template.toString();
     public static final String TEXT = "text";
 
+    /**
+     * virtualized list, whose rows are inflated from its first child element, see
+     * {@link com.mozz.htmlnative.view.HNListView}
+     */
+    public static final String LIST = "list";
+
     public static final String HEAD = "head";
     public static final String META = "meta";
     public static final String LINK = "link";
@@ -57,6 +64,11 @@ public final class HtmlTag {
      */
     private static final Set<String> sSwallowInnerTag = new HashSet<>(7);
 
+    /**
+     * Same as {@link #sSwallowInnerTag}, indexed by the id in {@link SymbolTable}.
+     */
+    private static final boolean[] sSwallowInnerTagById = new boolean[SymbolTable.size()];
+
     static {
         sSwallowInnerTag.add(HtmlTag.A);
         sSwallowInnerTag.add(HtmlTag.B);
@@ -71,11 +83,20 @@ public final class HtmlTag {
         sSwallowInnerTag.add(HtmlTag.TEXT);
         sSwallowInnerTag.add(HtmlTag.BUTTON);
         sSwallowInnerTag.add(HtmlTag.SPAN);
+
+        for (int id = 0; id < sSwallowInnerTagById.length; id++) {
+            sSwallowInnerTagById[id] = sSwallowInnerTag.contains(SymbolTable.nameOf(id)
+                    .toLowerCase());
+        }
     }
 
     ;
 
     public static boolean isSwallowInnerTag(@NonNull String type) {
+        int id = SymbolTable.idOf(type);
+        if (id != SymbolTable.UNKNOWN && id < sSwallowInnerTagById.length) {
+            return sSwallowInnerTagById[id];
+        }
         return sSwallowInnerTag.contains(type.toLowerCase());
     }
 
@@ -1,93 +1,179 @@
 package com.mozz.htmlnative;
 
-import com.mozz.htmlnative.css.Styles;
+import com.mozz.htmlnative.css.PropertyRegistry;
 
 import java.util.Arrays;
-import java.util.Iterator;
 
 /**
+ * Inherit styles of the views being rendered, one level for each view from root.
+ * <p>
+ * A style set by a deeper level overrides the same style of ancestors, which is skipped by
+ * {@link #isOverridden(int)} until that level is popped. Styles are visited by index so that
+ * nothing is allocated for each view:
+ * <pre>
+ *     for (int i = 0, size = stack.size(); i &lt; size; i++) {
+ *         if (!stack.isOverridden(i)) {
+ *             apply(stack.styleName(i), stack.style(i));
+ *         }
+ *     }
+ * </pre>
+ * Arrays grow with the depth of tree and count of styles.
+ *
  * @author Yang Tao, 17/4/25.
  */
-public final class InheritStyleStack implements Iterable<Styles.StyleEntry> {
+public final class InheritStyleStack {
 
-    private int level = 0;
-    private int index = 0;
-    private int[] cssCount;
-    private Object[] values;
-    private String[] params;
-    private static final int MAX_DEPTH = 20;
+    private static final int INIT_DEPTH = 20;
+    private static final int INIT_STYLES = INIT_DEPTH * 4;
+
+    private int mLevel;
+    private int mSize;
+
+    /**
+     * index of the first style of each level
+     */
+    private int[] mLevelStart;
+
+    private String[] mStyleNames;
+    private int[] mPropertyIds;
+    private Object[] mStyles;
+
+    /**
+     * index of the style overridden by this one, or -1
+     */
+    private int[] mOverrides;
+    private boolean[] mOverridden;
 
     InheritStyleStack() {
-        cssCount = new int[MAX_DEPTH];
-        values = new Object[MAX_DEPTH * 4];
-        params = new String[MAX_DEPTH * 4];
+        mLevelStart = new int[INIT_DEPTH];
+        mStyleNames = new String[INIT_STYLES];
+        mPropertyIds = new int[INIT_STYLES];
+        mStyles = new Object[INIT_STYLES];
+        mOverrides = new int[INIT_STYLES];
+        mOverridden = new boolean[INIT_STYLES];
         reset();
     }
 
     public void push() {
-        level++;
+        mLevel++;
+        if (mLevel == mLevelStart.length) {
+            mLevelStart = Arrays.copyOf(mLevelStart, mLevel * 2);
+        }
+        mLevelStart[mLevel] = mSize;
     }
 
-    public void newStyle(String param, Object value) {
-        values[index] = value;
-        params[index] = param;
-        index++;
-        cssCount[level]++;
+    public void newStyle(String styleName, Object style) {
+        newStyle(PropertyRegistry.idOf(styleName), styleName, style);
+    }
+
+    public void newStyle(int propertyId, String styleName, Object style) {
+        // the same level sets it again, just replace
+        int start = mLevel >= 0 ? mLevelStart[mLevel] : 0;
+        for (int i = start; i < mSize; i++) {
+            if (same(i, propertyId, styleName)) {
+                mStyles[i] = style;
+                return;
+            }
+        }
+
+        if (mSize == mStyles.length) {
+            grow();
+        }
+
+        int overrides = -1;
+        for (int i = start - 1; i >= 0; i--) {
+            if (!mOverridden[i] && same(i, propertyId, styleName)) {
+                overrides = i;
+                mOverridden[i] = true;
+                break;
+            }
+        }
+
+        mStyleNames[mSize] = styleName;
+        mPropertyIds[mSize] = propertyId;
+        mStyles[mSize] = style;
+        mOverrides[mSize] = overrides;
+        mOverridden[mSize] = false;
+        mSize++;
     }
 
     public void pop() {
-        this.index -= cssCount[level];
-        cssCount[level] = 0;
-        level--;
+        int start = mLevelStart[mLevel];
+        for (int i = mSize - 1; i >= start; i--) {
+            if (mOverrides[i] >= 0) {
+                mOverridden[mOverrides[i]] = false;
+            }
+            mStyleNames[i] = null;
+            mStyles[i] = null;
+        }
+        mSize = start;
+        mLevel--;
     }
 
     public void reset() {
-        level = -1;
-        index = 0;
-        Arrays.fill(values, null);
-        Arrays.fill(params, null);
+        // popped slots are cleared already
+        for (int i = 0; i < mSize; i++) {
+            mStyleNames[i] = null;
+            mStyles[i] = null;
+        }
+        mLevel = -1;
+        mSize = 0;
     }
 
+    /**
+     * @return count of styles in stack, including the overridden ones.
+     */
     public int size() {
-        return index;
+        return mSize;
     }
 
-    @Override
-    public String toString() {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < index; i++) {
-            sb.append(params[i]).append("=").append(values[i]);
-            sb.append(",");
-        }
+    public String styleName(int index) {
+        return mStyleNames[index];
+    }
 
-        return sb.toString();
+    /**
+     * @return {@link PropertyRegistry} id of the style at index.
+     */
+    public int propertyId(int index) {
+        return mPropertyIds[index];
     }
 
-    @Override
-    public Iterator<Styles.StyleEntry> iterator() {
-        return new InheritStyleIterator();
+    public Object style(int index) {
+        return mStyles[index];
     }
 
-    private class InheritStyleIterator implements Iterator<Styles.StyleEntry> {
-        private int index = 0;
-        private int size = InheritStyleStack.this.index;
+    /**
+     * @return whether the style at index is set again by a deeper level, such style should be
+     * skipped.
+     */
+    public boolean isOverridden(int index) {
+        return mOverridden[index];
+    }
 
-        @Override
-        public boolean hasNext() {
-            return index < size;
-        }
+    private boolean same(int index, int propertyId, String styleName) {
+        return propertyId != PropertyRegistry.UNKNOWN ? mPropertyIds[index] == propertyId :
+                mStyleNames[index].equals(styleName);
+    }
 
-        @Override
-        public Styles.StyleEntry next() {
-            if (index > size) {
-                return null;
-            }
+    private void grow() {
+        int capacity = mStyles.length * 2;
+        mStyleNames = Arrays.copyOf(mStyleNames, capacity);
+        mPropertyIds = Arrays.copyOf(mPropertyIds, capacity);
+        mStyles = Arrays.copyOf(mStyles, capacity);
+        mOverrides = Arrays.copyOf(mOverrides, capacity);
+        mOverridden = Arrays.copyOf(mOverridden, capacity);
+    }
 
-            Styles.StyleEntry entry = new Styles.StyleEntry(InheritStyleStack.this.params[index],
-                    InheritStyleStack.this.values[index]);
-            index++;
-            return entry;
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < mSize; i++) {
+            if (!mOverridden[i]) {
+                sb.append(mStyleNames[i]).append("=").append(mStyles[i]);
+                sb.append(",");
+            }
         }
-    }
 
+        return sb.toString();
+    }
 }
@@ -0,0 +1,11 @@
+package com.mozz.htmlnative;
+
+import android.view.View;
+
+/**
+ * A {@link ViewFactory} whose views must be created and styled on main thread, such as
+ * {@link android.webkit.WebView}. Segments having such views are never built on a worker by
+ * async render, see {@link HNativeEngine#setAsyncRender(boolean)}.
+ */
+public interface MainThreadViewFactory<T extends View> extends ViewFactory<T> {
+}
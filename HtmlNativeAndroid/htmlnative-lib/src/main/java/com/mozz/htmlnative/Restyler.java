@@ -0,0 +1,299 @@
+package com.mozz.htmlnative;
+
+import android.os.SystemClock;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+import com.mozz.htmlnative.css.AttrsSet;
+import com.mozz.htmlnative.css.Cascade;
+import com.mozz.htmlnative.css.InheritStylesRegistry;
+import com.mozz.htmlnative.css.StyleResolver;
+import com.mozz.htmlnative.css.StyleSheet;
+import com.mozz.htmlnative.css.Styles;
+import com.mozz.htmlnative.dom.AttachedElement;
+import com.mozz.htmlnative.exception.AttrApplyException;
+import com.mozz.htmlnative.view.HNListView;
+import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Restyles the rendered views whose classes, id or inherit styles are changed by script.
+ * <p>
+ * A change only marks views dirty, as decided by {@link StyleSheet#restyleOfClass(String)}:
+ * the view itself, or the view with all its descendants. Dirty views are restyled together in
+ * one pass on the next frame, where the cascade is resolved again for them only, in the same
+ * way as render does. Their styles are cleared first, see
+ * {@link Styles#resetStylesForRestyle(View)}, so that the styles no longer matched are dropped,
+ * and applied again from the defaults. Images are kept and not loaded again if their source
+ * doesn't change. The text styles of views not created by html, such as buttons and inputs,
+ * can't be cleared, the ones no longer matched are kept.
+ * <p>
+ * The type of a view can't change, so a style choosing the view class, such as display, takes
+ * effect only on the next render.
+ * <p>
+ * MAIN THREAD ONLY
+ */
+public final class Restyler implements Runnable {
+
+    @NonNull
+    private final HNSandBoxContext mSandBoxContext;
+
+    @NonNull
+    private final View mRootView;
+
+    /**
+     * dirty views in the order they are marked, and whether their descendants are dirty too
+     */
+    private final Map<View, Boolean> mDirty = new LinkedHashMap<>();
+    private boolean mScheduled;
+
+    private final StyleResolver mResolver = new StyleResolver(true);
+    private final InheritStyleStack mStack = new InheritStyleStack();
+    private final List<View> mAncestors = new ArrayList<>();
+
+    private int mRestyleCount;
+
+    Restyler(@NonNull HNSandBoxContext sandBoxContext, @NonNull View rootView) {
+        mSandBoxContext = sandBoxContext;
+        mRootView = rootView;
+    }
+
+    @MainThread
+    public void classChanged(@NonNull View v, String[] oldClazz, String[] newClazz) {
+        StyleSheet styleSheet = mSandBoxContext.getSegment().getStyleSheet();
+        int restyle = StyleSheet.RESTYLE_NONE;
+        if (oldClazz != null) {
+            for (String clazz : oldClazz) {
+                if (!contains(newClazz, clazz)) {
+                    restyle = Math.max(restyle, styleSheet.restyleOfClass(clazz));
+                }
+            }
+        }
+        if (newClazz != null) {
+            for (String clazz : newClazz) {
+                if (!contains(oldClazz, clazz)) {
+                    restyle = Math.max(restyle, styleSheet.restyleOfClass(clazz));
+                }
+            }
+        }
+        invalidate(v, restyle);
+    }
+
+    @MainThread
+    public void idChanged(@NonNull View v, String oldId, String newId) {
+        StyleSheet styleSheet = mSandBoxContext.getSegment().getStyleSheet();
+        int restyle = StyleSheet.RESTYLE_NONE;
+        if (oldId != null && !oldId.equals(newId)) {
+            restyle = styleSheet.restyleOfId(oldId);
+        }
+        if (newId != null && !newId.equals(oldId)) {
+            restyle = Math.max(restyle, styleSheet.restyleOfId(newId));
+        }
+        invalidate(v, restyle);
+    }
+
+    /**
+     * Styles set by script are applied to v at once, its descendants need restyle only if an
+     * inherit one is set.
+     */
+    @MainThread
+    public void stylesChanged(@NonNull View v, @NonNull Map<String, Object> styles) {
+        for (String styleName : styles.keySet()) {
+            if (InheritStylesRegistry.isInherit(styleName)) {
+                invalidate(v, StyleSheet.RESTYLE_SUBTREE);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param restyle one of {@link StyleSheet#RESTYLE_NONE}, {@link StyleSheet#RESTYLE_SELF}
+     *                and {@link StyleSheet#RESTYLE_SUBTREE}
+     */
+    @MainThread
+    public void invalidate(@NonNull View v, int restyle) {
+        if (restyle == StyleSheet.RESTYLE_NONE) {
+            return;
+        }
+
+        Boolean subtree = mDirty.get(v);
+        mDirty.put(v, restyle == StyleSheet.RESTYLE_SUBTREE || (subtree != null && subtree));
+
+        if (!mScheduled) {
+            mScheduled = true;
+            mRootView.postOnAnimation(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        mScheduled = false;
+        flush();
+    }
+
+    /**
+     * Restyle all the dirty views now.
+     */
+    @MainThread
+    public void flush() {
+        if (mDirty.isEmpty()) {
+            return;
+        }
+
+        long start = SystemClock.currentThreadTimeMillis();
+        int count = mRestyleCount;
+
+        for (Map.Entry<View, Boolean> entry : mDirty.entrySet()) {
+            View v = entry.getKey();
+            if (collectAncestors(v)) {
+                restyleFromRoot(v, entry.getValue());
+            }
+            mAncestors.clear();
+        }
+        mDirty.clear();
+
+        HNLog.d(HNLog.RENDER, "restyle " + (mRestyleCount - count) + " views in " + (SystemClock
+                .currentThreadTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * Collect the ancestors of v into {@link #mAncestors}, nearest first.
+     *
+     * @return false if v needs no restyle by itself: it is removed from root, or an ancestor
+     * restyles all its descendants in this pass.
+     */
+    private boolean collectAncestors(View v) {
+        for (ViewParent p = v.getParent(); p instanceof View; p = p.getParent()) {
+            if (p == mRootView) {
+                return true;
+            }
+            if (p instanceof HNListView) {
+                // rows keep the styles of template, see HNListAdapter
+                return false;
+            }
+            if (Boolean.TRUE.equals(mDirty.get(p))) {
+                return false;
+            }
+            mAncestors.add((View) p);
+        }
+        return false;
+    }
+
+    private void restyleFromRoot(View v, boolean subtree) {
+        mResolver.reset();
+        mStack.reset();
+
+        // rebuild the inherit styles and selector context of ancestors, from root down
+        int pushed = 0;
+        for (int i = mAncestors.size() - 1; i >= 0; i--) {
+            Object tag = mAncestors.get(i).getTag();
+            if (tag instanceof AttachedElement) {
+                pushAncestor((AttachedElement) tag);
+                pushed++;
+            }
+        }
+
+        ViewParent parent = v.getParent();
+        Object tag = v.getTag();
+        if (parent instanceof ViewGroup && tag instanceof AttachedElement) {
+            restyle(v, (ViewGroup) parent, (AttachedElement) tag, subtree);
+        }
+
+        for (int i = 0; i < pushed; i++) {
+            mResolver.pop();
+            mStack.pop();
+        }
+    }
+
+    private void pushAncestor(AttachedElement element) {
+        mStack.push();
+        AttrsSet inline = mSandBoxContext.getSegment().getInlineStyles();
+        Cascade cascade = mResolver.resolve(element, element.hasAttrs() ? element : null, inline,
+                mSandBoxContext.getSegment().getStyleSheet(), mStack);
+        for (int i = 0, size = cascade.size(); i < size; i++) {
+            if (!cascade.isInherited(i) && InheritStylesRegistry.isInherit(cascade.propertyId
+                    (i))) {
+                mStack.newStyle(cascade.propertyId(i), cascade.styleName(i), cascade.style(i));
+            }
+        }
+
+        Map<String, Object> scriptStyles = element.scriptStyles();
+        if (scriptStyles != null) {
+            for (Map.Entry<String, Object> style : scriptStyles.entrySet()) {
+                if (InheritStylesRegistry.isInherit(style.getKey())) {
+                    mStack.newStyle(style.getKey(), style.getValue());
+                }
+            }
+        }
+        mResolver.push(element);
+    }
+
+    private void restyle(View v, ViewGroup parent, AttachedElement element, boolean subtree) {
+        mRestyleCount++;
+
+        LayoutParamsLazyCreator creator = new LayoutParamsLazyCreator();
+        mStack.push();
+
+        // styles dropped from the cascade must not stay, apply all of them again from defaults
+        if (!Styles.resetStylesForRestyle(v)) {
+            HNLog.d(HNLog.RENDER, "can't clear the styles of " + v.getClass().getSimpleName() +
+                    ", the ones no longer matched are kept");
+        }
+        Cascade cascade = HNRenderer.applyStyles(v.getContext(), mSandBoxContext, v, element,
+                element.hasAttrs() ? element : null, parent, mSandBoxContext.getSegment()
+                        .getInlineStyles(), creator, mSandBoxContext.getSegment()
+                        .getStyleSheet(), mStack, mResolver);
+
+        Map<String, Object> scriptStyles = element.scriptStyles();
+        if (scriptStyles != null) {
+            try {
+                HNRenderer.renderStyle(v.getContext(), mSandBoxContext, v, element, creator,
+                        parent, scriptStyles, false, mStack);
+            } catch (AttrApplyException e) {
+                e.printStackTrace();
+            }
+        }
+        Styles.finishRestyle(v, cascade, scriptStyles);
+        LayoutParamsLazyCreator.createLayoutParams(creator, v.getLayoutParams());
+
+        if (subtree && v instanceof ViewGroup && !(v instanceof HNListView)) {
+            ViewGroup group = (ViewGroup) v;
+            mResolver.push(element);
+            for (int i = 0, count = group.getChildCount(); i < count; i++) {
+                View child = group.getChildAt(i);
+                if (child.getTag() instanceof AttachedElement) {
+                    restyle(child, group, (AttachedElement) child.getTag(), true);
+                }
+            }
+            mResolver.pop();
+        }
+
+        mStack.pop();
+        v.requestLayout();
+    }
+
+    /**
+     * @return count of views restyled since created.
+     */
+    public int restyleCount() {
+        return mRestyleCount;
+    }
+
+    private static boolean contains(String[] array, String s) {
+        if (array != null) {
+            for (String one : array) {
+                if (one.equals(s)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
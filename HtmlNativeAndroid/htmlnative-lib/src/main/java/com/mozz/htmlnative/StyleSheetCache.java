@@ -0,0 +1,180 @@
+package com.mozz.htmlnative;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mozz.htmlnative.css.StyleSheet;
+import com.mozz.htmlnative.exception.HNSyntaxError;
+import com.mozz.htmlnative.parser.Parser;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parsed StyleSheets of &lt;link rel="stylesheet"&gt;, keyed by href. A linked css is loaded
+ * and parsed once, then the same read-only {@link StyleSheet} is linked by every segment, see
+ * {@link StyleSheet#link(StyleSheet)}. Different hrefs with the same content share one
+ * StyleSheet as well, matched by the hash of the content.
+ * <p>
+ * Loading and parsing run on the thread asking for the href without any lock, threads asking for
+ * the same href meanwhile wait for that load instead of loading it again. A failed load is not
+ * kept, so the href is loaded again next time.
+ * <p>
+ * Entries are never evicted, pages link a few stylesheets only. Call {@link #clear()} when the
+ * css may have changed. Thread safe.
+ */
+public final class StyleSheetCache {
+
+    private static final StyleSheetCache sInstance = new StyleSheetCache();
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ConcurrentHashMap<String, FutureTask<StyleSheet>> mByHref = new
+            ConcurrentHashMap<>();
+
+    /**
+     * keyed by the hash of css, see {@link HNSegmentCache#digest(byte[])}
+     */
+    private final ConcurrentHashMap<String, StyleSheet> mByContent = new ConcurrentHashMap<>();
+
+    @Nullable
+    private volatile StyleSheetLoader mLoader;
+
+    private final AtomicInteger mHitCount = new AtomicInteger();
+    private final AtomicInteger mMissCount = new AtomicInteger();
+
+    @NonNull
+    public static StyleSheetCache get() {
+        return sInstance;
+    }
+
+    /**
+     * @param loader null to ignore &lt;link&gt;.
+     */
+    public void setLoader(@Nullable StyleSheetLoader loader) {
+        mLoader = loader;
+    }
+
+    /**
+     * @return shared StyleSheet of href, or null if it can't be loaded or parsed, which is
+     * logged.
+     */
+    @Nullable
+    public StyleSheet load(@NonNull final String href) {
+        FutureTask<StyleSheet> task = mByHref.get(href);
+        if (task == null) {
+            FutureTask<StyleSheet> newTask = new FutureTask<>(new Callable<StyleSheet>() {
+                @Override
+                public StyleSheet call() {
+                    return loadAndParse(href);
+                }
+            });
+            task = mByHref.putIfAbsent(href, newTask);
+            if (task == null) {
+                mMissCount.incrementAndGet();
+                task = newTask;
+                task.run();
+            } else {
+                mHitCount.incrementAndGet();
+            }
+        } else {
+            mHitCount.incrementAndGet();
+        }
+
+        StyleSheet styleSheet = await(task, href);
+        if (styleSheet == null) {
+            mByHref.remove(href, task);
+        }
+        return styleSheet;
+    }
+
+    @Nullable
+    private static StyleSheet await(FutureTask<StyleSheet> task, String href) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            HNLog.e(HNLog.CSS_PARSER, "can't load stylesheet " + href + ", " + e.getCause());
+            return null;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Nullable
+    private StyleSheet loadAndParse(String href) {
+        String css = read(href);
+        if (css == null) {
+            return null;
+        }
+
+        String key = HNSegmentCache.hex(HNSegmentCache.digest(css.getBytes(UTF_8)));
+        StyleSheet styleSheet = mByContent.get(key);
+        if (styleSheet != null) {
+            return styleSheet;
+        }
+
+        try {
+            styleSheet = Parser.parseStyleSheet(css);
+        } catch (HNSyntaxError e) {
+            HNLog.e(HNLog.CSS_PARSER, "can't parse stylesheet " + href + ", " + e);
+            return null;
+        }
+        styleSheet.share(href);
+
+        // another href with the same content may be parsed meanwhile, keep the first one
+        StyleSheet parsed = mByContent.putIfAbsent(key, styleSheet);
+        return parsed != null ? parsed : styleSheet;
+    }
+
+    @Nullable
+    private String read(String href) {
+        StyleSheetLoader loader = mLoader;
+        if (loader == null) {
+            HNLog.e(HNLog.CSS_PARSER, "no StyleSheetLoader, ignore stylesheet " + href);
+            return null;
+        }
+
+        try {
+            String css = loader.loadStyleSheet(href);
+            if (css == null) {
+                HNLog.e(HNLog.CSS_PARSER, "stylesheet " + href + " not found");
+            }
+            return css;
+        } catch (IOException e) {
+            HNLog.e(HNLog.CSS_PARSER, "can't load stylesheet " + href + ", " + e);
+            return null;
+        }
+    }
+
+    public int size() {
+        return mByHref.size();
+    }
+
+    public void clear() {
+        mByHref.clear();
+        mByContent.clear();
+        mHitCount.set(0);
+        mMissCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        int hit = mHitCount.get();
+        return "StyleSheetCache : " + hit + "/" + (hit + mMissCount.get()) + " hit, " + mByHref
+                .size() + " cached";
+    }
+}
@@ -0,0 +1,19 @@
+package com.mozz.htmlnative;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Loads the css of &lt;link rel="stylesheet" href="..."&gt;, set by
+ * {@link HNativeEngine#setStyleSheetLoader(StyleSheetLoader)}. Called on parse threads.
+ */
+public interface StyleSheetLoader {
+
+    /**
+     * @return content of the css, or null if there is no such stylesheet.
+     */
+    @Nullable
+    String loadStyleSheet(@NonNull String href) throws IOException;
+}
@@ -0,0 +1,90 @@
+package com.mozz.htmlnative;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text with {{key}} in a list template, such as "Hi, {{name}}!", split once when the template is
+ * compiled and filled with the item of each row, see {@link HNListAdapter}.
+ * <p>
+ * A key is looked up in the item if it is a Map, any other item fills all the keys with itself.
+ * Missing values are filled with an empty string.
+ */
+final class TextBinding {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    /**
+     * texts around the keys, one more than keys
+     */
+    private final String[] mTexts;
+    private final String[] mKeys;
+
+    private TextBinding(String[] texts, String[] keys) {
+        mTexts = texts;
+        mKeys = keys;
+    }
+
+    /**
+     * @return binding of text, or null if text has no {{key}}.
+     */
+    @Nullable
+    static TextBinding compile(@NonNull String text) {
+        int open = text.indexOf(OPEN);
+        if (open < 0) {
+            return null;
+        }
+
+        List<String> texts = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        int start = 0;
+        while (open >= 0) {
+            int close = text.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                break;
+            }
+            texts.add(text.substring(start, open));
+            keys.add(text.substring(open + OPEN.length(), close).trim());
+            start = close + CLOSE.length();
+            open = text.indexOf(OPEN, start);
+        }
+
+        if (keys.isEmpty()) {
+            return null;
+        }
+        texts.add(text.substring(start));
+        return new TextBinding(texts.toArray(new String[texts.size()]), keys.toArray(new
+                String[keys.size()]));
+    }
+
+    /**
+     * @param buffer cleared and reused, so that binding a row allocates only the result.
+     */
+    @NonNull
+    String bind(@Nullable Object item, @NonNull StringBuilder buffer) {
+        buffer.setLength(0);
+        for (int i = 0; i < mKeys.length; i++) {
+            buffer.append(mTexts[i]);
+            Object value = item instanceof Map ? ((Map<?, ?>) item).get(mKeys[i]) : item;
+            if (value != null) {
+                buffer.append(value);
+            }
+        }
+        buffer.append(mTexts[mKeys.length]);
+        return buffer.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < mKeys.length; i++) {
+            sb.append(mTexts[i]).append(OPEN).append(mKeys[i]).append(CLOSE);
+        }
+        return sb.append(mTexts[mKeys.length]).toString();
+    }
+}
@@ -0,0 +1,231 @@
+package com.mozz.htmlnative;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.content.res.Configuration;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.mozz.htmlnative.css.Styles;
+import com.mozz.htmlnative.view.HNListView;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Views of the rendered pages which are closed, kept by class to be rendered again instead of
+ * creating new ones. The views of a {@link com.mozz.htmlnative.view.HNRootView} are put here
+ * when it is released, see {@link com.mozz.htmlnative.view.HNRootView#release()}, and the
+ * render takes them out in
+ * {@link HNRenderer#createAndroidView(Context, String)}.
+ * <p>
+ * A view is pooled only if the styles applied to it can be cleared, see
+ * {@link Styles#resetStyles(View)}. Defaults are set again by the handlers when it is rendered.
+ * <p>
+ * While the pool is enabled, views are created with a {@link MutableContextWrapper}, which is
+ * pointed to the application context when pooled, so that the pool holds no activity.
+ * Images still loading when a view is pooled are dropped when delivered, see
+ * {@link com.mozz.htmlnative.view.BackgroundViewDelegate#cancel(View)}.
+ * <p>
+ * Disabled by default, see {@link HNativeEngine#setViewPoolSize(int)}. Bounded by the count of
+ * views of each class, and trimmed in {@link #onTrimMemory(int)}. Thread safe.
+ */
+public final class ViewPool implements ComponentCallbacks2 {
+
+    private static final ViewPool sInstance = new ViewPool();
+
+    private final Map<String, ArrayDeque<View>> mViews = new HashMap<>();
+    private final Object mLock = new Object();
+
+    private volatile int mMaxPerClass;
+    private int mSize;
+
+    private int mHitCount;
+    private int mMissCount;
+
+    private ViewPool() {
+
+    }
+
+    @NonNull
+    public static ViewPool get() {
+        return sInstance;
+    }
+
+    /**
+     * @param maxPerClass max count of views kept of each class, 0 to disable the pool.
+     */
+    public void resize(int maxPerClass) {
+        if (maxPerClass < 0) {
+            throw new IllegalArgumentException("maxPerClass must not be negative");
+        }
+        synchronized (mLock) {
+            mMaxPerClass = maxPerClass;
+            trimTo(maxPerClass);
+        }
+    }
+
+    public boolean isEnabled() {
+        return mMaxPerClass > 0;
+    }
+
+    /**
+     * @return context to create a view with, so that it can be pooled later.
+     */
+    @NonNull
+    Context wrap(@NonNull Context context) {
+        return isEnabled() ? new MutableContextWrapper(context) : context;
+    }
+
+    /**
+     * @return a pooled view of className bound to context, or null if there is none.
+     */
+    @Nullable
+    View acquire(@NonNull String className, @NonNull Context context) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        View v;
+        synchronized (mLock) {
+            ArrayDeque<View> views = mViews.get(className);
+            v = views != null ? views.pollLast() : null;
+            if (v == null) {
+                mMissCount++;
+                return null;
+            }
+            mSize--;
+            mHitCount++;
+        }
+
+        ((MutableContextWrapper) v.getContext()).setBaseContext(context);
+        return v;
+    }
+
+    /**
+     * Pool the descendants of group, group itself is kept.
+     */
+    @MainThread
+    public void recycleChildren(@NonNull ViewGroup group) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        for (int i = group.getChildCount() - 1; i >= 0; i--) {
+            recycle(group.getChildAt(i));
+        }
+        group.removeAllViews();
+    }
+
+    private void recycle(View v) {
+        // rows of a list are recycled by the list itself
+        if (v instanceof ViewGroup && !(v instanceof HNListView)) {
+            recycleChildren((ViewGroup) v);
+        }
+
+        if (!(v.getContext() instanceof MutableContextWrapper)) {
+            // not created by render, or created while the pool was disabled
+            return;
+        }
+
+        if (!Styles.resetStyles(v)) {
+            return;
+        }
+        v.setTag(null);
+        v.setId(View.NO_ID);
+
+        MutableContextWrapper context = (MutableContextWrapper) v.getContext();
+        context.setBaseContext(context.getApplicationContext());
+
+        String className = v.getClass().getName();
+        synchronized (mLock) {
+            ArrayDeque<View> views = mViews.get(className);
+            if (views == null) {
+                views = new ArrayDeque<>();
+                mViews.put(className, views);
+            }
+            if (views.size() < mMaxPerClass) {
+                views.addLast(v);
+                mSize++;
+            }
+        }
+    }
+
+    /**
+     * Keep at most count views of each class.
+     */
+    private void trimTo(int count) {
+        Iterator<ArrayDeque<View>> itr = mViews.values().iterator();
+        while (itr.hasNext()) {
+            ArrayDeque<View> views = itr.next();
+            while (views.size() > count) {
+                views.pollFirst();
+                mSize--;
+            }
+            if (views.isEmpty()) {
+                itr.remove();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (mLock) {
+            mViews.clear();
+            mSize = 0;
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        synchronized (mLock) {
+            if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+                trimTo(0);
+            } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+                trimTo(mMaxPerClass / 2);
+            }
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        // views keep the resources they are created with
+        clear();
+    }
+
+    public int size() {
+        synchronized (mLock) {
+            return mSize;
+        }
+    }
+
+    public int hitCount() {
+        synchronized (mLock) {
+            return mHitCount;
+        }
+    }
+
+    public int missCount() {
+        synchronized (mLock) {
+            return mMissCount;
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (mLock) {
+            return "ViewPool[size=" + mSize + ", maxPerClass=" + mMaxPerClass + ", hit=" +
+                    mHitCount + ", miss=" + mMissCount + "]";
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.mozz.htmlnative;
 
+import android.content.Context;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.ArrayMap;
+import android.view.View;
 import android.webkit.WebView;
 import android.widget.AbsoluteLayout;
 import android.widget.Button;
@@ -12,11 +14,15 @@ import android.widget.ScrollView;
 import android.widget.TextView;
 
 import com.google.android.flexbox.FlexboxLayout;
+import com.mozz.htmlnative.common.SymbolTable;
+import com.mozz.htmlnative.css.PropertyRegistry;
 import com.mozz.htmlnative.css.stylehandler.StyleHandlerFactory;
 import com.mozz.htmlnative.view.HNText;
 import com.mozz.htmlnative.view.HNDiv;
+import com.mozz.htmlnative.view.HNListView;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Yang Tao, 17/3/3.
@@ -30,37 +36,144 @@ public final class ViewTypeRelations {
     private static final Map<String, String> sReservedTagClassTable = new ArrayMap<>();
 
     /**
-     * For extra tag, lazy initialize later.
+     * Same as {@link #sReservedTagClassTable}, indexed by the id in {@link SymbolTable}.
      */
-    private static Map<String, HNViewItem> sExtraTagClassTable;
+    private static final String[] sReservedClassById;
+
+    /**
+     * For extra tag, may be registered while other threads are looking up.
+     */
+    private static final Map<String, HNViewItem> sExtraTagClassTable = new
+            ConcurrentHashMap<>();
+
+    /**
+     * Creates the views of reserved tags without reflection, indexed by the id in
+     * {@link SymbolTable}.
+     */
+    private static final ViewFactory[] sReservedFactoryById;
+
+    private static final Map<String, ViewFactory> sReservedTagFactoryTable = new ArrayMap<>();
+
+    private static final ViewFactory<AbsoluteLayout> sAbsoluteFactory = new
+            ViewFactory<AbsoluteLayout>() {
+        @Override
+        public AbsoluteLayout create(Context context) {
+            return new AbsoluteLayout(context);
+        }
+    };
+
+    private static final ViewFactory<HNDiv> sDivFactory = new ViewFactory<HNDiv>() {
+        @Override
+        public HNDiv create(Context context) {
+            return new HNDiv(context);
+        }
+    };
+
+    private static final ViewFactory<FlexboxLayout> sFlexboxFactory = new
+            ViewFactory<FlexboxLayout>() {
+        @Override
+        public FlexboxLayout create(Context context) {
+            return new FlexboxLayout(context);
+        }
+    };
+
+    private static final ViewFactory<HNText> sTextFactory = new ViewFactory<HNText>() {
+        @Override
+        public HNText create(Context context) {
+            return new HNText(context);
+        }
+    };
+
+    private static final ViewFactory<ImageView> sImageFactory = new ViewFactory<ImageView>() {
+        @Override
+        public ImageView create(Context context) {
+            return new ImageView(context);
+        }
+    };
+
+    private static final ViewFactory<EditText> sInputFactory = new ViewFactory<EditText>() {
+        @Override
+        public EditText create(Context context) {
+            return new EditText(context);
+        }
+    };
+
+    private static final ViewFactory<Button> sButtonFactory = new ViewFactory<Button>() {
+        @Override
+        public Button create(Context context) {
+            return new Button(context);
+        }
+    };
+
+    private static final ViewFactory<ScrollView> sScrollerFactory = new
+            ViewFactory<ScrollView>() {
+        @Override
+        public ScrollView create(Context context) {
+            return new ScrollView(context);
+        }
+    };
+
+    private static final ViewFactory<HNListView> sListFactory = new ViewFactory<HNListView>() {
+        @Override
+        public HNListView create(Context context) {
+            return new HNListView(context);
+        }
+    };
+
+    private static final ViewFactory<TextView> sInnerFactory = new ViewFactory<TextView>() {
+        @Override
+        public TextView create(Context context) {
+            return new TextView(context);
+        }
+    };
 
     static {
-        sReservedTagClassTable.put("box", AbsoluteLayout.class.getName());
-        sReservedTagClassTable.put("linearbox", HNDiv.class.getName());
-        sReservedTagClassTable.put("flexbox", FlexboxLayout.class.getName());
-
-        sReservedTagClassTable.put(HtmlTag.BODY, HNDiv.class.getName());
-        sReservedTagClassTable.put(HtmlTag.TEMPLATE, HNDiv.class.getName());
-
-        sReservedTagClassTable.put(HtmlTag.P, HNText.class.getName());
-        sReservedTagClassTable.put(HtmlTag.TEXT, HNText.class.getName());
-        sReservedTagClassTable.put(HtmlTag.IMG, ImageView.class.getName());
-        sReservedTagClassTable.put(HtmlTag.INPUT, EditText.class.getName());
-        sReservedTagClassTable.put(HtmlTag.BUTTON, Button.class.getName());
-        sReservedTagClassTable.put(HtmlTag.SCROLLER, ScrollView.class.getName());
-        sReservedTagClassTable.put(HtmlTag.IFRAME, WebView.class.getName());
-        sReservedTagClassTable.put(HtmlTag.WEB, WebView.class.getName());
-        sReservedTagClassTable.put(HtmlTag.A, HNText.class.getName());
-        sReservedTagClassTable.put(HtmlTag.SPAN, HNText.class.getName());
-        sReservedTagClassTable.put(HtmlTag.H1, HNText.class.getName());
-        sReservedTagClassTable.put(HtmlTag.H2, HNText.class.getName());
-        sReservedTagClassTable.put(HtmlTag.H3, HNText.class.getName());
-        sReservedTagClassTable.put(HtmlTag.H4, HNText.class.getName());
-        sReservedTagClassTable.put(HtmlTag.H5, HNText.class.getName());
-        sReservedTagClassTable.put(HtmlTag.H6, HNText.class.getName());
+        reserve("box", AbsoluteLayout.class, sAbsoluteFactory);
+        reserve("linearbox", HNDiv.class, sDivFactory);
+        reserve("flexbox", FlexboxLayout.class, sFlexboxFactory);
+
+        reserve(HtmlTag.BODY, HNDiv.class, sDivFactory);
+        reserve(HtmlTag.TEMPLATE, HNDiv.class, sDivFactory);
+
+        reserve(HtmlTag.P, HNText.class, sTextFactory);
+        reserve(HtmlTag.TEXT, HNText.class, sTextFactory);
+        reserve(HtmlTag.IMG, ImageView.class, sImageFactory);
+        reserve(HtmlTag.INPUT, EditText.class, sInputFactory);
+        reserve(HtmlTag.BUTTON, Button.class, sButtonFactory);
+        reserve(HtmlTag.SCROLLER, ScrollView.class, sScrollerFactory);
+        reserve(HtmlTag.LIST, HNListView.class, sListFactory);
+
+        // created by the WebViewFactory registered in HNativeEngine
+        reserve(HtmlTag.IFRAME, WebView.class, null);
+        reserve(HtmlTag.WEB, WebView.class, null);
+
+        reserve(HtmlTag.A, HNText.class, sTextFactory);
+        reserve(HtmlTag.SPAN, HNText.class, sTextFactory);
+        reserve(HtmlTag.H1, HNText.class, sTextFactory);
+        reserve(HtmlTag.H2, HNText.class, sTextFactory);
+        reserve(HtmlTag.H3, HNText.class, sTextFactory);
+        reserve(HtmlTag.H4, HNText.class, sTextFactory);
+        reserve(HtmlTag.H5, HNText.class, sTextFactory);
+        reserve(HtmlTag.H6, HNText.class, sTextFactory);
 
         // for inner element only
-        sReservedTagClassTable.put(HtmlTag.INNER_TREE_TAG, TextView.class.getName());
+        reserve(HtmlTag.INNER_TREE_TAG, TextView.class, sInnerFactory);
+
+        sReservedClassById = new String[SymbolTable.size()];
+        sReservedFactoryById = new ViewFactory[SymbolTable.size()];
+        for (int id = 0; id < sReservedClassById.length; id++) {
+            String tag = SymbolTable.nameOf(id).toLowerCase();
+            sReservedClassById[id] = sReservedTagClassTable.get(tag);
+            sReservedFactoryById[id] = sReservedTagFactoryTable.get(tag);
+        }
+    }
+
+    private static void reserve(String tag, Class<? extends View> clazz, @Nullable ViewFactory
+            factory) {
+        sReservedTagClassTable.put(tag, clazz.getName());
+        if (factory != null) {
+            sReservedTagFactoryTable.put(tag, factory);
+        }
     }
 
     /**
@@ -73,14 +186,17 @@ public final class ViewTypeRelations {
      */
     @Nullable
     public static String findClassByType(@NonNull String type) {
-        String viewClassName = sReservedTagClassTable.get(type.toLowerCase());
+        String viewClassName;
 
-        if (viewClassName != null) {
-            return viewClassName;
+        int id = SymbolTable.idOf(type);
+        if (id != SymbolTable.UNKNOWN && id < sReservedClassById.length) {
+            viewClassName = sReservedClassById[id];
+        } else {
+            viewClassName = sReservedTagClassTable.get(type.toLowerCase());
         }
 
-        if (sExtraTagClassTable == null) {
-            return null;
+        if (viewClassName != null) {
+            return viewClassName;
         }
 
         HNViewItem HNViewItem = sExtraTagClassTable.get(type);
@@ -91,12 +207,25 @@ public final class ViewTypeRelations {
         return null;
     }
 
-    public static void registerExtraView(String tag, @NonNull HNViewItem HNViewItem) {
-        if (sExtraTagClassTable == null) {
-            sExtraTagClassTable = new ArrayMap<>();
-        }
+    /**
+     * @param id id of the tag in {@link SymbolTable}
+     * @return factory creating the view of a reserved tag, or null if the tag is not reserved
+     * or its view is created by a registered {@link ViewFactory}, such as {@link WebView}.
+     */
+    @Nullable
+    public static ViewFactory findReservedFactory(int id) {
+        return id >= 0 && id < sReservedFactoryById.length ? sReservedFactoryById[id] : null;
+    }
 
+    public static void registerExtraView(String tag, @NonNull HNViewItem HNViewItem) {
+        SymbolTable.register(tag);
         sExtraTagClassTable.put(tag, HNViewItem);
+        String[] styleNames = HNViewItem.getStyleNames();
+        if (styleNames != null) {
+            for (String styleName : styleNames) {
+                PropertyRegistry.register(styleName);
+            }
+        }
         StyleHandlerFactory.registerExtraStyleHandler(HNViewItem.getViewClass(), HNViewItem.getHandler());
     }
 }
@@ -18,9 +18,14 @@ public class PixelValue {
 
     public static final int EM = -2;
 
+    /**
+     * value is in percent, 100 is the whole
+     */
+    public static final int PERCENT = -3;
+
     @Retention(RetentionPolicy.SOURCE)
     @IntDef({TypedValue.COMPLEX_UNIT_PX, TypedValue.COMPLEX_UNIT_DIP, TypedValue.COMPLEX_UNIT_SP,
-            UNSET, EM})
+            UNSET, EM, PERCENT})
     public @interface PixelUnit {
     }
 
@@ -39,6 +44,10 @@ public class PixelValue {
     }
 
     public PixelValue(float value, @PixelUnit int unit) {
+        this((double) value, unit);
+    }
+
+    public PixelValue(double value, @PixelUnit int unit) {
         if (unit == EM) {
             this.value = value * 16;
             this.unit = TypedValue.COMPLEX_UNIT_PX;
@@ -57,11 +66,33 @@ public class PixelValue {
         return unit;
     }
 
+    public final boolean isPercent() {
+        return unit == PERCENT;
+    }
+
     @Override
     public String toString() {
         return this.value + " " + this.unit;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PixelValue)) {
+            return false;
+        }
+        PixelValue that = (PixelValue) o;
+        return Double.compare(that.value, value) == 0 && unit == that.unit;
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = Double.doubleToLongBits(value);
+        return 31 * (int) (bits ^ (bits >>> 32)) + unit;
+    }
+
 
     public final double getEmValue() {
         switch (unit) {
@@ -84,6 +115,9 @@ public class PixelValue {
                 return this.value;
             case TypedValue.COMPLEX_UNIT_DIP:
                 return ParametersUtils.pxToDp((float) this.value);
+            case PERCENT:
+                // same as ParametersUtils.toFloat("50%")
+                return this.value / 100;
             default:
                 return value;
         }
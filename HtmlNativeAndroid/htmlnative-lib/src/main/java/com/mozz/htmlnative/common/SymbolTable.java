@@ -0,0 +1,192 @@
+package com.mozz.htmlnative.common;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Global table which interns the known names (tags, attributes, css properties and keywords)
+ * to int ids. Lexer looks up the chars it has just read, and hands out the canonical String
+ * instead of allocating a new one, so later stages can compare the id (or the reference)
+ * instead of hashing and comparing Strings again.
+ * <p>
+ * Ids of predefined names are their index in {@link #PREDEFINED}, names registered at runtime
+ * get the following ids. Lookup is lock free, registering copies the whole table.
+ */
+public final class SymbolTable {
+
+    public static final int UNKNOWN = -1;
+
+    /**
+     * Only append to it, so that the id of a name never changes.
+     */
+    private static final String[] PREDEFINED = {
+            // tags
+            "html", "head", "body", "template", "title", "meta", "link", "style", "script",
+            "div", "p", "a", "b", "span", "h1", "h2", "h3", "h4", "h5", "h6", "img", "input",
+            "button", "scroller", "iframe", "web", "br", "text", "inner", "box", "linearbox",
+            "flexbox",
+
+            // attributes
+            "id", "class", "src", "href", "order", "type", "name", "content", "rel",
+
+            // styles
+            "width", "height", "background", "padding", "padding-left", "padding-right",
+            "padding-top", "padding-bottom", "margin", "margin-left", "margin-right",
+            "margin-top", "margin-bottom", "left", "top", "alpha", "onclick", "visibility",
+            "display", "direction", "-hn-background", "color", "font-size", "line-height",
+            "font-style", "font-weight", "text-align", "word-spacing", "text-overflow",
+            "text-transform", "background-color", "background-image", "background-position",
+            "background-repeat", "background-size", "-hn-background-color-size",
+            "flex-direction", "flex-wrap", "justify-content", "align-items",
+
+            // keywords of style values, "left" and "box" are above
+            "visible", "invisible", "ltr", "rtl", "normal", "bold", "italic", "center", "right",
+            "ellipsis", "uppercase", "lowercase", "flex", "absolute", "row", "row-reverse",
+            "column", "column-reverse", "nowrap", "wrap", "wrap-reverse", "flex-start",
+            "flex-end", "space-between", "space-around",
+
+            // tags added later
+            "list"};
+
+    private static volatile Table sTable = new Table(PREDEFINED);
+
+    private SymbolTable() {
+    }
+
+    /**
+     * @return id of name, or {@link #UNKNOWN}. Name is compared case sensitive.
+     */
+    public static int idOf(CharSequence name) {
+        if (name instanceof String) {
+            return idOf((String) name);
+        }
+        Table table = sTable;
+
+        int mask = table.slots.length - 1;
+        int i = spread(hash(name)) & mask;
+        String slot;
+        while ((slot = table.slots[i]) != null) {
+            if (contentEquals(slot, name)) {
+                return table.slotIds[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * @return id of name, or {@link #UNKNOWN}. Canonical Strings returned by {@link #nameOf(int)}
+     * are matched by reference first.
+     */
+    public static int idOf(String name) {
+        if (name == null) {
+            return UNKNOWN;
+        }
+        Table table = sTable;
+
+        int mask = table.slots.length - 1;
+        int i = spread(name.hashCode()) & mask;
+        String slot;
+        while ((slot = table.slots[i]) != null) {
+            if (slot == name || slot.equals(name)) {
+                return table.slotIds[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * @return the canonical String of id, or null if id is unknown.
+     */
+    public static String nameOf(int id) {
+        String[] names = sTable.names;
+        return id >= 0 && id < names.length ? names[id] : null;
+    }
+
+    /**
+     * @return the canonical String of name if it is known, otherwise name itself.
+     */
+    public static String intern(String name) {
+        int id = idOf(name);
+        return id == UNKNOWN ? name : nameOf(id);
+    }
+
+    /**
+     * Register a name at runtime, e.g. the tag of an extra view.
+     *
+     * @return the id of name, existing one if it has been registered.
+     */
+    public static synchronized int register(@NonNull String name) {
+        int id = idOf(name);
+        if (id != UNKNOWN) {
+            return id;
+        }
+
+        String[] old = sTable.names;
+        String[] names = new String[old.length + 1];
+        System.arraycopy(old, 0, names, 0, old.length);
+        names[old.length] = name;
+        sTable = new Table(names);
+        return old.length;
+    }
+
+    /**
+     * @return count of all names, every id is less than it.
+     */
+    public static int size() {
+        return sTable.names.length;
+    }
+
+    private static int hash(CharSequence cs) {
+        // same as String.hashCode()
+        int h = 0;
+        for (int i = 0, length = cs.length(); i < length; i++) {
+            h = 31 * h + cs.charAt(i);
+        }
+        return h;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean contentEquals(String s, CharSequence cs) {
+        int length = s.length();
+        if (length != cs.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) != cs.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Immutable open addressing table.
+     */
+    private static final class Table {
+        final String[] names;
+        final String[] slots;
+        final int[] slotIds;
+
+        Table(String[] names) {
+            this.names = names;
+
+            int capacity = Integer.highestOneBit(Math.max(names.length * 4, 16) - 1) << 1;
+            slots = new String[capacity];
+            slotIds = new int[capacity];
+
+            int mask = capacity - 1;
+            for (int id = 0; id < names.length; id++) {
+                int i = spread(names[id].hashCode()) & mask;
+                while (slots[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = names[id];
+                slotIds[i] = id;
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.mozz.htmlnative.common;
+
+import android.support.annotation.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of values parsed from raw style strings, the least recently used one is dropped
+ * when full. Pages reuse a small set of literals such as colors and lengths, so most of them are
+ * parsed once.
+ * <p>
+ * Values must be immutable, they are shared by all the threads. Thread safe.
+ */
+public final class ValueCache<V> {
+
+    private final String mName;
+    private final Map<String, V> mValues;
+
+    private int mHitCount;
+    private int mMissCount;
+
+    public ValueCache(@NonNull String name, final int maxSize) {
+        mName = name;
+        mValues = new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return value of raw, or null if not cached, which is counted as a miss.
+     */
+    public synchronized V get(String raw) {
+        V value = mValues.get(raw);
+        if (value != null) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+        }
+        return value;
+    }
+
+    public synchronized void put(@NonNull String raw, @NonNull V value) {
+        mValues.put(raw, value);
+    }
+
+    public synchronized int size() {
+        return mValues.size();
+    }
+
+    public synchronized int hitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int missCount() {
+        return mMissCount;
+    }
+
+    public synchronized void clear() {
+        mValues.clear();
+        mHitCount = 0;
+        mMissCount = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        int lookup = mHitCount + mMissCount;
+        int rate = lookup == 0 ? 0 : mHitCount * 100 / lookup;
+        return mName + " : " + mHitCount + "/" + lookup + " hit (" + rate + "%), " + mValues
+                .size() + " cached";
+    }
+}
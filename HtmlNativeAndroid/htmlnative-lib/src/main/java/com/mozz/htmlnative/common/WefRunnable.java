@@ -20,5 +20,16 @@ public abstract class WefRunnable<T> implements Runnable {
         run(raw);
     }
 
+    /**
+     * @return whether the referent has been collected, then there is no need to run.
+     */
+    public final boolean isReleased() {
+        return mRef.get() == null;
+    }
+
+    public final boolean isBoundTo(Object o) {
+        return o != null && mRef.get() == o;
+    }
+
     protected abstract void run(T t);
 }
@@ -3,23 +3,47 @@ package com.mozz.htmlnative.css;
 import android.support.annotation.NonNull;
 
 import java.util.Arrays;
-import java.util.Iterator;
 
 /**
+ * Styles of many owners in a few flat arrays. Each owner gets a slot by
+ * {@link #register(AttrsOwner)}, and its styles are a slice of the entry arrays. Entries are
+ * keyed by {@link PropertyRegistry} id; the name is kept only for properties without an id.
+ * <p>
+ * Styles of an owner are visited with a cursor, nothing is allocated:
+ * <pre>
+ *     for (int i = set.begin(owner), end = set.end(owner); i &lt; end; i++) {
+ *         apply(set.getPropertyId(i), set.getStyleName(i), set.getStyle(i));
+ *     }
+ * </pre>
+ * <p>
+ * Only one thread puts styles, reads need no lock. In streaming render the parser keeps
+ * putting styles while main thread reads the subtrees already published, which are handed over
+ * by a handler post. Arrays are never replaced one by one: they grow into a new
+ * {@link Storage} published through one volatile field, so a reader sees either the old arrays
+ * or the new ones, both holding every published style. Stores into the current arrays only go
+ * past the published styles, and the slice of an owner is moved only while it is being parsed,
+ * so a cursor over a published owner stays valid between calls.
+ *
  * @author YangTao7
- *         NOT THREAD SAFE
  */
 
 public class AttrsSet {
 
     private static final String TAG = AttrsSet.class.getSimpleName();
 
+    /**
+     * properties with id below this are recorded in {@link Storage#mMasks}
+     */
+    private static final int MASK_BITS = 64;
+
+    private volatile Storage mStorage;
+
+    /**
+     * entries and slots used, by the writer only
+     */
+    private int mSize;
+    private int mSlotCount;
 
-    private Object[] mAttrs;
-    private int[] mLength;
-    private int mGrowLength;
-    private int mLastGrowLength = -1;
-    private int mCompacity;
     private String mName;
 
     public AttrsSet(String name) {
@@ -27,128 +51,232 @@ public class AttrsSet {
     }
 
     public AttrsSet(String name, int initCompacity) {
-        mAttrs = new Object[initCompacity << 1];
-        mLength = new int[initCompacity];
-        mGrowLength = 0;
-        mCompacity = initCompacity;
+        initCompacity = Math.max(initCompacity, 1);
+        mStorage = new Storage(new int[initCompacity], new Object[initCompacity], null, new
+                int[initCompacity], new int[initCompacity], new long[initCompacity]);
         mName = name;
     }
 
-    public void put(@NonNull AttrsOwner tree, String paramsKey, @NonNull Object value) {
-        int startPosition = tree.attrIndex();
+    public void register(@NonNull AttrsOwner tree) {
+        Storage s = mStorage;
+        if (mSlotCount == s.mStarts.length) {
+            int capacity = mSlotCount * 2;
+            s = new Storage(s.mKeys, s.mValues, s.mNames, Arrays.copyOf(s.mStarts, capacity),
+                    Arrays.copyOf(s.mCounts, capacity), Arrays.copyOf(s.mMasks, capacity));
+            mStorage = s;
+        }
 
-        putInternal(startPosition + mLength[startPosition], paramsKey, value);
-        mLength[startPosition]++;
+        s.mStarts[mSlotCount] = mSize;
+        s.mCounts[mSlotCount] = 0;
+        s.mMasks[mSlotCount] = 0;
+        tree.setAttrIndex(mSlotCount);
+        mSlotCount++;
     }
 
-    private void putInternal(int position, String paramsKey, Object value) {
-        if (position >= mCompacity) {
-            grow(mCompacity);
+    public void put(@NonNull AttrsOwner tree, String paramsKey, @NonNull Object value) {
+        int slot = tree.attrIndex();
+        Storage s = mStorage;
+        int start = s.mStarts[slot];
+        int count = s.mCounts[slot];
+
+        if (start + count != mSize) {
+            // others were put after this slot, such as the children of a tree putting its text
+            // when leaving, move the slice to the end.
+            s = ensureCapacity(mSize + count + 1);
+            copyEntries(s, start, mSize, count);
+            start = mSize;
+            mSize += count;
+            s.mStarts[slot] = start;
+        } else {
+            s = ensureCapacity(mSize + 1);
         }
 
-        mAttrs[position << 1] = paramsKey;
-        mAttrs[(position << 1) + 1] = value;
-        mGrowLength++;
+        int id = PropertyRegistry.idOf(paramsKey);
+        int position = start + count;
+        s.mKeys[position] = id;
+        s.mValues[position] = value;
+        if (id == PropertyRegistry.UNKNOWN) {
+            s = setName(position, paramsKey);
+        }
+        if (id >= 0 && id < MASK_BITS) {
+            s.mMasks[slot] |= 1L << id;
+        }
+        mSize++;
+        s.mCounts[slot] = count + 1;
     }
 
-    private void grow(int growSize) {
-        if (growSize > 0) {
-            Object[] temp = mAttrs;
-            int[] tempL = mLength;
-
-            mAttrs = new Object[(mCompacity + growSize) << 1];
-            mLength = new int[mCompacity + growSize];
-
-            System.arraycopy(temp, 0, mAttrs, 0, mCompacity << 1);
-            System.arraycopy(tempL, 0, mLength, 0, mCompacity);
-
-            mCompacity += growSize;
+    private Storage ensureCapacity(int capacity) {
+        Storage s = mStorage;
+        if (capacity > s.mKeys.length) {
+            capacity = Math.max(capacity, s.mKeys.length * 2);
+            s = new Storage(Arrays.copyOf(s.mKeys, capacity), Arrays.copyOf(s.mValues,
+                    capacity), s.mNames != null ? Arrays.copyOf(s.mNames, capacity) : null, s
+                    .mStarts, s.mCounts, s.mMasks);
+            mStorage = s;
         }
+        return s;
     }
 
-    public void register(@NonNull AttrsOwner tree) {
-        if (mLastGrowLength == mGrowLength) {
-            mGrowLength++;
+    private static void copyEntries(Storage s, int from, int to, int count) {
+        System.arraycopy(s.mKeys, from, s.mKeys, to, count);
+        System.arraycopy(s.mValues, from, s.mValues, to, count);
+        Arrays.fill(s.mValues, from, from + count, null);
+        if (s.mNames != null) {
+            System.arraycopy(s.mNames, from, s.mNames, to, count);
         }
+    }
 
-        if (mGrowLength >= mCompacity) {
-            grow(mCompacity);
+    private Storage setName(int position, String name) {
+        Storage s = mStorage;
+        if (s.mNames == null) {
+            s = new Storage(s.mKeys, s.mValues, new String[s.mKeys.length], s.mStarts, s
+                    .mCounts, s.mMasks);
+            mStorage = s;
         }
-
-        tree.setAttrIndex(mGrowLength);
-        mLastGrowLength = mGrowLength;
+        s.mNames[position] = name;
+        return s;
     }
 
-    @Override
-    public String toString() {
-        return Arrays.toString(mAttrs);
+    /**
+     * @return position of the first style of owner, see {@link #end(AttrsOwner)}.
+     */
+    public final int begin(@NonNull AttrsOwner owner) {
+        return mStorage.mStarts[owner.attrIndex()];
     }
 
-    public String toString(@NonNull AttrsOwner tree) {
-        int startPos = tree.attrIndex();
-        int length = mLength[startPos];
-
-        Object[] objects = new Object[length << 1];
-        System.arraycopy(mAttrs, startPos << 1, objects, 0, length << 1);
+    /**
+     * @return position after the last style of owner.
+     */
+    public final int end(@NonNull AttrsOwner owner) {
+        Storage s = mStorage;
+        int slot = owner.attrIndex();
+        return s.mStarts[slot] + s.mCounts[slot];
+    }
 
-        return Arrays.toString(objects);
+    public final int getPropertyId(int pos) {
+        return mStorage.mKeys[pos];
     }
 
+    public final String getStyleName(int pos) {
+        Storage s = mStorage;
+        int id = s.mKeys[pos];
+        return id != PropertyRegistry.UNKNOWN ? PropertyRegistry.nameOf(id) : s.mNames[pos];
+    }
 
-    public final Iterator<Styles.StyleEntry> iterator(AttrsOwner owner) {
-        final int startPosition = owner.attrIndex();
-        final int length = mLength[startPosition];
+    public final Object getStyle(int pos) {
+        return mStorage.mValues[pos];
+    }
 
-        return new Iterator<Styles.StyleEntry>() {
+    public final Object getStyle(AttrsOwner owner, String styleName) {
+        if (owner == null) {
+            return null;
+        }
 
-            private int index = startPosition;
-            private int size = length + startPosition;
+        int id = PropertyRegistry.idOf(styleName);
+        if (id != PropertyRegistry.UNKNOWN) {
+            return getStyle(owner, id);
+        }
 
-            @Override
-            public boolean hasNext() {
-                return index < size;
+        Storage s = mStorage;
+        String[] names = s.mNames;
+        if (names == null) {
+            return null;
+        }
+        int slot = owner.attrIndex();
+        for (int i = s.mStarts[slot], end = i + s.mCounts[slot]; i < end; i++) {
+            if (s.mKeys[i] == PropertyRegistry.UNKNOWN && names[i].equals(styleName)) {
+                return s.mValues[i];
             }
+        }
+        return null;
+    }
 
-            @Override
-            public Styles.StyleEntry next() {
-                if (index > size) {
-                    return null;
-                }
+    /**
+     * @param propertyId id in {@link PropertyRegistry}
+     */
+    public final Object getStyle(AttrsOwner owner, int propertyId) {
+        if (owner == null) {
+            return null;
+        }
+
+        Storage s = mStorage;
+        int slot = owner.attrIndex();
+        if (propertyId < MASK_BITS && (s.mMasks[slot] & (1L << propertyId)) == 0) {
+            return null;
+        }
 
-                Styles.StyleEntry styleEntry = new Styles.StyleEntry(getStyleName(index),
-                        getStyle(index));
-                index++;
-                return styleEntry;
+        int[] keys = s.mKeys;
+        for (int i = s.mStarts[slot], end = i + s.mCounts[slot]; i < end; i++) {
+            if (keys[i] == propertyId) {
+                return s.mValues[i];
             }
-        };
+        }
+        return null;
     }
 
-
-    public final Object getStyle(AttrsOwner owner, String styleName) {
-        if (owner == null) {
-            return null;
+    /**
+     * @return whether a and b own the same styles in the same order.
+     */
+    public final boolean sameStyles(@NonNull AttrsOwner a, @NonNull AttrsOwner b) {
+        int slotA = a.attrIndex();
+        int slotB = b.attrIndex();
+        if (slotA == slotB) {
+            return true;
         }
-        int startPosition = owner.attrIndex();
-        int treeAttrLength = mLength[startPosition];
 
-        for (int i = startPosition; i < startPosition + treeAttrLength; i++) {
-            String params = (String) mAttrs[i << 1];
-            final Object value = mAttrs[(i << 1) + 1];
+        Storage s = mStorage;
+        int length = s.mCounts[slotA];
+        if (length != s.mCounts[slotB] || s.mMasks[slotA] != s.mMasks[slotB]) {
+            return false;
+        }
 
-            if (params.equals(styleName)) {
-                return value;
+        int startA = s.mStarts[slotA];
+        int startB = s.mStarts[slotB];
+        for (int i = 0; i < length; i++) {
+            int key = s.mKeys[startA + i];
+            if (key != s.mKeys[startB + i] || !valueEquals(s.mValues[startA + i], s.mValues
+                    [startB + i])) {
+                return false;
+            }
+            if (key == PropertyRegistry.UNKNOWN && !s.mNames[startA + i].equals(s.mNames
+                    [startB + i])) {
+                return false;
             }
         }
+        return true;
+    }
 
-        return null;
+    private static boolean valueEquals(Object x, Object y) {
+        if (x == y) {
+            return true;
+        }
+        if (x == null || y == null) {
+            return false;
+        }
+        if (x instanceof Object[] && y instanceof Object[]) {
+            // resolved margin and padding
+            return Arrays.deepEquals((Object[]) x, (Object[]) y);
+        }
+        return x.equals(y);
+    }
+
+    @Override
+    public String toString() {
+        return toString(0, mSize);
     }
 
-    protected final String getStyleName(int pos) {
-        return (String) mAttrs[pos << 1];
+    public String toString(@NonNull AttrsOwner tree) {
+        return toString(begin(tree), end(tree));
     }
 
-    protected final Object getStyle(int pos) {
-        return mAttrs[(pos << 1) + 1];
+    private String toString(int begin, int end) {
+        // values may be arrays, such as resolved margin
+        Object[] objects = new Object[(end - begin) << 1];
+        for (int i = begin; i < end; i++) {
+            objects[(i - begin) << 1] = getStyleName(i);
+            objects[((i - begin) << 1) + 1] = getStyle(i);
+        }
+        return Arrays.deepToString(objects);
     }
 
     public String getName() {
@@ -156,6 +284,41 @@ public class AttrsSet {
     }
 
 
+    /**
+     * Arrays of the set, see the class doc.
+     */
+    private static final class Storage {
+        final int[] mKeys;
+        final Object[] mValues;
+
+        /**
+         * names of the entries whose property has no id, null until there is one
+         */
+        final String[] mNames;
+
+        /**
+         * start and count of entries of each slot
+         */
+        final int[] mStarts;
+        final int[] mCounts;
+
+        /**
+         * bit i is set if the slot has the property of id i, so that looking up a missing
+         * property, such as display of most containers, returns at once.
+         */
+        final long[] mMasks;
+
+        Storage(int[] keys, Object[] values, String[] names, int[] starts, int[] counts, long[]
+                masks) {
+            mKeys = keys;
+            mValues = values;
+            mNames = names;
+            mStarts = starts;
+            mCounts = counts;
+            mMasks = masks;
+        }
+    }
+
     /**
      * @author Yang Tao, 17/3/27.
      */
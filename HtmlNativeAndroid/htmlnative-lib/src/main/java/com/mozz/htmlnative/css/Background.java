@@ -5,8 +5,13 @@ import android.graphics.Matrix;
 import android.text.TextUtils;
 import android.util.Log;
 
+import com.mozz.htmlnative.common.ValueCache;
 import com.mozz.htmlnative.utils.ParametersUtils;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import static com.mozz.htmlnative.utils.ParametersUtils.splitByEmpty;
 
 /**
@@ -52,6 +57,14 @@ public class Background {
     private int widthMode = AUTO;
     private int heightMode = AUTO;
 
+    /**
+     * whether this is in {@link #sCache} and shared by many styles, such one must not change.
+     */
+    private boolean shared;
+
+    private static final ValueCache<Background> sCache = new ValueCache<>("Background Cache",
+            64);
+
 
     @Override
     public String toString() {
@@ -69,6 +82,7 @@ public class Background {
     }
 
     public void setColor(int color) {
+        checkNotShared();
         this.color = color;
         this.colorSet = true;
     }
@@ -82,6 +96,7 @@ public class Background {
     }
 
     public void setUrl(String url) {
+        checkNotShared();
         this.url = url;
     }
 
@@ -94,6 +109,7 @@ public class Background {
     }
 
     public void setRepeat(int repeat) {
+        checkNotShared();
         this.repeat = repeat;
     }
 
@@ -102,6 +118,7 @@ public class Background {
     }
 
     public void setX(float x) {
+        checkNotShared();
         this.x = x;
     }
 
@@ -110,6 +127,7 @@ public class Background {
     }
 
     public void setY(float y) {
+        checkNotShared();
         this.y = y;
     }
 
@@ -137,14 +155,74 @@ public class Background {
         return heightMode;
     }
 
+    private void checkNotShared() {
+        if (shared) {
+            throw new IllegalStateException("shared background can't be changed");
+        }
+    }
+
+    /**
+     * @return whether this is shared by styles with the same declaration, and can't be changed.
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * @param oldOne background of the former declarations of the same style, or null. It is
+     *               changed if not shared.
+     * @return background of val, shared if oldOne is null, see {@link #isShared()}.
+     */
     public static Background createOrChange(String param, String val, Object oldOne) {
-        Background style;
         if (oldOne == null) {
-            style = new Background();
-        } else {
-            style = (Background) oldOne;
+            String key = param + ':' + val;
+            Background background = sCache.get(key);
+            if (background == null) {
+                background = new Background();
+                change(background, param, val);
+                background.shared = true;
+                sCache.put(key, background);
+            }
+            return background;
+        }
+
+        Background style = (Background) oldOne;
+        if (style.shared) {
+            style = style.copy();
         }
+        change(style, param, val);
+        return style;
+    }
+
+    /**
+     * @return hit rate of the cache of backgrounds, for performance records.
+     */
+    public static String dumpCacheStats() {
+        return sCache.toString();
+    }
+
+    private Background copy() {
+        Background background = new Background();
+        background.url = url;
+        background.color = color;
+        background.colorSet = colorSet;
+        background.repeat = repeat;
+        background.x = x;
+        background.y = y;
+        background.width = width;
+        background.height = height;
+        background.colorWidth = colorWidth;
+        background.colorHeight = colorHeight;
+        background.colorWidthMode = colorWidthMode;
+        background.colorHeightMode = colorHeightMode;
+        background.xMode = xMode;
+        background.yMode = yMode;
+        background.widthMode = widthMode;
+        background.heightMode = heightMode;
+        return background;
+    }
 
+    private static void change(Background style, String param, String val) {
         String[] subStrings = splitByEmpty(val);
 
         switch (param) {
@@ -425,7 +503,52 @@ public class Background {
 
 
         Log.d("StyleBackground", style.toString());
-        return style;
+    }
+
+    /**
+     * Write all the fields of this background, used by the precompiled segment format.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(url == null ? "" : url);
+        out.writeInt(color);
+        out.writeBoolean(colorSet);
+        out.writeInt(repeat);
+        out.writeFloat(x);
+        out.writeFloat(y);
+        out.writeFloat(width);
+        out.writeFloat(height);
+        out.writeFloat(colorWidth);
+        out.writeFloat(colorHeight);
+        out.writeByte(colorWidthMode);
+        out.writeByte(colorHeightMode);
+        out.writeByte(xMode);
+        out.writeByte(yMode);
+        out.writeByte(widthMode);
+        out.writeByte(heightMode);
+    }
+
+    /**
+     * Read a background written by {@link #writeTo(DataOutput)}.
+     */
+    public static Background readFrom(DataInput in) throws IOException {
+        Background background = new Background();
+        background.url = in.readUTF();
+        background.color = in.readInt();
+        background.colorSet = in.readBoolean();
+        background.repeat = in.readInt();
+        background.x = in.readFloat();
+        background.y = in.readFloat();
+        background.width = in.readFloat();
+        background.height = in.readFloat();
+        background.colorWidth = in.readFloat();
+        background.colorHeight = in.readFloat();
+        background.colorWidthMode = in.readByte();
+        background.colorHeightMode = in.readByte();
+        background.xMode = in.readByte();
+        background.yMode = in.readByte();
+        background.widthMode = in.readByte();
+        background.heightMode = in.readByte();
+        return background;
     }
 
     public static Matrix createBitmapMatrix(Background background) {
@@ -0,0 +1,140 @@
+package com.mozz.htmlnative.css;
+
+import java.util.Arrays;
+
+/**
+ * Computed styles of an element, each style appears once. They are merged from the inherit
+ * styles of ancestors, then the styles of matched css selectors by specificity and order in
+ * file, at last the inline styles, the later one wins.
+ * <p>
+ * Styles keep the order of the winning declarations, so a shorthand such as margin and its
+ * longhands are applied in the same order as they are declared.
+ * <p>
+ * Built by {@link StyleResolver}, and shared by the elements which resolve to the same styles,
+ * so it must not be changed after built.
+ */
+public final class Cascade {
+
+    private String[] mStyleNames;
+    private int[] mPropertyIds;
+    private Object[] mStyles;
+    /**
+     * whether the style is inherited from ancestors, such style is already in
+     * {@link com.mozz.htmlnative.InheritStyleStack}.
+     */
+    private boolean[] mInherited;
+    private int mSize;
+
+    Cascade(int capacity) {
+        capacity = Math.max(capacity, 4);
+        mStyleNames = new String[capacity];
+        mPropertyIds = new int[capacity];
+        mStyles = new Object[capacity];
+        mInherited = new boolean[capacity];
+    }
+
+    void add(String styleName, Object style, boolean inherited) {
+        add(PropertyRegistry.idOf(styleName), styleName, style, inherited);
+    }
+
+    void add(int propertyId, String styleName, Object style, boolean inherited) {
+        if (mSize == mStyleNames.length) {
+            mStyleNames = Arrays.copyOf(mStyleNames, mSize * 2);
+            mPropertyIds = Arrays.copyOf(mPropertyIds, mSize * 2);
+            mStyles = Arrays.copyOf(mStyles, mSize * 2);
+            mInherited = Arrays.copyOf(mInherited, mSize * 2);
+        }
+        mStyleNames[mSize] = styleName;
+        mPropertyIds[mSize] = propertyId;
+        mStyles[mSize] = style;
+        mInherited[mSize] = inherited;
+        mSize++;
+    }
+
+    /**
+     * Drop the styles overridden by a later one with the same name.
+     */
+    void compute() {
+        int size = 0;
+        for (int i = 0; i < mSize; i++) {
+            if (!isOverridden(i)) {
+                mStyleNames[size] = mStyleNames[i];
+                mPropertyIds[size] = mPropertyIds[i];
+                mStyles[size] = mStyles[i];
+                mInherited[size] = mInherited[i];
+                size++;
+            }
+        }
+
+        for (int i = size; i < mSize; i++) {
+            mStyleNames[i] = null;
+            mStyles[i] = null;
+        }
+        mSize = size;
+    }
+
+    private boolean isOverridden(int index) {
+        String styleName = mStyleNames[index];
+        int propertyId = mPropertyIds[index];
+        for (int i = index + 1; i < mSize; i++) {
+            if (propertyId != PropertyRegistry.UNKNOWN ? mPropertyIds[i] == propertyId :
+                    mStyleNames[i].equals(styleName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return value of styleName, or null if element does not have it.
+     */
+    public Object get(String styleName) {
+        for (int i = 0; i < mSize; i++) {
+            if (mStyleNames[i].equals(styleName)) {
+                return mStyles[i];
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public String styleName(int index) {
+        return mStyleNames[index];
+    }
+
+    /**
+     * @return {@link PropertyRegistry} id of the style at index.
+     */
+    public int propertyId(int index) {
+        return mPropertyIds[index];
+    }
+
+    public Object style(int index) {
+        return mStyles[index];
+    }
+
+    /**
+     * @return whether the style at index comes from an ancestor, such style should not be put
+     * into {@link com.mozz.htmlnative.InheritStyleStack} again.
+     */
+    public boolean isInherited(int index) {
+        return mInherited[index];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            Object style = mStyles[i];
+            sb.append(mStyleNames[i]).append('=').append(style instanceof Object[] ? Arrays
+                    .toString((Object[]) style) : style);
+        }
+        return sb.append('}').toString();
+    }
+}
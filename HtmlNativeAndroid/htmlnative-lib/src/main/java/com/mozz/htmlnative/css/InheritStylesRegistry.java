@@ -1,8 +1,10 @@
 package com.mozz.htmlnative.css;
 
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Yang Tao, 17/4/1.
@@ -14,16 +16,37 @@ public final class InheritStylesRegistry {
 
     }
 
-    private static final Set<String> sInheritAttrs = new HashSet<>();
+    /**
+     * Handlers register in their static initializer, which may race with render threads
+     * iterating it.
+     */
+    private static final Set<String> sInheritAttrs = Collections.newSetFromMap(new
+            ConcurrentHashMap<String, Boolean>());
 
-    public static void register(String attr) {
+    /**
+     * whether each property id is inherit, copied on write
+     */
+    private static volatile boolean[] sInheritIds = new boolean[0];
+
+    public static synchronized void register(String attr) {
         sInheritAttrs.add(attr);
+
+        int id = PropertyRegistry.register(attr);
+        boolean[] ids = sInheritIds;
+        ids = Arrays.copyOf(ids, Math.max(ids.length, id + 1));
+        ids[id] = true;
+        sInheritIds = ids;
     }
 
     public static boolean isInherit(String attr) {
         return sInheritAttrs.contains(attr);
     }
 
+    public static boolean isInherit(int propertyId) {
+        boolean[] ids = sInheritIds;
+        return propertyId >= 0 && propertyId < ids.length && ids[propertyId];
+    }
+
     public static Iterator<String> iterator() {
         return sInheritAttrs.iterator();
     }
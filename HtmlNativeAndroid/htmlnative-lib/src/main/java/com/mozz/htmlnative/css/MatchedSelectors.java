@@ -0,0 +1,80 @@
+package com.mozz.htmlnative.css;
+
+import com.mozz.htmlnative.css.selector.CssSelector;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffer filled by {@link StyleSheet#matchedSelector(String, String, String[],
+ * MatchedSelectors)}, holds the candidate selectors of one element in source order, the ones of
+ * linked StyleSheets first. Keep one per render so that matching an element allocates nothing
+ * once the buffer has grown.
+ */
+public final class MatchedSelectors {
+
+    private CssSelector[] mSelectors = new CssSelector[16];
+    private StyleSheet[] mStyleSheets = new StyleSheet[16];
+    private int mSize;
+
+    /**
+     * scratch of the merge, the candidate buckets and where each one is read to.
+     */
+    CssSelector[][] mSources = new CssSelector[8][];
+    int[] mSourceSizes = new int[8];
+    int[] mCursors = new int[8];
+
+    public int size() {
+        return mSize;
+    }
+
+    public CssSelector get(int index) {
+        if (index >= mSize) {
+            throw new IndexOutOfBoundsException(index + " >= " + mSize);
+        }
+        return mSelectors[index];
+    }
+
+    /**
+     * @return StyleSheet the selector at index belongs to, which holds its styles.
+     */
+    public StyleSheet styleSheet(int index) {
+        if (index >= mSize) {
+            throw new IndexOutOfBoundsException(index + " >= " + mSize);
+        }
+        return mStyleSheets[index];
+    }
+
+    public void clear() {
+        // drop the references so that a finished StyleSheet is not kept alive
+        for (int i = 0; i < mSize; i++) {
+            mSelectors[i] = null;
+            mStyleSheets[i] = null;
+        }
+        mSize = 0;
+    }
+
+    void add(CssSelector selector, StyleSheet styleSheet) {
+        if (mSize == mSelectors.length) {
+            mSelectors = Arrays.copyOf(mSelectors, mSize * 2);
+            mStyleSheets = Arrays.copyOf(mStyleSheets, mSize * 2);
+        }
+        mSelectors[mSize] = selector;
+        mStyleSheets[mSize] = styleSheet;
+        mSize++;
+    }
+
+    void ensureSources(int count) {
+        if (count > mSources.length) {
+            int length = Math.max(count, mSources.length * 2);
+            mSources = new CssSelector[length][];
+            mSourceSizes = new int[length];
+            mCursors = new int[length];
+        }
+    }
+
+    void clearSources(int count) {
+        for (int i = 0; i < count; i++) {
+            mSources[i] = null;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.mozz.htmlnative.css;
+
+import android.support.annotation.NonNull;
+
+import com.mozz.htmlnative.common.SymbolTable;
+
+import java.util.Arrays;
+
+/**
+ * Assigns every style property an int id, so that applying a style is an array lookup or an int
+ * switch instead of hashing and comparing Strings.
+ * <p>
+ * Built-in properties have the constant ids below. A property only understood by an extra
+ * {@link com.mozz.htmlnative.css.stylehandler.StyleHandler} must be registered with
+ * {@link #register(String)} before parsing, otherwise it is dropped by the css parser.
+ */
+public final class PropertyRegistry {
+
+    public static final int UNKNOWN = -1;
+
+    public static final int WIDTH = 0;
+    public static final int HEIGHT = 1;
+    public static final int BACKGROUND = 2;
+    public static final int PADDING = 3;
+    public static final int PADDING_LEFT = 4;
+    public static final int PADDING_RIGHT = 5;
+    public static final int PADDING_TOP = 6;
+    public static final int PADDING_BOTTOM = 7;
+    public static final int MARGIN = 8;
+    public static final int MARGIN_LEFT = 9;
+    public static final int MARGIN_RIGHT = 10;
+    public static final int MARGIN_TOP = 11;
+    public static final int MARGIN_BOTTOM = 12;
+    public static final int LEFT = 13;
+    public static final int TOP = 14;
+    public static final int ALPHA = 15;
+    public static final int ONCLICK = 16;
+    public static final int VISIBILITY = 17;
+    public static final int DISPLAY = 18;
+    public static final int DIRECTION = 19;
+    public static final int COLOR = 20;
+    public static final int FONT_SIZE = 21;
+    public static final int LINE_HEIGHT = 22;
+    public static final int FONT_STYLE = 23;
+    public static final int FONT_WEIGHT = 24;
+    public static final int TEXT_ALIGN = 25;
+    public static final int WORD_SPACING = 26;
+    public static final int TEXT_OVERFLOW = 27;
+    public static final int TEXT_TRANSFORM = 28;
+    public static final int TEXT = 29;
+    public static final int HREF = 30;
+    public static final int SRC = 31;
+    public static final int FLEX_DIRECTION = 32;
+    public static final int FLEX_WRAP = 33;
+    public static final int JUSTIFY_CONTENT = 34;
+    public static final int ALIGN_ITEMS = 35;
+
+    /**
+     * index is the id, keep in the same order as the constants above.
+     */
+    private static final String[] BUILT_IN = {"width", "height", "background", "padding",
+            "padding-left", "padding-right", "padding-top", "padding-bottom", "margin",
+            "margin-left", "margin-right", "margin-top", "margin-bottom", "left", "top", "alpha",
+            "onclick", "visibility", "display", "direction", "color", "font-size", "line-height",
+            "font-style", "font-weight", "text-align", "word-spacing", "text-overflow",
+            "text-transform", "text", "href", "src", "flex-direction", "flex-wrap",
+            "justify-content", "align-items"};
+
+    /**
+     * names of the properties, index is the id
+     */
+    private static volatile String[] sNames = BUILT_IN;
+
+    /**
+     * property id of each {@link SymbolTable} id, or {@link #UNKNOWN}
+     */
+    private static volatile int[] sIdBySymbol = new int[0];
+
+    static {
+        for (int id = 0; id < BUILT_IN.length; id++) {
+            bind(SymbolTable.register(BUILT_IN[id]), id);
+        }
+    }
+
+    private PropertyRegistry() {
+    }
+
+    /**
+     * @return id of the property, or {@link #UNKNOWN}.
+     */
+    public static int idOf(String name) {
+        int symbol = SymbolTable.idOf(name);
+        int[] ids = sIdBySymbol;
+        return symbol >= 0 && symbol < ids.length ? ids[symbol] : UNKNOWN;
+    }
+
+    public static String nameOf(int id) {
+        String[] names = sNames;
+        return id >= 0 && id < names.length ? names[id] : null;
+    }
+
+    public static boolean isKnown(String name) {
+        return idOf(name) != UNKNOWN;
+    }
+
+    /**
+     * @return id of name, the existing one if it has been registered.
+     */
+    public static synchronized int register(@NonNull String name) {
+        int id = idOf(name);
+        if (id != UNKNOWN) {
+            return id;
+        }
+
+        String[] names = Arrays.copyOf(sNames, sNames.length + 1);
+        id = names.length - 1;
+        names[id] = name;
+        sNames = names;
+        bind(SymbolTable.register(name), id);
+        return id;
+    }
+
+    /**
+     * @return count of properties, every id is less than it.
+     */
+    public static int size() {
+        return sNames.length;
+    }
+
+    private static void bind(int symbol, int id) {
+        int[] ids = sIdBySymbol;
+        if (symbol >= ids.length) {
+            int oldLength = ids.length;
+            ids = Arrays.copyOf(ids, Math.max(symbol + 1, SymbolTable.size()));
+            Arrays.fill(ids, oldLength, ids.length, UNKNOWN);
+        } else {
+            ids = ids.clone();
+        }
+        ids[symbol] = id;
+        sIdBySymbol = ids;
+    }
+}
@@ -0,0 +1,333 @@
+package com.mozz.htmlnative.css;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mozz.htmlnative.InheritStyleStack;
+import com.mozz.htmlnative.css.selector.AncestorFilter;
+import com.mozz.htmlnative.css.selector.CssSelector;
+import com.mozz.htmlnative.dom.DomElement;
+
+import java.util.Arrays;
+
+
+/**
+ * Resolves the {@link Cascade} of elements during one render.
+ * <p>
+ * When tracking ancestors, the renderer calls {@link #push(DomElement)} before rendering the
+ * children of an element and {@link #pop()} afterwards. Then css selectors are checked against
+ * an {@link AncestorFilter} first, and an element shares the cascade of a recently resolved
+ * sibling or cousin if they have the same type and class set, no id, the same inline styles,
+ * and their parents have the same cascade.
+ * <p>
+ * NOT THREAD SAFE.
+ */
+public final class StyleResolver {
+
+    private static final int SHARING_CACHE_SIZE = 16;
+
+    private final boolean mTrackAncestors;
+
+    private final AncestorFilter mAncestorFilter;
+    private final MatchedSelectors mMatchedSelectors = new MatchedSelectors();
+
+    /**
+     * selectors matched the element being resolved, sorted by specificity and order
+     */
+    private CssSelector[] mMatches = new CssSelector[16];
+    private StyleSheet[] mMatchSheets = new StyleSheet[16];
+
+    /**
+     * cascade of each element pushed, null if unknown.
+     */
+    private Cascade[] mParents = new Cascade[16];
+    private int mDepth;
+
+    private DomElement mLastElement;
+    private Cascade mLastCascade;
+
+    private final SharingEntry[] mSharingCache = new SharingEntry[SHARING_CACHE_SIZE];
+    private int mSharingNext;
+
+    private int mResolveCount;
+    private int mShareLookupCount;
+    private int mShareHitCount;
+
+    /**
+     * @param trackAncestors whether caller pushes and pops the ancestors. If false, every
+     *                       element is resolved from scratch.
+     */
+    public StyleResolver(boolean trackAncestors) {
+        mTrackAncestors = trackAncestors;
+        mAncestorFilter = trackAncestors ? new AncestorFilter() : null;
+        for (int i = 0; i < SHARING_CACHE_SIZE; i++) {
+            mSharingCache[i] = new SharingEntry();
+        }
+    }
+
+    /**
+     * Forget all the ancestors and cached cascades, counters are cleared as well.
+     */
+    public void reset() {
+        if (mAncestorFilter != null) {
+            mAncestorFilter.reset();
+        }
+        for (int i = 0; i < mDepth; i++) {
+            mParents[i] = null;
+        }
+        mDepth = 0;
+        mLastElement = null;
+        mLastCascade = null;
+        for (SharingEntry entry : mSharingCache) {
+            entry.clear();
+        }
+        mSharingNext = 0;
+
+        mResolveCount = 0;
+        mShareLookupCount = 0;
+        mShareHitCount = 0;
+    }
+
+    /**
+     * Push element as the parent of the elements resolved next. If element is the one resolved
+     * last, its children may share cascades with their cousins.
+     */
+    public void push(@NonNull DomElement element) {
+        if (!mTrackAncestors) {
+            return;
+        }
+        mAncestorFilter.push(element);
+
+        if (mDepth == mParents.length) {
+            Cascade[] parents = new Cascade[mDepth * 2];
+            System.arraycopy(mParents, 0, parents, 0, mDepth);
+            mParents = parents;
+        }
+        mParents[mDepth++] = element == mLastElement ? mLastCascade : null;
+    }
+
+    /**
+     * Push element and all its ancestors, used when rendering starts from a subtree.
+     */
+    public void pushChain(@Nullable DomElement element) {
+        if (element != null) {
+            pushChain(element.getParent());
+            push(element);
+        }
+    }
+
+    public void pop() {
+        if (!mTrackAncestors) {
+            return;
+        }
+        mAncestorFilter.pop();
+        mParents[--mDepth] = null;
+    }
+
+    /**
+     * @param tree       element to resolve
+     * @param owner      owner of the inline styles of tree
+     * @param inline     inline styles, or null
+     * @param styleSheet css of document, or null
+     * @param stack      inherit styles of ancestors, or null
+     */
+    @NonNull
+    public Cascade resolve(@NonNull DomElement tree, @Nullable AttrsSet.AttrsOwner owner,
+                           @Nullable AttrsSet inline, @Nullable StyleSheet styleSheet, @Nullable
+                                   InheritStyleStack stack) {
+        mResolveCount++;
+
+        Cascade parent = mTrackAncestors && mDepth > 0 ? mParents[mDepth - 1] : null;
+        boolean shareable = parent != null && !tree.hasId() && (inline == null || owner !=
+                null);
+
+        Cascade cascade = null;
+        if (shareable) {
+            mShareLookupCount++;
+            cascade = findShared(parent, tree, owner, inline, styleSheet);
+            if (cascade != null) {
+                mShareHitCount++;
+            }
+        }
+
+        if (cascade == null) {
+            cascade = build(tree, owner, inline, styleSheet, stack);
+            if (shareable) {
+                SharingEntry entry = mSharingCache[mSharingNext];
+                mSharingNext = (mSharingNext + 1) % SHARING_CACHE_SIZE;
+                entry.set(parent, tree, owner, inline, styleSheet, cascade);
+            }
+        }
+
+        mLastElement = tree;
+        mLastCascade = cascade;
+        return cascade;
+    }
+
+    private Cascade findShared(Cascade parent, DomElement tree, AttrsSet.AttrsOwner owner,
+                               AttrsSet inline, StyleSheet styleSheet) {
+        for (SharingEntry entry : mSharingCache) {
+            if (entry.mCascade != null && entry.mParent == parent && entry.mInline == inline &&
+                    entry.mStyleSheet == styleSheet && equals(entry.mType, tree.getType()) &&
+                    sameClasses(entry.mClazz, tree.getClazz()) && (inline == null || inline
+                    .sameStyles(entry.mOwner, owner))) {
+                return entry.mCascade;
+            }
+        }
+        return null;
+    }
+
+    private Cascade build(DomElement tree, AttrsSet.AttrsOwner owner, AttrsSet inline,
+                          StyleSheet styleSheet, InheritStyleStack stack) {
+        Cascade cascade = new Cascade(stack != null ? stack.size() + 8 : 8);
+
+        // 1 - inherit styles of ancestors, nearer ancestor is pushed later
+        if (stack != null) {
+            for (int i = 0, size = stack.size(); i < size; i++) {
+                if (!stack.isOverridden(i)) {
+                    cascade.add(stack.propertyId(i), stack.styleName(i), stack.style(i), true);
+                }
+            }
+        }
+
+        // 2 - css, by specificity then by the order of selectors in file
+        if (styleSheet != null) {
+            int count = matchSelectors(tree, styleSheet);
+            for (int i = 0; i < count; i++) {
+                addAll(cascade, mMatchSheets[i], mMatches[i]);
+                mMatches[i] = null;
+                mMatchSheets[i] = null;
+            }
+        }
+
+        // 3 - inline styles
+        if (inline != null && owner != null) {
+            addAll(cascade, inline, owner);
+        }
+
+        cascade.compute();
+        return cascade;
+    }
+
+    /**
+     * @return count of selectors matched tree, they are put into {@link #mMatches}.
+     */
+    private int matchSelectors(DomElement tree, StyleSheet styleSheet) {
+        MatchedSelectors candidates = mMatchedSelectors;
+        styleSheet.matchedSelector(tree.getType(), tree.getId(), tree.getClazz(), candidates);
+
+        int count = 0;
+        for (int i = 0, size = candidates.size(); i < size; i++) {
+            CssSelector selector = candidates.get(i);
+            if (selector.rejectedBy(mAncestorFilter) || !selector.matchWhole(tree)) {
+                continue;
+            }
+
+            if (count == mMatches.length) {
+                mMatches = Arrays.copyOf(mMatches, count * 2);
+                mMatchSheets = Arrays.copyOf(mMatchSheets, count * 2);
+            }
+
+            // candidates are in file order, linked StyleSheets first, insertion sort keeps that
+            // order for the same specificity
+            int j = count++;
+            int specificity = selector.specificity();
+            while (j > 0 && mMatches[j - 1].specificity() > specificity) {
+                mMatches[j] = mMatches[j - 1];
+                mMatchSheets[j] = mMatchSheets[j - 1];
+                j--;
+            }
+            mMatches[j] = selector;
+            mMatchSheets[j] = candidates.styleSheet(i);
+        }
+        candidates.clear();
+        return count;
+    }
+
+    private static void addAll(Cascade cascade, AttrsSet source, AttrsSet.AttrsOwner owner) {
+        for (int i = source.begin(owner), end = source.end(owner); i < end; i++) {
+            cascade.add(source.getPropertyId(i), source.getStyleName(i), source.getStyle(i),
+                    false);
+        }
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == b || (a != null && a.equals(b));
+    }
+
+    private static boolean sameClasses(String[] a, String[] b) {
+        int lengthA = a == null ? 0 : a.length;
+        int lengthB = b == null ? 0 : b.length;
+        if (lengthA != lengthB) {
+            return false;
+        }
+        // class lists are short, compare them as sets
+        for (int i = 0; i < lengthA; i++) {
+            if (!contains(b, a[i]) || !contains(a, b[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(String[] array, String s) {
+        for (String item : array) {
+            if (equals(item, s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int resolveCount() {
+        return mResolveCount;
+    }
+
+    /**
+     * @return count of elements which could share a cascade, see {@link #shareHitCount()}
+     */
+    public int shareLookupCount() {
+        return mShareLookupCount;
+    }
+
+    public int shareHitCount() {
+        return mShareHitCount;
+    }
+
+    public String dumpStats() {
+        int rate = mShareLookupCount == 0 ? 0 : mShareHitCount * 100 / mShareLookupCount;
+        return "Style Sharing : " + mShareHitCount + "/" + mShareLookupCount + " hit (" + rate +
+                "%), " + mResolveCount + " resolved";
+    }
+
+    private static final class SharingEntry {
+        Cascade mParent;
+        String mType;
+        String[] mClazz;
+        AttrsSet.AttrsOwner mOwner;
+        AttrsSet mInline;
+        StyleSheet mStyleSheet;
+        Cascade mCascade;
+
+        void set(Cascade parent, DomElement tree, AttrsSet.AttrsOwner owner, AttrsSet inline,
+                 StyleSheet styleSheet, Cascade cascade) {
+            mParent = parent;
+            mType = tree.getType();
+            mClazz = tree.getClazz();
+            mOwner = owner;
+            mInline = inline;
+            mStyleSheet = styleSheet;
+            mCascade = cascade;
+        }
+
+        void clear() {
+            mParent = null;
+            mType = null;
+            mClazz = null;
+            mOwner = null;
+            mInline = null;
+            mStyleSheet = null;
+            mCascade = null;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.mozz.htmlnative.css;
 
+import android.support.annotation.NonNull;
+
 import com.mozz.htmlnative.css.selector.AnySelector;
 import com.mozz.htmlnative.css.selector.ClassSelector;
 import com.mozz.htmlnative.css.selector.CssSelector;
@@ -7,29 +9,54 @@ import com.mozz.htmlnative.css.selector.IdSelector;
 import com.mozz.htmlnative.css.selector.TypeSelector;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
+ * Css of a segment. It may link shared StyleSheets, such as the ones of
+ * &lt;link rel="stylesheet"&gt;, which are layered under this one: their selectors are matched
+ * first, so that a selector of this StyleSheet wins a linked one of the same specificity.
+ *
  * @author Yang Tao, 17/3/27.
  */
 
 public final class StyleSheet extends AttrsSet {
 
+    private static final StyleSheet[] NO_LINKED = new StyleSheet[0];
+
+    /**
+     * what to restyle when a class or id of an element changes, see {@link #restyleOfClass}
+     */
+    public static final int RESTYLE_NONE = 0;
+    public static final int RESTYLE_SELF = 1;
+    public static final int RESTYLE_SUBTREE = 2;
+
     private StringSelectorHolder mClassSelectors;
     private StringSelectorHolder mIdSelectors;
     private StringSelectorHolder mTypeSelectors;
-    private AnySelectorHolder mAnySelectors;
+    private Bucket mAnySelectors;
 
     /**
-     * used to store the css selector order in file
+     * all the selectors in the order they appear in file, index of each is its
+     * {@link CssSelector#order()}
      */
-    private Map<CssSelector, Integer> mSelectorOrderMap = new HashMap<>();
+    private List<CssSelector> mSelectors = new ArrayList<>();
+
+    private StyleSheet[] mLinked = NO_LINKED;
 
-    private int mInsertOrderSave = 0;
+    /**
+     * where the shared StyleSheet is loaded from, null if not shared
+     */
+    private String mHref;
+
+    /**
+     * restyle level of each class and id used by selectors, built when first asked and dropped
+     * when a selector is put.
+     */
+    private volatile Map<String, Integer> mClassRestyles;
+    private volatile Map<String, Integer> mIdRestyles;
 
     public StyleSheet() {
         super("StyleSheet");
@@ -37,17 +64,159 @@ public final class StyleSheet extends AttrsSet {
         mClassSelectors = new StringSelectorHolder();
         mIdSelectors = new StringSelectorHolder();
         mTypeSelectors = new StringSelectorHolder();
-        mAnySelectors = new AnySelectorHolder();
+        mAnySelectors = new Bucket();
+    }
+
+    /**
+     * Mark this StyleSheet as shared by segments, it can't be changed any more.
+     *
+     * @param href where it is loaded from
+     */
+    public void share(@NonNull String href) {
+        mHref = href;
+    }
+
+    public boolean isShared() {
+        return mHref != null;
+    }
+
+    /**
+     * @return where the shared StyleSheet is loaded from, or null if not shared.
+     */
+    public String getHref() {
+        return mHref;
+    }
+
+    /**
+     * Layer a shared StyleSheet under this one, the later linked one wins the former.
+     */
+    public void link(@NonNull StyleSheet shared) {
+        checkNotShared();
+        if (!shared.isShared()) {
+            throw new IllegalArgumentException("only shared StyleSheet can be linked");
+        }
+        for (StyleSheet linked : mLinked) {
+            if (linked == shared) {
+                return;
+            }
+        }
+        mLinked = Arrays.copyOf(mLinked, mLinked.length + 1);
+        mLinked[mLinked.length - 1] = shared;
+    }
+
+    /**
+     * @return StyleSheets linked by {@link #link(StyleSheet)}, do not change it.
+     */
+    public StyleSheet[] linked() {
+        return mLinked;
+    }
+
+    private void checkNotShared() {
+        if (isShared()) {
+            throw new IllegalStateException("shared StyleSheet " + mHref + " can't be changed");
+        }
+    }
+
+    @Override
+    public void register(@NonNull AttrsOwner tree) {
+        checkNotShared();
+        super.register(tree);
+    }
+
+    @Override
+    public void put(@NonNull AttrsOwner tree, String paramsKey, @NonNull Object value) {
+        checkNotShared();
+        super.put(tree, paramsKey, value);
     }
 
     public void putSelector(CssSelector cssSelector) {
+        checkNotShared();
         putSingleSelector(cssSelector.tail());
+        mClassRestyles = null;
+        mIdRestyles = null;
+    }
+
+    /**
+     * @return {@link #RESTYLE_NONE} if no selector uses clazz; {@link #RESTYLE_SELF} if only
+     * the element having it may match differently; {@link #RESTYLE_SUBTREE} if its descendants
+     * may as well, because clazz is used by an ancestor part of a selector or a matched rule
+     * sets an inherit style.
+     */
+    public int restyleOfClass(@NonNull String clazz) {
+        if (mClassRestyles == null) {
+            buildRestyles();
+        }
+        int restyle = restyleOf(mClassRestyles, clazz);
+        for (StyleSheet linked : mLinked) {
+            restyle = Math.max(restyle, linked.restyleOfClass(clazz));
+        }
+        return restyle;
+    }
+
+    /**
+     * @see #restyleOfClass(String)
+     */
+    public int restyleOfId(@NonNull String id) {
+        if (mIdRestyles == null) {
+            buildRestyles();
+        }
+        int restyle = restyleOf(mIdRestyles, id);
+        for (StyleSheet linked : mLinked) {
+            restyle = Math.max(restyle, linked.restyleOfId(id));
+        }
+        return restyle;
+    }
+
+    private static int restyleOf(Map<String, Integer> restyles, String name) {
+        Integer restyle = restyles.get(name);
+        return restyle != null ? restyle : RESTYLE_NONE;
+    }
+
+    private void buildRestyles() {
+        Map<String, Integer> classRestyles = new HashMap<>();
+        Map<String, Integer> idRestyles = new HashMap<>();
+
+        for (CssSelector tail : mSelectors) {
+            int selfRestyle = setsInherit(tail) ? RESTYLE_SUBTREE : RESTYLE_SELF;
+            for (CssSelector s = tail.head(); s != null; s = s.nextChild()) {
+                int restyle = s == tail ? selfRestyle : RESTYLE_SUBTREE;
+                if (s.getClass().equals(ClassSelector.class)) {
+                    raise(classRestyles, ((ClassSelector) s).getName(), restyle);
+                } else if (s.getClass().equals(IdSelector.class)) {
+                    raise(idRestyles, ((IdSelector) s).getName(), restyle);
+                }
+            }
+        }
+
+        mClassRestyles = classRestyles;
+        mIdRestyles = idRestyles;
+    }
+
+    private boolean setsInherit(CssSelector owner) {
+        for (int i = begin(owner), end = end(owner); i < end; i++) {
+            if (InheritStylesRegistry.isInherit(getPropertyId(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void raise(Map<String, Integer> restyles, String name, int restyle) {
+        if (restyle > restyleOf(restyles, name)) {
+            restyles.put(name, restyle);
+        }
     }
 
     private void putSingleSelector(CssSelector cssSelector) {
+        int order = cssSelector.order();
+        if (order >= 0 && order < mSelectors.size() && mSelectors.get(order) == cssSelector) {
+            return;
+        }
 
-        mSelectorOrderMap.put(cssSelector, mInsertOrderSave++);
+        cssSelector.setOrder(mSelectors.size());
+        mSelectors.add(cssSelector);
 
+        // selectors are put in order, so every bucket stays sorted by order
         if (cssSelector.getClass().equals(ClassSelector.class)) {
             ClassSelector classSelector = (ClassSelector) cssSelector;
             mClassSelectors.put(classSelector.getName(), classSelector);
@@ -58,94 +227,150 @@ public final class StyleSheet extends AttrsSet {
             TypeSelector typeSelector = (TypeSelector) cssSelector;
             mTypeSelectors.put(typeSelector.getName(), typeSelector);
         } else if (cssSelector.getClass().equals(AnySelector.class)) {
-            mAnySelectors.put((AnySelector) cssSelector);
+            mAnySelectors.add(cssSelector);
         }
     }
 
     /**
-     * Find selectors according to type, id and class. All selectors found will be stored in
-     * insert order.
+     * Find selectors according to type, id and class. The candidates of each are already sorted,
+     * they are merged into out in insert order, so the cost depends on the count of candidates
+     * rather than the size of StyleSheet. Candidates of linked StyleSheets come first, see
+     * {@link MatchedSelectors#styleSheet(int)}.
      *
      * @param type  type of element
      * @param id    id of element if have
      * @param clazz class name of element if have
-     * @return List containing all the selectors matched in insert order.
+     * @param out   cleared and filled with the candidates, whose chains are still to be
+     *              matched by {@link CssSelector#matchWhole(com.mozz.htmlnative.dom.DomElement)}
      */
-    public CssSelector[] matchedSelector(String type, String id, String[] clazz) {
-
-        // Pass mSelectorOrderMap.size() to make sure that matchedSelector is big enough to hold
-        // all the selectors found.
-        CssSelector[] matchedSelector = new CssSelector[mSelectorOrderMap.size()];
-
-        mClassSelectors.matches(clazz, matchedSelector);
-        mIdSelectors.matches(id, matchedSelector);
-        mTypeSelectors.matches(type, matchedSelector);
-        mAnySelectors.matches(matchedSelector);
-        return matchedSelector;
+    public void matchedSelector(String type, String id, String[] clazz, @NonNull
+            MatchedSelectors out) {
+        out.clear();
+        collect(type, id, clazz, out);
     }
 
-    @Override
-    public String toString() {
-        return "AttrSet=" + super.toString() + "\n, class=" + mClassSelectors + "\n, id=" +
-                mIdSelectors + "\n, type=" + mTypeSelectors;
-    }
+    private void collect(String type, String id, String[] clazz, MatchedSelectors out) {
+        for (StyleSheet linked : mLinked) {
+            linked.collect(type, id, clazz, out);
+        }
 
-    /**
-     * @author Yang Tao, 17/3/30.
-     */
+        out.ensureSources((clazz != null ? clazz.length : 0) + 3);
 
-    private final class StringSelectorHolder {
-        private Map<String, Set<CssSelector>> mSelectors = new HashMap<>();
+        int sources = 0;
+        if (clazz != null) {
+            for (String c : clazz) {
+                if (c != null) {
+                    sources = addSource(out, sources, mClassSelectors.get(c));
+                }
+            }
+        }
+        sources = addSource(out, sources, mIdSelectors.get(id));
+        sources = addSource(out, sources, mTypeSelectors.get(type));
+        sources = addSource(out, sources, mAnySelectors);
 
-        public void put(String key, CssSelector selector) {
-            Set<CssSelector> sets = mSelectors.get(key);
-            if (sets == null) {
-                sets = new HashSet<>();
-                mSelectors.put(key, sets);
+        if (sources == 1) {
+            CssSelector[] source = out.mSources[0];
+            for (int i = 0, size = out.mSourceSizes[0]; i < size; i++) {
+                out.add(source[i], this);
             }
+        } else if (sources > 1) {
+            merge(out, sources, this);
+        }
 
-            sets.add(selector);
+        out.clearSources(sources);
+    }
+
+    private static int addSource(MatchedSelectors out, int sources, Bucket bucket) {
+        if (bucket == null || bucket.mSize == 0) {
+            return sources;
         }
+        out.mSources[sources] = bucket.mSelectors;
+        out.mSourceSizes[sources] = bucket.mSize;
+        out.mCursors[sources] = 0;
+        return sources + 1;
+    }
 
-        void matches(String key, CssSelector[] outSelectors) {
-            Set<CssSelector> sets = mSelectors.get(key);
+    private static void merge(MatchedSelectors out, int sources, StyleSheet styleSheet) {
+        CssSelector[][] source = out.mSources;
+        int[] sizes = out.mSourceSizes;
+        int[] cursors = out.mCursors;
 
-            if (sets != null) {
-                for (CssSelector selector : sets) {
-                    Integer index = mSelectorOrderMap.get(selector);
-                    outSelectors[index] = selector;
+        int lastOrder = -1;
+        while (true) {
+            int min = -1;
+            int minOrder = Integer.MAX_VALUE;
+            for (int i = 0; i < sources; i++) {
+                if (cursors[i] < sizes[i]) {
+                    int order = source[i][cursors[i]].order();
+                    if (order < minOrder) {
+                        minOrder = order;
+                        min = i;
+                    }
                 }
             }
+
+            if (min == -1) {
+                return;
+            }
+
+            cursors[min]++;
+            // the same class written twice in element brings the same bucket twice
+            if (minOrder != lastOrder) {
+                out.add(source[min][cursors[min] - 1], styleSheet);
+                lastOrder = minOrder;
+            }
         }
+    }
 
-        void matches(String[] key, CssSelector[] outSelectors) {
-            if (key != null && key.length > 0) {
-                for (String k : key) {
-                    if (k != null) {
-                        matches(k, outSelectors);
-                    }
-                }
+    /**
+     * @return all the selectors put into this StyleSheet, in insert order. Each one is the tail
+     * of its selector chain, see {@link CssSelector#tail()}.
+     */
+    public CssSelector[] selectorsInOrder() {
+        return mSelectors.toArray(new CssSelector[mSelectors.size()]);
+    }
+
+    @Override
+    public String toString() {
+        return "AttrSet=" + super.toString() + "\n, class=" + mClassSelectors + "\n, id=" +
+                mIdSelectors + "\n, type=" + mTypeSelectors;
+    }
+
+    /**
+     * Selectors sorted by order.
+     */
+    private static final class Bucket {
+        private CssSelector[] mSelectors = new CssSelector[2];
+        private int mSize;
+
+        void add(CssSelector selector) {
+            if (mSize == mSelectors.length) {
+                mSelectors = Arrays.copyOf(mSelectors, mSize * 2);
             }
+            mSelectors[mSize++] = selector;
         }
 
         @Override
         public String toString() {
-            return mSelectors.toString();
+            return Arrays.toString(Arrays.copyOf(mSelectors, mSize));
         }
     }
 
-    private final class AnySelectorHolder {
-        private List<CssSelector> mSelectors = new ArrayList<>();
+    private static final class StringSelectorHolder {
+        private Map<String, Bucket> mSelectors = new HashMap<>();
 
-        public void put(AnySelector selector) {
-            mSelectors.add(selector);
+        public void put(String key, CssSelector selector) {
+            Bucket bucket = mSelectors.get(key);
+            if (bucket == null) {
+                bucket = new Bucket();
+                mSelectors.put(key, bucket);
+            }
+
+            bucket.add(selector);
         }
 
-        void matches(CssSelector[] outSelectors) {
-            for (CssSelector selector : mSelectors) {
-                Integer index = mSelectorOrderMap.get(selector);
-                outSelectors[index] = selector;
-            }
+        Bucket get(String key) {
+            return key == null ? null : mSelectors.get(key);
         }
 
         @Override
@@ -2,11 +2,14 @@ package com.mozz.htmlnative.css;
 
 import android.content.Context;
 import android.graphics.Matrix;
+import android.graphics.drawable.Drawable;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.text.TextUtils;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AbsoluteLayout;
+import android.widget.ImageView;
 
 import com.mozz.htmlnative.HNLog;
 import com.mozz.htmlnative.HNSandBoxContext;
@@ -14,6 +17,8 @@ import com.mozz.htmlnative.HNativeEngine;
 import com.mozz.htmlnative.InheritStyleStack;
 import com.mozz.htmlnative.css.stylehandler.LayoutStyleHandler;
 import com.mozz.htmlnative.css.stylehandler.StyleHandler;
+import com.mozz.htmlnative.css.stylehandler.StyleHandlerChain;
+import com.mozz.htmlnative.css.stylehandler.StyleHandlerFactory;
 import com.mozz.htmlnative.css.stylehandler.StyleHelper;
 import com.mozz.htmlnative.common.PixelValue;
 import com.mozz.htmlnative.dom.DomElement;
@@ -23,13 +28,22 @@ import com.mozz.htmlnative.view.BackgroundViewDelegate;
 import com.mozz.htmlnative.view.IBackgroundView;
 import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
 
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * @author Yang Tao, 17/3/30.
  */
 public final class Styles {
 
+    /**
+     * padding and background of the views not created by html, such as buttons, when they are
+     * rendered first, restored by {@link #resetStylesForRestyle(View)}
+     */
+    private static final Map<View, CreatedStyles> sCreatedStyles = Collections
+            .synchronizedMap(new WeakHashMap<View, CreatedStyles>());
+
     private Styles() {
     }
 
@@ -103,6 +117,24 @@ public final class Styles {
                                   LayoutStyleHandler parentAttr, String styleName, Object style,
                                   boolean isParent, InheritStyleStack outStack) throws
             AttrApplyException {
+        applyStyle(context, sandBoxContext, v, domElement, layoutCreator, parent,
+                viewStyleHandler, extraStyleHandler, parentAttr, PropertyRegistry.idOf
+                        (styleName), styleName, style, isParent, outStack);
+    }
+
+    /**
+     * Same as {@link #applyStyle(Context, HNSandBoxContext, View, DomElement,
+     * LayoutParamsLazyCreator, ViewGroup, StyleHandler, StyleHandler, LayoutStyleHandler,
+     * String, Object, boolean, InheritStyleStack)}, with the property id of styleName already
+     * looked up by {@link PropertyRegistry#idOf(String)}.
+     */
+    public static void applyStyle(Context context, final HNSandBoxContext sandBoxContext, View v,
+                                  DomElement domElement, @NonNull LayoutParamsLazyCreator
+                                          layoutCreator, @NonNull ViewGroup parent, StyleHandler
+                                          viewStyleHandler, StyleHandler extraStyleHandler,
+                                  LayoutStyleHandler parentAttr, int propertyId, String
+                                          styleName, Object style, boolean isParent,
+                                  InheritStyleStack outStack) throws AttrApplyException {
 
         if (domElement != null) {
             HNLog.d(HNLog.STYLE, "set style \"" + styleName + ": " + style + "\"  to " +
@@ -110,43 +142,42 @@ public final class Styles {
         }
 
         if (isParent) {
-            if (!InheritStylesRegistry.isInherit(styleName)) {
+            if (!InheritStylesRegistry.isInherit(propertyId)) {
                 return;
             }
         }
 
-        switch (styleName) {
-            case ATTR_WIDTH: {
-                if (style.toString().equalsIgnoreCase(VAL_FILL_PARENT)) {
-                    layoutCreator.width = ViewGroup.LayoutParams.MATCH_PARENT;
-                } else {
-                    PixelValue pixel = ParametersUtils.toPixel(style);
-                    layoutCreator.width = (int) pixel.getPxValue();
-                }
-            }
-            break;
+        switch (propertyId) {
+            case PropertyRegistry.WIDTH:
+                layoutCreator.width = toLayoutSize(style);
+                break;
 
-            case ATTR_HEIGHT: {
-                if (style.toString().equalsIgnoreCase(VAL_FILL_PARENT)) {
-                    layoutCreator.height = ViewGroup.LayoutParams.MATCH_PARENT;
-                } else {
-                    PixelValue pixel = ParametersUtils.toPixel(style);
-                    layoutCreator.height = (int) pixel.getPxValue();
-                }
-            }
-            break;
+            case PropertyRegistry.HEIGHT:
+                layoutCreator.height = toLayoutSize(style);
+                break;
 
-            case ATTR_BACKGROUND:
+            case PropertyRegistry.BACKGROUND:
                 if (style instanceof Background) {
                     Background background = (Background) style;
 
                     if (!TextUtils.isEmpty(background.getUrl()) && v instanceof IBackgroundView) {
+                        if (BackgroundViewDelegate.keepOnRestyle(v, background)) {
+                            break;
+                        }
                         Matrix matrix = Background.createBitmapMatrix(background);
-                        HNativeEngine.getImageViewAdapter().setImage(background.getUrl(), new
-                                BackgroundViewDelegate(v, matrix, background.getColor(),
-                                background));
+                        final String url = background.getUrl();
+                        final BackgroundViewDelegate delegate = new BackgroundViewDelegate(v,
+                                matrix, background.getColor(), background, background);
+                        runOnMainThread(sandBoxContext, new Runnable() {
+                            @Override
+                            public void run() {
+                                HNativeEngine.getImageViewAdapter().setImage(url, delegate);
+                            }
+                        });
                     } else if (background.isColorSet()) {
                         if (v instanceof IBackgroundView) {
+                            // an image kept by restyle is replaced
+                            BackgroundViewDelegate.cancel(v);
                             ((IBackgroundView) v).setHtmlBackground(null, background);
                         } else {
                             v.setBackgroundColor(background.getColor());
@@ -158,8 +189,8 @@ public final class Styles {
 
                 break;
 
-            case ATTR_MARGIN: {
-                PixelValue[] pixelValues = ParametersUtils.toPixels(style.toString());
+            case PropertyRegistry.MARGIN: {
+                PixelValue[] pixelValues = ParametersUtils.toPixels(style);
                 int top = -1;
                 int bottom = -1;
                 int left = -1;
@@ -182,24 +213,24 @@ public final class Styles {
             }
             break;
 
-            case ATTR_MARGIN_RIGHT:
+            case PropertyRegistry.MARGIN_RIGHT:
                 layoutCreator.marginRight = (int) ParametersUtils.toPixel(style).getPxValue();
                 break;
 
-            case ATTR_MARGIN_LEFT:
+            case PropertyRegistry.MARGIN_LEFT:
                 layoutCreator.marginLeft = (int) ParametersUtils.toPixel(style).getPxValue();
                 break;
 
-            case ATTR_MARGIN_TOP:
+            case PropertyRegistry.MARGIN_TOP:
                 layoutCreator.marginTop = (int) ParametersUtils.toPixel(style).getPxValue();
                 break;
 
-            case ATTR_MARGIN_BOTTOM:
+            case PropertyRegistry.MARGIN_BOTTOM:
                 layoutCreator.marginBottom = (int) ParametersUtils.toPixel(style).getPxValue();
                 break;
 
-            case ATTR_PADDING: {
-                PixelValue[] pixelValues = ParametersUtils.toPixels(style.toString());
+            case PropertyRegistry.PADDING: {
+                PixelValue[] pixelValues = ParametersUtils.toPixels(style);
                 int top = -1;
                 int bottom = -1;
                 int left = -1;
@@ -221,40 +252,40 @@ public final class Styles {
             }
             break;
 
-            case ATTR_PADDING_LEFT:
+            case PropertyRegistry.PADDING_LEFT:
                 int paddingLeft = ParametersUtils.toInt(style);
                 StyleHelper.setLeftPadding(v, paddingLeft);
                 break;
 
-            case ATTR_PADDING_RIGHT:
+            case PropertyRegistry.PADDING_RIGHT:
                 int paddingRight = ParametersUtils.toInt(style);
                 StyleHelper.setRightPadding(v, paddingRight);
                 break;
 
-            case ATTR_PADDING_TOP:
+            case PropertyRegistry.PADDING_TOP:
                 int paddingTop = ParametersUtils.toInt(style);
                 StyleHelper.setTopPadding(v, paddingTop);
                 break;
 
-            case ATTR_PADDING_BOTTOM:
+            case PropertyRegistry.PADDING_BOTTOM:
                 int paddingBottom = ParametersUtils.toInt(style);
                 StyleHelper.setBottomPadding(v, paddingBottom);
                 break;
 
-            case ATTR_LEFT:
+            case PropertyRegistry.LEFT:
                 layoutCreator.left = (int) ParametersUtils.toPixel(style).getPxValue();
                 break;
 
-            case ATTR_TOP:
+            case PropertyRegistry.TOP:
                 layoutCreator.top = (int) ParametersUtils.toPixel(style).getPxValue();
                 break;
 
-            case ATTR_ALPHA:
+            case PropertyRegistry.ALPHA:
                 float alpha = ParametersUtils.toFloat(style);
                 v.setAlpha(alpha);
                 break;
 
-            case ATTR_VISIBLE:
+            case PropertyRegistry.VISIBILITY:
                 String visible = style.toString();
 
                 if (visible.equals("visible")) {
@@ -264,7 +295,7 @@ public final class Styles {
                 }
                 break;
 
-            case ATTR_DIRECTION:
+            case PropertyRegistry.DIRECTION:
                 String direction = style.toString();
                 if (direction.equals("ltr")) {
                     v.setTextDirection(View.TEXT_DIRECTION_LTR);
@@ -273,7 +304,7 @@ public final class Styles {
                 }
                 break;
 
-            case ATTR_ONCLICK:
+            case PropertyRegistry.ONCLICK:
                 if (style instanceof String) {
                     final String functionName = (String) style;
                     v.setOnClickListener(new View.OnClickListener() {
@@ -294,29 +325,195 @@ public final class Styles {
                 // 2. apply the extra attr
                 // 3. use parent view attr to this
 
-                if (viewStyleHandler != null) {
-                    viewStyleHandler.apply(context, v, domElement, parent, layoutCreator,
-                            styleName, style, isParent);
+                if (viewStyleHandler != null && viewStyleHandler.handles(propertyId)) {
+                    applyByHandler(context, sandBoxContext, viewStyleHandler, v, domElement,
+                            parent, layoutCreator, propertyId, styleName, style, isParent);
                 }
 
                 // If there extra attr is set, then should be applied also.
-                if (extraStyleHandler != null) {
-                    extraStyleHandler.apply(context, v, domElement, parent, layoutCreator,
-                            styleName, style, isParent);
+                if (extraStyleHandler != null && extraStyleHandler.handles(propertyId)) {
+                    applyByHandler(context, sandBoxContext, extraStyleHandler, v, domElement,
+                            parent, layoutCreator, propertyId, styleName, style, isParent);
                 }
 
                 // finally apply corresponding parent attr to child
-                if (parentAttr != null) {
+                if (parentAttr != null && parentAttr.handles(propertyId)) {
                     parentAttr.applyToChild(context, v, domElement, parent, layoutCreator,
-                            styleName, style, isParent);
+                            propertyId, styleName, style, isParent);
                 }
                 break;
         }
 
         // Put inherit style into stack
-        if (outStack != null && InheritStylesRegistry.isInherit(styleName)) {
-            outStack.newStyle(styleName, style);
+        if (outStack != null && InheritStylesRegistry.isInherit(propertyId)) {
+            outStack.newStyle(propertyId, styleName, style);
+        }
+    }
+
+    private static void applyByHandler(final Context context, HNSandBoxContext sandBoxContext,
+                                       final StyleHandler handler, final View v, final
+                                       DomElement domElement, final View parent, final
+                                       LayoutParamsLazyCreator layoutCreator, final int
+                                               propertyId, final String styleName, final
+                                       Object style, final boolean isParent) throws
+            AttrApplyException {
+        if (!handler.needsMainThread(propertyId) || sandBoxContext == null) {
+            handler.apply(context, v, domElement, parent, layoutCreator, propertyId, styleName,
+                    style, isParent);
+            return;
+        }
+
+        sandBoxContext.runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    handler.apply(context, v, domElement, parent, layoutCreator, propertyId,
+                            styleName, style, isParent);
+                } catch (AttrApplyException e) {
+                    e.printStackTrace();
+                    HNLog.e(HNLog.RENDER, "wrong when apply " + styleName + " on main thread");
+                }
+            }
+        });
+    }
+
+    private static void runOnMainThread(HNSandBoxContext sandBoxContext, Runnable r) {
+        if (sandBoxContext != null) {
+            sandBoxContext.runOnMainThread(r);
+        } else {
+            r.run();
+        }
+    }
+
+    private static int toLayoutSize(Object style) {
+        if (style instanceof PixelValue) {
+            PixelValue pixel = (PixelValue) style;
+            if (pixel.isPercent() && pixel.getValue() == 100) {
+                return ViewGroup.LayoutParams.MATCH_PARENT;
+            }
+            return (int) pixel.getPxValue();
+        }
+
+        // not resolved when parsing, e.g. set by script
+        if (style.toString().equalsIgnoreCase(VAL_FILL_PARENT)) {
+            return ViewGroup.LayoutParams.MATCH_PARENT;
+        }
+        return (int) ParametersUtils.toPixel(style).getPxValue();
+    }
+
+    /**
+     * Clear the styles applied to v by render, so that v can be pooled and rendered again for
+     * another element: its {@link StyleHandler}s clear what they applied, see
+     * {@link StyleHandler#resetForReuse(View)}, and the common styles applied here are cleared,
+     * images included. The tag and id of v are kept.
+     *
+     * @return false if v has no view handler or a handler of v can't clear its styles, then the
+     * common styles are left as they are.
+     */
+    public static boolean resetStyles(@NonNull View v) {
+        StyleHandlerChain chain = StyleHandlerFactory.chainOf(v);
+        StyleHandler viewHandler = chain.viewHandler();
+        StyleHandler extraHandler = chain.extraHandler();
+        if (viewHandler == null || !viewHandler.resetForReuse(v) || (extraHandler != null &&
+                !extraHandler.resetForReuse(v))) {
+            return false;
         }
+
+        resetCommonStyles(v);
+        v.setBackground(null);
+        // images of the old styles may be still loading
+        BackgroundViewDelegate.cancel(v);
+        return true;
+    }
+
+    /**
+     * Clear the styles applied to v before it is restyled, so that the styles no longer matched
+     * are dropped. Unlike {@link #resetStyles(View)}, the image and html background of v are
+     * kept, they are loaded again only if the new styles set another source, and dropped by
+     * {@link #finishRestyle(View, Cascade, Map)} if not set at all. The common styles are always
+     * cleared, the handlers clear theirs, see {@link StyleHandler#resetForRestyle(View)}.
+     *
+     * @return false if a handler of v can't clear its styles, which are kept then.
+     */
+    public static boolean resetStylesForRestyle(@NonNull View v) {
+        StyleHandlerChain chain = StyleHandlerFactory.chainOf(v);
+        StyleHandler viewHandler = chain.viewHandler();
+        StyleHandler extraHandler = chain.extraHandler();
+        boolean reset = viewHandler == null || viewHandler.resetForRestyle(v);
+        if (extraHandler != null && !extraHandler.resetForRestyle(v)) {
+            reset = false;
+        }
+
+        resetCommonStyles(v);
+        CreatedStyles created = sCreatedStyles.get(v);
+        if (created != null) {
+            v.setPadding(created.mPaddingLeft, created.mPaddingTop, created.mPaddingRight,
+                    created.mPaddingBottom);
+            v.setBackground(created.mBackground);
+        } else if (!(v instanceof IBackgroundView)) {
+            v.setBackground(null);
+        }
+        BackgroundViewDelegate.beginRestyle(v);
+        return reset;
+    }
+
+    private static void saveCreatedStyles(View v) {
+        synchronized (sCreatedStyles) {
+            if (!sCreatedStyles.containsKey(v)) {
+                sCreatedStyles.put(v, new CreatedStyles(v));
+            }
+        }
+    }
+
+    /**
+     * Drop the image and html background kept by {@link #resetStylesForRestyle(View)} if they
+     * are not among the styles v is restyled with.
+     *
+     * @param cascade      styles resolved for v
+     * @param scriptStyles styles set by script to v
+     */
+    public static void finishRestyle(@NonNull View v, @Nullable Cascade cascade, @Nullable
+            Map<String, Object> scriptStyles) {
+        BackgroundViewDelegate.endRestyle(v);
+        if (v instanceof ImageView) {
+            if (!hasStyle(cascade, scriptStyles, PropertyRegistry.SRC)) {
+                BackgroundViewDelegate.cancel(v);
+                ((ImageView) v).setImageDrawable(null);
+            }
+        } else if (v instanceof IBackgroundView) {
+            if (!hasStyle(cascade, scriptStyles, PropertyRegistry.BACKGROUND)) {
+                BackgroundViewDelegate.cancel(v);
+                ((IBackgroundView) v).clearHtmlBackground();
+            }
+        }
+    }
+
+    private static boolean hasStyle(Cascade cascade, Map<String, Object> scriptStyles, int
+            propertyId) {
+        if (cascade != null) {
+            for (int i = 0, size = cascade.size(); i < size; i++) {
+                if (cascade.propertyId(i) == propertyId) {
+                    return true;
+                }
+            }
+        }
+        if (scriptStyles != null) {
+            for (String styleName : scriptStyles.keySet()) {
+                if (PropertyRegistry.idOf(styleName) == propertyId) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void resetCommonStyles(View v) {
+        v.setOnClickListener(null);
+        v.setClickable(false);
+        v.setAlpha(1f);
+        v.setVisibility(View.VISIBLE);
+        v.setPadding(0, 0, 0, 0);
+        v.setTextDirection(View.TEXT_DIRECTION_INHERIT);
     }
 
     /**
@@ -328,6 +525,10 @@ public final class Styles {
                                        StyleHandler extraStyleHandler, LayoutStyleHandler
                                                   parentAttr, @NonNull LayoutParamsLazyCreator
                                                   paramsLazyCreator) throws AttrApplyException {
+        if (!(v instanceof IBackgroundView)) {
+            saveCreatedStyles(v);
+        }
+
         if (viewStyleHandler != null) {
             viewStyleHandler.setDefault(context, v, domElement, paramsLazyCreator, parent);
         }
@@ -365,20 +566,16 @@ public final class Styles {
         // Apply the default attr to view first;
         // Then process each parameter.
 
-        Iterator<StyleEntry> itr = source.iterator(tree);
-        while (itr.hasNext()) {
-            StyleEntry styleEntry = itr.next();
-
+        for (int i = source.begin(tree), end = source.end(tree); i < end; i++) {
             applyStyle(context, sandBoxContext, v, domElement, paramsLazyCreator, parent,
-                    viewStyleHandler, extraStyleHandler, parentAttrHandler, styleEntry.getStyleName
-                            (), styleEntry.getStyle(), isParent, stack);
-
+                    viewStyleHandler, extraStyleHandler, parentAttrHandler, source.getPropertyId
+                            (i), source.getStyleName(i), source.getStyle(i), isParent, stack);
         }
     }
 
     public static Object getStyle(View v, String styleName, StyleHandler styleHandler, StyleHandler extraStyleHandler, LayoutStyleHandler parentHandler) {
-        switch (styleName) {
-            case ATTR_WIDTH:
+        switch (PropertyRegistry.idOf(styleName)) {
+            case PropertyRegistry.WIDTH:
                 int width = v.getLayoutParams().width;
                 if (width == ViewGroup.LayoutParams.MATCH_PARENT) {
                     return VAL_FILL_PARENT;
@@ -386,7 +583,7 @@ public final class Styles {
                     return v.getLayoutParams().width + "px";
                 }
 
-            case ATTR_HEIGHT:
+            case PropertyRegistry.HEIGHT:
                 int height = v.getLayoutParams().height;
                 if (height == ViewGroup.LayoutParams.MATCH_PARENT) {
                     return VAL_FILL_PARENT;
@@ -394,62 +591,62 @@ public final class Styles {
                     return v.getLayoutParams().height + "px";
                 }
 
-            case ATTR_BACKGROUND:
+            case PropertyRegistry.BACKGROUND:
                 if (v instanceof IBackgroundView) {
                     return ((IBackgroundView) v).getHtmlBackground();
                 }
                 return null;
 
-            case ATTR_MARGIN_RIGHT:
+            case PropertyRegistry.MARGIN_RIGHT:
                 if (v.getLayoutParams() instanceof ViewGroup.MarginLayoutParams) {
                     return ((ViewGroup.MarginLayoutParams) v.getLayoutParams()).rightMargin + "px";
                 }
                 return null;
 
-            case ATTR_MARGIN_LEFT:
+            case PropertyRegistry.MARGIN_LEFT:
                 if (v.getLayoutParams() instanceof ViewGroup.MarginLayoutParams) {
                     return ((ViewGroup.MarginLayoutParams) v.getLayoutParams()).leftMargin + "px";
                 }
                 return null;
 
-            case ATTR_MARGIN_TOP:
+            case PropertyRegistry.MARGIN_TOP:
                 if (v.getLayoutParams() instanceof ViewGroup.MarginLayoutParams) {
                     return ((ViewGroup.MarginLayoutParams) v.getLayoutParams()).topMargin + "px";
                 }
                 return null;
 
-            case ATTR_MARGIN_BOTTOM:
+            case PropertyRegistry.MARGIN_BOTTOM:
                 if (v.getLayoutParams() instanceof ViewGroup.MarginLayoutParams) {
                     return ((ViewGroup.MarginLayoutParams) v.getLayoutParams()).bottomMargin + "px";
                 }
                 return null;
-            case ATTR_PADDING_TOP:
+            case PropertyRegistry.PADDING_TOP:
                 return v.getPaddingTop() + "px";
-            case ATTR_PADDING_LEFT:
+            case PropertyRegistry.PADDING_LEFT:
                 return v.getPaddingLeft() + "px";
-            case ATTR_PADDING_BOTTOM:
+            case PropertyRegistry.PADDING_BOTTOM:
                 return v.getPaddingBottom() + "px";
-            case ATTR_PADDING_RIGHT:
+            case PropertyRegistry.PADDING_RIGHT:
                 return v.getPaddingRight() + "px";
 
-            case ATTR_LEFT:
+            case PropertyRegistry.LEFT:
                 if (v.getLayoutParams() instanceof AbsoluteLayout.LayoutParams) {
                     return ((AbsoluteLayout.LayoutParams) v.getLayoutParams()).x + "px";
                 } else {
                     return null;
                 }
 
-            case ATTR_TOP:
+            case PropertyRegistry.TOP:
                 if (v.getLayoutParams() instanceof AbsoluteLayout.LayoutParams) {
                     return ((AbsoluteLayout.LayoutParams) v.getLayoutParams()).y + "px";
                 } else {
                     return null;
                 }
 
-            case ATTR_ALPHA:
+            case PropertyRegistry.ALPHA:
                 return v.getAlpha();
 
-            case ATTR_VISIBLE:
+            case PropertyRegistry.VISIBILITY:
                 int visibility = v.getVisibility();
                 if (visibility == View.VISIBLE) {
                     return "visible";
@@ -457,7 +654,7 @@ public final class Styles {
                     return "invisible";
                 }
 
-            case ATTR_DIRECTION:
+            case PropertyRegistry.DIRECTION:
                 int textDirection = v.getTextDirection();
 
                 if (textDirection == View.TEXT_DIRECTION_LTR) {
@@ -518,6 +715,20 @@ public final class Styles {
             return mStyleName + "=" + mStyleValue;
         }
     }
-}
-
 
+    private static final class CreatedStyles {
+        final Drawable mBackground;
+        final int mPaddingLeft;
+        final int mPaddingTop;
+        final int mPaddingRight;
+        final int mPaddingBottom;
+
+        CreatedStyles(View v) {
+            mBackground = v.getBackground();
+            mPaddingLeft = v.getPaddingLeft();
+            mPaddingTop = v.getPaddingTop();
+            mPaddingRight = v.getPaddingRight();
+            mPaddingBottom = v.getPaddingBottom();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.mozz.htmlnative.css.selector;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mozz.htmlnative.dom.DomElement;
+
+import java.util.Arrays;
+
+/**
+ * Counting Bloom filter of the type, id and class of the elements on the current ancestor chain.
+ * Renderer pushes an element before rendering its children and pops it afterwards, so that
+ * {@link CssSelector#rejectedBy(AncestorFilter)} can tell most descendant selectors will not
+ * match without walking up the tree.
+ * <p>
+ * A false positive only costs the normal walk, there are no false negatives.
+ */
+public final class AncestorFilter {
+
+    private static final int KEY_BITS = 12;
+    private static final int KEY_MASK = (1 << KEY_BITS) - 1;
+    private static final int MAX_COUNT = 0xff;
+
+    private static final int TYPE_SALT = 13;
+    private static final int ID_SALT = 17;
+    private static final int CLASS_SALT = 19;
+
+    private final byte[] mCounters = new byte[1 << KEY_BITS];
+
+    /**
+     * hashes pushed, and how many of them each element pushed, so that pop does not depend on
+     * the element being unchanged.
+     */
+    private int[] mHashes = new int[64];
+    private int mHashCount;
+    private int[] mFrames = new int[16];
+    private int mDepth;
+
+    public static int typeHash(@NonNull String type) {
+        return hash(type, TYPE_SALT);
+    }
+
+    public static int idHash(@NonNull String id) {
+        return hash(id, ID_SALT);
+    }
+
+    public static int classHash(@NonNull String clazz) {
+        return hash(clazz, CLASS_SALT);
+    }
+
+    private static int hash(String name, int salt) {
+        int h = name.hashCode() * salt;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        // 0 is left for "no hash"
+        return h == 0 ? 1 : h;
+    }
+
+    public void push(@NonNull DomElement element) {
+        int start = mHashCount;
+
+        String type = element.getType();
+        if (type != null) {
+            add(typeHash(type));
+        }
+
+        String id = element.getId();
+        if (id != null) {
+            add(idHash(id));
+        }
+
+        String[] classes = element.getClazz();
+        if (classes != null) {
+            for (String c : classes) {
+                if (c != null) {
+                    add(classHash(c));
+                }
+            }
+        }
+
+        if (mDepth == mFrames.length) {
+            int[] frames = new int[mDepth * 2];
+            System.arraycopy(mFrames, 0, frames, 0, mDepth);
+            mFrames = frames;
+        }
+        mFrames[mDepth++] = mHashCount - start;
+    }
+
+    /**
+     * Pop the element pushed last.
+     */
+    public void pop() {
+        if (mDepth == 0) {
+            throw new IllegalStateException("pop an empty AncestorFilter");
+        }
+
+        int count = mFrames[--mDepth];
+        while (count-- > 0) {
+            int hash = mHashes[--mHashCount];
+            decrement(hash & KEY_MASK);
+            decrement((hash >>> KEY_BITS) & KEY_MASK);
+        }
+    }
+
+    /**
+     * Push all of element and its ancestors, used when rendering starts from a subtree.
+     */
+    public void pushChain(@Nullable DomElement element) {
+        if (element != null) {
+            pushChain(element.getParent());
+            push(element);
+        }
+    }
+
+    public void reset() {
+        Arrays.fill(mCounters, (byte) 0);
+        mHashCount = 0;
+        mDepth = 0;
+    }
+
+    public int depth() {
+        return mDepth;
+    }
+
+    /**
+     * @return false if no ancestor has the hash, true if some ancestor may have it.
+     */
+    public boolean mayContain(int hash) {
+        return mCounters[hash & KEY_MASK] != 0 && mCounters[(hash >>> KEY_BITS) & KEY_MASK]
+                != 0;
+    }
+
+    private void add(int hash) {
+        if (mHashCount == mHashes.length) {
+            int[] hashes = new int[mHashCount * 2];
+            System.arraycopy(mHashes, 0, hashes, 0, mHashCount);
+            mHashes = hashes;
+        }
+        mHashes[mHashCount++] = hash;
+        increment(hash & KEY_MASK);
+        increment((hash >>> KEY_BITS) & KEY_MASK);
+    }
+
+    private void increment(int key) {
+        int count = mCounters[key] & 0xff;
+        if (count < MAX_COUNT) {
+            mCounters[key] = (byte) (count + 1);
+        }
+    }
+
+    private void decrement(int key) {
+        int count = mCounters[key] & 0xff;
+        // a saturated counter no longer knows its real count, keep it
+        if (count < MAX_COUNT) {
+            mCounters[key] = (byte) (count - 1);
+        }
+    }
+}
@@ -11,6 +11,16 @@ public class ClassSelector extends TypeSelector {
         super(classN);
     }
 
+    @Override
+    protected int selfSpecificity() {
+        return 100;
+    }
+
+    @Override
+    protected int selfHash() {
+        return AncestorFilter.classHash(mTag);
+    }
+
     @Override
     public String selfToString() {
         return "." + mTag;
@@ -1,6 +1,7 @@
 package com.mozz.htmlnative.css.selector;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.mozz.htmlnative.css.AttrsSet;
 import com.mozz.htmlnative.dom.DomElement;
@@ -10,6 +11,9 @@ import com.mozz.htmlnative.dom.DomElement;
  */
 
 public abstract class CssSelector implements AttrsSet.AttrsOwner {
+
+    private static final int[] NO_HASHES = new int[0];
+
     /**
      * chain the selector together which css is a b > c {***}
      */
@@ -34,6 +38,22 @@ public abstract class CssSelector implements AttrsSet.AttrsOwner {
 
     private int mAttrIndex;
 
+    /**
+     * {@link #selfHash()} of the selectors before this one in chain, each ancestor of a matched
+     * element must have one of them. See {@link AncestorFilter}.
+     */
+    private int[] mAncestorHashes = NO_HASHES;
+
+    /**
+     * position in the {@link com.mozz.htmlnative.css.StyleSheet} it is put into, -1 if none.
+     */
+    private int mOrder = -1;
+
+    /**
+     * specificity of the chain ending with this selector, see {@link #specificity()}
+     */
+    private int mSpecificity = -1;
+
     public final void chainGroup(CssSelector st) {
         st.mAttrIndex = this.mAttrIndex;
         if (mGroupTail == null) {
@@ -57,6 +77,8 @@ public abstract class CssSelector implements AttrsSet.AttrsOwner {
         st.mHead = this.mHead;
 
         st.mPre = mTail;
+        st.mAncestorHashes = appendHash(mTail.mAncestorHashes, mTail.selfHash());
+        st.mSpecificity = mTail.specificity() + st.selfSpecificity();
         mTail.mNext = st;
         mTail = st;
 
@@ -84,6 +106,65 @@ public abstract class CssSelector implements AttrsSet.AttrsOwner {
 
     public abstract boolean matchThis(DomElement element);
 
+    /**
+     * @return true if filter tells some selector before this one matches none of the ancestors,
+     * so that {@link #matchWhole(DomElement)} must be false. False means it still has to be
+     * matched.
+     */
+    public final boolean rejectedBy(@Nullable AncestorFilter filter) {
+        if (filter == null) {
+            return false;
+        }
+        for (int hash : mAncestorHashes) {
+            if (!filter.mayContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return specificity of the whole chain ending with this selector, as ids * 10000 +
+     * classes * 100 + types. More specific selector wins in cascade.
+     */
+    public final int specificity() {
+        if (mSpecificity == -1) {
+            // head of chain
+            mSpecificity = selfSpecificity();
+        }
+        return mSpecificity;
+    }
+
+    /**
+     * @return specificity of this simple selector alone, see {@link #specificity()}
+     */
+    protected int selfSpecificity() {
+        return 0;
+    }
+
+    /**
+     * @return hash of what an element must have to match this selector, see
+     * {@link AncestorFilter#typeHash(String)}, or 0 if any element matches.
+     */
+    protected int selfHash() {
+        return 0;
+    }
+
+    private static int[] appendHash(int[] hashes, int hash) {
+        if (hash == 0) {
+            return hashes;
+        }
+        for (int h : hashes) {
+            if (h == hash) {
+                return hashes;
+            }
+        }
+        int[] result = new int[hashes.length + 1];
+        System.arraycopy(hashes, 0, result, 0, hashes.length);
+        result[hashes.length] = hash;
+        return result;
+    }
+
     public final boolean matchWhole(DomElement element) {
         return this.matchBackward(element);
     }
@@ -162,6 +243,14 @@ public abstract class CssSelector implements AttrsSet.AttrsOwner {
         mAttrIndex = newIndex;
     }
 
+    public final int order() {
+        return mOrder;
+    }
+
+    public final void setOrder(int order) {
+        mOrder = order;
+    }
+
     public boolean matchDescendant() {
         return !mMatchDirect;
     }
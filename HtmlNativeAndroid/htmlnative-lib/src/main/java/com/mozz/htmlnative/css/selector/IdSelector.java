@@ -11,6 +11,16 @@ public class IdSelector extends TypeSelector {
         super(Id);
     }
 
+    @Override
+    protected int selfSpecificity() {
+        return 10000;
+    }
+
+    @Override
+    protected int selfHash() {
+        return AncestorFilter.idHash(mTag);
+    }
+
     @Override
     public String selfToString() {
         return "#" + mTag;
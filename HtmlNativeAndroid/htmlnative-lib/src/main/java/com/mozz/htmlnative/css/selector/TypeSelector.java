@@ -1,5 +1,6 @@
 package com.mozz.htmlnative.css.selector;
 
+import com.mozz.htmlnative.common.SymbolTable;
 import com.mozz.htmlnative.dom.DomElement;
 
 /**
@@ -9,10 +10,12 @@ import com.mozz.htmlnative.dom.DomElement;
 public class TypeSelector extends CssSelector {
 
     protected String mTag;
+    private final int mTagId;
 
     public TypeSelector(String tag) {
         super();
         mTag = tag;
+        mTagId = SymbolTable.idOf(tag);
     }
 
     public String getName() {
@@ -21,7 +24,21 @@ public class TypeSelector extends CssSelector {
 
     @Override
     public boolean matchThis(DomElement element) {
-        return element.getType().equals(mTag);
+        int typeId = element.getTypeId();
+        if (mTagId != SymbolTable.UNKNOWN && typeId != SymbolTable.UNKNOWN) {
+            return typeId == mTagId;
+        }
+        return mTag.equals(element.getType());
+    }
+
+    @Override
+    protected int selfSpecificity() {
+        return 1;
+    }
+
+    @Override
+    protected int selfHash() {
+        return AncestorFilter.typeHash(mTag);
     }
 
     @Override
@@ -6,6 +6,7 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import com.google.android.flexbox.FlexboxLayout;
+import com.mozz.htmlnative.css.PropertyRegistry;
 import com.mozz.htmlnative.dom.DomElement;
 import com.mozz.htmlnative.exception.AttrApplyException;
 import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
@@ -15,27 +16,34 @@ import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
  */
 
 class FlexBoxLayoutStyleHandler extends LayoutStyleHandler {
+
+    FlexBoxLayoutStyleHandler() {
+        handle(PropertyRegistry.FLEX_DIRECTION, PropertyRegistry.FLEX_WRAP, PropertyRegistry
+                .JUSTIFY_CONTENT);
+    }
+
     @Override
-    public void apply(Context context, View v, DomElement domElement, View parent, LayoutParamsLazyCreator paramsLazyCreator, String params, Object value, boolean isParent) throws
-            AttrApplyException {
+    public void apply(Context context, View v, DomElement domElement, View parent,
+                      LayoutParamsLazyCreator paramsLazyCreator, int propertyId, String params,
+                      Object value, boolean isParent) throws AttrApplyException {
         FlexboxLayout flexboxLayout = (FlexboxLayout) v;
 
         if (isParent) {
             return;
         }
 
-        switch (params) {
-            case "flex-direction": {
+        switch (propertyId) {
+            case PropertyRegistry.FLEX_DIRECTION: {
                 String val = value.toString();
                 flexboxLayout.setFlexDirection(flexDirection(val));
                 break;
             }
-            case "flex-wrap": {
+            case PropertyRegistry.FLEX_WRAP: {
                 String val = value.toString();
                 flexboxLayout.setFlexWrap(flexWrap(val));
                 break;
             }
-            case "justify-content": {
+            case PropertyRegistry.JUSTIFY_CONTENT: {
                 String val = value.toString();
                 flexboxLayout.setJustifyContent(justContent(val));
                 break;
@@ -48,6 +56,15 @@ class FlexBoxLayoutStyleHandler extends LayoutStyleHandler {
 
     }
 
+    @Override
+    public boolean resetForReuse(View v) {
+        FlexboxLayout flexboxLayout = (FlexboxLayout) v;
+        flexboxLayout.setFlexDirection(FlexboxLayout.FLEX_DIRECTION_ROW);
+        flexboxLayout.setFlexWrap(FlexboxLayout.FLEX_WRAP_NOWRAP);
+        flexboxLayout.setJustifyContent(FlexboxLayout.JUSTIFY_CONTENT_FLEX_START);
+        return true;
+    }
+
     @Override
     public void setDefault(Context context, View v, DomElement domElement, LayoutParamsLazyCreator paramsLazyCreator, View parent) throws AttrApplyException {
         super.setDefault(context, v, domElement, paramsLazyCreator, parent);
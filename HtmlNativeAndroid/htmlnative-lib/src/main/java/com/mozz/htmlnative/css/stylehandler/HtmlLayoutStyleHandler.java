@@ -13,10 +13,10 @@ import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
 class HtmlLayoutStyleHandler extends StyleHandler {
     @Override
     public void apply(Context context, View v, DomElement domElement, View parent,
-                      LayoutParamsLazyCreator paramsLazyCreator, String params, Object value,
-                      boolean isParent) throws AttrApplyException {
+                      LayoutParamsLazyCreator paramsLazyCreator, int propertyId, String params,
+                      Object value, boolean isParent) throws AttrApplyException {
 
-        if (InheritStylesRegistry.isInherit(params)) {
+        if (InheritStylesRegistry.isInherit(propertyId)) {
             HNDiv div = (HNDiv) v;
             div.saveInheritStyles(params, value);
         }
@@ -30,6 +30,18 @@ class HtmlLayoutStyleHandler extends StyleHandler {
         paramsLazyCreator.width = LinearLayout.LayoutParams.MATCH_PARENT;
     }
 
+    @Override
+    public boolean resetForReuse(View v) {
+        ((HNDiv) v).clearHtmlStyles();
+        return true;
+    }
+
+    @Override
+    public boolean resetForRestyle(View v) {
+        ((HNDiv) v).clearHtmlStyles(true);
+        return true;
+    }
+
     @Override
     public Object getStyle(View v, String styleName) {
         return ((HNDiv) v).getInheritStyle(styleName);
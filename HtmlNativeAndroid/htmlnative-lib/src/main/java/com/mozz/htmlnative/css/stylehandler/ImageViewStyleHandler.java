@@ -5,9 +5,11 @@ import android.graphics.Color;
 import android.graphics.Matrix;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageView;
 
 import com.mozz.htmlnative.HNativeEngine;
 import com.mozz.htmlnative.css.Background;
+import com.mozz.htmlnative.css.PropertyRegistry;
 import com.mozz.htmlnative.dom.DomElement;
 import com.mozz.htmlnative.exception.AttrApplyException;
 import com.mozz.htmlnative.view.BackgroundViewDelegate;
@@ -15,10 +17,24 @@ import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
 
 class ImageViewStyleHandler extends StyleHandler {
 
+    ImageViewStyleHandler() {
+        handle(PropertyRegistry.SRC);
+    }
+
+    @Override
+    public boolean needsMainThread(int propertyId) {
+        // image adapters load into the view from main thread
+        return propertyId == PropertyRegistry.SRC;
+    }
+
     @Override
-    public void apply(Context context, View v, DomElement domElement, View parent, LayoutParamsLazyCreator paramsLazyCreator, String params, Object value, boolean isParent) throws
-            AttrApplyException {
-        if (params.equals("src") && HNativeEngine.getImageViewAdapter() != null && !isParent) {
+    public void apply(Context context, View v, DomElement domElement, View parent,
+                      LayoutParamsLazyCreator paramsLazyCreator, int propertyId, String params,
+                      Object value, boolean isParent) throws AttrApplyException {
+        if (propertyId == PropertyRegistry.SRC && HNativeEngine.getImageViewAdapter() != null && !isParent) {
+            if (BackgroundViewDelegate.keepOnRestyle(v, value)) {
+                return;
+            }
             Matrix matrix = null;
             String url = value.toString();
             int color = Color.WHITE;
@@ -31,10 +47,22 @@ class ImageViewStyleHandler extends StyleHandler {
             }
 
             HNativeEngine.getImageViewAdapter().setImage(url, new BackgroundViewDelegate(v,
-                    matrix, color, background));
+                    matrix, color, background, value));
         }
     }
 
+    @Override
+    public boolean resetForReuse(View v) {
+        ((ImageView) v).setImageDrawable(null);
+        return true;
+    }
+
+    @Override
+    public boolean resetForRestyle(View v) {
+        // the image is kept unless src changes, see Styles#finishRestyle
+        return true;
+    }
+
     @Override
     public void setDefault(Context context, View v, DomElement domElement, LayoutParamsLazyCreator paramsLazyCreator, View parent) throws AttrApplyException {
         super.setDefault(context, v, domElement, paramsLazyCreator, parent);
@@ -3,6 +3,7 @@ package com.mozz.htmlnative.css.stylehandler;
 import android.content.Context;
 import android.view.View;
 
+import com.mozz.htmlnative.css.PropertyRegistry;
 import com.mozz.htmlnative.dom.DomElement;
 import com.mozz.htmlnative.exception.AttrApplyException;
 import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
@@ -12,6 +13,19 @@ import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
  */
 
 public abstract class LayoutStyleHandler extends StyleHandler {
+
+    /**
+     * Apply a style of child by its {@link PropertyRegistry} id, by default calls
+     * {@link #applyToChild(Context, View, DomElement, View, LayoutParamsLazyCreator, String,
+     * Object, boolean)}.
+     */
+    public void applyToChild(Context context, View v, DomElement domElement, View parent,
+                             LayoutParamsLazyCreator paramsLazyCreator, int propertyId, String
+                                     params, Object value, boolean isParent) throws
+            AttrApplyException {
+        applyToChild(context, v, domElement, parent, paramsLazyCreator, params, value, isParent);
+    }
+
     public abstract void applyToChild(Context context, View v, DomElement domElement, View
             parent, LayoutParamsLazyCreator paramsLazyCreator, String params, Object value,
                                       boolean isParent) throws AttrApplyException;
@@ -3,6 +3,7 @@ package com.mozz.htmlnative.css.stylehandler;
 import android.content.Context;
 import android.view.View;
 
+import com.mozz.htmlnative.css.PropertyRegistry;
 import com.mozz.htmlnative.dom.DomElement;
 import com.mozz.htmlnative.exception.AttrApplyException;
 import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
@@ -12,9 +13,61 @@ import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
  */
 
 public abstract class StyleHandler {
-    public abstract void apply(Context context, View v, DomElement domElement, View parent,
-                               LayoutParamsLazyCreator paramsLazyCreator, String params, Object
-                                       value, boolean isParent) throws AttrApplyException;
+
+    /**
+     * properties handled, index is the property id. Null means every property may be handled.
+     */
+    private boolean[] mHandled;
+
+    /**
+     * Declare the properties this handler handles, others are never dispatched to it. Handlers
+     * which do not declare receive every property not handled by {@link com.mozz.htmlnative.css.Styles}.
+     */
+    protected final void handle(int... propertyIds) {
+        int max = -1;
+        for (int id : propertyIds) {
+            max = Math.max(max, id);
+        }
+        boolean[] handled = new boolean[max + 1];
+        for (int id : propertyIds) {
+            handled[id] = true;
+        }
+        mHandled = handled;
+    }
+
+    public final boolean handles(int propertyId) {
+        boolean[] handled = mHandled;
+        return handled == null || (propertyId >= 0 && propertyId < handled.length &&
+                handled[propertyId]);
+    }
+
+    /**
+     * Whether applying the property must happen on main thread, such as handing a view to an
+     * image loader. Views may be built on a worker by async render, where such styles are
+     * queued by {@link com.mozz.htmlnative.HNSandBoxContext#runOnMainThread(Runnable)} until
+     * the views are delivered, by then the layout params are created already, so such styles
+     * must not change them.
+     */
+    public boolean needsMainThread(int propertyId) {
+        return false;
+    }
+
+    /**
+     * Apply a style by its {@link PropertyRegistry} id, built-in handlers switch on the id.
+     * By default calls {@link #apply(Context, View, DomElement, View, LayoutParamsLazyCreator,
+     * String, Object, boolean)}.
+     */
+    public void apply(Context context, View v, DomElement domElement, View parent,
+                      LayoutParamsLazyCreator paramsLazyCreator, int propertyId, String params,
+                      Object value, boolean isParent) throws AttrApplyException {
+        apply(context, v, domElement, parent, paramsLazyCreator, params, value, isParent);
+    }
+
+    public void apply(Context context, View v, DomElement domElement, View parent,
+                      LayoutParamsLazyCreator paramsLazyCreator, String params, Object value,
+                      boolean isParent) throws AttrApplyException {
+
+    }
 
     public void setDefault(Context context, View v, DomElement domElement,
                            LayoutParamsLazyCreator paramsLazyCreator, View parent) throws
@@ -22,6 +75,30 @@ public abstract class StyleHandler {
 
     }
 
+    /**
+     * Clear what this handler may have applied to v, so that v can be pooled and rendered again
+     * for another element, where {@link #setDefault(Context, View, DomElement,
+     * LayoutParamsLazyCreator, View)} is called again. Views whose handlers don't support this
+     * are never pooled, see {@link com.mozz.htmlnative.css.Styles#resetStyles(View)}.
+     *
+     * @return whether v is reset.
+     */
+    public boolean resetForReuse(View v) {
+        return false;
+    }
+
+    /**
+     * Same as {@link #resetForReuse(View)}, before v is restyled, but the image and html
+     * background of v are kept, see
+     * {@link com.mozz.htmlnative.css.Styles#resetStylesForRestyle(View)}. Views whose handlers
+     * don't support this keep the styles of this handler a restyle drops.
+     *
+     * @return whether v is reset.
+     */
+    public boolean resetForRestyle(View v) {
+        return resetForReuse(v);
+    }
+
     public Object getStyle(View v, String styleName) {
         return null;
     }
@@ -0,0 +1,52 @@
+package com.mozz.htmlnative.css.stylehandler;
+
+import android.support.annotation.Nullable;
+
+/**
+ * StyleHandlers resolved for one View class by {@link StyleHandlerFactory#chainOf(Class)}.
+ * Immutable, shared by all the renders.
+ */
+public final class StyleHandlerChain {
+
+    static final StyleHandlerChain EMPTY = new StyleHandlerChain(null, null);
+
+    @Nullable
+    private final StyleHandler mViewHandler;
+
+    @Nullable
+    private final StyleHandler mExtraHandler;
+
+    @Nullable
+    private final LayoutStyleHandler mLayoutHandler;
+
+    StyleHandlerChain(@Nullable StyleHandler viewHandler, @Nullable StyleHandler extraHandler) {
+        mViewHandler = viewHandler;
+        mExtraHandler = extraHandler;
+        mLayoutHandler = viewHandler instanceof LayoutStyleHandler ? (LayoutStyleHandler)
+                viewHandler : null;
+    }
+
+    /**
+     * @return built-in handler of the class, or null.
+     */
+    @Nullable
+    public StyleHandler viewHandler() {
+        return mViewHandler;
+    }
+
+    /**
+     * @return handler registered for the class or its nearest superclass, or null.
+     */
+    @Nullable
+    public StyleHandler extraHandler() {
+        return mExtraHandler;
+    }
+
+    /**
+     * @return handler applying styles to the children of views of the class, or null.
+     */
+    @Nullable
+    public LayoutStyleHandler layoutHandler() {
+        return mLayoutHandler;
+    }
+}
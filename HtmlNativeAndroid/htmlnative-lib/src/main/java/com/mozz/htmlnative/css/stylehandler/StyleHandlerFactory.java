@@ -15,8 +15,15 @@ import com.mozz.htmlnative.view.HNDiv;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Resolves the StyleHandlers of a View class once, into a {@link StyleHandlerChain} cached by
+ * class. Built-in and extra handlers are both looked up along the class hierarchy, so a
+ * subclass of a registered view gets its handler as well.
+ * <p>
+ * Thread safe. Registering an extra handler drops all the resolved chains.
+ *
  * @author Yang Tao, 17/4/17.
  */
 
@@ -28,48 +35,84 @@ public final class StyleHandlerFactory {
     private static FlexBoxLayoutStyleHandler sFlex = new FlexBoxLayoutStyleHandler();
     private static WebViewStyleHandler sWebview = new WebViewStyleHandler();
     private static AbsoluteStyleHandler sAbsolute = new AbsoluteStyleHandler();
+
+    /**
+     * Replaced as a whole when an extra handler is registered, so that a chain resolved with
+     * the old extra handlers goes to the dropped map.
+     */
+    @NonNull
+    private static volatile Map<Class<?>, StyleHandlerChain> sChains = new
+            ConcurrentHashMap<>();
+
+    /**
+     * copied on write
+     */
     @NonNull
-    private static Map<Class<? extends View>, StyleHandler> sAttrHandlerCache = new HashMap<>();
-    private static Map<Class<? extends View>, StyleHandler> sExtraAttrHandlerCache = new
-            HashMap<>();
+    private static volatile Map<Class<?>, StyleHandler> sExtraHandlers = new HashMap<>();
 
     private StyleHandlerFactory() {
 
     }
 
-    //TODO there is much can be done when dealing with the StyleHandler
+    /**
+     * @return built-in handler of clazz or its nearest superclass having one, or null.
+     */
     public static StyleHandler byClass(@NonNull Class<? extends View> clazz) {
-
+        // WebView is an AbsoluteLayout, check it first
         if (TextView.class.isAssignableFrom(clazz)) {
             return sText;
         } else if (ImageView.class.isAssignableFrom(clazz)) {
             return sImage;
-        } else if (clazz.equals(HNDiv.class)) {
+        } else if (HNDiv.class.isAssignableFrom(clazz)) {
             return sLinear;
-        } else if (clazz.equals(FlexboxLayout.class)) {
+        } else if (FlexboxLayout.class.isAssignableFrom(clazz)) {
             return sFlex;
-        } else if (clazz.equals(WebView.class)) {
+        } else if (WebView.class.isAssignableFrom(clazz)) {
             return sWebview;
-        } else if (clazz.equals(AbsoluteLayout.class)) {
+        } else if (AbsoluteLayout.class.isAssignableFrom(clazz)) {
             return sAbsolute;
         } else {
             return null;
         }
     }
 
-    @Nullable
-    public static StyleHandler get(View view) {
-        Class<? extends View> vClazz = view.getClass();
-        StyleHandler styleHandler = sAttrHandlerCache.get(vClazz);
-        if (styleHandler == null) {
-            styleHandler = byClass(vClazz);
-            if (styleHandler != null) {
-                sAttrHandlerCache.put(vClazz, styleHandler);
+    @NonNull
+    public static StyleHandlerChain chainOf(@NonNull View view) {
+        return chainOf(view.getClass());
+    }
+
+    @NonNull
+    public static StyleHandlerChain chainOf(@NonNull Class<? extends View> clazz) {
+        Map<Class<?>, StyleHandlerChain> chains = sChains;
+        StyleHandlerChain chain = chains.get(clazz);
+        if (chain == null) {
+            // may be resolved twice by racing renders, they get the same result
+            chain = resolve(clazz);
+            chains.put(clazz, chain);
+        }
+        return chain;
+    }
+
+    private static StyleHandlerChain resolve(Class<? extends View> clazz) {
+        StyleHandler viewHandler = byClass(clazz);
+
+        StyleHandler extraHandler = null;
+        Map<Class<?>, StyleHandler> extraHandlers = sExtraHandlers;
+        if (!extraHandlers.isEmpty()) {
+            for (Class<?> c = clazz; c != null && extraHandler == null; c = c.getSuperclass()) {
+                extraHandler = extraHandlers.get(c);
             }
         }
 
-        return styleHandler;
+        if (viewHandler == null && extraHandler == null) {
+            return StyleHandlerChain.EMPTY;
+        }
+        return new StyleHandlerChain(viewHandler, extraHandler);
+    }
 
+    @Nullable
+    public static StyleHandler get(View view) {
+        return chainOf(view).viewHandler();
     }
 
     /**
@@ -78,12 +121,7 @@ public final class StyleHandlerFactory {
     public static LayoutStyleHandler parentGet(View view) {
         ViewParent parent = view.getParent();
         if (parent instanceof ViewGroup) {
-            StyleHandler parentStyleHandler = get((View) parent);
-            LayoutStyleHandler parentLayoutAttr = null;
-            if (parentStyleHandler instanceof LayoutStyleHandler) {
-                parentLayoutAttr = (LayoutStyleHandler) parentStyleHandler;
-            }
-            return parentLayoutAttr;
+            return chainOf((View) parent).layoutHandler();
         } else {
             return null;
         }
@@ -94,16 +132,21 @@ public final class StyleHandlerFactory {
      */
     @Nullable
     public static StyleHandler extraGet(View view) {
-        return sExtraAttrHandlerCache.get(view.getClass());
+        return chainOf(view).extraHandler();
     }
 
-    public static StyleHandler registerExtraStyleHandler(Class<? extends View> viewClass,
-                                                         StyleHandler styleHandler) {
-        return sExtraAttrHandlerCache.put(viewClass, styleHandler);
+    public static synchronized StyleHandler registerExtraStyleHandler(Class<? extends View>
+                                                                              viewClass,
+                                                                      StyleHandler styleHandler) {
+        Map<Class<?>, StyleHandler> extraHandlers = new HashMap<>(sExtraHandlers);
+        StyleHandler old = extraHandlers.put(viewClass, styleHandler);
+        sExtraHandlers = extraHandlers;
+        sChains = new ConcurrentHashMap<>();
+        return old;
     }
 
-    public static void clear() {
-        sExtraAttrHandlerCache.clear();
-        sAttrHandlerCache.clear();
+    public static synchronized void clear() {
+        sExtraHandlers = new HashMap<>();
+        sChains = new ConcurrentHashMap<>();
     }
 }
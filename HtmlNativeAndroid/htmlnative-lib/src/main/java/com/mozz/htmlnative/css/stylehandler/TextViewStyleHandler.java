@@ -13,24 +13,22 @@ import com.mozz.htmlnative.HNativeEngine;
 import com.mozz.htmlnative.HtmlTag;
 import com.mozz.htmlnative.common.PixelValue;
 import com.mozz.htmlnative.css.InheritStylesRegistry;
+import com.mozz.htmlnative.css.PropertyRegistry;
 import com.mozz.htmlnative.dom.DomElement;
 import com.mozz.htmlnative.exception.AttrApplyException;
 import com.mozz.htmlnative.utils.ParametersUtils;
+import com.mozz.htmlnative.view.HNText;
 import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
 
 class TextViewStyleHandler extends StyleHandler {
 
     private static final String FONT_SIZE = "font-size";
     private static final String COLOR = "color";
-    private static final String TEXT = "text";
     private static final String LINE_HEIGHT = "line-height";
     private static final String FONT_STYLE = "font-style";
     private static final String FONT_WEIGHT = "font-weight";
     private static final String TEXT_ALIGN = "text-align";
-    private static final String HREF = "href";
     private static final String TEXT_WORD_SPACING = "word-spacing";
-    private static final String TEXT_OVER_FLOW = "text-overflow";
-    private static final String TEXT_TRANSFORM = "text-transform";
 
     private static final int DEFAULT_SIZE = 14;
     private static final int DEFAULT_H1_SIZE = ParametersUtils.emToPx(2);
@@ -63,22 +61,30 @@ class TextViewStyleHandler extends StyleHandler {
         InheritStylesRegistry.register(TEXT_WORD_SPACING);
     }
 
+    TextViewStyleHandler() {
+        handle(PropertyRegistry.COLOR, PropertyRegistry.TEXT, PropertyRegistry.FONT_SIZE,
+                PropertyRegistry.LINE_HEIGHT, PropertyRegistry.FONT_WEIGHT, PropertyRegistry
+                        .FONT_STYLE, PropertyRegistry.HREF, PropertyRegistry.TEXT_ALIGN,
+                PropertyRegistry.WORD_SPACING, PropertyRegistry.TEXT_OVERFLOW,
+                PropertyRegistry.TEXT_TRANSFORM);
+    }
+
     @Override
     public void apply(Context context, View v, DomElement domElement, View parent,
-                      LayoutParamsLazyCreator paramsLazyCreator, String params, final Object
-                                  value, boolean isParent) throws AttrApplyException {
+                      LayoutParamsLazyCreator paramsLazyCreator, int propertyId, String params,
+                      final Object value, boolean isParent) throws AttrApplyException {
 
         final TextView textView = (TextView) v;
-        switch (params) {
-            case COLOR:
+        switch (propertyId) {
+            case PropertyRegistry.COLOR:
                 textView.setTextColor(ParametersUtils.toColor(value));
                 break;
 
-            case TEXT:
+            case PropertyRegistry.TEXT:
                 textView.setText(value.toString());
                 break;
 
-            case FONT_SIZE:
+            case PropertyRegistry.FONT_SIZE:
                 PixelValue size = ParametersUtils.toPixel(value);
                 if (size.getUnit() == PixelValue.UNSET) {
                     textView.setTextSize(TypedValue.COMPLEX_UNIT_SP, (float) size.getValue());
@@ -87,12 +93,12 @@ class TextViewStyleHandler extends StyleHandler {
                 }
                 break;
 
-            case LINE_HEIGHT:
+            case PropertyRegistry.LINE_HEIGHT:
                 float lineHeight = (float) ParametersUtils.toPixel(value).getPxValue();
                 textView.setLineSpacing(0, lineHeight);
                 break;
 
-            case FONT_WEIGHT:
+            case PropertyRegistry.FONT_WEIGHT:
                 java.lang.String s = value.toString();
 
                 if (s.equals("bold")) {
@@ -103,7 +109,7 @@ class TextViewStyleHandler extends StyleHandler {
 
                 break;
 
-            case FONT_STYLE:
+            case PropertyRegistry.FONT_STYLE:
                 java.lang.String s2 = value.toString();
 
                 if (s2.equals("italic")) {
@@ -130,7 +136,7 @@ class TextViewStyleHandler extends StyleHandler {
 
                 break;
 
-            case HREF:
+            case PropertyRegistry.HREF:
                 if (domElement.getType().equals(HtmlTag.A)) {
                     textView.setOnClickListener(new View.OnClickListener() {
                         @Override
@@ -144,7 +150,7 @@ class TextViewStyleHandler extends StyleHandler {
                 }
                 break;
 
-            case TEXT_ALIGN:
+            case PropertyRegistry.TEXT_ALIGN:
                 java.lang.String val = value.toString();
                 switch (val) {
                     case "center":
@@ -160,7 +166,7 @@ class TextViewStyleHandler extends StyleHandler {
 
                 break;
 
-            case TEXT_WORD_SPACING: {
+            case PropertyRegistry.WORD_SPACING: {
                 String ss = value.toString();
                 if (ss.equals("normal")) {
                     textView.setLetterSpacing(textView.getLetterSpacing());
@@ -171,7 +177,7 @@ class TextViewStyleHandler extends StyleHandler {
                 break;
             }
 
-            case TEXT_OVER_FLOW: {
+            case PropertyRegistry.TEXT_OVERFLOW: {
                 String ss = value.toString();
 
                 if (ss.equals("ellipsis")) {
@@ -180,7 +186,7 @@ class TextViewStyleHandler extends StyleHandler {
                 break;
             }
 
-            case TEXT_TRANSFORM: {
+            case PropertyRegistry.TEXT_TRANSFORM: {
                 switch (value.toString()) {
                     case "uppercase":
                         textView.setAllCaps(true);
@@ -269,6 +275,25 @@ class TextViewStyleHandler extends StyleHandler {
         }
     }
 
+    @Override
+    public boolean resetForReuse(View v) {
+        // only HNText knows the styles it is created with
+        if (!(v instanceof HNText)) {
+            return false;
+        }
+        ((HNText) v).clearHtmlStyles();
+        return true;
+    }
+
+    @Override
+    public boolean resetForRestyle(View v) {
+        if (!(v instanceof HNText)) {
+            return false;
+        }
+        ((HNText) v).clearHtmlStyles(true);
+        return true;
+    }
+
     @Override
     public Object getStyle(View v, String styleName) {
         final TextView textView = (TextView) v;
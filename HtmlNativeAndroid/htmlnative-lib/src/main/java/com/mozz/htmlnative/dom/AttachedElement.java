@@ -2,24 +2,49 @@ package com.mozz.htmlnative.dom;
 
 import android.text.TextUtils;
 
+import com.mozz.htmlnative.common.SymbolTable;
+import com.mozz.htmlnative.css.AttrsSet;
+
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
+ * Element attached to a rendered view as its tag. It keeps what is needed to restyle the view:
+ * the slot of its inline styles in segment and the styles set by script later.
+ *
  * @author Yang Tao, 17/5/12.
  */
 
-public class AttachedElement implements DomElement {
+public class AttachedElement implements DomElement, AttrsSet.AttrsOwner {
+
+    /**
+     * {@link #attrIndex()} of an element without inline styles in segment
+     */
+    public static final int NO_ATTRS = -1;
 
     private String mType;
+    private int mTypeId = SymbolTable.UNKNOWN;
     private String[] mClazz;
     private String mId;
     private DomElement mParent;
+    private int mAttrIndex = NO_ATTRS;
+
+    /**
+     * styles set by script, applied after the inline styles; null if none
+     */
+    private Map<String, Object> mScriptStyles;
 
     @Override
     public String getType() {
         return mType;
     }
 
+    @Override
+    public int getTypeId() {
+        return mTypeId;
+    }
+
     @Override
     public String[] getClazz() {
         return mClazz;
@@ -58,6 +83,7 @@ public class AttachedElement implements DomElement {
     @Override
     public void setType(String type) {
         mType = type;
+        mTypeId = SymbolTable.idOf(type);
     }
 
     @Override
@@ -75,6 +101,37 @@ public class AttachedElement implements DomElement {
         mParent = parent;
     }
 
+    @Override
+    public int attrIndex() {
+        return mAttrIndex;
+    }
+
+    @Override
+    public void setAttrIndex(int newIndex) {
+        mAttrIndex = newIndex;
+    }
+
+    public boolean hasAttrs() {
+        return mAttrIndex != NO_ATTRS;
+    }
+
+    /**
+     * Keep styles set by script, a later one of the same name replaces the former.
+     */
+    public void putScriptStyles(Map<String, Object> styles) {
+        if (mScriptStyles == null) {
+            mScriptStyles = new LinkedHashMap<>();
+        }
+        mScriptStyles.putAll(styles);
+    }
+
+    /**
+     * @return styles set by script, or null.
+     */
+    public Map<String, Object> scriptStyles() {
+        return mScriptStyles;
+    }
+
     /**
      * Only clone when domElement is not {@link AttachedElement}
      *
@@ -95,6 +152,9 @@ public class AttachedElement implements DomElement {
         attachedElement.setId(domElement.getId());
         attachedElement.setClazz(domElement.getClazz());
         attachedElement.setType(domElement.getType());
+        if (domElement instanceof AttrsSet.AttrsOwner) {
+            attachedElement.setAttrIndex(((AttrsSet.AttrsOwner) domElement).attrIndex());
+        }
         return attachedElement;
     }
 }
@@ -8,6 +8,11 @@ import java.util.List;
 public interface DomElement {
     String getType();
 
+    /**
+     * @return id of type in {@link com.mozz.htmlnative.common.SymbolTable}
+     */
+    int getTypeId();
+
     String[] getClazz();
 
     String getId();
@@ -5,6 +5,7 @@ import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.mozz.htmlnative.HNLog;
+import com.mozz.htmlnative.common.SymbolTable;
 import com.mozz.htmlnative.css.AttrsSet;
 import com.mozz.htmlnative.parser.ParseCallback;
 import com.mozz.htmlnative.utils.ParametersUtils;
@@ -35,6 +36,8 @@ public final class HNDomTree implements ParseCallback, AttrsSet.AttrsOwner, DomE
     @Nullable
     private String mType;
 
+    private int mTypeId;
+
     private AttrsSet mInlineStyle;
 
     @Nullable
@@ -61,13 +64,14 @@ public final class HNDomTree implements ParseCallback, AttrsSet.AttrsOwner, DomE
     private boolean mIsInOrder = true;
 
     public HNDomTree(@NonNull AttrsSet inlineStyle, HNDomTree parent, int depth, int index) {
-        this(inlineStyle, null, parent, depth, index);
+        this(inlineStyle, null, SymbolTable.UNKNOWN, parent, depth, index);
     }
 
-    private HNDomTree(@NonNull AttrsSet inlineStyle, String tag, HNDomTree parent, int depth, int
-            index) {
+    private HNDomTree(@NonNull AttrsSet inlineStyle, String tag, int tagId, HNDomTree parent, int
+            depth, int index) {
         mInlineStyle = inlineStyle;
         mType = tag;
+        mTypeId = tagId;
         mDepth = depth;
         mParent = parent;
         mIndex = index;
@@ -77,7 +81,14 @@ public final class HNDomTree implements ParseCallback, AttrsSet.AttrsOwner, DomE
     }
 
     public HNDomTree(@NonNull HNDomTree parent, String nodeName, int index) {
-        this(parent.mInlineStyle, nodeName, parent, parent.mDepth + 1, index);
+        this(parent, nodeName, SymbolTable.idOf(nodeName), index);
+    }
+
+    /**
+     * @param nodeId id of nodeName in {@link SymbolTable}, usually from the lexer.
+     */
+    public HNDomTree(@NonNull HNDomTree parent, String nodeName, int nodeId, int index) {
+        this(parent.mInlineStyle, nodeName, nodeId, parent, parent.mDepth + 1, index);
     }
 
     public void addInlineStyle(String styleName, @NonNull Object style) {
@@ -169,6 +180,11 @@ public final class HNDomTree implements ParseCallback, AttrsSet.AttrsOwner, DomE
         return mType;
     }
 
+    @Override
+    public int getTypeId() {
+        return mTypeId;
+    }
+
     @Nullable
     @Override
     public String getInner() {
@@ -178,12 +194,17 @@ public final class HNDomTree implements ParseCallback, AttrsSet.AttrsOwner, DomE
     @Override
     public void setType(String type) {
         this.mType = type;
+        this.mTypeId = SymbolTable.idOf(type);
     }
 
     public int getDepth() {
         return mDepth;
     }
 
+    public int getIndex() {
+        return mIndex;
+    }
+
     public HNDomTree last() {
         return mChildren.getLast();
     }
@@ -1,5 +1,8 @@
 package com.mozz.htmlnative.dom;
 
+import java.util.Collection;
+import java.util.Collections;
+
 /**
  * @author Yang Tao, 17/3/21.
  */
@@ -34,6 +37,13 @@ public class HNHead {
         return mMeta.remove(key);
     }
 
+    public Collection<Meta> metas() {
+        if (mMeta == null) {
+            return Collections.emptyList();
+        }
+        return mMeta.values();
+    }
+
     public String getTitle() {
         return mTitle;
     }
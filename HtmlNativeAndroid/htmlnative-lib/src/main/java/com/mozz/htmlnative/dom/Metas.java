@@ -2,6 +2,7 @@ package com.mozz.htmlnative.dom;
 
 import android.util.ArrayMap;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -35,6 +36,10 @@ final class Metas {
         metaMap.clear();
     }
 
+    public Collection<Meta> values() {
+        return metaMap.values();
+    }
+
     @Override
     public String toString() {
         return metaMap.toString();
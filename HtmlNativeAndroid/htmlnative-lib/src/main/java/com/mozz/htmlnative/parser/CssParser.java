@@ -5,6 +5,7 @@ import android.support.annotation.Nullable;
 
 import com.mozz.htmlnative.HNLog;
 import com.mozz.htmlnative.HNSegment;
+import com.mozz.htmlnative.css.PropertyRegistry;
 import com.mozz.htmlnative.css.StyleSheet;
 import com.mozz.htmlnative.css.selector.AnySelector;
 import com.mozz.htmlnative.css.selector.ClassSelector;
@@ -104,7 +105,7 @@ public final class CssParser {
                 } else {
                     parsedStyle = parseStyleSingle(key, bufferToUse.toString(), null);
                 }
-                out.put(parsedStyle.key, parsedStyle.obj);
+                putStyle(out, parsedStyle);
                 bufferToUse.setLength(0);
             } else if (c == ':' && !inBracket) {
                 key = bufferToUse.toString();
@@ -125,15 +126,43 @@ public final class CssParser {
             } else {
                 parsedStyle = parseStyleSingle(key, bufferToUse.toString(), null);
             }
-            out.put(parsedStyle.key, parsedStyle.obj);
+            putStyle(out, parsedStyle);
         }
 
         bufferToUse.setLength(0);
     }
 
+    /**
+     * Put the parsed style, unless no one knows how to apply it, see {@link PropertyRegistry}.
+     */
+    private static void putStyle(Map<String, Object> out, StyleHolder parsedStyle) {
+        if (PropertyRegistry.isKnown(parsedStyle.key)) {
+            out.put(parsedStyle.key, parsedStyle.obj);
+        } else {
+            HNLog.d(HNLog.CSS_PARSER, "drop unknown style " + parsedStyle.key);
+        }
+    }
+
     void process(HNSegment segment) throws EOFException, HNSyntaxError {
-        StyleSheet styleSheet = segment.getStyleSheet();
+        process(segment.getStyleSheet());
+    }
+
+    /**
+     * Parse css without &lt;/style&gt;, which ends at the end of file.
+     */
+    void processStandalone(StyleSheet styleSheet) throws HNSyntaxError {
+        try {
+            process(styleSheet);
+        } catch (EOFException e) {
+            // ends between two rules
+            if (lookFor != SELECTOR_START) {
+                throw new HNSyntaxError("unexpected end of stylesheet", lexer.line(), lexer
+                        .column());
+            }
+        }
+    }
 
+    private void process(StyleSheet styleSheet) throws EOFException, HNSyntaxError {
         lookFor(SELECTOR_START);
 
         CssSelector cssSelector = null;
@@ -271,7 +300,7 @@ public final class CssParser {
                     } else {
                         parsedStyle = parseStyleSingle(keyCache, mCurToken.stringValue(), null);
                     }
-                    styleCache.put(parsedStyle.key, parsedStyle.obj);
+                    putStyle(styleCache, parsedStyle);
                     lookFor(VALUE | END_BRACE | SEMICOLON);
 
                     break;
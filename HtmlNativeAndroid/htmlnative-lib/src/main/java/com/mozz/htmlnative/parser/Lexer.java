@@ -6,6 +6,7 @@ import android.support.annotation.Nullable;
 import com.mozz.htmlnative.HNLog;
 import com.mozz.htmlnative.HNSegment;
 import com.mozz.htmlnative.common.CharQueue;
+import com.mozz.htmlnative.common.SymbolTable;
 import com.mozz.htmlnative.exception.HNSyntaxError;
 import com.mozz.htmlnative.reader.TextReader;
 import com.mozz.htmlnative.parser.token.Token;
@@ -60,10 +61,22 @@ class Lexer {
         lookFor(LK_NOTHING);
     }
 
+    /**
+     * Read the rest as css, such as a stylesheet loaded alone without &lt;style&gt;.
+     */
+    public void enterStyle() {
+        mIsInStyle = true;
+    }
+
     @Nullable
     public Token scan() throws EOFException, HNSyntaxError {
         this.skipWhiteSpace();
 
+        // inner text may start with a brace, such as {{title}} bound by a list template
+        if (peek() == '{' && isInnerText()) {
+            return scanInner();
+        }
+
         switch (peek()) {
             case '<':
                 mLookForScript = 1;
@@ -150,7 +163,7 @@ class Lexer {
 
         }
 
-        if (isLookingFor(LK_INNER) && mLookForScript < 3 && peek() != '<' && !mIsInStyle) {
+        if (isInnerText() && peek() != '<') {
             return scanInner();
         }
 
@@ -276,7 +289,10 @@ class Lexer {
         while (isLetter(peek()) || isDigit(peek()) || peek() == '.' || peek() == '-' || peek() ==
                 '_');
 
-        String idStr = mBuffer.toString();
+        // known names are not allocated again, see SymbolTable
+        int symbol = SymbolTable.idOf(mBuffer);
+        String idStr = symbol == SymbolTable.UNKNOWN ? mBuffer.toString() : SymbolTable.nameOf
+                (symbol);
 
         TokenType type = TokenType.Id;
         String tokenContent;
@@ -330,7 +346,9 @@ class Lexer {
             tokenContent = idStr;
         }
 
-        return Token.obtainToken(type, tokenContent, line, startColumn);
+        Token token = Token.obtainToken(type, tokenContent, line, startColumn);
+        token.setSymbol(symbol);
+        return token;
 
     }
 
@@ -569,6 +587,10 @@ class Lexer {
         mLookFor |= status;
     }
 
+    private boolean isInnerText() {
+        return isLookingFor(LK_INNER) && mLookForScript < 3 && !mIsInStyle;
+    }
+
     private boolean isLookingFor(int status) {
         return (mLookFor & status) != 0;
     }
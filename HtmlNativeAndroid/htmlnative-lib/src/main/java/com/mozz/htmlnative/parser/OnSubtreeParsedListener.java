@@ -0,0 +1,13 @@
+package com.mozz.htmlnative.parser;
+
+import com.mozz.htmlnative.HNSegment;
+import com.mozz.htmlnative.dom.HNDomTree;
+
+/**
+ * Listener of streaming parse. Called on parser's thread each time a direct child of the root
+ * tree is closed, at which point head, css and the attrs of the root tree are all parsed, and
+ * the subtree will not be modified by {@link Parser} anymore.
+ */
+public interface OnSubtreeParsedListener {
+    void onSubtreeParsed(HNSegment segment, HNDomTree subtree);
+}
@@ -8,11 +8,14 @@ import android.util.Log;
 import com.mozz.htmlnative.HNLog;
 import com.mozz.htmlnative.HNSegment;
 import com.mozz.htmlnative.HtmlTag;
+import com.mozz.htmlnative.StyleSheetCache;
 import com.mozz.htmlnative.Tracker;
+import com.mozz.htmlnative.css.StyleSheet;
 import com.mozz.htmlnative.css.Styles;
 import com.mozz.htmlnative.dom.HNDomTree;
 import com.mozz.htmlnative.dom.Meta;
 import com.mozz.htmlnative.exception.HNSyntaxError;
+import com.mozz.htmlnative.reader.StringTextReader;
 import com.mozz.htmlnative.reader.TextReader;
 import com.mozz.htmlnative.script.ScriptInfo;
 import com.mozz.htmlnative.parser.token.Token;
@@ -32,6 +35,7 @@ import static com.mozz.htmlnative.parser.token.TokenType.Head;
 import static com.mozz.htmlnative.parser.token.TokenType.Html;
 import static com.mozz.htmlnative.parser.token.TokenType.Id;
 import static com.mozz.htmlnative.parser.token.TokenType.Inner;
+import static com.mozz.htmlnative.parser.token.TokenType.Link;
 import static com.mozz.htmlnative.parser.token.TokenType.Meta;
 import static com.mozz.htmlnative.parser.token.TokenType.Script;
 import static com.mozz.htmlnative.parser.token.TokenType.Slash;
@@ -47,6 +51,9 @@ public final class Parser {
 
     private static final String ID = "id";
     private static final String CLAZZ = "class";
+    private static final String LINK_REL = "rel";
+    private static final String LINK_HREF = "href";
+    private static final String LINK_STYLESHEET = "stylesheet";
     private static final String TAG = Parser.class.getSimpleName();
 
     @NonNull
@@ -68,6 +75,11 @@ public final class Parser {
 
     private Tracker mTracker;
 
+    @Nullable
+    private final OnSubtreeParsedListener mSubtreeListener;
+
+    private HNSegment mSegment;
+
     private static final int LK_StartArrowBracket = 1;
     private static final int LK_EndArrowBracket = 1 << 1;
     private static final int LK_ID = 1 << 2;
@@ -82,18 +94,45 @@ public final class Parser {
 
 
     public Parser(TextReader reader) {
+        this(reader, null);
+    }
+
+    /**
+     * @param subtreeListener if not null, each direct child of root tree is published to it as
+     *                        soon as it is closed, see {@link OnSubtreeParsedListener}.
+     */
+    public Parser(TextReader reader, @Nullable OnSubtreeParsedListener subtreeListener) {
         mLexer = new Lexer(reader);
         mCssParser = new CssParser(mLexer, this);
+        mSubtreeListener = subtreeListener;
 
         mTracker = new Tracker();
     }
 
+    /**
+     * Parse css alone, such as the content of &lt;link rel="stylesheet"&gt;.
+     */
+    @NonNull
+    public static StyleSheet parseStyleSheet(@NonNull String css) throws HNSyntaxError {
+        // a trailing blank so that the last rule is read before the end of file
+        Parser parser = new Parser(new StringTextReader(css + '\n'));
+        StyleSheet styleSheet = new StyleSheet();
+        try {
+            parser.mLexer.enterStyle();
+            parser.mCssParser.processStandalone(styleSheet);
+        } finally {
+            parser.mLexer.close();
+        }
+        return styleSheet;
+    }
+
     public HNSegment process() throws HNSyntaxError {
 
         long processStartTime = SystemClock.currentThreadTimeMillis();
 
         HNSegment segment = new HNSegment();
         segment.setDom(new HNDomTree(segment.getInlineStyles(), null, 0, 0));
+        mSegment = segment;
 
         try {
             scanFor(StartAngleBracket);
@@ -248,6 +287,8 @@ public final class Parser {
                 scanFor(Style, EndAngleBracket);
             } else if (mCurToken.type() == Meta) {
                 processMeta(segment);
+            } else if (mCurToken.type() == Link) {
+                processLink(segment);
             } else if (mCurToken.type() == StartAngleBracket) {
                 scan(true);
 
@@ -362,6 +403,64 @@ public final class Parser {
 
     }
 
+    private void processLink(HNSegment segment) throws HNSyntaxError, EOFException {
+        String rel = null;
+        String href = null;
+        String idCache = null;
+
+        lookFor(LK_ID | LK_SLASH | LK_EndArrowBracket);
+
+        while (true) {
+            scan();
+
+            switch (mCurToken.type()) {
+                case Id:
+                    check(LK_ID);
+                    idCache = mCurToken.stringValue();
+                    scanFor(Equal);
+                    lookFor(LK_VALUE);
+                    break;
+
+                case Value:
+                    check(LK_VALUE);
+                    if (LINK_REL.equalsIgnoreCase(idCache)) {
+                        rel = mCurToken.stringValue();
+                    } else if (LINK_HREF.equalsIgnoreCase(idCache)) {
+                        href = mCurToken.stringValue();
+                    }
+                    lookFor(LK_ID | LK_SLASH | LK_EndArrowBracket);
+                    break;
+
+                case Slash:
+                    check(LK_SLASH);
+                    scanFor(EndAngleBracket);
+                    link(segment, rel, href);
+                    return;
+
+                case EndAngleBracket:
+                    check(LK_EndArrowBracket);
+                    link(segment, rel, href);
+                    return;
+
+                default:
+                    Log.e(TAG, "Unknown token " + mCurToken.toString() + " when parsing <link>");
+                    throw new HNSyntaxError("Unknown token " + mCurToken.toString() + " when " +
+                            "parsing <link>", mLexer.line(), mLexer.column());
+            }
+        }
+    }
+
+    private static void link(HNSegment segment, String rel, String href) {
+        if (!LINK_STYLESHEET.equalsIgnoreCase(rel) || href == null) {
+            return;
+        }
+
+        StyleSheet linked = StyleSheetCache.get().load(href);
+        if (linked != null) {
+            segment.getStyleSheet().link(linked);
+        }
+    }
+
     private void processTemplate(HNDomTree tree) throws HNSyntaxError {
 
         long timeStart = SystemClock.currentThreadTimeMillis();
@@ -459,6 +558,7 @@ public final class Parser {
                             check(LK_ID);
 
                             String tag = mCurToken.stringValue();
+                            int tagId = mCurToken.symbol();
 
                             // handle the <br/> tag
                             if (HtmlTag.BR.equalsIgnoreCase(tag)) {
@@ -471,9 +571,13 @@ public final class Parser {
                                 lookFor(LK_StartArrowBracket | LK_INNER);
 
                             } else {
-                                HNDomTree child = new HNDomTree(tree, tag, index++);
+                                HNDomTree child = new HNDomTree(tree, tag, tagId, index++);
                                 tree.addChild(child);
-                                processInternal(child);
+                                if (isPublishing(tree)) {
+                                    processInternal(child, new SubtreePublisher(child));
+                                } else {
+                                    processInternal(child);
+                                }
                                 lookFor(LK_StartArrowBracket);
                             }
                         }
@@ -531,6 +635,10 @@ public final class Parser {
                                     innerCount++);
                             tree.addChild(innerChild);
                             innerChild.appendText(mCurToken.stringValue());
+
+                            if (isPublishing(tree)) {
+                                mSubtreeListener.onSubtreeParsed(mSegment, innerChild);
+                            }
                         }
 
                         lookFor(LK_StartArrowBracket);
@@ -582,6 +690,34 @@ public final class Parser {
         }
     }
 
+    private boolean isPublishing(HNDomTree parent) {
+        return mSubtreeListener != null && parent == mSegment.getDom();
+    }
+
+    /**
+     * Publish the subtree to {@link #mSubtreeListener} after it has finished its own
+     * {@link ParseCallback#onLeaveParse()}.
+     */
+    private final class SubtreePublisher implements ParseCallback {
+
+        private final HNDomTree mSubtree;
+
+        SubtreePublisher(HNDomTree subtree) {
+            mSubtree = subtree;
+        }
+
+        @Override
+        public void onStartParse() {
+            mSubtree.onStartParse();
+        }
+
+        @Override
+        public void onLeaveParse() {
+            mSubtree.onLeaveParse();
+            mSubtreeListener.onSubtreeParsed(mSegment, mSubtree);
+        }
+    }
+
 
     private StringBuilder mStyleKeyCache = new StringBuilder();
 
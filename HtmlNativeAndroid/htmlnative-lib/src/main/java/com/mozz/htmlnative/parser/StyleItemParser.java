@@ -1,42 +1,133 @@
 package com.mozz.htmlnative.parser;
 
+import com.mozz.htmlnative.HNLog;
+import com.mozz.htmlnative.common.PixelValue;
+import com.mozz.htmlnative.common.SymbolTable;
 import com.mozz.htmlnative.css.Background;
 import com.mozz.htmlnative.css.Styles;
+import com.mozz.htmlnative.utils.ParametersUtils;
 
 /**
  * @author Yang Tao, 17/5/10.
  */
 public final class StyleItemParser {
 
-    private static final CssParser.StyleHolder STYLE_HOLDER = new CssParser.StyleHolder();
+    /**
+     * One holder per thread, parsers may run concurrently.
+     */
+    private static final ThreadLocal<CssParser.StyleHolder> STYLE_HOLDER = new
+            ThreadLocal<CssParser.StyleHolder>() {
+        @Override
+        protected CssParser.StyleHolder initialValue() {
+            return new CssParser.StyleHolder();
+        }
+    };
 
     /**
      * to parse single style string into {@link CssParser.StyleHolder}. For example, 'background:url
      * (http://www.abc.com/efg.jpg)' will become :<br/>
      * StyleHolder.key = background<br/>
      * StyleHolder.obj = {@link Background}<br/>
+     * Values of known styles are resolved, see {@link #resolve(String, String)}.
      *
      * @param styleName,      raw style name
      * @param styleValue,     raw style string
      * @param oldStyleObject, old style object, if you have one; or null.
-     * @return StyleHolder
+     * @return StyleHolder, which is reused by the next call on the same thread.
      */
     public static CssParser.StyleHolder parseStyleSingle(String styleName, String styleValue,
                                                          Object oldStyleObject) {
-        STYLE_HOLDER.key = null;
-        STYLE_HOLDER.obj = null;
+        CssParser.StyleHolder holder = STYLE_HOLDER.get();
+        holder.key = null;
+        holder.obj = null;
 
         if (styleName.startsWith(Styles.ATTR_BACKGROUND) || styleName.startsWith(Styles
                 .ATTR_HN_BACKGROUND)) {
             Object val = Background.createOrChange(styleName, styleValue, oldStyleObject);
-            STYLE_HOLDER.key = Styles.ATTR_BACKGROUND;
-            STYLE_HOLDER.obj = val;
-            return STYLE_HOLDER;
+            holder.key = Styles.ATTR_BACKGROUND;
+            holder.obj = val;
+            return holder;
         } else {
-            STYLE_HOLDER.key = styleName;
-            STYLE_HOLDER.obj = styleValue.trim();
-            return STYLE_HOLDER;
+            holder.key = styleName;
+            holder.obj = resolve(styleName, styleValue.trim());
+            return holder;
+        }
+    }
+
+    /**
+     * Resolve the value of a known style once, so that applying it to views needs no string
+     * parsing:<br/>
+     * lengths become {@link PixelValue} (percentages of box lengths with
+     * {@link PixelValue#PERCENT}), margin and padding become PixelValue[], colors become Integer, alpha becomes Float, and
+     * keywords become the canonical String in {@link SymbolTable}.<br/>
+     * Unknown styles and values which can't be resolved are kept as is, and parsed again when
+     * applied, as before.
+     */
+    public static Object resolve(String styleName, String value) {
+        try {
+            switch (styleName) {
+                case Styles.ATTR_WIDTH:
+                case Styles.ATTR_HEIGHT:
+                case Styles.ATTR_LEFT:
+                case Styles.ATTR_TOP:
+                case Styles.ATTR_MARGIN_LEFT:
+                case Styles.ATTR_MARGIN_RIGHT:
+                case Styles.ATTR_MARGIN_TOP:
+                case Styles.ATTR_MARGIN_BOTTOM:
+                case Styles.ATTR_PADDING_LEFT:
+                case Styles.ATTR_PADDING_RIGHT:
+                case Styles.ATTR_PADDING_TOP:
+                case Styles.ATTR_PADDING_BOTTOM:
+                    return toLength(value);
+
+                case "font-size":
+                case "line-height":
+                    return ParametersUtils.toPixel(value);
+
+                case Styles.ATTR_MARGIN:
+                case Styles.ATTR_PADDING:
+                    return ParametersUtils.toPixels(value);
+
+                case "color":
+                    return ParametersUtils.toColor(value);
+
+                case Styles.ATTR_ALPHA:
+                    return ParametersUtils.toFloat(value);
+
+                case "word-spacing":
+                    return value.equals("normal") ? SymbolTable.intern(value) : ParametersUtils
+                            .toPixel(value);
+
+                case Styles.ATTR_VISIBLE:
+                case Styles.ATTR_DIRECTION:
+                case Styles.ATTR_DISPLAY:
+                case "font-style":
+                case "font-weight":
+                case "text-align":
+                case "text-overflow":
+                case "text-transform":
+                case "flex-direction":
+                case "flex-wrap":
+                case "justify-content":
+                case "align-items":
+                    return SymbolTable.intern(value);
+
+                default:
+                    return value;
+            }
+        } catch (IllegalArgumentException e) {
+            HNLog.d(HNLog.CSS_PARSER, "can't resolve " + styleName + ": " + value + ", " + e
+                    .getMessage());
+            return value;
+        }
+    }
+
+    private static PixelValue toLength(String value) {
+        if (value.endsWith("%")) {
+            return new PixelValue(Double.parseDouble(value.substring(0, value.length() - 1)),
+                    PixelValue.PERCENT);
         }
+        return ParametersUtils.toPixel(value);
     }
 
     public static String parseKey(String key) {
@@ -0,0 +1,78 @@
+package com.mozz.htmlnative.parser.binary;
+
+import android.support.annotation.NonNull;
+
+import com.mozz.htmlnative.HNSegment;
+import com.mozz.htmlnative.exception.HNSyntaxError;
+import com.mozz.htmlnative.parser.Parser;
+import com.mozz.htmlnative.reader.FileTextReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Offline compiler which turns a layout file into the precompiled format, so that the
+ * app only needs to run {@link SegmentReader} at runtime. Usage:
+ * <pre>
+ * SegmentCompiler input.layout [output.hnb]
+ * SegmentCompiler input1.layout input2.layout ...
+ * </pre>
+ * Parser logs through android.util.Log, so this should be run on a device or on a JVM with
+ * android.jar on classpath (e.g. as a gradle task of the app).
+ */
+public final class SegmentCompiler {
+
+    public static final String EXTENSION = ".hnb";
+
+    private SegmentCompiler() {
+    }
+
+    public static void compile(@NonNull InputStream source, @NonNull OutputStream out) throws
+            HNSyntaxError, IOException {
+        HNSegment segment = new Parser(new FileTextReader(source)).process();
+        new SegmentWriter().write(segment, out);
+    }
+
+    public static void compile(@NonNull File source, @NonNull File target) throws HNSyntaxError,
+            IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(source));
+        try {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(target));
+            try {
+                compile(in, out);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("usage: SegmentCompiler <input> [output" + EXTENSION + "]");
+            System.exit(1);
+        }
+
+        if (args.length == 2 && args[1].endsWith(EXTENSION)) {
+            compile(new File(args[0]), new File(args[1]));
+            return;
+        }
+
+        for (String arg : args) {
+            File source = new File(arg);
+            String name = source.getName();
+            int dot = name.lastIndexOf('.');
+            if (dot > 0) {
+                name = name.substring(0, dot);
+            }
+            compile(source, new File(source.getParentFile(), name + EXTENSION));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.mozz.htmlnative.parser.binary;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Constants of the precompiled {@link com.mozz.htmlnative.HNSegment} format.
+ * <p>
+ * Layout of a compiled file:
+ * <pre>
+ * int     MAGIC
+ * short   VERSION
+ * varint  string pool size, followed by each string as (varint length, utf-8 bytes)
+ * head    title, meta count, (name, content) * count
+ * script  has script, type, code
+ * css     group count, each group is (chain count, chains, attrs)
+ * links   href count, hrefs of the linked stylesheets, since version 3
+ * dom     the tree, written in pre-order
+ * </pre>
+ * All strings in head, css and dom are referenced by their index in string pool, plus 1. 0 is
+ * reserved for null.
+ */
+public final class SegmentFormat {
+
+    private SegmentFormat() {
+    }
+
+    /**
+     * "HNBS"
+     */
+    public static final int MAGIC = 0x484E4253;
+
+    /**
+     * Increase it whenever the layout changes. Reader refuses files with a newer version.
+     */
+    public static final int VERSION = 3;
+
+    /**
+     * first version with the links of StyleSheet
+     */
+    static final int VERSION_LINKS = 3;
+
+    static final int VALUE_STRING = 1;
+    static final int VALUE_INT = 2;
+    static final int VALUE_DOUBLE = 3;
+    static final int VALUE_FLOAT = 4;
+    static final int VALUE_BOOLEAN = 5;
+    static final int VALUE_BACKGROUND = 6;
+
+    /**
+     * resolved style values, since version 2
+     */
+    static final int VALUE_PIXEL = 7;
+    static final int VALUE_PIXELS = 8;
+
+    static final int SELECTOR_TYPE = 1;
+    static final int SELECTOR_CLASS = 2;
+    static final int SELECTOR_ID = 3;
+    static final int SELECTOR_ANY = 4;
+
+    /**
+     * Check whether source begins with {@link #MAGIC}.
+     */
+    public static boolean isCompiled(@NonNull byte[] source) {
+        if (source.length < 4) {
+            return false;
+        }
+        int magic = 0;
+        for (int i = 0; i < 4; i++) {
+            magic = (magic << 8) | (source[i] & 0xFF);
+        }
+        return magic == MAGIC;
+    }
+
+    /**
+     * Check whether stream begins with {@link #MAGIC}. The stream must support
+     * {@link InputStream#mark(int)}, and will be reset to where it was.
+     */
+    public static boolean isCompiled(@NonNull InputStream stream) throws IOException {
+        if (!stream.markSupported()) {
+            throw new IllegalArgumentException("stream must support mark");
+        }
+
+        stream.mark(4);
+        try {
+            int magic = 0;
+            for (int i = 0; i < 4; i++) {
+                int b = stream.read();
+                if (b == -1) {
+                    return false;
+                }
+                magic = (magic << 8) | b;
+            }
+            return magic == MAGIC;
+        } finally {
+            stream.reset();
+        }
+    }
+}
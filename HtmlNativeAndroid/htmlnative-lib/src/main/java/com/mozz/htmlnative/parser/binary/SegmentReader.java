@@ -0,0 +1,331 @@
+package com.mozz.htmlnative.parser.binary;
+
+import android.support.annotation.NonNull;
+
+import com.mozz.htmlnative.HNSegment;
+import com.mozz.htmlnative.StyleSheetCache;
+import com.mozz.htmlnative.common.PixelValue;
+import com.mozz.htmlnative.css.AttrsSet;
+import com.mozz.htmlnative.css.Background;
+import com.mozz.htmlnative.css.StyleSheet;
+import com.mozz.htmlnative.css.selector.AnySelector;
+import com.mozz.htmlnative.css.selector.ClassSelector;
+import com.mozz.htmlnative.css.selector.CssSelector;
+import com.mozz.htmlnative.css.selector.IdSelector;
+import com.mozz.htmlnative.css.selector.TypeSelector;
+import com.mozz.htmlnative.dom.HNDomTree;
+import com.mozz.htmlnative.dom.HNHead;
+import com.mozz.htmlnative.dom.Meta;
+import com.mozz.htmlnative.script.ScriptInfo;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Rebuild an {@link HNSegment} from the format written by {@link SegmentWriter}. The result is
+ * the same as what {@link com.mozz.htmlnative.parser.Parser} produces from the source file.
+ * <p>
+ * NOT THREAD SAFE, use one reader per stream.
+ */
+public final class SegmentReader {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final DataInputStream mInput;
+
+    private String[] mStringPool;
+
+    public SegmentReader(@NonNull InputStream inputStream) {
+        mInput = new DataInputStream(inputStream);
+    }
+
+    @NonNull
+    public HNSegment read() throws IOException {
+        int magic = mInput.readInt();
+        if (magic != SegmentFormat.MAGIC) {
+            throw new IOException("not a compiled segment, magic=" + Integer.toHexString(magic));
+        }
+
+        int version = mInput.readShort();
+        if (version > SegmentFormat.VERSION) {
+            throw new IOException("unsupported segment version " + version + ", expect <= " +
+                    SegmentFormat.VERSION);
+        }
+
+        readStringPool();
+
+        HNSegment segment = new HNSegment();
+        readHead(segment.getHead());
+        readScript(segment);
+        readStyleSheet(segment.getStyleSheet());
+        if (version >= SegmentFormat.VERSION_LINKS) {
+            readLinks(segment.getStyleSheet());
+        }
+
+        HNDomTree root = new HNDomTree(segment.getInlineStyles(), null, 0, 0);
+        segment.setDom(root);
+        readTree(root);
+
+        return segment;
+    }
+
+    private void readStringPool() throws IOException {
+        int size = readVarInt();
+        mStringPool = new String[size];
+
+        byte[] buffer = new byte[64];
+        for (int i = 0; i < size; i++) {
+            int length = readVarInt();
+            if (buffer.length < length) {
+                buffer = new byte[length];
+            }
+            mInput.readFully(buffer, 0, length);
+            mStringPool[i] = new String(buffer, 0, length, UTF_8);
+        }
+    }
+
+    private void readHead(HNHead head) throws IOException {
+        head.setTitle(readString());
+
+        int metaCount = readVarInt();
+        for (int i = 0; i < metaCount; i++) {
+            Meta meta = new Meta();
+            meta.setName(readString());
+            meta.setContent(readString());
+            head.putMeta(meta);
+        }
+    }
+
+    private void readScript(HNSegment segment) throws IOException {
+        if (mInput.readBoolean()) {
+            int type = mInput.readByte();
+            segment.setScriptInfo(new ScriptInfo(readString(), type));
+        }
+    }
+
+    /**
+     * Rebuild the selectors in the same way as {@link com.mozz.htmlnative.parser.CssParser}
+     * does, so that insert order and attrIndex are the same.
+     */
+    private void readStyleSheet(StyleSheet styleSheet) throws IOException {
+        int groupCount = readVarInt();
+
+        for (int i = 0; i < groupCount; i++) {
+            int chainCount = readVarInt();
+
+            CssSelector preHead = null;
+            for (int j = 0; j < chainCount; j++) {
+                CssSelector head = readSelectorChain(styleSheet, preHead);
+                styleSheet.putSelector(head);
+                preHead = head;
+            }
+
+            if (preHead == null) {
+                throw new IOException("empty selector group");
+            }
+            readAttrs(styleSheet, preHead);
+        }
+    }
+
+    /**
+     * Resolve the hrefs in {@link StyleSheetCache}, a link which can't be loaded any more is
+     * dropped as the parser does.
+     */
+    private void readLinks(StyleSheet styleSheet) throws IOException {
+        int count = readVarInt();
+        for (int i = 0; i < count; i++) {
+            String href = readString();
+            StyleSheet linked = href != null ? StyleSheetCache.get().load(href) : null;
+            if (linked != null) {
+                styleSheet.link(linked);
+            }
+        }
+    }
+
+    private CssSelector readSelectorChain(StyleSheet styleSheet, CssSelector preHead) throws
+            IOException {
+        int count = readVarInt();
+        if (count <= 0) {
+            throw new IOException("empty selector chain");
+        }
+
+        CssSelector head = null;
+        boolean matchDescendant = true;
+
+        for (int i = 0; i < count; i++) {
+            CssSelector selector = readSelector();
+
+            if (head == null) {
+                head = selector;
+                if (preHead == null) {
+                    styleSheet.register(head);
+                } else {
+                    preHead.chainGroup(head);
+                }
+            } else {
+                head.chainChild(selector, matchDescendant);
+            }
+
+            matchDescendant = !mInput.readBoolean();
+        }
+
+        return head;
+    }
+
+    private CssSelector readSelector() throws IOException {
+        int kind = mInput.readByte();
+        switch (kind) {
+            case SegmentFormat.SELECTOR_TYPE:
+                return new TypeSelector(readString());
+            case SegmentFormat.SELECTOR_CLASS:
+                return new ClassSelector(readString());
+            case SegmentFormat.SELECTOR_ID:
+                return new IdSelector(readString());
+            case SegmentFormat.SELECTOR_ANY:
+                return new AnySelector();
+            default:
+                throw new IOException("unknown selector kind " + kind);
+        }
+    }
+
+    private void readTree(HNDomTree tree) throws IOException {
+        tree.setType(readString());
+        // index of root is always 0, children get their index when constructed.
+        readVarInt();
+        tree.setId(readString());
+
+        int classCount = readVarInt();
+        if (classCount > 0) {
+            String[] clazz = new String[classCount];
+            for (int i = 0; i < classCount; i++) {
+                clazz[i] = readString();
+            }
+            tree.setClazz(clazz);
+        }
+
+        String inner = readString();
+        if (inner != null) {
+            tree.appendText(inner);
+        }
+
+        int attrCount = readVarInt();
+        for (int i = 0; i < attrCount; i++) {
+            String name = readString();
+            tree.addInlineStyle(name, readValue());
+        }
+
+        int childCount = readVarInt();
+        for (int i = 0; i < childCount; i++) {
+            readChild(tree);
+        }
+    }
+
+    private void readChild(HNDomTree parent) throws IOException {
+        String type = readString();
+        int index = readVarInt();
+
+        HNDomTree child = new HNDomTree(parent, type, index);
+        parent.addChild(child);
+
+        child.setId(readString());
+
+        int classCount = readVarInt();
+        if (classCount > 0) {
+            String[] clazz = new String[classCount];
+            for (int i = 0; i < classCount; i++) {
+                clazz[i] = readString();
+            }
+            child.setClazz(clazz);
+        }
+
+        String inner = readString();
+        if (inner != null) {
+            child.appendText(inner);
+        }
+
+        int attrCount = readVarInt();
+        for (int i = 0; i < attrCount; i++) {
+            String name = readString();
+            child.addInlineStyle(name, readValue());
+        }
+
+        int childCount = readVarInt();
+        for (int i = 0; i < childCount; i++) {
+            readChild(child);
+        }
+    }
+
+    private void readAttrs(AttrsSet attrsSet, AttrsSet.AttrsOwner owner) throws IOException {
+        int count = readVarInt();
+        for (int i = 0; i < count; i++) {
+            String name = readString();
+            attrsSet.put(owner, name, readValue());
+        }
+    }
+
+    private Object readValue() throws IOException {
+        int type = mInput.readByte();
+        switch (type) {
+            case SegmentFormat.VALUE_STRING:
+                return readString();
+            case SegmentFormat.VALUE_INT:
+                return mInput.readInt();
+            case SegmentFormat.VALUE_DOUBLE:
+                return mInput.readDouble();
+            case SegmentFormat.VALUE_FLOAT:
+                return mInput.readFloat();
+            case SegmentFormat.VALUE_BOOLEAN:
+                return mInput.readBoolean();
+            case SegmentFormat.VALUE_BACKGROUND:
+                return Background.readFrom(mInput);
+            case SegmentFormat.VALUE_PIXEL:
+                return readPixel();
+            case SegmentFormat.VALUE_PIXELS: {
+                int count = readVarInt();
+                PixelValue[] pixels = new PixelValue[count];
+                for (int i = 0; i < count; i++) {
+                    pixels[i] = readPixel();
+                }
+                return pixels;
+            }
+            default:
+                throw new IOException("unknown value type " + type);
+        }
+    }
+
+    private PixelValue readPixel() throws IOException {
+        double value = mInput.readDouble();
+        //noinspection WrongConstant
+        return new PixelValue(value, mInput.readByte());
+    }
+
+    private String readString() throws IOException {
+        int index = readVarInt();
+        if (index == 0) {
+            return null;
+        }
+
+        if (index > mStringPool.length) {
+            throw new IOException("string index " + index + " out of pool " + mStringPool.length);
+        }
+        return mStringPool[index - 1];
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            int b = mInput.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 28) {
+                throw new IOException("malformed varint");
+            }
+        }
+    }
+}
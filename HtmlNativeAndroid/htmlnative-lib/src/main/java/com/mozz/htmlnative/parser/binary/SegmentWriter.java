@@ -0,0 +1,251 @@
+package com.mozz.htmlnative.parser.binary;
+
+import android.support.annotation.NonNull;
+
+import com.mozz.htmlnative.HNSegment;
+import com.mozz.htmlnative.common.PixelValue;
+import com.mozz.htmlnative.css.AttrsSet;
+import com.mozz.htmlnative.css.Background;
+import com.mozz.htmlnative.css.StyleSheet;
+import com.mozz.htmlnative.css.selector.AnySelector;
+import com.mozz.htmlnative.css.selector.ClassSelector;
+import com.mozz.htmlnative.css.selector.CssSelector;
+import com.mozz.htmlnative.css.selector.IdSelector;
+import com.mozz.htmlnative.css.selector.TypeSelector;
+import com.mozz.htmlnative.dom.HNDomTree;
+import com.mozz.htmlnative.dom.HNHead;
+import com.mozz.htmlnative.dom.Meta;
+import com.mozz.htmlnative.script.ScriptInfo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write a parsed {@link HNSegment} into the format described in {@link SegmentFormat}, which
+ * can be loaded back by {@link SegmentReader} without going through Lexer and Parser.
+ * <p>
+ * NOT THREAD SAFE, use one writer per segment.
+ */
+public final class SegmentWriter {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Map<String, Integer> mStringPool = new LinkedHashMap<>();
+
+    private final ByteArrayOutputStream mBodyBytes = new ByteArrayOutputStream();
+    private final DataOutputStream mBody = new DataOutputStream(mBodyBytes);
+
+    public void write(@NonNull HNSegment segment, @NonNull OutputStream outputStream) throws
+            IOException {
+        mStringPool.clear();
+        mBodyBytes.reset();
+
+        writeHead(segment.getHead());
+        writeScript(segment.getScriptInfo());
+        writeStyleSheet(segment.getStyleSheet());
+        writeLinks(segment.getStyleSheet());
+        writeTree(segment.getDom(), segment.getInlineStyles());
+        mBody.flush();
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(SegmentFormat.MAGIC);
+        out.writeShort(SegmentFormat.VERSION);
+
+        writeVarInt(out, mStringPool.size());
+        for (String s : mStringPool.keySet()) {
+            byte[] bytes = s.getBytes(UTF_8);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        }
+
+        mBodyBytes.writeTo(out);
+        out.flush();
+    }
+
+    private void writeHead(HNHead head) throws IOException {
+        writeString(head.getTitle());
+
+        Collection<Meta> metas = head.metas();
+        writeVarInt(mBody, metas.size());
+        for (Meta meta : metas) {
+            writeString(meta.getName());
+            writeString(meta.getContent());
+        }
+    }
+
+    private void writeScript(ScriptInfo scriptInfo) throws IOException {
+        mBody.writeBoolean(scriptInfo != null);
+        if (scriptInfo != null) {
+            mBody.writeByte(scriptInfo.type());
+            writeString(scriptInfo.code());
+        }
+    }
+
+    /**
+     * Selectors sharing the same attrIndex come from one rule like "a, b c {...}", they are
+     * written as one group so that the attrs are stored only once.
+     */
+    private void writeStyleSheet(StyleSheet styleSheet) throws IOException {
+        CssSelector[] selectors = styleSheet.selectorsInOrder();
+
+        List<List<CssSelector>> groups = new ArrayList<>();
+        List<CssSelector> current = null;
+        for (CssSelector selector : selectors) {
+            if (current == null || current.get(0).attrIndex() != selector.attrIndex()) {
+                current = new ArrayList<>();
+                groups.add(current);
+            }
+            current.add(selector.head());
+        }
+
+        writeVarInt(mBody, groups.size());
+        for (List<CssSelector> group : groups) {
+            writeVarInt(mBody, group.size());
+            for (CssSelector head : group) {
+                writeSelectorChain(head);
+            }
+            writeAttrs(styleSheet, group.get(0));
+        }
+    }
+
+    /**
+     * Linked StyleSheets are shared, only their hrefs are written.
+     */
+    private void writeLinks(StyleSheet styleSheet) throws IOException {
+        StyleSheet[] linked = styleSheet.linked();
+        writeVarInt(mBody, linked.length);
+        for (StyleSheet link : linked) {
+            writeString(link.getHref());
+        }
+    }
+
+    private void writeSelectorChain(CssSelector head) throws IOException {
+        int count = 0;
+        for (CssSelector s = head; s != null; s = s.nextChild()) {
+            count++;
+        }
+
+        writeVarInt(mBody, count);
+        for (CssSelector s = head; s != null; s = s.nextChild()) {
+            if (s instanceof ClassSelector) {
+                mBody.writeByte(SegmentFormat.SELECTOR_CLASS);
+                writeString(((ClassSelector) s).getName());
+            } else if (s instanceof IdSelector) {
+                mBody.writeByte(SegmentFormat.SELECTOR_ID);
+                writeString(((IdSelector) s).getName());
+            } else if (s instanceof TypeSelector) {
+                mBody.writeByte(SegmentFormat.SELECTOR_TYPE);
+                writeString(((TypeSelector) s).getName());
+            } else if (s instanceof AnySelector) {
+                mBody.writeByte(SegmentFormat.SELECTOR_ANY);
+            } else {
+                throw new IOException("unknown selector " + s.getClass().getName());
+            }
+            mBody.writeBoolean(s.matchDirectChild());
+        }
+    }
+
+    private void writeTree(HNDomTree tree, AttrsSet inlineStyles) throws IOException {
+        writeString(tree.getType());
+        writeVarInt(mBody, tree.getIndex());
+        writeString(tree.getId());
+
+        String[] clazz = tree.getClazz();
+        writeVarInt(mBody, clazz == null ? 0 : clazz.length);
+        if (clazz != null) {
+            for (String c : clazz) {
+                writeString(c);
+            }
+        }
+
+        writeString(tree.getInner());
+        writeAttrs(inlineStyles, tree);
+
+        List<HNDomTree> children = tree.children();
+        writeVarInt(mBody, children.size());
+        for (HNDomTree child : children) {
+            writeTree(child, inlineStyles);
+        }
+    }
+
+    private void writeAttrs(AttrsSet attrsSet, AttrsSet.AttrsOwner owner) throws IOException {
+        int begin = attrsSet.begin(owner);
+        int end = attrsSet.end(owner);
+
+        writeVarInt(mBody, end - begin);
+        for (int i = begin; i < end; i++) {
+            writeString(attrsSet.getStyleName(i));
+            writeValue(attrsSet.getStyle(i));
+        }
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value instanceof String) {
+            mBody.writeByte(SegmentFormat.VALUE_STRING);
+            writeString((String) value);
+        } else if (value instanceof Integer) {
+            mBody.writeByte(SegmentFormat.VALUE_INT);
+            mBody.writeInt((Integer) value);
+        } else if (value instanceof Double) {
+            mBody.writeByte(SegmentFormat.VALUE_DOUBLE);
+            mBody.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            mBody.writeByte(SegmentFormat.VALUE_FLOAT);
+            mBody.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            mBody.writeByte(SegmentFormat.VALUE_BOOLEAN);
+            mBody.writeBoolean((Boolean) value);
+        } else if (value instanceof Background) {
+            mBody.writeByte(SegmentFormat.VALUE_BACKGROUND);
+            ((Background) value).writeTo(mBody);
+        } else if (value instanceof PixelValue) {
+            mBody.writeByte(SegmentFormat.VALUE_PIXEL);
+            writePixel((PixelValue) value);
+        } else if (value instanceof PixelValue[]) {
+            PixelValue[] pixels = (PixelValue[]) value;
+            mBody.writeByte(SegmentFormat.VALUE_PIXELS);
+            writeVarInt(mBody, pixels.length);
+            for (PixelValue pixel : pixels) {
+                writePixel(pixel);
+            }
+        } else {
+            throw new IOException("can't write value " + value + " of type " + (value == null ?
+                    "null" : value.getClass().getName()));
+        }
+    }
+
+    private void writePixel(PixelValue pixel) throws IOException {
+        mBody.writeDouble(pixel.getValue());
+        mBody.writeByte(pixel.getUnit());
+    }
+
+    private void writeString(String s) throws IOException {
+        if (s == null) {
+            writeVarInt(mBody, 0);
+            return;
+        }
+
+        Integer index = mStringPool.get(s);
+        if (index == null) {
+            index = mStringPool.size();
+            mStringPool.put(s, index);
+        }
+        writeVarInt(mBody, index + 1);
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+}
@@ -4,6 +4,8 @@ package com.mozz.htmlnative.parser.token;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.mozz.htmlnative.common.SymbolTable;
+
 public final class Token {
 
     public static final int EXTRA_NUMBER_EM = 1;
@@ -20,13 +22,23 @@ public final class Token {
 
     private int mExtra = -1;
 
+    /**
+     * id in {@link SymbolTable} if the value is a known name
+     */
+    private int mSymbol = SymbolTable.UNKNOWN;
+
     @Nullable
     private Token next;
 
-    // for token pool
-    @Nullable
-    private static Token sPool;
-    private static int sPoolSize = 0;
+    /**
+     * Token pool, one per thread so that documents can be parsed concurrently.
+     */
+    private static final ThreadLocal<Pool> sPool = new ThreadLocal<Pool>() {
+        @Override
+        protected Pool initialValue() {
+            return new Pool();
+        }
+    };
     private static final int MAX_POOL_SIZE = 20;
 
     private Token(@NonNull TokenType tokenType, Object value) {
@@ -88,11 +100,12 @@ public final class Token {
 
     @Nullable
     public static Token obtainToken(TokenType tokenType, Object value, long line, long column) {
-        if (sPool != null) {
-            Token t = sPool;
-            sPool = t.next;
+        Pool pool = sPool.get();
+        if (pool.head != null) {
+            Token t = pool.head;
+            pool.head = t.next;
             t.next = null;
-            sPoolSize--;
+            pool.size--;
 
             t.mTokenType = tokenType;
             t.mValue = value;
@@ -117,9 +130,13 @@ public final class Token {
         return t;
     }
 
+    /**
+     * Drop the tokens pooled by current thread.
+     */
     static void recycleAll() {
-        sPoolSize = 0;
-        sPool = null;
+        Pool pool = sPool.get();
+        pool.size = 0;
+        pool.head = null;
     }
 
     public void recycle() {
@@ -129,13 +146,16 @@ public final class Token {
     private void recycleUnchecked() {
         mTokenType = TokenType.Unknown;
         mValue = null;
+        mSymbol = SymbolTable.UNKNOWN;
+        mExtra = -1;
         startColumn = -1;
         line = -1;
 
-        if (sPoolSize < MAX_POOL_SIZE) {
-            next = sPool;
-            sPool = this;
-            sPoolSize++;
+        Pool pool = sPool.get();
+        if (pool.size < MAX_POOL_SIZE) {
+            next = pool.head;
+            pool.head = this;
+            pool.size++;
         }
     }
 
@@ -171,4 +191,18 @@ public final class Token {
     public int getExtra() {
         return mExtra;
     }
+
+    public int symbol() {
+        return mSymbol;
+    }
+
+    public void setSymbol(int symbol) {
+        mSymbol = symbol;
+    }
+
+    private static final class Pool {
+        @Nullable
+        Token head;
+        int size;
+    }
 }
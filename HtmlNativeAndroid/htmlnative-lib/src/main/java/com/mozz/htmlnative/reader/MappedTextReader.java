@@ -0,0 +1,229 @@
+package com.mozz.htmlnative.reader;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.support.annotation.NonNull;
+
+import com.mozz.htmlnative.utils.IOUtils;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * TextReader which memory-maps the source and decodes UTF-8 directly from the mapped bytes,
+ * so there is no intermediate char buffer and no read syscall per refill. Sources already read
+ * into memory, such as the ones of {@link com.mozz.htmlnative.HNSegmentCache}, are decoded in
+ * the same way. ASCII bytes are returned as is, malformed sequences are replaced with U+FFFD.
+ * <p>
+ * The file is closed once it is mapped, the mapping stays valid until it is garbage collected.
+ */
+public class MappedTextReader implements TextReader {
+
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private ByteBuffer mBuffer;
+
+    private int column = 1;
+
+    private int line = 1;
+
+    private char ch = INIT_CHAR;
+
+    /**
+     * low surrogate of a 4-byte sequence, returned on next call
+     */
+    private char mPendingLow = 0;
+
+    private boolean meetEof = false;
+
+    private long countOfRead = 0;
+
+    public MappedTextReader(@NonNull File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            mBuffer = map(in.getChannel(), 0, file.length());
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        skipBom();
+    }
+
+    /**
+     * @param channel not closed here, see {@link #fromFile(FileInputStream, long)}
+     */
+    public MappedTextReader(@NonNull FileChannel channel, long offset, long length) throws
+            IOException {
+        mBuffer = map(channel, offset, length);
+        skipBom();
+    }
+
+    /**
+     * Decode bytes from the current position of buffer.
+     */
+    public MappedTextReader(@NonNull ByteBuffer buffer) {
+        mBuffer = buffer;
+        skipBom();
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws
+            IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    /**
+     * Map the rest of source from offset, then close it.
+     *
+     * @param offset position of source in its file, taken before anything is read, since
+     *               source may be wrapped by a buffered stream.
+     * @throws IOException if source can't be mapped, source is not closed then.
+     */
+    @NonNull
+    public static MappedTextReader fromFile(@NonNull FileInputStream source, long offset) throws
+            IOException {
+        FileChannel channel = source.getChannel();
+        MappedTextReader reader = new MappedTextReader(channel, offset, channel.size() -
+                offset);
+        IOUtils.closeQuietly(source);
+        return reader;
+    }
+
+    /**
+     * Map an asset. Only assets stored uncompressed in apk can be mapped, others fall back to
+     * {@link FileTextReader}.
+     */
+    @NonNull
+    public static TextReader fromAsset(@NonNull AssetManager assetManager, @NonNull String name)
+            throws IOException {
+        AssetFileDescriptor fd;
+        try {
+            fd = assetManager.openFd(name);
+        } catch (FileNotFoundException e) {
+            // compressed asset
+            return new FileTextReader(assetManager.open(name));
+        }
+
+        FileInputStream in = fd.createInputStream();
+        try {
+            return new MappedTextReader(in.getChannel(), fd.getStartOffset(), fd.getLength());
+        } finally {
+            // closes the descriptor of the channel too, the mapping is already made
+            IOUtils.closeQuietly(in);
+            IOUtils.closeQuietly(fd);
+        }
+    }
+
+    private void skipBom() {
+        int p = mBuffer.position();
+        if (mBuffer.remaining() >= 3 && (mBuffer.get(p) & 0xFF) == 0xEF && (mBuffer.get(p + 1) &
+                0xFF) == 0xBB && (mBuffer.get(p + 2) & 0xFF) == 0xBF) {
+            mBuffer.position(p + 3);
+        }
+    }
+
+    @Override
+    public char nextCh() throws EOFException {
+        if (mPendingLow != 0) {
+            ch = mPendingLow;
+            mPendingLow = 0;
+        } else if (mBuffer == null || !mBuffer.hasRemaining()) {
+            if (meetEof || mBuffer == null) {
+                throw new EOFException("Reach the end of stream!");
+            }
+            // Same as StreamReader, give lexer an ' ' at the end of file, then throw
+            // EOFException on the next round.
+            meetEof = true;
+            ch = ' ';
+        } else {
+            int b = mBuffer.get();
+            ch = b >= 0 ? (char) b : decode(b & 0xFF);
+        }
+
+        column++;
+
+        if (ch == '\n' || ch == '\r') {
+            this.line++;
+            column = 1;
+        }
+
+        countOfRead++;
+        return ch;
+    }
+
+    private char decode(int b0) {
+        int codePoint;
+        int extra;
+        int min;
+
+        if ((b0 & 0xE0) == 0xC0) {
+            codePoint = b0 & 0x1F;
+            extra = 1;
+            min = 0x80;
+        } else if ((b0 & 0xF0) == 0xE0) {
+            codePoint = b0 & 0x0F;
+            extra = 2;
+            min = 0x800;
+        } else if ((b0 & 0xF8) == 0xF0) {
+            codePoint = b0 & 0x07;
+            extra = 3;
+            min = 0x10000;
+        } else {
+            return REPLACEMENT;
+        }
+
+        for (int i = 0; i < extra; i++) {
+            if (!mBuffer.hasRemaining()) {
+                return REPLACEMENT;
+            }
+            int b = mBuffer.get(mBuffer.position()) & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                // leave the byte for next char
+                return REPLACEMENT;
+            }
+            mBuffer.get();
+            codePoint = (codePoint << 6) | (b & 0x3F);
+        }
+
+        if (codePoint < min || codePoint > Character.MAX_CODE_POINT || (codePoint >= 0xD800 &&
+                codePoint <= 0xDFFF)) {
+            return REPLACEMENT;
+        }
+
+        if (codePoint >= 0x10000) {
+            mPendingLow = Character.lowSurrogate(codePoint);
+            return Character.highSurrogate(codePoint);
+        }
+        return (char) codePoint;
+    }
+
+    @Override
+    public long line() {
+        return line;
+    }
+
+    @Override
+    public long column() {
+        return column;
+    }
+
+    @Override
+    public char current() {
+        return ch;
+    }
+
+    @Override
+    public void close() {
+        // MappedByteBuffer is unmapped when it is garbage collected
+        mBuffer = null;
+    }
+
+    @Override
+    public long countOfRead() {
+        return countOfRead;
+    }
+}
@@ -11,12 +11,16 @@ public class ScriptInfo {
     public static final int SCRIPT_JAVASCRIPT = 0x01;
     public static final int SCRIPT_LUA = 0x02;
 
-    private final Token token;
+    private final String code;
     private final int type;
 
     public ScriptInfo(Token scriptToken, String type) {
-        token = scriptToken;
-        this.type = parseType(type);
+        this(scriptToken.stringValue(), parseType(type));
+    }
+
+    public ScriptInfo(String code, int type) {
+        this.code = code;
+        this.type = type;
     }
 
     public int type() {
@@ -24,7 +28,7 @@ public class ScriptInfo {
     }
 
     public String code() {
-        return token.stringValue();
+        return code;
     }
 
 
@@ -45,7 +49,6 @@ public class ScriptInfo {
 
     @Override
     public String toString() {
-        return "[" + (type == SCRIPT_JAVASCRIPT ? "javascript" : "lua") + ":" + token.stringValue
-                () + "]";
+        return "[" + (type == SCRIPT_JAVASCRIPT ? "javascript" : "lua") + ":" + code + "]";
     }
 }
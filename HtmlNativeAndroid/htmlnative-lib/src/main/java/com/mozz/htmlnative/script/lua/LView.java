@@ -16,16 +16,21 @@ import com.mozz.htmlnative.dom.DomElement;
 import com.mozz.htmlnative.exception.AttrApplyException;
 import com.mozz.htmlnative.parser.CssParser;
 import com.mozz.htmlnative.utils.MainHandlerUtils;
+import com.mozz.htmlnative.utils.ParametersUtils;
+import com.mozz.htmlnative.view.HNListView;
 import com.mozz.htmlnative.view.LayoutParamsLazyCreator;
 
 import org.luaj.vm2.LuaBoolean;
 import org.luaj.vm2.LuaString;
 import org.luaj.vm2.LuaTable;
 import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
 import org.luaj.vm2.lib.OneArgFunction;
 import org.luaj.vm2.lib.ZeroArgFunction;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -41,7 +46,7 @@ class LView extends LuaTable {
     private DomElement mDomElement;
     private Map<String, Object> mInlineStyleRaw;
 
-    private static StringBuilder sParserBuffer = new StringBuilder();
+    private final StringBuilder mParserBuffer = new StringBuilder();
     private final Object mLock = new Object();
 
     LView(final DomElement domElement, Map<String, Object> inlineStyle, final HNSandBoxContext
@@ -84,7 +89,7 @@ class LView extends LuaTable {
                 if (mCreated) {
                     String style = arg.tojstring();
                     final Map<String, Object> styleMaps = new HashMap<>();
-                    CssParser.parseInlineStyle(style, sParserBuffer, styleMaps);
+                    CssParser.parseInlineStyle(style, mParserBuffer, styleMaps);
 
                     MainHandlerUtils.instance().post(new Runnable() {
                         @Override
@@ -99,6 +104,10 @@ class LView extends LuaTable {
                                         .getLayoutParams());
                                 mView.requestLayout();
 
+                                // keep them for restyle, descendants inherit some of them
+                                attachedElement().putScriptStyles(styleMaps);
+                                mContext.getRestyler().stylesChanged(mView, styleMaps);
+
                             } catch (AttrApplyException e) {
                                 e.printStackTrace();
                             }
@@ -106,7 +115,7 @@ class LView extends LuaTable {
                     });
                 } else {
                     final Map<String, Object> newStyle = new HashMap<>();
-                    CssParser.parseInlineStyle(arg.tojstring(), sParserBuffer, newStyle);
+                    CssParser.parseInlineStyle(arg.tojstring(), mParserBuffer, newStyle);
 
                     MainHandlerUtils.instance().post(new Runnable() {
                         @Override
@@ -123,6 +132,25 @@ class LView extends LuaTable {
             }
         });
 
+        set("setData", new OneArgFunction() {
+                    @Override
+                    public LuaValue call(LuaValue arg) {
+                        if (mCreated && mView instanceof HNListView) {
+                            // converted here, the table may be changed by script later
+                            final List<Object> data = toList(arg);
+                            MainHandlerUtils.instance().post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    ((HNListView) mView).setData(data);
+                                }
+                            });
+                        }
+                        return LuaValue.NIL;
+                    }
+                }
+
+        );
+
         set("id", new ZeroArgFunction() {
                     @Override
                     public LuaValue call() {
@@ -138,6 +166,55 @@ class LView extends LuaTable {
 
         );
 
+        set("setId", new OneArgFunction() {
+                    @Override
+                    public LuaValue call(LuaValue arg) {
+                        if (mCreated) {
+                            final String id = arg.isnil() ? null : arg.tojstring();
+                            MainHandlerUtils.instance().post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    AttachedElement element = attachedElement();
+                                    String oldId = element.getId();
+                                    element.setId(id);
+                                    if (oldId != null && !oldId.equals(id)) {
+                                        mContext.unregisterId(oldId, mView);
+                                    }
+                                    if (id != null) {
+                                        mContext.registerId(id, mView);
+                                    }
+                                    mContext.getRestyler().idChanged(mView, oldId, id);
+                                }
+                            });
+                        }
+                        return LuaValue.NIL;
+                    }
+                }
+
+        );
+
+        set("setClassName", new OneArgFunction() {
+                    @Override
+                    public LuaValue call(LuaValue arg) {
+                        if (mCreated) {
+                            final String[] clazz = arg.isnil() ? null : ParametersUtils
+                                    .splitByEmpty(arg.tojstring());
+                            MainHandlerUtils.instance().post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    AttachedElement element = attachedElement();
+                                    String[] oldClazz = element.getClazz();
+                                    element.setClazz(clazz);
+                                    mContext.getRestyler().classChanged(mView, oldClazz, clazz);
+                                }
+                            });
+                        }
+                        return LuaValue.NIL;
+                    }
+                }
+
+        );
+
         set("className", new ZeroArgFunction() {
                     @Override
                     public LuaValue call() {
@@ -208,8 +285,14 @@ class LView extends LuaTable {
 
                                                 child.mAdded = true;
 
-                                                // consume the inline style
+                                                // consume the inline style, restyle applies
+                                                // it again
                                                 synchronized (mLock) {
+                                                    if (child.mInlineStyleRaw != null) {
+                                                        child.attachedElement()
+                                                                .putScriptStyles(child
+                                                                        .mInlineStyleRaw);
+                                                    }
                                                     child.mInlineStyleRaw = null;
                                                 }
 
@@ -280,7 +363,13 @@ class LView extends LuaTable {
                                                 child.mAdded = true;
 
                                                 synchronized (mLock) {
-                                                    // consume the inline style
+                                                    // consume the inline style, restyle
+                                                    // applies it again
+                                                    if (child.mInlineStyleRaw != null) {
+                                                        child.attachedElement()
+                                                                .putScriptStyles(child
+                                                                        .mInlineStyleRaw);
+                                                    }
                                                     child.mInlineStyleRaw = null;
                                                 }
                                             } catch (HNRenderer.HNRenderException e) {
@@ -411,6 +500,55 @@ class LView extends LuaTable {
     }
 
 
+    /**
+     * @return items of a list from an array of tables, see {@link HNListView#setData(List)}, or
+     * null if value is not a table.
+     */
+    private static List<Object> toList(LuaValue value) {
+        if (!value.istable()) {
+            return null;
+        }
+        LuaTable table = value.checktable();
+        int length = table.length();
+        List<Object> list = new ArrayList<>(length);
+        for (int i = 1; i <= length; i++) {
+            list.add(toJava(table.get(i)));
+        }
+        return list;
+    }
+
+    /**
+     * @return a table as Map of its keys and values in string, or value in string.
+     */
+    private static Object toJava(LuaValue value) {
+        if (value.isnil()) {
+            return null;
+        }
+        if (!value.istable()) {
+            return value.tojstring();
+        }
+
+        LuaTable table = value.checktable();
+        Map<String, Object> map = new HashMap<>();
+        LuaValue key = LuaValue.NIL;
+        while (true) {
+            Varargs next = table.next(key);
+            key = next.arg1();
+            if (key.isnil()) {
+                break;
+            }
+            map.put(key.tojstring(), toJava(next.arg(2)));
+        }
+        return map;
+    }
+
+    /**
+     * @return element attached to {@link #mView}, see {@link HNRenderer#createView}.
+     */
+    private AttachedElement attachedElement() {
+        return (AttachedElement) mView.getTag();
+    }
+
     @Override
     public int type() {
         return TUSERDATA;
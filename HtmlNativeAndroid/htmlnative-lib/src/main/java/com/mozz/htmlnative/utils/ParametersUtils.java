@@ -6,6 +6,7 @@ import android.support.annotation.NonNull;
 import android.util.TypedValue;
 
 import com.mozz.htmlnative.common.PixelValue;
+import com.mozz.htmlnative.common.ValueCache;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -22,6 +23,15 @@ public final class ParametersUtils {
 
     private static final Set<String> sColorNameMap;
 
+    private static final int CACHE_SIZE = 256;
+
+    private static final ValueCache<Integer> sColorCache = new ValueCache<>("Color Cache",
+            CACHE_SIZE);
+    private static final ValueCache<PixelValue> sPixelCache = new ValueCache<>("Pixel Cache",
+            CACHE_SIZE);
+    private static final ValueCache<PixelValue[]> sPixelsCache = new ValueCache<>("Pixels " +
+            "Cache", CACHE_SIZE);
+
     static {
         sColorNameMap = new HashSet<>();
         sColorNameMap.add("black");
@@ -67,6 +77,8 @@ public final class ParametersUtils {
     public static int toInt(Object object) throws IllegalArgumentException {
         if (object instanceof Integer) {
             return (int) object;
+        } else if (object instanceof PixelValue) {
+            return (int) ((PixelValue) object).getValue();
         } else {
             return Integer.valueOf(object.toString());
         }
@@ -91,30 +103,38 @@ public final class ParametersUtils {
 
     public static PixelValue toPixel(Object object) throws IllegalArgumentException {
         int unit = TypedValue.COMPLEX_UNIT_PX;
-        if (object instanceof String) {
+        if (object instanceof PixelValue) {
+            return (PixelValue) object;
+        } else if (object instanceof String) {
             String string = (String) object;
 
-            StringBuilder unitString = new StringBuilder();
-            int i = string.length() - 1;
-            for (; i > 0; i--) {
-                char c = string.charAt(i);
-                if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
-                    unitString.append(c);
-                } else {
-                    break;
-                }
+            PixelValue pixel = sPixelCache.get(string);
+            if (pixel == null) {
+                pixel = parsePixel(string);
+                sPixelCache.put(string, pixel);
             }
-
-            unit = getUnit(unitString.reverse().toString());
-
-            float value = toFloat(string.substring(0, i + 1));
-            return new PixelValue(value, unit);
+            return pixel;
 
         } else {
             return new PixelValue(toFloat(object), unit);
         }
     }
 
+    private static PixelValue parsePixel(String string) throws IllegalArgumentException {
+        int i = string.length() - 1;
+        for (; i > 0; i--) {
+            char c = string.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                break;
+            }
+        }
+
+        int unit = getUnit(string.substring(i + 1));
+
+        float value = toFloat(string.substring(0, i + 1));
+        return new PixelValue(value, unit);
+    }
+
     @PixelValue.PixelUnit
     public static int getUnit(String s) {
         switch (s.toLowerCase()) {
@@ -141,7 +161,30 @@ public final class ParametersUtils {
         }
     }
 
+    /**
+     * Same as {@link #toPixels(String)}, but returns object itself if it has been resolved when
+     * parsing.
+     */
+    public static PixelValue[] toPixels(Object object) throws IllegalArgumentException {
+        if (object instanceof PixelValue[]) {
+            return (PixelValue[]) object;
+        }
+        return toPixels(object.toString());
+    }
+
+    /**
+     * @return a new array, which may be changed by caller.
+     */
     public static PixelValue[] toPixels(String ss) throws IllegalArgumentException {
+        PixelValue[] pixelValues = sPixelsCache.get(ss);
+        if (pixelValues == null) {
+            pixelValues = parsePixels(ss);
+            sPixelsCache.put(ss, pixelValues);
+        }
+        return pixelValues.clone();
+    }
+
+    private static PixelValue[] parsePixels(String ss) throws IllegalArgumentException {
         String[] single = splitByEmpty(ss);
 
         PixelValue[] pixelValues = new PixelValue[single.length];
@@ -167,7 +210,19 @@ public final class ParametersUtils {
     }
 
     public static int toColor(@NonNull Object colorObj) throws IllegalArgumentException {
-        String colorString = colorObj.toString().trim();
+        if (colorObj instanceof Integer) {
+            return (int) colorObj;
+        }
+        String raw = colorObj.toString();
+        Integer color = sColorCache.get(raw);
+        if (color == null) {
+            color = parseColor(raw.trim());
+            sColorCache.put(raw, color);
+        }
+        return color;
+    }
+
+    private static int parseColor(String colorString) throws IllegalArgumentException {
         if (colorString.length() == 0) {
             throw new IllegalArgumentException("empty color string for parse");
         }
@@ -212,6 +267,13 @@ public final class ParametersUtils {
         }
     }
 
+    /**
+     * @return hit rate of the caches of parsed values, for performance records.
+     */
+    public static String dumpCacheStats() {
+        return sColorCache + "\n" + sPixelCache + "\n" + sPixelsCache;
+    }
+
     public static String toHtmlColorString(int color) {
         return "#" + Integer.toHexString(color & 0x00ffffff);
     }
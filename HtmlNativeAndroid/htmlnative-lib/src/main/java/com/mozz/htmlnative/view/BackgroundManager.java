@@ -47,6 +47,20 @@ class BackgroundManager implements IBackgroundManager {
         mHost.invalidate();
     }
 
+    @Override
+    public void clearHtmlBackground() {
+        if (mHost instanceof ViewGroup) {
+            mHost.setWillNotDraw(true);
+        }
+        mBackgroundBitmap = null;
+        mColor = Color.TRANSPARENT;
+        mBackground = null;
+        mColorLeft = mColorTop = mColorWidth = mColorHeight = 0;
+        mSetBackgroundCount++;
+
+        mHost.invalidate();
+    }
+
     @Override
     public Background getHtmlBackground() {
         return mBackground;
@@ -3,29 +3,107 @@ package com.mozz.htmlnative.view;
 import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.graphics.Matrix;
+import android.util.Log;
 import android.view.View;
 import android.widget.ImageView;
 
 import com.mozz.htmlnative.css.Background;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author Yang Tao, 17/3/24.
  */
 
 public final class BackgroundViewDelegate {
+
+    private static final String TAG = BackgroundViewDelegate.class.getSimpleName();
+
+    /**
+     * latest load of each view. A bitmap delivered to an older delegate is dropped: the view
+     * has been given another image since, or its styles are cleared to be pooled or restyled,
+     * see {@link #cancel(View)}.
+     */
+    private static final Map<View, Load> sLoads = Collections.synchronizedMap(new
+            WeakHashMap<View, Load>());
+    private static final AtomicInteger sNextToken = new AtomicInteger();
+
     private View mView;
     private Matrix mTransformMatrix;
     private int mColor = Color.WHITE;
     private Background mBackground;
+    private final int mToken;
 
-    public BackgroundViewDelegate(View v, Matrix matrix, int color, Background background) {
+    /**
+     * @param source style the image is loaded for, see {@link #keepOnRestyle(View, Object)}
+     */
+    public BackgroundViewDelegate(View v, Matrix matrix, int color, Background background,
+                                  Object source) {
         mView = v;
         mTransformMatrix = matrix;
         mColor = color;
         mBackground = background;
+        mToken = sNextToken.incrementAndGet();
+        sLoads.put(v, new Load(mToken, source));
+    }
+
+    /**
+     * Drop the bitmaps still loading for v.
+     */
+    public static void cancel(View v) {
+        sLoads.remove(v);
+    }
+
+    /**
+     * Called before v is restyled, its image is then kept if the restyle sets the same source
+     * again, see {@link #keepOnRestyle(View, Object)}.
+     */
+    public static void beginRestyle(View v) {
+        synchronized (sLoads) {
+            Load load = sLoads.get(v);
+            if (load != null) {
+                load.mRestyling = true;
+            }
+        }
+    }
+
+    /**
+     * @return whether v is being restyled and its latest image is of source, loaded or still
+     * loading, so that it needs not be loaded again.
+     */
+    public static boolean keepOnRestyle(View v, Object source) {
+        synchronized (sLoads) {
+            Load load = sLoads.get(v);
+            if (load != null && load.mRestyling && load.mSource.equals(source)) {
+                load.mRestyling = false;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Called after v is restyled.
+     */
+    public static void endRestyle(View v) {
+        synchronized (sLoads) {
+            Load load = sLoads.get(v);
+            if (load != null) {
+                load.mRestyling = false;
+            }
+        }
     }
 
     public void setBitmap(Bitmap bitmap) {
+        Load load = sLoads.get(mView);
+        if (load == null || load.mToken != mToken) {
+            Log.d(TAG, "drop bitmap delivered late to " + mView);
+            return;
+        }
+
         if (mView instanceof ImageView) {
             ImageView imageView = (ImageView) mView;
             imageView.setAdjustViewBounds(true);
@@ -39,4 +117,15 @@ public final class BackgroundViewDelegate {
             }
         }
     }
+
+    private static final class Load {
+        final int mToken;
+        final Object mSource;
+        boolean mRestyling;
+
+        Load(int token, Object source) {
+            mToken = token;
+            mSource = source;
+        }
+    }
 }
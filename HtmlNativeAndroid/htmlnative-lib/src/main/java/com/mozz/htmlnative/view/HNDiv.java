@@ -198,6 +198,24 @@ public class HNDiv extends ViewGroup implements IBackgroundView {
         return mSavedInheritStyles.get(styleName);
     }
 
+    /**
+     * Drop the background and inherit styles set by html, before the div is reused.
+     */
+    public void clearHtmlStyles() {
+        clearHtmlStyles(false);
+    }
+
+    /**
+     * Same as {@link #clearHtmlStyles()}, the background is kept if keepBackground, before the
+     * div is restyled.
+     */
+    public void clearHtmlStyles(boolean keepBackground) {
+        mSavedInheritStyles.clear();
+        if (!keepBackground) {
+            mBackgroundMgr.clearHtmlBackground();
+        }
+    }
+
     @Override
     protected ViewGroup.LayoutParams generateDefaultLayoutParams() {
         return new MarginLayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams
@@ -213,6 +231,11 @@ public class HNDiv extends ViewGroup implements IBackgroundView {
         return mBackgroundMgr.getHtmlBackground();
     }
 
+    @Override
+    public void clearHtmlBackground() {
+        mBackgroundMgr.clearHtmlBackground();
+    }
+
     @Override
     public void setBackground(Drawable background) {
         // don't support the background!! Use setHtmlBackground instead
@@ -0,0 +1,92 @@
+package com.mozz.htmlnative.view;
+
+import android.content.Context;
+import android.support.annotation.MainThread;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewParent;
+import android.widget.ScrollView;
+
+import java.util.List;
+
+/**
+ * View of &lt;list&gt;. Its rows are inflated from the template of the list, which is its first
+ * child element, only when they are scrolled into the list, and recycled when scrolled out, so
+ * that the views created depend on the height of the list instead of the count of items.
+ * <p>
+ * A list without a fixed height inside a scroll view, such as {@link HNRootView}, is given no
+ * bound by its parent and would create all its rows, so its height is capped to the visible
+ * height of the scroll view, and it scrolls its rows by itself. See {@link #onMeasure(int,
+ * int)}.
+ * <p>
+ * Items are set by {@link #setData(List)}, or by script with view.setData(table).
+ */
+public class HNListView extends RecyclerView {
+
+    /**
+     * items set before the adapter, see {@link #setAdapter(Adapter)}
+     */
+    private List<?> mPendingData;
+
+    public HNListView(Context context) {
+        super(context);
+        setLayoutManager(new LinearLayoutManager(context));
+    }
+
+    /**
+     * Adapter binding the items of list to its rows.
+     */
+    public interface DataAdapter {
+        void setData(@Nullable List<?> data);
+    }
+
+    /**
+     * @param data items of the rows, each one is a Map whose values are bound to the {{key}} in
+     *             template, or any other object bound to all of them.
+     */
+    @MainThread
+    public void setData(@Nullable List<?> data) {
+        Adapter adapter = getAdapter();
+        if (adapter instanceof DataAdapter) {
+            ((DataAdapter) adapter).setData(data);
+        } else {
+            mPendingData = data;
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthSpec, int heightSpec) {
+        if (MeasureSpec.getMode(heightSpec) == MeasureSpec.UNSPECIFIED) {
+            heightSpec = MeasureSpec.makeMeasureSpec(viewportHeight(), MeasureSpec.AT_MOST);
+        }
+        super.onMeasure(widthSpec, heightSpec);
+    }
+
+    /**
+     * @return height of the nearest scroll view containing the list, or of the screen if it
+     * is not laid out yet.
+     */
+    private int viewportHeight() {
+        for (ViewParent p = getParent(); p instanceof View; p = p.getParent()) {
+            if (p instanceof ScrollView) {
+                int height = ((View) p).getHeight();
+                if (height > 0) {
+                    return height;
+                }
+                break;
+            }
+        }
+        return getResources().getDisplayMetrics().heightPixels;
+    }
+
+    @Override
+    public void setAdapter(Adapter adapter) {
+        super.setAdapter(adapter);
+        if (adapter instanceof DataAdapter && mPendingData != null) {
+            ((DataAdapter) adapter).setData(mPendingData);
+            mPendingData = null;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.mozz.htmlnative.view;
 
 import android.content.Context;
+import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
 import android.util.ArrayMap;
 import android.util.Log;
@@ -10,6 +11,8 @@ import android.webkit.WebView;
 import android.widget.FrameLayout;
 import android.widget.ScrollView;
 
+import com.mozz.htmlnative.ViewPool;
+
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +29,8 @@ public final class HNRootView extends ScrollView {
 
     private FrameLayout mContentView;
 
+    private boolean mReleased;
+
     @NonNull
     private List<WebView> mWebViewList = new LinkedList<>();
 
@@ -69,6 +74,29 @@ public final class HNRootView extends ScrollView {
         }
     }
 
+    /**
+     * Release the page once it is closed for good, such as in Activity.onDestroy: its views
+     * are put into {@link ViewPool} to be rendered again by other pages, so it must not be shown
+     * again. Being detached from window is not enough, a page may be attached again. A sliced
+     * render still going on is cancelled.
+     */
+    @MainThread
+    public void release() {
+        mReleased = true;
+        if (ViewPool.get().isEnabled()) {
+            mViewWithId.clear();
+            ViewPool.get().recycleChildren(mContentView);
+        }
+    }
+
+    /**
+     * @return whether {@link #release()} has been called.
+     */
+    @MainThread
+    public boolean isReleased() {
+        return mReleased;
+    }
+
     public View findViewById(@NonNull String id) {
         return mViewWithId.get(id);
     }
@@ -82,6 +110,15 @@ public final class HNRootView extends ScrollView {
         return before;
     }
 
+    /**
+     * Remove id only if it is still of view, another view may have taken it.
+     */
+    public void removeViewWithId(String id, View view) {
+        if (mViewWithId.get(id) == view) {
+            mViewWithId.remove(id);
+        }
+    }
+
     public String allIdTag() {
         return mViewWithId.toString();
     }
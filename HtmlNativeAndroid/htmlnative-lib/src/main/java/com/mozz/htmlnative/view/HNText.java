@@ -1,8 +1,10 @@
 package com.mozz.htmlnative.view;
 
 import android.content.Context;
+import android.content.res.ColorStateList;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Typeface;
 import android.util.AttributeSet;
 import android.widget.TextView;
 
@@ -14,24 +16,70 @@ import com.mozz.htmlnative.css.Background;
 public class HNText extends TextView implements IBackgroundView {
     private BackgroundManager mBackgroundMgr;
 
+    /**
+     * text styles when created, restored by {@link #clearHtmlStyles()}
+     */
+    private ColorStateList mCreatedTextColors;
+    private int mCreatedPaintFlags;
+    private Typeface mCreatedTypeface;
+    private int mCreatedGravity;
+
     public HNText(Context context) {
         super(context);
         mBackgroundMgr = new BackgroundManager(this);
+        saveCreatedStyles();
     }
 
     public HNText(Context context, AttributeSet attrs) {
         super(context, attrs);
         mBackgroundMgr = new BackgroundManager(this);
+        saveCreatedStyles();
     }
 
     public HNText(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
         mBackgroundMgr = new BackgroundManager(this);
+        saveCreatedStyles();
     }
 
     public HNText(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
         super(context, attrs, defStyleAttr, defStyleRes);
         mBackgroundMgr = new BackgroundManager(this);
+        saveCreatedStyles();
+    }
+
+    private void saveCreatedStyles() {
+        mCreatedTextColors = getTextColors();
+        mCreatedPaintFlags = getPaintFlags();
+        mCreatedTypeface = getTypeface();
+        mCreatedGravity = getGravity();
+    }
+
+    /**
+     * Restore the text styles to the ones when created and drop the text and background, before
+     * the view is reused. Text size is always set by the style handler.
+     */
+    public void clearHtmlStyles() {
+        clearHtmlStyles(false);
+    }
+
+    /**
+     * Same as {@link #clearHtmlStyles()}, the background is kept if keepBackground, before the
+     * view is restyled.
+     */
+    public void clearHtmlStyles(boolean keepBackground) {
+        setText(null);
+        setTextColor(mCreatedTextColors);
+        setPaintFlags(mCreatedPaintFlags);
+        setTypeface(mCreatedTypeface);
+        setGravity(mCreatedGravity);
+        setLineSpacing(0, 1);
+        setLetterSpacing(0);
+        setEllipsize(null);
+        setAllCaps(false);
+        if (!keepBackground) {
+            mBackgroundMgr.clearHtmlBackground();
+        }
     }
 
     @Override
@@ -50,4 +98,9 @@ public class HNText extends TextView implements IBackgroundView {
     public Background getHtmlBackground() {
         return mBackgroundMgr.getHtmlBackground();
     }
+
+    @Override
+    public void clearHtmlBackground() {
+        mBackgroundMgr.clearHtmlBackground();
+    }
 }
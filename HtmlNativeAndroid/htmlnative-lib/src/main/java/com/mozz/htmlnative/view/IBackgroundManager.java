@@ -11,4 +11,9 @@ interface IBackgroundManager {
     void setHtmlBackground(Bitmap bitmap, Background background);
 
     Background getHtmlBackground();
+
+    /**
+     * Drop the background, as if never set.
+     */
+    void clearHtmlBackground();
 }
@@ -1,5 +1,6 @@
 package com.mozz.htmlnative.view;
 
+import android.support.v7.widget.RecyclerView;
 import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
@@ -65,6 +66,12 @@ public class LayoutParamsLazyCreator {
         return layoutParams;
     }
 
+    public RecyclerView.LayoutParams toRecyclerLayoutParams() {
+        RecyclerView.LayoutParams layoutParams = new RecyclerView.LayoutParams(width, height);
+        layoutParams.setMargins(marginLeft, marginTop, marginRight, marginBottom);
+        return layoutParams;
+    }
+
     @Override
     public String toString() {
         return "width=" + width + ", height=" + height;
@@ -79,6 +86,8 @@ public class LayoutParamsLazyCreator {
             return creator.toMarginLayoutParams();
         } else if (parent instanceof FlexboxLayout) {
             return creator.toFlexLayoutParams();
+        } else if (parent instanceof HNListView) {
+            return creator.toRecyclerLayoutParams();
         } else {
             throw new IllegalArgumentException("can't create related layoutParams, unknown " +
                     "view type " + parent.toString());
@@ -0,0 +1,60 @@
+package com.mozz.htmlnative;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InheritStyleStackTest {
+
+    private static String visible(InheritStyleStack stack) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < stack.size(); i++) {
+            if (!stack.isOverridden(i)) {
+                sb.append(stack.styleName(i)).append('=').append(stack.style(i)).append(' ');
+            }
+        }
+        return sb.toString().trim();
+    }
+
+    @Test
+    public void overrideByLevel() {
+        InheritStyleStack stack = new InheritStyleStack();
+        stack.push();
+        stack.newStyle("color", "red");
+        stack.newStyle("font-size", "12px");
+        stack.newStyle("color", "blue");
+
+        stack.push();
+        stack.newStyle("color", "green");
+        Assert.assertEquals("font-size=12px color=green", visible(stack));
+
+        stack.pop();
+        Assert.assertEquals("color=blue font-size=12px", visible(stack));
+
+        stack.pop();
+        Assert.assertEquals(0, stack.size());
+    }
+
+    @Test
+    public void deepTree() {
+        InheritStyleStack stack = new InheritStyleStack();
+        int depth = 200;
+        for (int i = 0; i < depth; i++) {
+            stack.push();
+            stack.newStyle("color", i);
+            stack.newStyle("custom-" + i, i);
+        }
+        Assert.assertEquals(depth * 2, stack.size());
+        Assert.assertTrue(visible(stack).startsWith("custom-0=0 custom-1=1"));
+        Assert.assertTrue(visible(stack).endsWith("color=199 custom-199=199"));
+
+        for (int i = 0; i < depth; i++) {
+            stack.pop();
+        }
+        Assert.assertEquals(0, stack.size());
+
+        stack.reset();
+        stack.push();
+        stack.newStyle("color", "red");
+        Assert.assertEquals("color=red", visible(stack));
+    }
+}
@@ -0,0 +1,44 @@
+package com.mozz.htmlnative;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class TextBindingTest {
+
+    @Test
+    public void bindMap() {
+        TextBinding binding = TextBinding.compile("Hi, {{ name }}! {{count}} new");
+        Assert.assertNotNull(binding);
+
+        Map<String, Object> item = new HashMap<>();
+        item.put("name", "Tom");
+        item.put("count", 3);
+        StringBuilder buffer = new StringBuilder();
+        Assert.assertEquals("Hi, Tom! 3 new", binding.bind(item, buffer));
+
+        item.remove("count");
+        Assert.assertEquals("Hi, Tom!  new", binding.bind(item, buffer));
+    }
+
+    @Test
+    public void bindOther() {
+        TextBinding binding = TextBinding.compile("{{title}}");
+        Assert.assertNotNull(binding);
+        Assert.assertEquals("item 1", binding.bind("item 1", new StringBuilder()));
+        Assert.assertEquals("", binding.bind(null, new StringBuilder()));
+    }
+
+    @Test
+    public void notBound() {
+        Assert.assertNull(TextBinding.compile("plain text"));
+        Assert.assertNull(TextBinding.compile("{{unclosed"));
+
+        TextBinding binding = TextBinding.compile("{{a}} and {{b");
+        Assert.assertNotNull(binding);
+        Assert.assertEquals("{{a}} and {{b", binding.toString());
+        Assert.assertEquals("x and {{b", binding.bind("x", new StringBuilder()));
+    }
+}
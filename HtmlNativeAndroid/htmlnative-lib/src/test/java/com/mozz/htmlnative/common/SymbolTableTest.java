@@ -0,0 +1,34 @@
+package com.mozz.htmlnative.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SymbolTableTest {
+
+    @Test
+    public void lookup() {
+        int id = SymbolTable.idOf("div");
+        Assert.assertNotEquals(SymbolTable.UNKNOWN, id);
+        Assert.assertEquals("div", SymbolTable.nameOf(id));
+
+        // builder content is looked up without creating String
+        Assert.assertEquals(id, SymbolTable.idOf(new StringBuilder("div")));
+        Assert.assertSame(SymbolTable.nameOf(id), SymbolTable.intern(new String("div")));
+
+        Assert.assertEquals(SymbolTable.UNKNOWN, SymbolTable.idOf("Div"));
+        Assert.assertEquals(SymbolTable.UNKNOWN, SymbolTable.idOf(new StringBuilder("dix")));
+        Assert.assertNull(SymbolTable.nameOf(SymbolTable.UNKNOWN));
+    }
+
+    @Test
+    public void register() {
+        int size = SymbolTable.size();
+        int id = SymbolTable.register("symbol-table-test-tag");
+
+        Assert.assertEquals(size, id);
+        Assert.assertEquals(id, SymbolTable.register("symbol-table-test-tag"));
+        Assert.assertEquals(id, SymbolTable.idOf(new StringBuilder("symbol-table-test-tag")));
+        Assert.assertEquals(SymbolTable.idOf("width"), SymbolTable.idOf(new StringBuilder
+                ("width")));
+    }
+}
@@ -0,0 +1,32 @@
+package com.mozz.htmlnative.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ValueCacheTest {
+
+    @Test
+    public void hitAndMiss() {
+        ValueCache<Integer> cache = new ValueCache<>("test", 4);
+        Assert.assertNull(cache.get("a"));
+        cache.put("a", 1);
+        Assert.assertEquals(Integer.valueOf(1), cache.get("a"));
+
+        Assert.assertEquals(1, cache.hitCount());
+        Assert.assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void dropLeastRecentlyUsed() {
+        ValueCache<Integer> cache = new ValueCache<>("test", 2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(Integer.valueOf(1), cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals(Integer.valueOf(3), cache.get("c"));
+    }
+}
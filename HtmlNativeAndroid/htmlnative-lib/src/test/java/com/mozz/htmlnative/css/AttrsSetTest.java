@@ -0,0 +1,83 @@
+package com.mozz.htmlnative.css;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AttrsSetTest {
+
+    private static class Owner implements AttrsSet.AttrsOwner {
+        private int mIndex;
+
+        @Override
+        public int attrIndex() {
+            return mIndex;
+        }
+
+        @Override
+        public void setAttrIndex(int newIndex) {
+            mIndex = newIndex;
+        }
+    }
+
+    private static String styles(AttrsSet set, AttrsSet.AttrsOwner owner) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = set.begin(owner), end = set.end(owner); i < end; i++) {
+            sb.append(set.getStyleName(i)).append('=').append(set.getStyle(i)).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    @Test
+    public void putAndGet() {
+        AttrsSet set = new AttrsSet("test", 1);
+        Owner a = new Owner();
+        Owner b = new Owner();
+        set.register(a);
+        set.put(a, "width", "1px");
+        set.put(a, "attrs-set-test", "x");
+        set.register(b);
+        set.put(b, "color", "#fff");
+
+        Assert.assertEquals("width=1px attrs-set-test=x", styles(set, a));
+        Assert.assertEquals("color=#fff", styles(set, b));
+        Assert.assertEquals("1px", set.getStyle(a, PropertyRegistry.WIDTH));
+        Assert.assertEquals("x", set.getStyle(a, "attrs-set-test"));
+        Assert.assertNull(set.getStyle(a, PropertyRegistry.DISPLAY));
+        Assert.assertNull(set.getStyle(b, "width"));
+        Assert.assertNull(set.getStyle(b, "attrs-set-test"));
+    }
+
+    @Test
+    public void putAfterOthers() {
+        AttrsSet set = new AttrsSet("test", 1);
+        Owner parent = new Owner();
+        Owner child = new Owner();
+        set.register(parent);
+        set.put(parent, "width", "1px");
+        set.register(child);
+        set.put(child, "height", "2px");
+
+        // tree puts its text after its children are parsed
+        set.put(parent, "text", "a");
+
+        Assert.assertEquals("width=1px text=a", styles(set, parent));
+        Assert.assertEquals("height=2px", styles(set, child));
+    }
+
+    @Test
+    public void sameStyles() {
+        AttrsSet set = new AttrsSet("test");
+        Owner a = new Owner();
+        Owner b = new Owner();
+        Owner c = new Owner();
+        set.register(a);
+        set.put(a, "margin", new Object[]{"1px", "2px"});
+        set.register(b);
+        set.put(b, "margin", new Object[]{"1px", "2px"});
+        set.register(c);
+        set.put(c, "padding", new Object[]{"1px", "2px"});
+
+        Assert.assertTrue(set.sameStyles(a, b));
+        Assert.assertFalse(set.sameStyles(a, c));
+    }
+}
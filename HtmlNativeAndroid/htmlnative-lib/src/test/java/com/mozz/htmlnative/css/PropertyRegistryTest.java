@@ -0,0 +1,46 @@
+package com.mozz.htmlnative.css;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PropertyRegistryTest {
+
+    @Test
+    public void builtIn() {
+        Assert.assertEquals(PropertyRegistry.WIDTH, PropertyRegistry.idOf("width"));
+        Assert.assertEquals(PropertyRegistry.ALIGN_ITEMS, PropertyRegistry.idOf("align-items"));
+        Assert.assertEquals(PropertyRegistry.TEXT_OVERFLOW, PropertyRegistry.idOf
+                ("text-overflow"));
+        Assert.assertEquals("margin-left", PropertyRegistry.nameOf(PropertyRegistry
+                .MARGIN_LEFT));
+
+        Assert.assertEquals(PropertyRegistry.UNKNOWN, PropertyRegistry.idOf("Width"));
+        Assert.assertEquals(PropertyRegistry.UNKNOWN, PropertyRegistry.idOf("div"));
+        Assert.assertNull(PropertyRegistry.nameOf(PropertyRegistry.UNKNOWN));
+    }
+
+    @Test
+    public void register() {
+        Assert.assertFalse(PropertyRegistry.isKnown("property-registry-test"));
+
+        int size = PropertyRegistry.size();
+        int id = PropertyRegistry.register("property-registry-test");
+
+        Assert.assertEquals(size, id);
+        Assert.assertEquals(id, PropertyRegistry.register("property-registry-test"));
+        Assert.assertEquals(id, PropertyRegistry.idOf("property-registry-test"));
+        Assert.assertEquals(PropertyRegistry.COLOR, PropertyRegistry.register("color"));
+    }
+
+    @Test
+    public void inherit() {
+        InheritStylesRegistry.register(Styles.ATTR_VISIBLE);
+        Assert.assertTrue(InheritStylesRegistry.isInherit(PropertyRegistry.VISIBILITY));
+        Assert.assertFalse(InheritStylesRegistry.isInherit(PropertyRegistry.WIDTH));
+        Assert.assertFalse(InheritStylesRegistry.isInherit(PropertyRegistry.UNKNOWN));
+
+        InheritStylesRegistry.register("property-registry-inherit");
+        Assert.assertTrue(InheritStylesRegistry.isInherit(PropertyRegistry.idOf
+                ("property-registry-inherit")));
+    }
+}
@@ -3,7 +3,9 @@ package com.mozz.htmlnative.parser;
 import com.mozz.htmlnative.exception.HNSyntaxError;
 import com.mozz.htmlnative.reader.StringTextReader;
 import com.mozz.htmlnative.parser.token.Token;
+import com.mozz.htmlnative.parser.token.TokenType;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.EOFException;
@@ -45,6 +47,19 @@ public class LexerTest {
         }
     }
 
+    @Test
+    public void innerStartsWithBrace() throws Exception {
+        Lexer lexer = new Lexer(new StringTextReader("<p>{{title}} of {{name}}</p>"));
+        Assert.assertEquals(TokenType.StartAngleBracket, lexer.scan().type());
+        Assert.assertEquals(TokenType.Id, lexer.scan().type());
+        Assert.assertEquals(TokenType.EndAngleBracket, lexer.scan().type());
+
+        Token inner = lexer.scan();
+        Assert.assertEquals(TokenType.Inner, inner.type());
+        Assert.assertEquals("{{title}} of {{name}}", inner.stringValue());
+        Assert.assertEquals(TokenType.StartAngleBracket, lexer.scan().type());
+    }
+
     private static void debug(String msg) {
         System.out.println(msg);
     }
@@ -0,0 +1,96 @@
+package com.mozz.htmlnative.reader;
+
+import com.mozz.htmlnative.CodeToTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+
+public class MappedTextReaderTest {
+
+    @Test
+    public void sameAsStreamReader() throws Exception {
+        String code = CodeToTest.codeScriptFirst + "\n<p>\u4e2d\u6587 \uD83D\uDE00 \u00e9</p>";
+
+        File file = File.createTempFile("mapped", ".html");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(code.getBytes("UTF-8"));
+        out.close();
+
+        TextReader expected = new StreamReader(new InputStreamReader(new FileInputStream(file),
+                "UTF-8"));
+        MappedTextReader actual = new MappedTextReader(file);
+
+        while (true) {
+            char c;
+            try {
+                c = expected.nextCh();
+            } catch (EOFException e) {
+                try {
+                    actual.nextCh();
+                    Assert.fail("should reach the end");
+                } catch (EOFException ignored) {
+                }
+                break;
+            }
+
+            Assert.assertEquals(c, actual.nextCh());
+            Assert.assertEquals(expected.line(), actual.line());
+            Assert.assertEquals(expected.column(), actual.column());
+            Assert.assertEquals(expected.countOfRead(), actual.countOfRead());
+        }
+
+        expected.close();
+        actual.close();
+    }
+
+    @Test
+    public void malformed() throws Exception {
+        File file = File.createTempFile("mapped", ".html");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[]{'a', (byte) 0xE4, 'b'});
+        out.close();
+
+        MappedTextReader reader = new MappedTextReader(file);
+        Assert.assertEquals('a', reader.nextCh());
+        Assert.assertEquals('\uFFFD', reader.nextCh());
+        Assert.assertEquals('b', reader.nextCh());
+        reader.close();
+    }
+
+    @Test
+    public void fromFileAtPosition() throws Exception {
+        File file = File.createTempFile("mapped", ".html");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        out.write("<p>hi</p>".getBytes("UTF-8"));
+        out.close();
+
+        FileInputStream in = new FileInputStream(file);
+        Assert.assertEquals('<', in.read());
+        MappedTextReader reader = MappedTextReader.fromFile(in, in.getChannel().position());
+        Assert.assertFalse(in.getChannel().isOpen());
+
+        Assert.assertEquals('p', reader.nextCh());
+        Assert.assertEquals('>', reader.nextCh());
+        reader.close();
+    }
+
+    @Test
+    public void bytes() throws Exception {
+        MappedTextReader reader = new MappedTextReader(ByteBuffer.wrap("\uFEFFa\u00e9".getBytes
+                ("UTF-8")));
+        Assert.assertEquals('a', reader.nextCh());
+        Assert.assertEquals('\u00e9', reader.nextCh());
+        Assert.assertEquals(' ', reader.nextCh());
+        reader.close();
+    }
+}